@@ -0,0 +1,106 @@
+package io.github.greenstevester.heuvana;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.cert.CertificateFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the Hue TLS context per connection, as every {@link SecureJsonFactory} used to do,
+ * with the process-wide {@link HueTlsContext}. Run with {@code -prof gc} to see the allocation savings.
+ *
+ * <p>The handshake benchmarks connect to a real Bridge and only run when its address is given with
+ * {@code -Dhue.bridgeIp=192.168.1.99}. With the shared context, every handshake after the first resumes
+ * the cached TLS session.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HueTlsContextBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Bridge {
+    String host;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      host = System.getProperty("hue.bridgeIp");
+    }
+  }
+
+  @Benchmark
+  public SSLSocketFactory freshContext() throws Exception {
+    return createContext().getSocketFactory();
+  }
+
+  @Benchmark
+  public SSLSocketFactory sharedContext() {
+    return HueTlsContext.forHost("192.168.1.99").getSocketFactory();
+  }
+
+  @Benchmark
+  public Object secureJsonFactory() {
+    return new SecureJsonFactory("192.168.1.99");
+  }
+
+  @Benchmark
+  public Object freshContextHandshake(final Bridge bridge) throws Exception {
+    return handshake(createContext().getSocketFactory(), bridge.host);
+  }
+
+  @Benchmark
+  public Object sharedContextHandshake(final Bridge bridge) throws Exception {
+    return handshake(HueTlsContext.forHost(bridge.host).getSocketFactory(), bridge.host);
+  }
+
+  private static Object handshake(final SSLSocketFactory socketFactory, final String host) throws Exception {
+    if (host == null) {
+      return null;
+    }
+    try (SSLSocket socket = (SSLSocket) socketFactory.createSocket(host, 443)) {
+      socket.startHandshake();
+      return socket.getSession().getId();
+    }
+  }
+
+  /**
+   * The way the context was built before it was shared.
+   */
+  private static SSLContext createContext() throws Exception {
+    final KeyStore keystore = KeyStore.getInstance("JKS");
+    keystore.load(null, new char[0]);
+    try (InputStream certInputStream =
+             HueTlsContextBenchmark.class.getClassLoader().getResourceAsStream("hue_certificate.pem")) {
+      keystore.setCertificateEntry("PhilipsHue",
+          CertificateFactory.getInstance("X.509").generateCertificate(certInputStream));
+    }
+    final TrustManagerFactory trustManagerFactory =
+        TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+    trustManagerFactory.init(keystore);
+    final X509TrustManager trustManager = new SelfSignedHueBridgeCertificateAcceptingTrustManager(
+        (X509TrustManager) trustManagerFactory.getTrustManagers()[0]);
+    final SSLContext context = SSLContext.getInstance("TLS");
+    context.init(null, new TrustManager[]{trustManager}, null);
+    return context;
+  }
+}
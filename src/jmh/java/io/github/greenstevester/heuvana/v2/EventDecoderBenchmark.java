@@ -0,0 +1,68 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.domain.HueEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares binding each event stream message into {@code List<HueEvent>}, as {@link BasicHueEventHandler} does
+ * for listeners of all events, with the streaming {@link EventDecoder} used for button and motion listeners.
+ * The messages are captured from a Bridge, see {@code src/test/resources/events}. Run with {@code -prof gc}
+ * to compare the allocation per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventDecoderBenchmark {
+
+  @Param({"light-update.json", "button.json", "motion.json", "scene-recall.json"})
+  public String payload;
+
+  private ObjectMapper objectMapper;
+  private EventDecoder decoder;
+  private String json;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    objectMapper = HttpUtil.buildObjectMapper(null);
+    decoder = new EventDecoder(objectMapper.getFactory(), Set.of("button", "motion"));
+    try (InputStream input = getClass().getClassLoader().getResourceAsStream("events/" + payload)) {
+      json = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Benchmark
+  public List<HueEvent> bindAll() throws Exception {
+    return objectMapper.readValue(json, BasicHueEventHandler.EVENT_LIST_TYPE_REF);
+  }
+
+  @Benchmark
+  public Object readTree() throws Exception {
+    return objectMapper.readTree(json);
+  }
+
+  @Benchmark
+  public List<DecodedEvent> decodeButtonsAndMotion() throws Exception {
+    return decoder.decode(json);
+  }
+}
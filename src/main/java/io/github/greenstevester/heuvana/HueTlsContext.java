@@ -0,0 +1,128 @@
+package io.github.greenstevester.heuvana;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TLS settings for connecting to Hue Bridges, shared by the whole process.
+ *
+ * <p>The Signify CA certificate is parsed and the {@link SSLContext} is created only once, when the first
+ * context is requested. All the contexts share that {@link SSLContext}, and with it its client session cache,
+ * so that connections to a Bridge that has been connected to before resume the previous TLS session instead
+ * of making a full handshake. Each Bridge host gets its own context only for the hostname check.</p>
+ *
+ * @since 5.3.0
+ */
+public final class HueTlsContext {
+  private static final int SESSION_CACHE_SIZE = 64;
+  private static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+  private static final Map<String, HueTlsContext> contextsByHost = new ConcurrentHashMap<>();
+  private static volatile Shared shared;
+
+  private final SSLSocketFactory socketFactory;
+  private final X509TrustManager trustManager;
+  private final HostnameVerifier hostnameVerifier;
+
+  private HueTlsContext(final Shared shared, final String bridgeHost) {
+    this.socketFactory = shared.socketFactory;
+    this.trustManager = shared.trustManager;
+    this.hostnameVerifier = (hostname, session) -> bridgeHost.isEmpty() || hostname.equals(bridgeHost);
+  }
+
+  /**
+   * Returns the context for a Bridge.
+   *
+   * @param bridgeIp The IP address of the Bridge, optionally with a port, or {@code null} to accept any host,
+   *                 as needed while discovering Bridges.
+   * @return The cached context for the Bridge.
+   */
+  public static HueTlsContext forHost(final String bridgeIp) {
+    final String bridgeHost = bridgeIp == null ? "" : bridgeIp.contains(":") ? bridgeIp.split(":")[0] : bridgeIp;
+    return contextsByHost.computeIfAbsent(bridgeHost, host -> new HueTlsContext(shared(), host));
+  }
+
+  /**
+   * @return The {@link SSLContext} shared by all the contexts.
+   */
+  public static SSLContext getSslContext() {
+    return shared().sslContext;
+  }
+
+  private static Shared shared() {
+    Shared result = shared;
+    if (result == null) {
+      synchronized (HueTlsContext.class) {
+        result = shared;
+        if (result == null) {
+          result = new Shared();
+          shared = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  public SSLSocketFactory getSocketFactory() {
+    return socketFactory;
+  }
+
+  public X509TrustManager getTrustManager() {
+    return trustManager;
+  }
+
+  public HostnameVerifier getHostnameVerifier() {
+    return hostnameVerifier;
+  }
+
+  /**
+   * Holds the TLS material, created lazily when the first context is requested.
+   */
+  private static final class Shared {
+    private final SSLContext sslContext;
+    private final SSLSocketFactory socketFactory;
+    private final X509TrustManager trustManager;
+
+    private Shared() {
+      try {
+        final KeyStore keystore;
+        try (InputStream certInputStream = HueTlsContext.class.getClassLoader().getResourceAsStream("hue_certificate.pem")) {
+          keystore = KeyStore.getInstance("JKS");
+          keystore.load(null, new char[0]);
+
+          final CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+          final Certificate certificate = certificateFactory.generateCertificate(certInputStream);
+          keystore.setCertificateEntry("PhilipsHue", certificate);
+        }
+
+        final TrustManagerFactory trustManagerFactory =
+            TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keystore);
+        final X509TrustManager defaultTrustManager = (X509TrustManager) trustManagerFactory.getTrustManagers()[0];
+        this.trustManager = new SelfSignedHueBridgeCertificateAcceptingTrustManager(defaultTrustManager);
+
+        this.sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{trustManager}, null);
+        final SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(SESSION_CACHE_SIZE);
+        sessionContext.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+        this.socketFactory = sslContext.getSocketFactory();
+      } catch (IOException | GeneralSecurityException exception) {
+        throw new HueApiException(exception);
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Group}.
+ *
+ * @see Group#async()
+ * @since 5.3.0
+ */
+public interface AsyncGroup {
+
+  /**
+   * Queries the state of the group of lights.
+   *
+   * @return A future completed with true if any light is on in this group, false if not.
+   */
+  CompletableFuture<Boolean> isAnyOnAsync();
+
+  /**
+   * Turns the lights on.
+   *
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> turnOnAsync();
+
+  /**
+   * Turns the lights off.
+   *
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> turnOffAsync();
+
+  /**
+   * Sets the brightness of the lights. If the lights are off, does not turn them on, nor does {@code 0} turn them off.
+   *
+   * @param brightness A value from {@code 1} (minimum brightness) to {@code 100} (maximum brightness).
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> setBrightnessAsync(int brightness);
+
+  /**
+   * Sets a state for the group, using its grouped light resource.
+   *
+   * @param state A state to be set for this group.
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> setStateAsync(UpdateState state);
+
+  /**
+   * Sets the given state for every light of the group individually. The requests are handed over at once, but like
+   * any light command, each one goes through the {@link WriteBehindBuffer} and then waits for the light lane of the
+   * {@link CommandScheduler}, which sends about 10 light commands per second after a burst of 10. A room of 60
+   * lights is therefore updated over about five to six seconds, one light after the other.
+   *
+   * <p>To change all the lights at once, use {@link #setStateAsync(UpdateState)}, which takes a single request
+   * to the grouped light, paced by the group lane of about one command per second. Use this method only when the
+   * lights must receive the state one by one, for example so that the group rate limit is left to other commands.</p>
+   *
+   * @param state A state to be set for each light of this group.
+   * @return A future completed with the responses of the Bridge, once all the lights have been updated.
+   */
+  CompletableFuture<List<UpdateResult>> setStateOfEachLightAsync(UpdateState state);
+}
@@ -0,0 +1,53 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Light}. None of the methods wait for the Bridge to respond:
+ * they return a {@link CompletableFuture} that is completed once the response arrives, so that a single
+ * thread can keep any number of requests in flight.
+ *
+ * @see Light#async()
+ * @since 5.3.0
+ */
+public interface AsyncLight {
+
+  /**
+   * Turns the light on.
+   *
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> turnOnAsync();
+
+  /**
+   * Turns the light off.
+   *
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> turnOffAsync();
+
+  /**
+   * Queries the light state.
+   *
+   * @return A future completed with true if the light is on, false if it is off.
+   */
+  CompletableFuture<Boolean> isOnAsync();
+
+  /**
+   * Sets the brightness of the light. If the light is off, does not turn it on, nor does {@code 0} turn it off.
+   *
+   * @param brightness A value from {@code 1} (minimum brightness) to {@code 100} (maximum brightness).
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> setBrightnessAsync(int brightness);
+
+  /**
+   * Sets a state for the light.
+   *
+   * @param state A state to be set for this light.
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> setStateAsync(UpdateState state);
+}
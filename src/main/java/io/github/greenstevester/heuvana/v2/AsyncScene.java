@@ -0,0 +1,21 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Scene}.
+ *
+ * @see Scene#async()
+ * @since 5.3.0
+ */
+public interface AsyncScene {
+
+  /**
+   * Activates this scene.
+   *
+   * @return A future completed with the response of the Bridge.
+   */
+  CompletableFuture<UpdateResult> activateAsync();
+}
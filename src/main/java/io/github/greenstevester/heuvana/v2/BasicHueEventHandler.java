@@ -5,15 +5,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.launchdarkly.eventsource.MessageEvent;
 import com.launchdarkly.eventsource.background.BackgroundEventHandler;
 import io.github.greenstevester.heuvana.v2.domain.HueEvent;
+import io.github.greenstevester.heuvana.v2.domain.HueEventData;
 import io.github.greenstevester.heuvana.v2.domain.event.ButtonEvent;
+import io.github.greenstevester.heuvana.v2.domain.event.LightStateChangedEvent;
 import io.github.greenstevester.heuvana.v2.domain.event.MotionEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Basic implementation of a Hue event handler that processes events from the Hue Bridge.
+ * The events are parsed on the thread reading the event stream, and handed to the listener
+ * through an {@link EventDispatcher}. Unless the listener implements {@link HueEventListener#receive(List)},
+ * only the button and motion events are read from the messages, with a streaming parser.
  */
 public class BasicHueEventHandler implements BackgroundEventHandler {
   private static final Logger logger = LoggerFactory.getLogger(BasicHueEventHandler.class);
@@ -23,68 +29,205 @@ public class BasicHueEventHandler implements BackgroundEventHandler {
   public static final TypeReference<List<HueEvent>> EVENT_LIST_TYPE_REF = new TypeReference<List<HueEvent>>() {
   };
 
+  static final Set<String> BUTTON_AND_MOTION = Set.of("button", "motion");
+
   private final ObjectMapper objectMapper;
   private final Hue hue;
   private final HueEventListener eventListener;
+  private final EventDispatcher dispatcher;
+  private final EventMetrics metrics;
+  private final EventDecoder decoder;
+  private final boolean announceLightStates;
 
   /**
-   * Creates a new BasicHueEventHandler.
+   * Creates a new BasicHueEventHandler with the default queue settings.
    *
    * @param hue the Hue instance to use for object mapping
    * @param eventListener the listener to receive processed events
    */
   public BasicHueEventHandler(final Hue hue, final HueEventListener eventListener) {
+    this(hue, eventListener, EventDispatchConfig.defaults());
+  }
+
+  /**
+   * Creates a new BasicHueEventHandler.
+   *
+   * @param hue the Hue instance to use for object mapping
+   * @param eventListener the listener to receive processed events
+   * @param dispatchConfig the queue settings for delivering the events to the listener
+   * @since 5.3.0
+   */
+  public BasicHueEventHandler(final Hue hue, final HueEventListener eventListener,
+                              final EventDispatchConfig dispatchConfig) {
     this.objectMapper = hue.objectMapper;
     this.hue = hue;
     this.eventListener = eventListener;
+    this.dispatcher = new EventDispatcher(dispatchConfig);
+    this.metrics = hue.eventMetrics;
+    this.announceLightStates = overrides(eventListener, "receiveLightStateEvent", LightStateChangedEvent.class);
+    // Listeners that only want button and motion events do not need the messages bound into full events
+    this.decoder = overrides(eventListener, "receive", List.class) || announceLightStates
+        ? null
+        : hue.buttonAndMotionDecoder;
+  }
+
+  private static boolean overrides(final HueEventListener eventListener, final String method, final Class<?> parameter) {
+    try {
+      return eventListener.getClass().getMethod(method, parameter).getDeclaringClass() != HueEventListener.class;
+    } catch (final NoSuchMethodException e) {
+      return true;
+    }
+  }
+
+  /**
+   * @return The dispatcher delivering the events to the listener, with its queue depth and drop counters.
+   * @since 5.3.0
+   */
+  public EventDispatcher getDispatcher() {
+    return dispatcher;
   }
 
   @Override
   public void onOpen() throws Exception {
     logger.trace("Connection opened.");
-    eventListener.connectionOpened();
+    dispatcher.dispatch(null, false, eventListener::connectionOpened);
   }
 
   @Override
   public void onClosed() throws Exception {
     logger.trace("Connection closed.");
-    eventListener.connectionClosed();
+    dispatcher.dispatch(null, false, eventListener::connectionClosed);
   }
 
   @Override
   public void onMessage(final String event, final MessageEvent messageEvent) throws Exception {
     logger.debug("Message: " + messageEvent.getData());
-    final List<HueEvent> hueEvents = objectMapper.readValue(messageEvent.getData(), EVENT_LIST_TYPE_REF);
-    eventListener.receive(hueEvents);
+    if (decoder != null) {
+      announceDecoded(decoder.decode(messageEvent.getData()));
+    } else {
+      announce(objectMapper.readValue(messageEvent.getData(), EVENT_LIST_TYPE_REF));
+    }
+  }
+
+  /**
+   * @return This handler as a subscriber of the {@link SharedEventStream} of the {@link Hue} instance,
+   *     which parses each message once for all its subscribers.
+   */
+  EventStreamListener asStreamListener() {
+    return new EventStreamListener() {
+      @Override
+      public void onOpen() {
+        dispatcher.dispatch(null, false, eventListener::connectionOpened);
+      }
+
+      @Override
+      public void onClosed() {
+        dispatcher.dispatch(null, false, eventListener::connectionClosed);
+      }
+
+      @Override
+      public void onEvents(final EventMessage message) {
+        if (decoder != null) {
+          announceDecoded(message.decode(decoder));
+        } else {
+          announce(message.getEvents());
+        }
+      }
+
+      @Override
+      public String toString() {
+        return String.valueOf(eventListener);
+      }
+    };
+  }
+
+  private void announce(final List<HueEvent> hueEvents) {
+    dispatcher.dispatch(null, true, timed("all", () -> eventListener.receive(hueEvents)));
     parseAndAnnounceButtonEvents(hueEvents);
   }
 
   private void parseAndAnnounceButtonEvents(final List<HueEvent> hueEvents) {
-    hueEvents.stream().flatMap(eventsItem ->
-        eventsItem.getData().stream()
-            .filter(data -> data.getButton().isPresent())
-            .map(data -> {
-              final Switch theSwitch = hue.getSwitches().get(data.getOwner().getResourceId());
-              return new ButtonEvent(eventsItem.getCreationTime(),
-                  theSwitch,
-                  theSwitch.getButtons().get(data.getResourceId()),
-                  ButtonEventType.parseFromButtonEventType(data.getButton().get().getLastEvent()),
-                  eventsItem.getId());
-            })
-    ).forEach(eventListener::receiveButtonEvent);
-    hueEvents.stream().flatMap(eventsItem ->
-        eventsItem.getData().stream()
-            .filter(data -> data.getMotion().isPresent())
-            .map(motion -> {
-              final Device device = hue.getMotionSensors().get(motion.getOwner().getResourceId());
-              return new MotionEvent(eventsItem.getCreationTime(),
-                  eventsItem.getId(),
-                  device,
-                  motion.getMotion().get().isMotion(),
-                  motion.getMotion().get().isMotionValid()
-              );
-            })
-    ).forEach(eventListener::receiveMotionEvent);
+    for (final HueEvent eventsItem : hueEvents) {
+      for (final HueEventData data : eventsItem.getData()) {
+        if (data.getButton().isPresent()) {
+          final Switch theSwitch = hue.getSwitches().get(data.getOwner().getResourceId());
+          final ButtonEvent buttonEvent = new ButtonEvent(eventsItem.getCreationTime(),
+              theSwitch,
+              theSwitch.getButtons().get(data.getResourceId()),
+              ButtonEventType.parseFromButtonEventType(data.getButton().get().getLastEvent()),
+              eventsItem.getId());
+          // Not coalesced: every press and release of a button counts
+          dispatcher.dispatch("button:" + data.getResourceId(), false, true,
+              timed(data.getType(), () -> eventListener.receiveButtonEvent(buttonEvent)));
+        } else if (data.getMotion().isPresent()) {
+          final Device device = hue.getMotionSensors().get(data.getOwner().getResourceId());
+          final MotionEvent motionEvent = new MotionEvent(eventsItem.getCreationTime(),
+              eventsItem.getId(),
+              device,
+              data.getMotion().get().isMotion(),
+              data.getMotion().get().isMotionValid()
+          );
+          dispatcher.dispatch("motion:" + data.getResourceId(), true,
+              timed(data.getType(), () -> eventListener.receiveMotionEvent(motionEvent)));
+        } else if (announceLightStates && LightStateChangedEvent.isLightStateChange(data)) {
+          final LightStateChangedEvent lightEvent =
+              new LightStateChangedEvent(eventsItem.getCreationTime(), eventsItem.getId(), data);
+          // Not coalesced: each event only carries the parts of the state that changed
+          dispatcher.dispatch(data.getType() + ":" + data.getResourceId(), false, true,
+              timed(data.getType(), () -> eventListener.receiveLightStateEvent(lightEvent)));
+        }
+      }
+    }
+  }
+
+  private void announceDecoded(final List<DecodedEvent> events) {
+    for (final DecodedEvent event : events) {
+      if (event.getButtonEvent() != null) {
+        final ButtonEvent buttonEvent = toButtonEvent(hue, event);
+        dispatcher.dispatch("button:" + event.getResourceId(), false, true,
+            timed(event.getResourceType(), () -> eventListener.receiveButtonEvent(buttonEvent)));
+      } else if (event.getMotion() != null) {
+        final MotionEvent motionEvent = toMotionEvent(hue, event);
+        dispatcher.dispatch("motion:" + event.getResourceId(), true,
+            timed(event.getResourceType(), () -> eventListener.receiveMotionEvent(motionEvent)));
+      }
+    }
+  }
+
+  /**
+   * Wraps a delivery to the listener to report how long it waited in the queue and how long the listener took.
+   */
+  private Runnable timed(final String eventType, final Runnable delivery) {
+    if (!EventLatencies.isRecording(metrics)) {
+      return delivery;
+    }
+    final long queuedAt = System.nanoTime();
+    return () -> {
+      final long startedAt = System.nanoTime();
+      metrics.record(eventType, EventLatencyStage.QUEUE_WAIT, startedAt - queuedAt);
+      try {
+        delivery.run();
+      } finally {
+        metrics.record(eventType, EventLatencyStage.LISTENER, System.nanoTime() - startedAt);
+      }
+    };
+  }
+
+  static ButtonEvent toButtonEvent(final Hue hue, final DecodedEvent event) {
+    final Switch theSwitch = hue.getSwitches().get(event.getOwnerId());
+    return new ButtonEvent(event.getCreationTime(),
+        theSwitch,
+        theSwitch.getButtons().get(event.getResourceId()),
+        ButtonEventType.parseFromButtonEventType(event.getButtonEvent()),
+        event.getEventId());
+  }
+
+  static MotionEvent toMotionEvent(final Hue hue, final DecodedEvent event) {
+    return new MotionEvent(event.getCreationTime(),
+        event.getEventId(),
+        hue.getMotionSensors().get(event.getOwnerId()),
+        event.getMotion(),
+        event.isMotionValid());
   }
 
   @Override
@@ -1,10 +1,9 @@
 package io.github.greenstevester.heuvana.v2;
 
 import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.XAndYAndBrightness;
 
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -34,17 +33,25 @@ public class ColorFadeEffect {
     private final int steps;
     private final Runnable onComplete;
 
-    private volatile ScheduledExecutorService executor;
+    private final TransitionPlanner planner;
+    private final EffectEngine engine;
+    private volatile EffectEngine.Handle handle;
+    private Color[] curve;
+    private int[] keyframes;
+    private int nextKeyframe;
     private final AtomicBoolean running = new AtomicBoolean(false);
 
     private ColorFadeEffect(final Light light, final Color fromColor, final Color toColor,
-                           final Duration duration, final int steps, final Runnable onComplete) {
+                           final Duration duration, final int steps, final Runnable onComplete,
+                           final TransitionPlanner planner, final EffectEngine engine) {
         this.light = light;
         this.fromColor = fromColor;
         this.toColor = toColor;
         this.duration = duration;
         this.steps = steps;
         this.onComplete = onComplete;
+        this.planner = planner;
+        this.engine = engine;
     }
 
     /**
@@ -55,57 +62,66 @@ public class ColorFadeEffect {
             throw new IllegalStateException("Effect is already running");
         }
 
-        // Create executor - done here to avoid resource leak if effect is never started
-        executor = Executors.newSingleThreadScheduledExecutor();
-
         // Calculate delay between steps
         final long delayMs = duration.toMillis() / steps;
 
         // Validate delay is reasonable
         if (delayMs < 10) {
             running.set(false);
-            executor.shutdown();
             throw new IllegalStateException(
                 "Duration too short for number of steps (minimum 10ms per step required)");
         }
 
+        // Sample the fade at every step, and only send the steps that the Bridge cannot reach by fading linearly
+        curve = new Color[steps + 1];
+        final double[][] samples = new double[steps + 1][];
+        for (int step = 0; step <= steps; step++) {
+            curve[step] = interpolateColor(fromColor, toColor, (float) step / steps);
+            final XAndYAndBrightness xy = XAndYAndBrightness.rgbToXy(curve[step]);
+            samples[step] = new double[] {xy.getX(), xy.getY(), xy.getBrightnessMax100()};
+        }
+        keyframes = planner.planColor(samples);
+
         // Set initial color
         light.setState(new UpdateState().color(fromColor).on());
 
-        // Schedule first step, which will schedule subsequent steps
-        scheduleStep(1, delayMs);
+        // Each keyframe is sent when the previous one is reached, to fade until it is due
+        nextKeyframe = 1;
+        handle = engine.start(elapsed -> renderKeyframe(elapsed, delayMs), 0);
     }
 
     /**
-     * Schedules a single step, which will recursively schedule the next step.
+     * Sends the next keyframe that is still due, with a transition that reaches it when it is due. Keyframes that
+     * a late frame has already passed are skipped.
      *
-     * @param step Current step number (1-based)
+     * @param elapsed The nanoseconds since the start of the effect
      * @param delayMs Delay between steps in milliseconds
+     * @return The nanoseconds until the keyframe is reached, or {@link EffectEngine#DONE} once the last one is
      */
-    private void scheduleStep(final int step, final long delayMs) {
-        if (!running.get() || step > steps) {
-            return;
+    private long renderKeyframe(final long elapsed, final long delayMs) {
+        if (!running.get()) {
+            return EffectEngine.DONE;
         }
 
-        executor.schedule(() -> {
-            // Double-check running flag at execution time
-            if (!running.get()) {
-                return;
-            }
+        // On final step
+        if (nextKeyframe >= keyframes.length) {
+            handleCompletion();
+            return EffectEngine.DONE;
+        }
 
-            final Color interpolatedColor = interpolateColor(fromColor, toColor, (float) step / steps);
-            light.setState(new UpdateState().color(interpolatedColor).on());
-
-            // On final step
-            if (step == steps) {
-                handleCompletion();
-            } else {
-                // Check running flag again before scheduling next step to avoid race condition
-                if (running.get()) {
-                    scheduleStep(step + 1, delayMs);
-                }
-            }
-        }, delayMs, TimeUnit.MILLISECONDS);
+        final long stepNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+        int keyframe = nextKeyframe;
+        while (keyframe < keyframes.length - 1 && keyframes[keyframe] * stepNanos <= elapsed) {
+            keyframe++;
+        }
+        nextKeyframe = keyframe + 1;
+
+        final Duration transition = Duration.ofNanos(Math.max(0, keyframes[keyframe] * stepNanos - elapsed));
+        engine.send(light, new UpdateState().color(curve[keyframes[keyframe]]).on()
+                .transitionTime(transition)
+                .priority(CommandPriority.BACKGROUND)
+                .deadline(transition.isZero() ? Duration.ofMillis(delayMs) : transition));
+        return transition.toNanos();
     }
 
     /**
@@ -113,11 +129,58 @@ public class ColorFadeEffect {
      */
     public void stop() {
         running.set(false);
-        if (executor != null) {
-            executor.shutdownNow();
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    /**
+     * Pauses the effect, keeping the light as it is until {@link #resume()}.
+     *
+     * @since 5.3.0
+     */
+    public void pause() {
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.pause();
         }
     }
 
+    /**
+     * Resumes a paused effect where it was paused.
+     *
+     * @since 5.3.0
+     */
+    public void resume() {
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.resume();
+        }
+    }
+
+    /**
+     * Returns whether the effect is paused.
+     *
+     * @return true if paused, false otherwise
+     * @since 5.3.0
+     */
+    public boolean isPaused() {
+        final EffectEngine.Handle current = handle;
+        return running.get() && current != null && current.isPaused();
+    }
+
+    /**
+     * Returns how well the engine kept to the timing of the keyframes.
+     *
+     * @return The frame statistics of the effect
+     * @since 5.3.0
+     */
+    public FrameStats getFrameStats() {
+        final EffectEngine.Handle current = handle;
+        return current != null ? current.getStats() : new FrameStats();
+    }
+
     /**
      * Returns whether the effect is currently running.
      *
@@ -130,28 +193,8 @@ public class ColorFadeEffect {
     private void handleCompletion() {
         running.set(false);
 
-        // Proper executor shutdown with timeout
-        if (executor != null) {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-
-        // Execute callback with exception handling to prevent user code from breaking cleanup
-        if (onComplete != null) {
-            try {
-                onComplete.run();
-            } catch (Exception e) {
-                // Log error but don't propagate to avoid breaking effect cleanup
-                System.err.println("Error in ColorFadeEffect completion callback: " + e.getMessage());
-            }
-        }
+        // Off the timing thread, and with failures logged, so that user code cannot break the other effects
+        engine.complete(onComplete);
     }
 
     /**
@@ -188,6 +231,8 @@ public class ColorFadeEffect {
         private Duration duration = Duration.ofSeconds(10);
         private int steps = 50; // 50 steps for smooth transition
         private Runnable onComplete;
+        private TransitionPlanner planner = TransitionPlanner.defaults();
+        private EffectEngine engine;
 
         /**
          * Sets the light to apply the effect to.
@@ -234,7 +279,8 @@ public class ColorFadeEffect {
         }
 
         /**
-         * Sets the number of steps for the fade (more steps = smoother).
+         * Sets the number of steps the fade is sampled at (more steps = closer to the exact colors). Only the steps
+         * that the Bridge cannot reach by fading linearly from the previous one are sent, see {@link TransitionPlanner}.
          *
          * @param steps Number of color transition steps
          * @return This builder
@@ -255,6 +301,33 @@ public class ColorFadeEffect {
             return this;
         }
 
+        /**
+         * Sets how closely the fades of the Bridge must follow the steps (default: {@link TransitionPlanner#defaults()}).
+         *
+         * @param planner The planner of the keyframes
+         * @return This builder
+         * @since 5.3.0
+         */
+        public Builder planner(final TransitionPlanner planner) {
+            if (planner == null) {
+                throw new IllegalArgumentException("Planner must not be null");
+            }
+            this.planner = planner;
+            return this;
+        }
+
+        /**
+         * Sets the engine to run the effect on (default: the {@link Light#getEffectEngine() engine of the light}).
+         *
+         * @param engine The effect engine
+         * @return This builder
+         * @since 5.3.0
+         */
+        public Builder engine(final EffectEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
         /**
          * Builds the ColorFadeEffect.
          *
@@ -274,7 +347,8 @@ public class ColorFadeEffect {
                 throw new IllegalStateException("Steps must be at least 2");
             }
 
-            return new ColorFadeEffect(light, fromColor, toColor, duration, steps, onComplete);
+            return new ColorFadeEffect(light, fromColor, toColor, duration, steps, onComplete, planner,
+                    engine != null ? engine : light.getEffectEngine());
         }
     }
 }
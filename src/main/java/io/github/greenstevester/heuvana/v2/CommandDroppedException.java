@@ -0,0 +1,16 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Completes the future of a command that the {@link CommandScheduler} did not send, because the
+ * deadline of the command passed while it was waiting for the rate limit of the Bridge.
+ *
+ * @see UpdateState#deadline(java.time.Duration)
+ * @since 5.3.0
+ */
+public class CommandDroppedException extends CancellationException {
+  public CommandDroppedException(final String message) {
+    super(message);
+  }
+}
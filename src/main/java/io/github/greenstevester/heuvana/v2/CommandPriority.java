@@ -0,0 +1,25 @@
+package io.github.greenstevester.heuvana.v2;
+
+/**
+ * Priority lanes of the {@link CommandScheduler}. When the rate limit of the Bridge is reached,
+ * queued commands are sent in this order, and in submission order within the same priority.
+ *
+ * @see UpdateState#priority(CommandPriority)
+ * @since 5.3.0
+ */
+public enum CommandPriority {
+  /**
+   * Direct user interaction, such as turning lights on or off. Jumps ahead of everything else.
+   */
+  INTERACTIVE,
+
+  /**
+   * The default priority of state changes.
+   */
+  NORMAL,
+
+  /**
+   * Frames of effects and other automated traffic that may be delayed or dropped without anyone noticing.
+   */
+  BACKGROUND;
+}
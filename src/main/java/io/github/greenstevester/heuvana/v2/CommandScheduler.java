@@ -0,0 +1,261 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Paces the commands sent to a single Bridge. Every state change of a light, group or scene made through
+ * a {@link Hue} instance goes through its scheduler, see {@link Hue#getCommandScheduler()}.
+ *
+ * <p>The Bridge processes roughly 10 light commands and 1 group command per second. Anything sent faster
+ * than that is queued on the Bridge, or rejected with {@code 429 Too Many Requests}, so that an interactive
+ * command can end up behind seconds of effect frames. Therefore each resource class has its own token bucket,
+ * and commands waiting for a token are ordered by their {@link CommandPriority}. Commands with a
+ * {@link UpdateState#deadline(Duration) deadline} that passes while they wait are dropped instead of being sent
+ * late, and their futures complete exceptionally with a {@link CommandDroppedException}.</p>
+ *
+ * <p>When the Bridge does answer with {@code 429} or {@code 503}, the bucket of the resource class is emptied,
+ * so the next command waits for a fresh token.</p>
+ *
+ * @since 5.3.0
+ */
+public class CommandScheduler implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  private static final Comparator<PendingCommand<?>> QUEUE_ORDER =
+      Comparator.<PendingCommand<?>>comparingInt(command -> command.priority.ordinal())
+          .thenComparingLong(command -> command.sequence);
+
+  private final Map<ResourceType, Lane> lanes = new EnumMap<>(ResourceType.class);
+  private final ScheduledExecutorService timer;
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * Creates a scheduler with the default limits of 10 light commands and 1 group command per second.
+   */
+  public CommandScheduler() {
+    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, "hue-command-scheduler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true);
+    this.timer = executor;
+    setRateLimit(ResourceType.LIGHT, 10.0, 10);
+    setRateLimit(ResourceType.GROUPED_LIGHT, 1.0, 1);
+  }
+
+  /**
+   * Sets the rate limit for a resource class. Commands for resource classes without a limit are sent immediately.
+   * Scene recalls count as {@link ResourceType#GROUPED_LIGHT} commands, because the Bridge broadcasts
+   * them to the group in the same way.
+   *
+   * @param resourceClass    The resource class, such as {@link ResourceType#LIGHT}.
+   * @param permitsPerSecond The number of commands per second sent on average.
+   * @param burst            The number of commands that may be sent at once after a quiet period.
+   */
+  public void setRateLimit(final ResourceType resourceClass, final double permitsPerSecond, final int burst) {
+    final TokenBucket bucket = new TokenBucket(permitsPerSecond, burst, System.nanoTime());
+    synchronized (lanes) {
+      final Lane lane = lanes.get(resourceClass);
+      if (lane == null) {
+        lanes.put(resourceClass, new Lane(resourceClass, bucket));
+      } else {
+        synchronized (lane) {
+          lane.bucket = bucket;
+        }
+      }
+    }
+  }
+
+  /**
+   * Submits a command.
+   *
+   * @param resourceClass The resource class whose rate limit applies.
+   * @param priority      The priority lane of the command.
+   * @param deadline      The maximum time the command may wait for the rate limit,
+   *                      or {@code null} to wait as long as it takes.
+   * @param command       Sends the command to the Bridge once it is its turn.
+   * @param <T>           The type of the result of the command.
+   * @return A future completed with the result of the command, or completed exceptionally with a
+   * {@link CommandDroppedException} if the deadline passed before the command was sent.
+   */
+  public <T> CompletableFuture<T> submit(final ResourceType resourceClass,
+                                         final CommandPriority priority,
+                                         final Duration deadline,
+                                         final Supplier<CompletableFuture<T>> command) {
+    final Lane lane;
+    synchronized (lanes) {
+      lane = lanes.get(resourceClass);
+    }
+    if (lane == null) {
+      return command.get();
+    }
+    final long deadlineNanos = deadline == null ? Long.MAX_VALUE : System.nanoTime() + deadline.toNanos();
+    final PendingCommand<T> pending =
+        new PendingCommand<>(priority, sequence.getAndIncrement(), deadlineNanos, command);
+    synchronized (lane) {
+      lane.queue.add(pending);
+    }
+    timer.execute(() -> drain(lane));
+    return pending.future;
+  }
+
+  /**
+   * @param resourceClass The resource class.
+   * @return The number of commands of the resource class currently waiting for the rate limit.
+   */
+  public int getQueuedCount(final ResourceType resourceClass) {
+    final Lane lane;
+    synchronized (lanes) {
+      lane = lanes.get(resourceClass);
+    }
+    if (lane == null) {
+      return 0;
+    }
+    synchronized (lane) {
+      return lane.queue.size();
+    }
+  }
+
+  /**
+   * @return The total number of commands dropped because their deadline passed.
+   */
+  public long getDroppedCount() {
+    synchronized (lanes) {
+      return lanes.values().stream().mapToLong(lane -> lane.dropped.get()).sum();
+    }
+  }
+
+  private void drain(final Lane lane) {
+    final List<PendingCommand<?>> toSend = new ArrayList<>();
+    final List<PendingCommand<?>> toDrop = new ArrayList<>();
+    synchronized (lane) {
+      final long now = System.nanoTime();
+      while (!lane.queue.isEmpty()) {
+        final PendingCommand<?> next = lane.queue.peek();
+        if (next.future.isDone()) {
+          lane.queue.poll();
+        } else if (now - next.deadlineNanos > 0) {
+          lane.queue.poll();
+          toDrop.add(next);
+        } else if (lane.bucket.tryAcquire(now)) {
+          lane.queue.poll();
+          toSend.add(next);
+        } else {
+          scheduleWakeup(lane, lane.bucket.nanosUntilAvailable(now));
+          break;
+        }
+      }
+    }
+    for (final PendingCommand<?> command : toDrop) {
+      lane.dropped.incrementAndGet();
+      logger.debug("Dropped stale {} command", lane.resourceClass);
+      command.future.completeExceptionally(
+          new CommandDroppedException("Deadline passed before the " + lane.resourceClass + " command could be sent"));
+    }
+    for (final PendingCommand<?> command : toSend) {
+      send(lane, command);
+    }
+  }
+
+  private void scheduleWakeup(final Lane lane, final long delayNanos) {
+    if (lane.wakeup == null) {
+      lane.wakeup = timer.schedule(() -> {
+        synchronized (lane) {
+          lane.wakeup = null;
+        }
+        drain(lane);
+      }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private <T> void send(final Lane lane, final PendingCommand<T> command) {
+    final CompletableFuture<T> sent;
+    try {
+      sent = command.command.get();
+    } catch (final RuntimeException e) {
+      command.future.completeExceptionally(e);
+      return;
+    }
+    sent.whenComplete((result, throwable) -> {
+      if (throwable == null) {
+        command.future.complete(result);
+        return;
+      }
+      if (isOverloaded(throwable)) {
+        logger.debug("Bridge is overloaded, backing off {} commands", lane.resourceClass);
+        synchronized (lane) {
+          lane.bucket.drain(System.nanoTime());
+        }
+      }
+      command.future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null
+          ? throwable.getCause()
+          : throwable);
+    });
+  }
+
+  private static boolean isOverloaded(final Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof HttpStatusException) {
+        final int statusCode = ((HttpStatusException) cause).getStatusCode();
+        return statusCode == 429 || statusCode == 503;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Stops the timer thread. Commands still waiting for the rate limit are not sent.
+   */
+  @Override
+  public void close() {
+    timer.shutdownNow();
+  }
+
+  private static final class Lane {
+    private final ResourceType resourceClass;
+    private final PriorityQueue<PendingCommand<?>> queue = new PriorityQueue<>(QUEUE_ORDER);
+    private final AtomicLong dropped = new AtomicLong();
+    private TokenBucket bucket;
+    private ScheduledFuture<?> wakeup;
+
+    private Lane(final ResourceType resourceClass, final TokenBucket bucket) {
+      this.resourceClass = resourceClass;
+      this.bucket = bucket;
+    }
+  }
+
+  private static final class PendingCommand<T> {
+    private final CommandPriority priority;
+    private final long sequence;
+    private final long deadlineNanos;
+    private final Supplier<CompletableFuture<T>> command;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    private PendingCommand(final CommandPriority priority, final long sequence, final long deadlineNanos,
+                           final Supplier<CompletableFuture<T>> command) {
+      this.priority = priority;
+      this.sequence = sequence;
+      this.deadlineNanos = deadlineNanos;
+      this.command = command;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.util.UUID;
+
+/**
+ * The few fields of an event that the {@link EventDecoder} reads, for a single resource.
+ * Only the fields of the kind of the resource are set; the rest are {@code null}.
+ */
+final class DecodedEvent {
+  private final Envelope envelope;
+  private final UUID resourceId;
+  private final String resourceType;
+  private final UUID ownerId;
+  private final String buttonEvent;
+  private final Boolean motion;
+  private final boolean motionValid;
+
+  DecodedEvent(final Envelope envelope,
+               final UUID resourceId,
+               final String resourceType,
+               final UUID ownerId,
+               final String buttonEvent,
+               final Boolean motion,
+               final boolean motionValid) {
+    this.envelope = envelope;
+    this.resourceId = resourceId;
+    this.resourceType = resourceType;
+    this.ownerId = ownerId;
+    this.buttonEvent = buttonEvent;
+    this.motion = motion;
+    this.motionValid = motionValid;
+  }
+
+  /**
+   * @return The {@code creationtime} of the event.
+   */
+  String getCreationTime() {
+    return envelope.creationTime;
+  }
+
+  /**
+   * @return The id of the event, shared by all the resources changed in it.
+   */
+  UUID getEventId() {
+    return envelope.eventId;
+  }
+
+  /**
+   * @return The type of the event: {@code "add"}, {@code "update"}, {@code "delete"} or {@code "error"}.
+   */
+  String getEventType() {
+    return envelope.eventType;
+  }
+
+  UUID getResourceId() {
+    return resourceId;
+  }
+
+  String getResourceType() {
+    return resourceType;
+  }
+
+  UUID getOwnerId() {
+    return ownerId;
+  }
+
+  /**
+   * @return The {@code last_event} of a button, or {@code null} if the event did not report one.
+   */
+  String getButtonEvent() {
+    return buttonEvent;
+  }
+
+  /**
+   * @return Whether a motion sensor detected motion, or {@code null} if the event did not report it.
+   */
+  Boolean getMotion() {
+    return motion;
+  }
+
+  boolean isMotionValid() {
+    return motionValid;
+  }
+
+  @Override
+  public String toString() {
+    return "DecodedEvent{" +
+        "eventType='" + getEventType() + '\'' +
+        ", resourceId=" + resourceId +
+        ", resourceType='" + resourceType + '\'' +
+        ", ownerId=" + ownerId +
+        ", buttonEvent='" + buttonEvent + '\'' +
+        ", motion=" + motion +
+        '}';
+  }
+
+  /**
+   * The fields of the event around the resources. The Bridge writes them after the resources, so they are
+   * filled in once the whole event has been read.
+   */
+  static final class Envelope {
+    private String creationTime;
+    private UUID eventId;
+    private String eventType;
+
+    void set(final String creationTime, final UUID eventId, final String eventType) {
+      this.creationTime = creationTime;
+      this.eventId = eventId;
+      this.eventType = eventType;
+    }
+  }
+}
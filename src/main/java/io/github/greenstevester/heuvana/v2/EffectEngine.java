@@ -0,0 +1,514 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the light effects, such as {@link PulsingEffect} and {@link SunriseEffect}, on a single timing thread.
+ * Each {@link Hue} instance has one, see {@link Hue#getEffectEngine()}, and the effects of its lights run on it
+ * unless given another one with the {@code engine(...)} method of their builders.
+ *
+ * <p>The thread wakes up whenever the next frame of any effect is due, renders it, and hands it to the
+ * non-blocking API of the light, so that the frame goes through the {@link CommandScheduler} of the Bridge
+ * without holding up the frames of the other effects. The thread is started with the first effect, and is a daemon
+ * thread. Completion callbacks of effects that finish on their own, and frames for lights that can only be set
+ * with a blocking call, are handed to a second thread, so that they cannot hold up the other effects either.</p>
+ *
+ * <p>Frames are rendered from the time on the clock of the effect, not from a count of frames, so an effect that
+ * falls behind skips ahead to what is due instead of rendering the missed frames in a burst, and counts them as
+ * dropped. The engine measures how long the Bridge takes to answer the frames of each effect, and renders them
+ * half of that earlier, so that they take effect when they are due. See {@link FrameStats}.</p>
+ *
+ * <p>Effects that a light can run on its own are handed to it in a single request instead, see
+ * {@link #getNativeEffects()}.</p>
+ *
+ * @since 5.3.0
+ */
+public class EffectEngine implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  /**
+   * Returned by an {@link Animation} after its last frame.
+   */
+  static final long DONE = -1;
+
+  /**
+   * The most that frames are rendered ahead of time to make up for the round trip to the Bridge.
+   */
+  private static final long MAX_LEAD_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+  private static volatile EffectEngine shared;
+
+  private final PriorityQueue<Handle> due = new PriorityQueue<>(Comparator.comparingLong(handle -> handle.wakeAt));
+  private final Set<Handle> running = new HashSet<>();
+  private final NativeEffects nativeEffects = new NativeEffects();
+  private final LongSupplier clock;
+  private volatile Thread thread;
+  private ExecutorService callbacks;
+  private Handle current;
+  private boolean closed;
+
+  /**
+   * Creates an engine. Its timing thread is started with the first effect.
+   */
+  public EffectEngine() {
+    this(System::nanoTime);
+  }
+
+  /**
+   * @param clock The clock the frames are timed by, in nanoseconds like {@link System#nanoTime()}.
+   */
+  EffectEngine(final LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * @return The engine of the lights that do not belong to a {@link Hue} instance.
+   */
+  static EffectEngine shared() {
+    EffectEngine result = shared;
+    if (result == null) {
+      synchronized (EffectEngine.class) {
+        result = shared;
+        if (result == null) {
+          result = new EffectEngine();
+          shared = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Renders the frames of one effect.
+   */
+  @FunctionalInterface
+  interface Animation {
+    /**
+     * Renders the frame that is due.
+     *
+     * @param elapsed The nanoseconds from the start of the effect until the frame takes effect, not counting the
+     *                time it was paused. Later than the frame was due if the effect fell behind.
+     * @return The nanoseconds from {@code elapsed} until the next frame is due, or {@link #DONE} if this was the
+     *     last frame.
+     */
+    long nextFrame(long elapsed);
+  }
+
+  /**
+   * Starts running an effect.
+   *
+   * @param animation    Renders the frames.
+   * @param initialDelay The nanoseconds until the first frame is due.
+   * @return The handle to stop or pause the effect with.
+   */
+  synchronized Handle start(final Animation animation, final long initialDelay) {
+    if (closed) {
+      throw new IllegalStateException("Effect engine closed");
+    }
+    final Handle handle = new Handle(animation);
+    handle.startedAt = clock.getAsLong();
+    handle.dueAt = handle.startedAt + Math.max(0, initialDelay);
+    handle.wakeAt = handle.dueAt;
+    running.add(handle);
+    due.add(handle);
+    if (thread == null) {
+      thread = new Thread(this::run, "hue-effect-engine");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    notifyAll();
+    return handle;
+  }
+
+  /**
+   * Hands a frame to the light without waiting for the Bridge, if the light supports that.
+   *
+   * @param light The light.
+   * @param frame The state to set.
+   * @return A future that completes when the frame is set, or exceptionally if it is not, such as when the
+   *     {@link CommandScheduler} dropped it.
+   */
+  CompletableFuture<?> send(final Light light, final UpdateState frame) {
+    final FrameStats stats = renderingStats();
+    final long sentAt = clock.getAsLong();
+    final AsyncLight asyncLight;
+    try {
+      asyncLight = light.async();
+    } catch (final UnsupportedOperationException e) {
+      final CompletableFuture<Void> set = new CompletableFuture<>();
+      offTimingThread(() -> {
+        try {
+          light.setState(frame);
+        } catch (final RuntimeException failure) {
+          set.completeExceptionally(failure);
+          throw failure;
+        }
+        recordRoundTrip(stats, sentAt);
+        set.complete(null);
+      });
+      return set;
+    }
+    return asyncLight.setStateAsync(frame).whenComplete((result, failure) -> {
+      if (failure != null) {
+        recordFailure(stats, failure);
+        logger.debug("Effect frame for light {} not set: {}", light.getId(), failure.getMessage());
+      } else {
+        recordRoundTrip(stats, sentAt);
+      }
+    });
+  }
+
+  /**
+   * Hands a frame to the room or zone without waiting for the Bridge, if the group supports that.
+   *
+   * @param group The room or zone.
+   * @param frame The state to set.
+   * @return A future that completes when the frame is set, or exceptionally if it is not, such as when the
+   *     {@link CommandScheduler} dropped it.
+   */
+  CompletableFuture<?> send(final Group group, final UpdateState frame) {
+    final FrameStats stats = renderingStats();
+    final long sentAt = clock.getAsLong();
+    final AsyncGroup asyncGroup;
+    try {
+      asyncGroup = group.async();
+    } catch (final UnsupportedOperationException e) {
+      final CompletableFuture<Void> set = new CompletableFuture<>();
+      offTimingThread(() -> {
+        try {
+          group.setState(frame);
+        } catch (final RuntimeException failure) {
+          set.completeExceptionally(failure);
+          throw failure;
+        }
+        recordRoundTrip(stats, sentAt);
+        set.complete(null);
+      });
+      return set;
+    }
+    return asyncGroup.setStateAsync(frame).whenComplete((result, failure) -> {
+      if (failure != null) {
+        recordFailure(stats, failure);
+        logger.debug("Effect frame for group {} not set: {}", group.getId(), failure.getMessage());
+      } else {
+        recordRoundTrip(stats, sentAt);
+      }
+    });
+  }
+
+  /**
+   * Runs the completion callback of an effect. When called while rendering a frame, the callback runs on another
+   * thread, so that it cannot hold up the frames of the other effects; otherwise it runs right away.
+   *
+   * @param onComplete The callback, or {@code null} for none.
+   */
+  void complete(final Runnable onComplete) {
+    if (onComplete != null) {
+      offTimingThread(onComplete);
+    }
+  }
+
+  /**
+   * Runs a task that may block or run user code: on the callback thread if called on the timing thread, in order
+   * with the other tasks handed over from there, or right away otherwise. Failures are logged.
+   */
+  private void offTimingThread(final Runnable task) {
+    final Runnable guarded = () -> {
+      try {
+        task.run();
+      } catch (final RuntimeException e) {
+        logger.warn("Effect callback failed", e);
+      }
+    };
+    if (Thread.currentThread() != thread) {
+      guarded.run();
+      return;
+    }
+    final ExecutorService executor;
+    synchronized (this) {
+      if (callbacks == null) {
+        callbacks = Executors.newSingleThreadExecutor(runnable -> {
+          final Thread callbackThread = new Thread(runnable, "hue-effect-callbacks");
+          callbackThread.setDaemon(true);
+          return callbackThread;
+        });
+      }
+      executor = callbacks;
+    }
+    try {
+      executor.execute(guarded);
+    } catch (final RejectedExecutionException e) {
+      // Closed while rendering a frame
+      guarded.run();
+    }
+  }
+
+  /**
+   * @return The statistics of the effect whose frame is being rendered, or {@code null} if called from outside a
+   *     frame, such as when an effect is stopped.
+   */
+  private FrameStats renderingStats() {
+    final Handle rendering = Thread.currentThread() == thread ? current : null;
+    return rendering != null ? rendering.stats : null;
+  }
+
+  private void recordRoundTrip(final FrameStats stats, final long sentAt) {
+    if (stats != null) {
+      stats.recordRoundTrip(clock.getAsLong() - sentAt);
+    }
+  }
+
+  private static void recordFailure(final FrameStats stats, final Throwable failure) {
+    final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+        ? failure.getCause() : failure;
+    if (stats != null && cause instanceof CommandDroppedException) {
+      stats.recordDropped(1);
+    }
+  }
+
+  /**
+   * @return The effects that the lights of this engine can run on their own, cached per light.
+   */
+  public NativeEffects getNativeEffects() {
+    return nativeEffects;
+  }
+
+  /**
+   * @return The number of effects started and not yet finished or stopped, excluding the paused ones.
+   */
+  public synchronized int getActiveEffectCount() {
+    int count = 0;
+    for (final Handle handle : running) {
+      if (!handle.paused) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return The number of paused effects.
+   */
+  public synchronized int getPausedEffectCount() {
+    return running.size() - getActiveEffectCount();
+  }
+
+  /**
+   * Stops all the effects and the timing thread. Callbacks already handed to the callback thread still run.
+   */
+  @Override
+  public void close() {
+    final Set<Handle> stopped;
+    synchronized (this) {
+      closed = true;
+      stopped = new HashSet<>(running);
+      if (callbacks != null) {
+        callbacks.shutdown();
+      }
+      notifyAll();
+    }
+    stopped.forEach(Handle::stop);
+  }
+
+  private void run() {
+    while (true) {
+      final Handle next;
+      synchronized (this) {
+        try {
+          while (true) {
+            if (closed) {
+              return;
+            }
+            final Handle first = due.peek();
+            if (first == null) {
+              wait();
+              continue;
+            }
+            final long wait = first.wakeAt - clock.getAsLong();
+            if (wait <= 0) {
+              next = due.poll();
+              next.inFlight = true;
+              break;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, wait);
+          }
+        } catch (final InterruptedException e) {
+          return;
+        }
+      }
+      // Render the frame for when it takes effect: when it is due, or later if the effect fell behind
+      final long lead = next.lead();
+      final long frameAt = Math.max(next.dueAt, clock.getAsLong() + lead);
+      final long lateness = frameAt - next.dueAt;
+      next.stats.recordFrame(lateness);
+      if (next.interval > 0 && lateness >= next.interval) {
+        next.stats.recordDropped(lateness / next.interval);
+      }
+      current = next;
+      final long delay;
+      try {
+        delay = next.render(frameAt - next.startedAt - next.pausedNanos);
+      } finally {
+        current = null;
+      }
+      synchronized (this) {
+        next.inFlight = false;
+        if (delay < 0 || next.stopped) {
+          running.remove(next);
+        } else if (next.paused) {
+          next.remaining = delay;
+          next.interval = delay;
+        } else {
+          next.interval = delay;
+          next.dueAt = frameAt + delay;
+          next.wakeAt = next.dueAt - next.lead();
+          due.add(next);
+        }
+      }
+    }
+  }
+
+  /**
+   * A running effect.
+   */
+  final class Handle {
+    private final Animation animation;
+    private final FrameStats stats = new FrameStats();
+    private long startedAt;
+    private long pausedAt;
+    private long pausedNanos;
+    private long dueAt;
+    private long wakeAt;
+    private long interval;
+    private long remaining;
+    private boolean rendering;
+    // Taken off the queue by the timing thread and not yet put back; guarded by the engine
+    private boolean inFlight;
+    private volatile boolean paused;
+    private volatile boolean stopped;
+
+    private Handle(final Animation animation) {
+      this.animation = animation;
+    }
+
+    private long render(final long elapsed) {
+      synchronized (this) {
+        if (stopped) {
+          return DONE;
+        }
+        rendering = true;
+      }
+      try {
+        return animation.nextFrame(elapsed);
+      } catch (final RuntimeException e) {
+        logger.warn("Effect frame failed, stopping the effect", e);
+        return DONE;
+      } finally {
+        synchronized (this) {
+          rendering = false;
+          notifyAll();
+        }
+      }
+    }
+
+    /**
+     * Stops the effect. No frames are rendered after this returns, unless called while rendering one.
+     */
+    void stop() {
+      synchronized (this) {
+        stopped = true;
+        while (rendering && thread != Thread.currentThread()) {
+          try {
+            wait();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      }
+      synchronized (EffectEngine.this) {
+        if (due.remove(this) || paused) {
+          running.remove(this);
+        }
+      }
+    }
+
+    /**
+     * Holds the effect, keeping the time left until its next frame for {@link #resume()}.
+     */
+    void pause() {
+      synchronized (EffectEngine.this) {
+        if (stopped || paused) {
+          return;
+        }
+        paused = true;
+        pausedAt = clock.getAsLong();
+        if (due.remove(this)) {
+          remaining = Math.max(0, dueAt - pausedAt);
+        }
+      }
+    }
+
+    void resume() {
+      synchronized (EffectEngine.this) {
+        if (stopped || !paused) {
+          return;
+        }
+        paused = false;
+        final long now = clock.getAsLong();
+        pausedNanos += now - pausedAt;
+        // While a frame is in flight, the timing thread puts the effect back in the queue itself
+        if (running.contains(this) && !inFlight && !due.contains(this)) {
+          dueAt = now + remaining;
+          wakeAt = dueAt - lead();
+          due.add(this);
+          EffectEngine.this.notifyAll();
+        }
+      }
+    }
+
+    boolean isPaused() {
+      return paused;
+    }
+
+    /**
+     * @return The nanoseconds to render frames ahead of time: half the round trip to the Bridge, as far as known.
+     */
+    private long lead() {
+      return Math.min(stats.getRoundTripNanos() / 2, MAX_LEAD_NANOS);
+    }
+
+    /**
+     * @return The timing statistics of the effect.
+     */
+    FrameStats getStats() {
+      return stats;
+    }
+
+    /**
+     * @return {@code true} until the effect has finished or been stopped.
+     */
+    boolean isRunning() {
+      return !stopped && running();
+    }
+
+    private boolean running() {
+      synchronized (EffectEngine.this) {
+        return running.contains(this);
+      }
+    }
+  }
+}
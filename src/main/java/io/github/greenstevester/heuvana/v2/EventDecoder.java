@@ -0,0 +1,216 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reads the messages of the event stream with the Jackson streaming parser, keeping only the resources of the
+ * given types and only the fields the library acts upon. Everything else, such as the colors, gradients and
+ * reports of lights, is skipped without being read into objects.
+ *
+ * <p>This is much cheaper than binding every message into {@code List<HueEvent>}, and is used whenever no
+ * subscriber asks for the full events. The Bridge writes the fields of each resource in alphabetical order, so
+ * the type of a resource is usually only known after its other fields; those fields are therefore held as
+ * plain strings until the type is known, and subtrees that are not of interest are skipped right away.</p>
+ */
+final class EventDecoder {
+  private final JsonFactory jsonFactory;
+  private final Set<String> resourceTypes;
+
+  /**
+   * @param jsonFactory   For creating the parsers.
+   * @param resourceTypes The types of the resources to keep, such as {@code "button"}.
+   */
+  EventDecoder(final JsonFactory jsonFactory, final Set<String> resourceTypes) {
+    this.jsonFactory = jsonFactory;
+    this.resourceTypes = Set.copyOf(resourceTypes);
+  }
+
+  /**
+   * @return The types of the resources kept by this decoder. Decoders of the same types decode alike.
+   */
+  Set<String> getResourceTypes() {
+    return resourceTypes;
+  }
+
+  /**
+   * @param json A message of the event stream: an array of events.
+   * @return The resources of the wanted types, in the order they appear in the message.
+   * @throws IOException If the message is not valid JSON.
+   */
+  List<DecodedEvent> decode(final String json) throws IOException {
+    List<DecodedEvent> result = null;
+    try (JsonParser parser = jsonFactory.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        return Collections.emptyList();
+      }
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+        if (token != JsonToken.START_OBJECT) {
+          parser.skipChildren();
+          continue;
+        }
+        result = readEvent(parser, result);
+      }
+    }
+    return result == null ? Collections.emptyList() : result;
+  }
+
+  private List<DecodedEvent> readEvent(final JsonParser parser, List<DecodedEvent> result) throws IOException {
+    DecodedEvent.Envelope envelope = null;
+    String creationTime = null;
+    String eventId = null;
+    String eventType = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      final JsonToken value = parser.nextToken();
+      switch (field) {
+        case "creationtime":
+          creationTime = scalar(parser);
+          break;
+        case "id":
+          eventId = scalar(parser);
+          break;
+        case "type":
+          eventType = scalar(parser);
+          break;
+        case "data":
+          if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            break;
+          }
+          JsonToken item;
+          while ((item = parser.nextToken()) != JsonToken.END_ARRAY && item != null) {
+            if (item != JsonToken.START_OBJECT) {
+              parser.skipChildren();
+              continue;
+            }
+            if (envelope == null) {
+              envelope = new DecodedEvent.Envelope();
+            }
+            final DecodedEvent decoded = readResource(parser, envelope);
+            if (decoded != null) {
+              if (result == null) {
+                result = new ArrayList<>(4);
+              }
+              result.add(decoded);
+            }
+          }
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    if (envelope != null) {
+      envelope.set(creationTime, toUuid(eventId), eventType);
+    }
+    return result;
+  }
+
+  private DecodedEvent readResource(final JsonParser parser, final DecodedEvent.Envelope envelope)
+      throws IOException {
+    String id = null;
+    String type = null;
+    String ownerId = null;
+    String buttonEvent = null;
+    Boolean motion = null;
+    boolean motionValid = false;
+    boolean wanted = true;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      final JsonToken value = parser.nextToken();
+      if (!wanted) {
+        parser.skipChildren();
+        continue;
+      }
+      switch (field) {
+        case "id":
+          id = scalar(parser);
+          break;
+        case "type":
+          type = scalar(parser);
+          wanted = type != null && resourceTypes.contains(type);
+          break;
+        case "owner":
+          ownerId = readString(parser, value, "rid");
+          break;
+        case "button":
+          buttonEvent = readString(parser, value, "last_event");
+          break;
+        case "motion":
+          if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            break;
+          }
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String motionField = parser.getCurrentName();
+            final JsonToken motionValue = parser.nextToken();
+            if ("motion".equals(motionField) && motionValue.isBoolean()) {
+              motion = parser.getBooleanValue();
+            } else if ("motion_valid".equals(motionField) && motionValue.isBoolean()) {
+              motionValid = parser.getBooleanValue();
+            } else {
+              parser.skipChildren();
+            }
+          }
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    if (!wanted || type == null) {
+      return null;
+    }
+    return new DecodedEvent(envelope, toUuid(id), type, toUuid(ownerId), buttonEvent, motion, motionValid);
+  }
+
+  /**
+   * Reads a single string field of an object, skipping the rest of the object.
+   */
+  private static String readString(final JsonParser parser, final JsonToken value, final String name)
+      throws IOException {
+    if (value != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+    String result = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      final JsonToken fieldValue = parser.nextToken();
+      if (name.equals(field) && fieldValue == JsonToken.VALUE_STRING) {
+        result = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads a scalar value, skipping the value if it is an object or an array instead.
+   */
+  private static String scalar(final JsonParser parser) throws IOException {
+    final String result = parser.getValueAsString();
+    parser.skipChildren();
+    return result;
+  }
+
+  private static UUID toUuid(final String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return UUID.fromString(value);
+    } catch (final IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package io.github.greenstevester.heuvana.v2;
+
+/**
+ * Queue settings for delivering the events of the Bridge to a {@link HueEventListener}, see
+ * {@link Hue#subscribeToEvents(HueEventListener, EventDispatchConfig)}.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * hue.subscribeToEvents(listener, EventDispatchConfig.builder()
+ *     .queueCapacity(256)
+ *     .overflowPolicy(EventOverflowPolicy.COALESCE)
+ *     .build());
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public final class EventDispatchConfig {
+
+  private final int queueCapacity;
+  private final EventOverflowPolicy overflowPolicy;
+  private final int parallelism;
+
+  private EventDispatchConfig(final Builder builder) {
+    this.queueCapacity = builder.queueCapacity;
+    this.overflowPolicy = builder.overflowPolicy;
+    this.parallelism = builder.parallelism;
+  }
+
+  /**
+   * Returns the configuration used when none is given explicitly.
+   *
+   * @return The default configuration.
+   */
+  public static EventDispatchConfig defaults() {
+    return builder().build();
+  }
+
+  /**
+   * Creates a builder for constructing EventDispatchConfig instances.
+   *
+   * @return A new builder instance
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public EventOverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  @Override
+  public String toString() {
+    return "EventDispatchConfig{" +
+        "queueCapacity=" + queueCapacity +
+        ", overflowPolicy=" + overflowPolicy +
+        ", parallelism=" + parallelism +
+        '}';
+  }
+
+  /**
+   * Builder for EventDispatchConfig.
+   */
+  public static class Builder {
+    private int queueCapacity = 1024;
+    private EventOverflowPolicy overflowPolicy = EventOverflowPolicy.BLOCK;
+    private int parallelism = 1;
+
+    /**
+     * Sets the maximum number of events waiting for the listener (default: 1024).
+     *
+     * @param queueCapacity Maximum number of queued events
+     * @return This builder
+     */
+    public Builder queueCapacity(final int queueCapacity) {
+      if (queueCapacity < 1) {
+        throw new IllegalArgumentException("queueCapacity must be at least 1");
+      }
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * Sets what happens to new events when the queue is full (default: {@link EventOverflowPolicy#BLOCK}).
+     *
+     * @param overflowPolicy The overflow policy
+     * @return This builder
+     */
+    public Builder overflowPolicy(final EventOverflowPolicy overflowPolicy) {
+      if (overflowPolicy == null) {
+        throw new IllegalArgumentException("overflowPolicy must not be null");
+      }
+      this.overflowPolicy = overflowPolicy;
+      return this;
+    }
+
+    /**
+     * Sets how many events of different resources may be handed to the listener at once (default: 1, one event
+     * at a time). Above one, the listener is called on a pool of that many threads, and may then block, for
+     * example on {@code Light.setState}, without holding up the events of other resources. The events of each
+     * resource are still delivered one at a time and in order, so the listener must only be thread safe across
+     * resources.
+     *
+     * @param parallelism The number of threads calling the listener
+     * @return This builder
+     */
+    public Builder parallelism(final int parallelism) {
+      if (parallelism < 1) {
+        throw new IllegalArgumentException("parallelism must be at least 1");
+      }
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Builds the EventDispatchConfig.
+     *
+     * @return A new EventDispatchConfig instance
+     */
+    public EventDispatchConfig build() {
+      return new EventDispatchConfig(this);
+    }
+  }
+}
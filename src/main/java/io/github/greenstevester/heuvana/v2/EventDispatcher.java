@@ -0,0 +1,313 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the events of the Bridge to a single {@link HueEventListener} on a thread of its own, so that a slow
+ * listener does not hold up the event stream or other listeners.
+ *
+ * <p>Events are parsed on the thread reading the event stream and queued here. The listener receives them in the
+ * order they arrived, one at a time, so the events of any single resource are never reordered. When the queue is
+ * full, the {@link EventOverflowPolicy} of the {@link EventDispatchConfig} decides what happens.</p>
+ *
+ * <p>With a {@link EventDispatchConfig.Builder#parallelism(int) parallelism} above one, the events of different
+ * resources are delivered on a {@link KeyedSerialExecutor}, so a listener may block while handling the event
+ * of one resource without holding up the events of the others. The events of each resource are still
+ * delivered one at a time and in order. Notifications of the connection opening or closing and the full event
+ * lists wait for all the earlier events to be handled, and hold up the later ones until handled themselves.</p>
+ *
+ * @since 5.3.0
+ */
+public class EventDispatcher implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+  private static final Object BARRIER = new Object();
+
+  private final EventDispatchConfig config;
+  private final Deque<Delivery> queue = new ArrayDeque<>();
+  private final Map<String, Delivery> queuedByKey = new HashMap<>();
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong latencyNanos = new AtomicLong();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+  private final Set<String> runningKeys = new HashSet<>();
+  private final KeyedSerialExecutor executor;
+  private final Thread worker;
+  private boolean closed;
+  private int running;
+  private boolean barrierRunning;
+
+  EventDispatcher(final EventDispatchConfig config) {
+    this.config = config;
+    this.executor = config.getParallelism() > 1 ? new KeyedSerialExecutor(config.getParallelism()) : null;
+    this.worker = new Thread(this::run, "hue-event-dispatch");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  public EventDispatchConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * @return The number of events waiting for the listener.
+   */
+  public synchronized int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * @return The number of events handed to the listener.
+   */
+  public long getDeliveredCount() {
+    return delivered.get();
+  }
+
+  /**
+   * @return The number of events dropped because the queue was full.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * @return The number of events replaced by a newer event of the same resource before being delivered.
+   */
+  public long getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  /**
+   * @return The average time from queueing an event to the listener having handled it.
+   */
+  public Duration getMeanLatency() {
+    final long count = delivered.get();
+    return count == 0 ? Duration.ZERO : Duration.ofNanos(latencyNanos.get() / count);
+  }
+
+  /**
+   * @return The longest time from queueing an event to the listener having handled it.
+   */
+  public Duration getMaxLatency() {
+    return Duration.ofNanos(maxLatencyNanos.get());
+  }
+
+  /**
+   * Waits until the listener has handled all the queued events.
+   *
+   * @param timeout How long to wait at most.
+   * @return {@code true} if the queue is empty, {@code false} if the timeout passed first.
+   */
+  synchronized boolean awaitIdle(final Duration timeout) throws InterruptedException {
+    final long deadline = System.nanoTime() + timeout.toNanos();
+    while (!queue.isEmpty() || running > 0) {
+      final long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    return true;
+  }
+
+  /**
+   * Queues an event for the listener.
+   *
+   * @param key       Identifies the resource and kind of the event for {@link EventOverflowPolicy#COALESCE},
+   *                  or {@code null} if the event cannot be replaced by a newer one. Only pass a key for
+   *                  state-like events, whose latest value makes the earlier ones obsolete.
+   * @param droppable {@code false} for events that must be delivered even if the queue is full.
+   * @param delivery  Hands the event to the listener.
+   */
+  void dispatch(final String key, final boolean droppable, final Runnable delivery) {
+    dispatch(key, key != null, droppable, delivery);
+  }
+
+  /**
+   * Queues an event for the listener.
+   *
+   * @param key         Identifies the resource and kind of the event, or {@code null} for events that are not
+   *                    about a single resource, which are then delivered after everything queued before them.
+   * @param coalescable {@code true} if the event may be replaced by a newer one of the same key when the queue
+   *                    is full, which is only the case for state-like events such as motion.
+   * @param droppable   {@code false} for events that must be delivered even if the queue is full.
+   * @param delivery    Hands the event to the listener.
+   */
+  synchronized void dispatch(final String key, final boolean coalescable, final boolean droppable,
+                             final Runnable delivery) {
+    if (closed) {
+      return;
+    }
+    final EventOverflowPolicy policy = config.getOverflowPolicy();
+    final boolean coalesce = policy == EventOverflowPolicy.COALESCE && coalescable && key != null;
+    if (coalesce && queue.size() >= config.getQueueCapacity()) {
+      final Delivery queued = queuedByKey.get(key);
+      if (queued != null) {
+        queued.action = delivery;
+        coalesced.incrementAndGet();
+        return;
+      }
+    }
+    if (droppable) {
+      while (queue.size() >= config.getQueueCapacity() && !closed) {
+        if (policy == EventOverflowPolicy.BLOCK) {
+          try {
+            wait();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            return;
+          }
+        } else if (!dropOldest()) {
+          break;
+        }
+      }
+      if (closed) {
+        return;
+      }
+    }
+    final Delivery added = new Delivery(key, coalesce, droppable, delivery);
+    queue.addLast(added);
+    if (coalesce) {
+      queuedByKey.put(key, added);
+    }
+    notifyAll();
+  }
+
+  private boolean dropOldest() {
+    final Iterator<Delivery> iterator = queue.iterator();
+    while (iterator.hasNext()) {
+      final Delivery oldest = iterator.next();
+      if (oldest.droppable) {
+        iterator.remove();
+        forget(oldest);
+        dropped.incrementAndGet();
+        logger.debug("Event queue full, dropped the oldest event");
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void forget(final Delivery delivery) {
+    if (delivery.coalescable) {
+      queuedByKey.remove(delivery.key, delivery);
+    }
+  }
+
+  /**
+   * Takes the first queued event that may be delivered now, if any.
+   */
+  private Delivery takeNext() {
+    if (running >= config.getParallelism() || barrierRunning) {
+      return null;
+    }
+    final Iterator<Delivery> iterator = queue.iterator();
+    while (iterator.hasNext()) {
+      final Delivery next = iterator.next();
+      if (next.key == null && running > 0) {
+        return null;
+      }
+      if (next.key == null || !runningKeys.contains(next.key)) {
+        iterator.remove();
+        forget(next);
+        running++;
+        if (next.key == null) {
+          barrierRunning = true;
+        } else {
+          runningKeys.add(next.key);
+        }
+        return next;
+      }
+    }
+    return null;
+  }
+
+  private void run() {
+    while (true) {
+      final Delivery next;
+      final Runnable action;
+      synchronized (this) {
+        Delivery taken;
+        while ((taken = takeNext()) == null) {
+          if (closed && queue.isEmpty()) {
+            if (executor != null) {
+              executor.close();
+            }
+            return;
+          }
+          try {
+            wait();
+          } catch (final InterruptedException e) {
+            return;
+          }
+        }
+        next = taken;
+        action = taken.action;
+        notifyAll();
+      }
+      if (executor == null) {
+        deliver(next, action);
+      } else {
+        executor.execute(next.key == null ? BARRIER : next.key, () -> deliver(next, action));
+      }
+    }
+  }
+
+  private void deliver(final Delivery delivery, final Runnable action) {
+    try {
+      action.run();
+    } catch (final RuntimeException e) {
+      logger.warn("Event listener failed", e);
+    }
+    final long latency = System.nanoTime() - delivery.queuedAt;
+    latencyNanos.addAndGet(latency);
+    maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    delivered.incrementAndGet();
+    synchronized (this) {
+      running--;
+      if (delivery.key == null) {
+        barrierRunning = false;
+      } else {
+        runningKeys.remove(delivery.key);
+      }
+      notifyAll();
+    }
+  }
+
+  /**
+   * Stops accepting events. The events already queued are still delivered.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    notifyAll();
+  }
+
+  private static final class Delivery {
+    private final String key;
+    private final boolean coalescable;
+    private final boolean droppable;
+    private final long queuedAt = System.nanoTime();
+    private Runnable action;
+
+    private Delivery(final String key, final boolean coalescable, final boolean droppable, final Runnable action) {
+      this.key = key;
+      this.coalescable = coalescable;
+      this.droppable = droppable;
+      this.action = action;
+    }
+  }
+}
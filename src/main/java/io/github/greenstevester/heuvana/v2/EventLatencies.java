@@ -0,0 +1,107 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The built-in latency histograms of the events of a {@link Hue} instance, one per event type and
+ * {@link EventLatencyStage}. Available through {@link Hue#getEventLatencies()}.
+ *
+ * <p>Example: to find out where a button press is held up, compare
+ * {@code getHistogram("button", EventLatencyStage.QUEUE_WAIT)} with the other stages.</p>
+ *
+ * @since 5.3.0
+ */
+public class EventLatencies implements EventMetrics {
+  static final EventMetrics NONE = (eventType, stage, nanos) -> {
+  };
+
+  private final Map<String, Map<EventLatencyStage, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * @param metrics The measurements of an event stream.
+   * @return Whether anything is measured, so that the stream can skip reading what it would measure.
+   */
+  static boolean isRecording(final EventMetrics metrics) {
+    return metrics != NONE && (!(metrics instanceof OnDemand) || ((OnDemand) metrics).on);
+  }
+
+  EventLatencies() {
+  }
+
+  @Override
+  public void record(final String eventType, final EventLatencyStage stage, final long nanos) {
+    histograms.computeIfAbsent(eventType, type -> {
+      final Map<EventLatencyStage, LatencyHistogram> stages = new EnumMap<>(EventLatencyStage.class);
+      for (final EventLatencyStage each : EventLatencyStage.values()) {
+        stages.put(each, new LatencyHistogram());
+      }
+      return Collections.unmodifiableMap(stages);
+    }).get(stage).record(nanos);
+  }
+
+  /**
+   * @return The event types that have been measured.
+   */
+  public Set<String> getEventTypes() {
+    return Collections.unmodifiableSet(new TreeSet<>(histograms.keySet()));
+  }
+
+  /**
+   * @param eventType An event type, such as {@code button}.
+   * @param stage     The stage.
+   * @return The histogram, or {@code Optional.empty()} if no event of the type has been measured.
+   */
+  public Optional<LatencyHistogram> getHistogram(final String eventType, final EventLatencyStage stage) {
+    return Optional.ofNullable(histograms.get(eventType)).map(stages -> stages.get(stage));
+  }
+
+  /**
+   * Discards all the measurements so far.
+   */
+  public void reset() {
+    histograms.clear();
+  }
+
+  /**
+   * Measurements that are only taken once switched on, when someone first asks for them.
+   */
+  static final class OnDemand implements EventMetrics {
+    private final EventMetrics target;
+    private volatile boolean on;
+
+    OnDemand(final EventMetrics target) {
+      this.target = target;
+    }
+
+    void switchOn() {
+      on = true;
+    }
+
+    @Override
+    public void record(final String eventType, final EventLatencyStage stage, final long nanos) {
+      if (on) {
+        target.record(eventType, stage, nanos);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder result = new StringBuilder("EventLatencies{");
+    for (final String eventType : getEventTypes()) {
+      result.append('\n').append("  ").append(eventType).append(':');
+      histograms.get(eventType).forEach((stage, histogram) -> {
+        if (histogram.getCount() > 0) {
+          result.append("\n    ").append(stage).append('=').append(histogram);
+        }
+      });
+    }
+    return result.append('}').toString();
+  }
+}
@@ -0,0 +1,33 @@
+package io.github.greenstevester.heuvana.v2;
+
+/**
+ * The stages an event goes through from the Bridge to a {@link HueEventListener}, each measured separately
+ * so that a lag can be traced to the Bridge, the event stream client or the listener itself.
+ *
+ * @see EventMetrics
+ * @since 5.3.0
+ */
+public enum EventLatencyStage {
+  /**
+   * From the {@code creationtime} the Bridge gave the event to the message arriving from the event stream.
+   * The Bridge only gives the time in whole seconds, and the clocks of the Bridge and of this computer may
+   * differ, so this is only good for spotting delays of a second or more.
+   */
+  BRIDGE_TO_RECEIVE,
+
+  /**
+   * Parsing the message, once into a tree shared by all subscribers, and then binding it into
+   * {@code HueEvent}s or decoding the button and motion events from it.
+   */
+  PARSE,
+
+  /**
+   * Waiting in the {@link EventDispatcher} queue of a listener.
+   */
+  QUEUE_WAIT,
+
+  /**
+   * Running the listener method.
+   */
+  LISTENER
+}
@@ -0,0 +1,280 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.HueApiException;
+import io.github.greenstevester.heuvana.v2.domain.HueEvent;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A message of the event stream, shared by all the subscribers of the stream.
+ * The message is only parsed into a tree when the first subscriber asks for it or for typed events, and then
+ * only once; the typed events are bound from that tree. Subscribers that only need a few fields can read them
+ * with an {@link EventDecoder} instead, which reads the message once per set of resource types, however many
+ * subscribers ask. The time spent parsing is reported to the {@link EventMetrics}.
+ */
+final class EventMessage {
+  private final ObjectMapper objectMapper;
+  private final String data;
+  private final EventMetrics metrics;
+  private volatile JsonNode tree;
+  private volatile List<HueEvent> events;
+  private volatile List<Stamp> stamps;
+  private final Map<Set<String>, List<DecodedEvent>> decoded = new ConcurrentHashMap<>(2);
+
+  EventMessage(final ObjectMapper objectMapper, final String data) {
+    this(objectMapper, data, EventLatencies.NONE);
+  }
+
+  EventMessage(final ObjectMapper objectMapper, final String data, final EventMetrics metrics) {
+    this.objectMapper = objectMapper;
+    this.data = data;
+    this.metrics = metrics;
+  }
+
+  /**
+   * @return The message as received from the Bridge.
+   */
+  String getData() {
+    return data;
+  }
+
+  /**
+   * @return The array of events as sent by the Bridge. Must not be modified.
+   */
+  JsonNode getTree() {
+    JsonNode result = tree;
+    if (result == null) {
+      synchronized (this) {
+        result = tree;
+        if (result == null) {
+          final long startedAt = System.nanoTime();
+          result = parseTree();
+          recordParse(startedAt);
+        }
+      }
+    }
+    return result;
+  }
+
+  List<HueEvent> getEvents() {
+    List<HueEvent> result = events;
+    if (result == null) {
+      synchronized (this) {
+        result = events;
+        if (result == null) {
+          final long startedAt = System.nanoTime();
+          // Bound from the tree, so that asking for the tree afterwards does not parse the message again
+          final JsonNode parsed = tree != null ? tree : parseTree();
+          try {
+            result = objectMapper.readerFor(BasicHueEventHandler.EVENT_LIST_TYPE_REF).readValue(parsed);
+          } catch (final IOException e) {
+            throw new HueApiException(e);
+          }
+          events = result;
+          recordParse(startedAt);
+        }
+      }
+    }
+    return result;
+  }
+
+  private JsonNode parseTree() {
+    final JsonNode result;
+    try {
+      result = objectMapper.readTree(data);
+    } catch (final IOException e) {
+      throw new HueApiException(e);
+    }
+    tree = result;
+    return result;
+  }
+
+  /**
+   * @param decoder Reads the wanted fields.
+   * @return The resources kept by the decoder, read only once per set of resource types. Must not be modified.
+   */
+  List<DecodedEvent> decode(final EventDecoder decoder) {
+    return decoded.computeIfAbsent(decoder.getResourceTypes(), types -> {
+      final long startedAt = System.nanoTime();
+      final List<DecodedEvent> result;
+      try {
+        result = decoder.decode(data);
+      } catch (final IOException e) {
+        throw new HueApiException(e);
+      }
+      recordParse(startedAt);
+      return Collections.unmodifiableList(result);
+    });
+  }
+
+  /**
+   * Tells whether any resource of this message is of one of the given types, or has or is owned by one of the
+   * given ids, without binding the message. Only the ids and types are read, with the streaming parser.
+   *
+   * @param type Tells whether a resource type, such as {@code "light"}, is of interest.
+   * @param id   Tells whether the id of a resource or of its owner is of interest.
+   * @return {@code true} if the message concerns any of them.
+   */
+  boolean concerns(final Predicate<String> type, final Predicate<UUID> id) {
+    for (final Stamp stamp : getStamps()) {
+      for (final String resourceType : stamp.resourceTypes) {
+        if (type.test(resourceType)) {
+          return true;
+        }
+      }
+      for (final UUID resourceId : stamp.resourceIds) {
+        if (id.test(resourceId)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reports how long after their {@code creationtime} the events of this message arrived.
+   *
+   * @param receivedAt The time the message was received, in milliseconds since the epoch.
+   */
+  void recordReceived(final long receivedAt) {
+    if (!EventLatencies.isRecording(metrics)) {
+      return;
+    }
+    for (final Stamp stamp : getStamps()) {
+      final Instant createdAt;
+      try {
+        createdAt = Instant.parse(stamp.creationTime);
+      } catch (final DateTimeParseException | NullPointerException e) {
+        continue;
+      }
+      final long nanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, receivedAt - createdAt.toEpochMilli()));
+      for (final String type : stamp.resourceTypes) {
+        metrics.record(type, EventLatencyStage.BRIDGE_TO_RECEIVE, nanos);
+      }
+    }
+  }
+
+  private void recordParse(final long startedAt) {
+    if (!EventLatencies.isRecording(metrics)) {
+      return;
+    }
+    final long nanos = System.nanoTime() - startedAt;
+    final Set<String> types = new LinkedHashSet<>();
+    for (final Stamp stamp : getStamps()) {
+      types.addAll(stamp.resourceTypes);
+    }
+    for (final String type : types) {
+      metrics.record(type, EventLatencyStage.PARSE, nanos);
+    }
+  }
+
+  /**
+   * Reads the creation time and the resource types and ids of each event with the streaming parser,
+   * skipping the rest.
+   */
+  private List<Stamp> getStamps() {
+    List<Stamp> result = stamps;
+    if (result == null) {
+      result = new ArrayList<>(2);
+      try (JsonParser parser = objectMapper.getFactory().createParser(data)) {
+        if (parser.nextToken() == JsonToken.START_ARRAY) {
+          JsonToken token;
+          while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+              result.add(readStamp(parser));
+            } else {
+              parser.skipChildren();
+            }
+          }
+        }
+      } catch (final IOException e) {
+        result = Collections.emptyList();
+      }
+      stamps = result;
+    }
+    return result;
+  }
+
+  private static Stamp readStamp(final JsonParser parser) throws IOException {
+    String creationTime = null;
+    final Set<String> resourceTypes = new LinkedHashSet<>();
+    final Set<UUID> resourceIds = new LinkedHashSet<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      final JsonToken value = parser.nextToken();
+      if ("creationtime".equals(field) && value == JsonToken.VALUE_STRING) {
+        creationTime = parser.getText();
+      } else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY && item != null) {
+          if (item != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            continue;
+          }
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String resourceField = parser.getCurrentName();
+            final JsonToken resourceValue = parser.nextToken();
+            if (resourceValue == JsonToken.VALUE_STRING && "type".equals(resourceField)) {
+              resourceTypes.add(parser.getText());
+            } else if (resourceValue == JsonToken.VALUE_STRING && "id".equals(resourceField)) {
+              addId(resourceIds, parser.getText());
+            } else if (resourceValue == JsonToken.START_OBJECT && "owner".equals(resourceField)) {
+              while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String ownerField = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.VALUE_STRING && "rid".equals(ownerField)) {
+                  addId(resourceIds, parser.getText());
+                } else {
+                  parser.skipChildren();
+                }
+              }
+            } else {
+              parser.skipChildren();
+            }
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return new Stamp(creationTime, resourceTypes, resourceIds);
+  }
+
+  private static void addId(final Set<UUID> ids, final String value) {
+    try {
+      ids.add(UUID.fromString(value));
+    } catch (final IllegalArgumentException e) {
+      // Not an id this library can route by
+    }
+  }
+
+  /**
+   * The creation time and the resource types and ids of one event. The ids include the owners of the resources.
+   */
+  private static final class Stamp {
+    private final String creationTime;
+    private final Set<String> resourceTypes;
+    private final Set<UUID> resourceIds;
+
+    private Stamp(final String creationTime, final Set<String> resourceTypes, final Set<UUID> resourceIds) {
+      this.creationTime = creationTime;
+      this.resourceTypes = resourceTypes;
+      this.resourceIds = resourceIds;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package io.github.greenstevester.heuvana.v2;
+
+/**
+ * Receives the latency measurements of the events of a {@link Hue} instance, for exporting them into a metrics
+ * library. Register an implementation with {@link Hue#addEventMetrics(EventMetrics)}. The measurements are also
+ * kept in the built-in histograms of {@link Hue#getEventLatencies()}.
+ *
+ * <p>Implementations are called on the thread reading the event stream and on the threads of the listeners,
+ * so they must be thread safe and fast.</p>
+ *
+ * @since 5.3.0
+ */
+@FunctionalInterface
+public interface EventMetrics {
+
+  /**
+   * @param eventType The type of the resource the event is about, such as {@code button}, {@code motion} or
+   *                  {@code light}, or {@code all} for the lists of all events handed to
+   *                  {@link HueEventListener#receive(java.util.List)}.
+   * @param stage     What was measured.
+   * @param nanos     How long the stage took, in nanoseconds.
+   */
+  void record(String eventType, EventLatencyStage stage, long nanos);
+}
@@ -0,0 +1,28 @@
+package io.github.greenstevester.heuvana.v2;
+
+/**
+ * How an {@link EventDispatcher} deals with a listener that falls behind, mainly what it does with a new event
+ * when the queue of the listener is full. Notifications about the connection opening or closing are never dropped.
+ *
+ * @see EventDispatchConfig.Builder#overflowPolicy(EventOverflowPolicy)
+ * @since 5.3.0
+ */
+public enum EventOverflowPolicy {
+  /**
+   * Waits until the listener has caught up, holding up the event stream in the meantime. No events are lost.
+   */
+  BLOCK,
+
+  /**
+   * Drops the oldest queued event to make room for the new one.
+   */
+  DROP_OLDEST,
+
+  /**
+   * When the queue is full, replaces a queued motion event of the same resource with the newer one as long as it
+   * has not been delivered, so that a slow listener only sees the latest state of each resource. Events that
+   * cannot be replaced that way, such as button presses, which are discrete, and the raw event lists, drop the
+   * oldest queued event instead. Until the queue is full, every event is delivered.
+   */
+  COALESCE
+}
@@ -0,0 +1,347 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Publishes the events of the Bridge to reactive subscribers, honouring their demand.
+ * See {@link Hue#eventPublisher(EventDispatchConfig)}, {@link Hue#buttonEventPublisher(EventDispatchConfig)} and
+ * {@link Hue#motionEventPublisher(EventDispatchConfig)}.
+ *
+ * <p>Each subscriber has a buffer of its own, holding the events it has not requested yet. The capacity of the
+ * buffer and what happens when it is full are set with the {@link EventDispatchConfig} of the publisher:
+ * with {@link EventOverflowPolicy#BLOCK}, the event stream waits until the subscriber requests more, which also
+ * holds up the other subscribers of the stream. Events are handed to each subscriber one at a time, on a thread
+ * of their own. The event stream is opened with the first subscriber and closed when the last one cancels.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * hue.buttonEventPublisher(EventDispatchConfig.defaults()).subscribe(new Flow.Subscriber<>() {
+ *   private Flow.Subscription subscription;
+ *
+ *   public void onSubscribe(Flow.Subscription subscription) {
+ *     this.subscription = subscription;
+ *     subscription.request(1);
+ *   }
+ *
+ *   public void onNext(ButtonEvent event) {
+ *     System.out.println(event);
+ *     subscription.request(1);
+ *   }
+ *
+ *   public void onError(Throwable throwable) {
+ *   }
+ *
+ *   public void onComplete() {
+ *   }
+ * });
+ * }</pre>
+ *
+ * @param <T> The type of the events.
+ * @since 5.3.0
+ */
+public class EventPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+  private static final ExecutorService DELIVERY = Executors.newCachedThreadPool(runnable -> {
+    final Thread thread = new Thread(runnable, "hue-event-publisher-" + THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final EventDispatchConfig config;
+  private final Function<EventStreamListener, HueEventSource> streamOpener;
+  private final BiConsumer<EventMessage, EventPublisher<T>> extractor;
+  private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+  private HueEventSource eventSource;
+  private boolean closed;
+
+  /**
+   * @param config       The buffer capacity and overflow policy for each subscriber.
+   * @param streamOpener Subscribes to the event stream.
+   * @param extractor    Reads the events of a message and hands them to {@link #publish(String, Object)}.
+   */
+  EventPublisher(final EventDispatchConfig config,
+                 final Function<EventStreamListener, HueEventSource> streamOpener,
+                 final BiConsumer<EventMessage, EventPublisher<T>> extractor) {
+    this.config = config;
+    this.streamOpener = streamOpener;
+    this.extractor = extractor;
+  }
+
+  public EventDispatchConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * @return The number of current subscribers.
+   */
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  @Override
+  public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    final EventSubscription subscription = new EventSubscription(subscriber);
+    final boolean rejected;
+    synchronized (this) {
+      rejected = closed;
+      if (!rejected) {
+        subscriptions.add(subscription);
+      }
+    }
+    subscriber.onSubscribe(subscription);
+    if (rejected) {
+      subscriber.onError(new IllegalStateException("The publisher has been closed"));
+      return;
+    }
+    try {
+      ensureStreamOpen();
+    } catch (final RuntimeException e) {
+      subscriptions.remove(subscription);
+      subscriber.onError(e);
+    }
+  }
+
+  private synchronized void ensureStreamOpen() {
+    if (eventSource == null && !closed && !subscriptions.isEmpty()) {
+      eventSource = streamOpener.apply(new EventStreamListener() {
+        @Override
+        public void onOpen() {
+          logger.trace("Event publisher connected.");
+        }
+
+        @Override
+        public void onClosed() {
+          logger.trace("Event publisher disconnected.");
+        }
+
+        @Override
+        public void onEvents(final EventMessage message) {
+          if (!subscriptions.isEmpty()) {
+            extractor.accept(message, EventPublisher.this);
+          }
+        }
+      });
+    }
+  }
+
+  private synchronized void remove(final EventSubscription subscription) {
+    if (subscriptions.remove(subscription) && subscriptions.isEmpty() && eventSource != null) {
+      eventSource.close();
+      eventSource = null;
+    }
+  }
+
+  /**
+   * Hands an event to all the subscribers.
+   *
+   * @param key   Identifies the resource and kind of the event for {@link EventOverflowPolicy#COALESCE},
+   *              or {@code null} if the event cannot be replaced by a newer one, such as a button press.
+   * @param event The event.
+   */
+  void publish(final String key, final T event) {
+    for (final EventSubscription subscription : subscriptions) {
+      subscription.offer(key, event);
+    }
+  }
+
+  /**
+   * Closes the event stream of this publisher. The subscribers receive the events already buffered for them,
+   * and are then completed.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      if (eventSource != null) {
+        eventSource.close();
+        eventSource = null;
+      }
+    }
+    for (final EventSubscription subscription : subscriptions) {
+      subscription.complete();
+    }
+    subscriptions.clear();
+  }
+
+  /**
+   * The buffer and demand of a single subscriber.
+   */
+  private final class EventSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super T> subscriber;
+    private final Deque<Buffered<T>> buffer = new ArrayDeque<>();
+    private final Map<String, Buffered<T>> bufferedByKey = new HashMap<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private volatile boolean cancelled;
+    private boolean completed;
+    private Throwable error;
+
+    private EventSubscription(final Flow.Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(final long n) {
+      if (n <= 0) {
+        synchronized (this) {
+          error = new IllegalArgumentException("Requested " + n + " events, the number must be positive");
+          clear();
+        }
+      } else {
+        demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      synchronized (this) {
+        clear();
+        notifyAll();
+      }
+      remove(this);
+    }
+
+    private synchronized void offer(final String key, final T event) {
+      if (cancelled || completed) {
+        return;
+      }
+      final EventOverflowPolicy policy = config.getOverflowPolicy();
+      if (policy == EventOverflowPolicy.COALESCE && key != null && buffer.size() >= config.getQueueCapacity()) {
+        final Buffered<T> buffered = bufferedByKey.get(key);
+        if (buffered != null) {
+          buffered.event = event;
+          return;
+        }
+      }
+      while (buffer.size() >= config.getQueueCapacity() && !cancelled) {
+        if (policy == EventOverflowPolicy.BLOCK) {
+          try {
+            wait();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        } else {
+          forget(buffer.pollFirst());
+          logger.debug("Subscriber buffer full, dropped the oldest event");
+        }
+      }
+      if (cancelled) {
+        return;
+      }
+      final Buffered<T> added = new Buffered<>(key, event);
+      buffer.addLast(added);
+      if (policy == EventOverflowPolicy.COALESCE && key != null) {
+        bufferedByKey.put(key, added);
+      }
+      drain();
+    }
+
+    private void forget(final Buffered<T> buffered) {
+      if (buffered != null && buffered.key != null) {
+        bufferedByKey.remove(buffered.key, buffered);
+      }
+    }
+
+    private void clear() {
+      buffer.clear();
+      bufferedByKey.clear();
+    }
+
+    private synchronized void complete() {
+      completed = true;
+      drain();
+    }
+
+    private void drain() {
+      if (drainRequests.getAndIncrement() == 0) {
+        DELIVERY.execute(this::deliver);
+      }
+    }
+
+    /**
+     * Hands buffered events to the subscriber as long as it has demand. Only one thread at a time runs this.
+     */
+    private void deliver() {
+      int requests = drainRequests.get();
+      while (true) {
+        while (!cancelled && demand.get() > 0) {
+          final T event;
+          synchronized (this) {
+            final Buffered<T> next = buffer.pollFirst();
+            if (next == null) {
+              break;
+            }
+            forget(next);
+            event = next.event;
+            notifyAll();
+          }
+          demand.decrementAndGet();
+          try {
+            subscriber.onNext(event);
+          } catch (final RuntimeException e) {
+            logger.warn("Event subscriber failed", e);
+          }
+        }
+        if (!cancelled && terminate()) {
+          return;
+        }
+        requests = drainRequests.addAndGet(-requests);
+        if (requests == 0) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * @return {@code true} if the subscriber has been sent its terminal signal.
+     */
+    private boolean terminate() {
+      final Throwable failure;
+      synchronized (this) {
+        if (error == null && !(completed && buffer.isEmpty())) {
+          return false;
+        }
+        failure = error;
+        cancelled = true;
+      }
+      remove(this);
+      if (failure != null) {
+        subscriber.onError(failure);
+      } else {
+        subscriber.onComplete();
+      }
+      return true;
+    }
+  }
+
+  private static final class Buffered<T> {
+    private final String key;
+    private T event;
+
+    private Buffered(final String key, final T event) {
+      this.key = key;
+      this.event = event;
+    }
+  }
+}
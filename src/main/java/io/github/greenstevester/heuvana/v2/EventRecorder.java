@@ -0,0 +1,128 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.HueApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Records the raw messages of the event stream of a Bridge into a file, for replaying them later with an
+ * {@link EventReplay}. See {@link Hue#recordEvents(Path)}.
+ *
+ * <p>The file is appended to, one message per line: the time the message was received, in milliseconds since
+ * the epoch, a space, and the message exactly as sent by the Bridge. Each line is flushed as it is written, so a
+ * recording survives the application being stopped abruptly.</p>
+ *
+ * @since 5.3.0
+ */
+public class EventRecorder implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  private final Path file;
+  private final Writer writer;
+  private final AtomicLong recorded = new AtomicLong();
+  private final HueEventSource eventSource;
+  private boolean closed;
+
+  EventRecorder(final Path file, final Function<EventStreamListener, HueEventSource> streamOpener) {
+    this.file = file;
+    try {
+      this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    } catch (final IOException e) {
+      throw new HueApiException(e);
+    }
+    HueEventSource source = null;
+    try {
+      source = streamOpener.apply(new EventStreamListener() {
+        @Override
+        public void onOpen() {
+        }
+
+        @Override
+        public void onClosed() {
+        }
+
+        @Override
+        public void onEvents(final EventMessage message) {
+          record(System.currentTimeMillis(), message.getData());
+        }
+
+        @Override
+        public String toString() {
+          return "EventRecorder[" + file + "]";
+        }
+      });
+    } finally {
+      if (source == null) {
+        try {
+          writer.close();
+        } catch (final IOException e) {
+          logger.debug("Could not close the event recording {}", file, e);
+        }
+      }
+    }
+    this.eventSource = source;
+  }
+
+  /**
+   * Appends a message to the recording.
+   *
+   * @param receivedAt The time the message was received, in milliseconds since the epoch.
+   * @param data       The message as sent by the Bridge.
+   */
+  synchronized void record(final long receivedAt, final String data) {
+    if (closed) {
+      return;
+    }
+    try {
+      writer.write(Long.toString(receivedAt));
+      writer.write(' ');
+      // Line breaks can only appear as whitespace between the JSON tokens
+      writer.write(data.indexOf('\n') < 0 ? data : data.replace('\n', ' '));
+      writer.write('\n');
+      writer.flush();
+      recorded.incrementAndGet();
+    } catch (final IOException e) {
+      logger.warn("Could not record an event to {}", file, e);
+    }
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * @return The number of messages recorded so far.
+   */
+  public long getRecordedCount() {
+    return recorded.get();
+  }
+
+  /**
+   * Stops recording and closes the file.
+   */
+  @Override
+  public void close() {
+    eventSource.close();
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        writer.close();
+      } catch (final IOException e) {
+        logger.warn("Could not close the event recording {}", file, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.HueEvent;
+import io.github.greenstevester.heuvana.v2.domain.HueEventData;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Routes the events of the Bridge to handlers subscribed to specific resources, resource types or devices,
+ * see {@link Hue#events()}.
+ *
+ * <p>Unlike a {@link HueEventListener}, which receives every event, a handler here only receives the events of
+ * the resources it subscribed to. The subscriptions are kept in hash indexes by resource id, resource type and
+ * owner, and each incoming event is routed with a few lookups, so handlers of resources that stay idle cost
+ * nothing. Messages that concern none of the subscribed resources, types or owners are recognized from their ids
+ * and types alone and are not bound into events. The event stream is opened with the first subscription and
+ * closed with the last one. Handlers are called in the order the events arrived, on a thread of their own
+ * (see {@link EventDispatcher}).</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * final EventRegistry.Subscription subscription = hue.events()
+ *     .onOwner(motionSensorId, data -> data.getMotion().ifPresent(motion -> ...));
+ * // Later:
+ * subscription.close();
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public class EventRegistry implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+  private static final Map<String, ResourceType> TYPES_BY_NAME = new HashMap<>();
+
+  static {
+    for (final ResourceType type : ResourceType.values()) {
+      TYPES_BY_NAME.put(type.name().toLowerCase(), type);
+    }
+  }
+
+  private final ConcurrentMap<UUID, List<Consumer<HueEventData>>> byResource = new ConcurrentHashMap<>();
+  private final ConcurrentMap<UUID, List<Consumer<HueEventData>>> byOwner = new ConcurrentHashMap<>();
+  private final Map<ResourceType, List<Consumer<HueEventData>>> byType = new EnumMap<>(ResourceType.class);
+  private final Function<EventStreamListener, HueEventSource> streamOpener;
+  private EventDispatcher dispatcher;
+  private HueEventSource eventSource;
+  private int subscriptionCount;
+
+  EventRegistry(final Function<EventStreamListener, HueEventSource> streamOpener) {
+    this.streamOpener = streamOpener;
+    for (final ResourceType type : ResourceType.values()) {
+      byType.put(type, new CopyOnWriteArrayList<>());
+    }
+  }
+
+  /**
+   * Subscribes to the events of a single resource, such as a light, a button or a motion service.
+   *
+   * @param resourceId The id of the resource.
+   * @param handler    Receives the events of the resource.
+   * @return The subscription, to be closed when the events are no longer needed.
+   */
+  public Subscription onResource(final UUID resourceId, final Consumer<HueEventData> handler) {
+    return subscribe(byResource, resourceId, handler);
+  }
+
+  /**
+   * Subscribes to the events of a light, such as it being turned on or dimmed.
+   *
+   * @param lightId The id of the light.
+   * @param handler Receives the events of the light.
+   * @return The subscription, to be closed when the events are no longer needed.
+   */
+  public Subscription onLight(final UUID lightId, final Consumer<HueEventData> handler) {
+    return onResource(lightId, handler);
+  }
+
+  /**
+   * Subscribes to the events of all the resources of a type, such as all the motion services.
+   *
+   * @param type    The type of the resources.
+   * @param handler Receives the events of the resources.
+   * @return The subscription, to be closed when the events are no longer needed.
+   */
+  public Subscription onType(final ResourceType type, final Consumer<HueEventData> handler) {
+    final List<Consumer<HueEventData>> handlers = byType.get(type);
+    handlers.add(handler);
+    ensureStreamOpen();
+    return subscription(() -> handlers.remove(handler));
+  }
+
+  /**
+   * Subscribes to the events of all the services of a device, such as the buttons of a switch or the motion,
+   * temperature and light level services of a motion sensor.
+   *
+   * @param deviceId The id of the device.
+   * @param handler  Receives the events of the services of the device.
+   * @return The subscription, to be closed when the events are no longer needed.
+   */
+  public Subscription onOwner(final UUID deviceId, final Consumer<HueEventData> handler) {
+    return subscribe(byOwner, deviceId, handler);
+  }
+
+  private Subscription subscribe(final ConcurrentMap<UUID, List<Consumer<HueEventData>>> index,
+                                 final UUID key,
+                                 final Consumer<HueEventData> handler) {
+    index.compute(key, (id, handlers) -> {
+      final List<Consumer<HueEventData>> result = handlers == null ? new CopyOnWriteArrayList<>() : handlers;
+      result.add(handler);
+      return result;
+    });
+    ensureStreamOpen();
+    return subscription(() -> index.computeIfPresent(key, (id, handlers) -> {
+      handlers.remove(handler);
+      return handlers.isEmpty() ? null : handlers;
+    }));
+  }
+
+  private Subscription subscription(final Runnable unsubscribe) {
+    final AtomicBoolean closed = new AtomicBoolean();
+    return () -> {
+      if (closed.compareAndSet(false, true)) {
+        unsubscribe.run();
+        release();
+      }
+    };
+  }
+
+  private synchronized void release() {
+    if (--subscriptionCount == 0) {
+      logger.debug("Closing the event stream of the registry after its last subscription");
+      close();
+    }
+  }
+
+  private synchronized void ensureStreamOpen() {
+    subscriptionCount++;
+    if (eventSource == null) {
+      dispatcher = new EventDispatcher(EventDispatchConfig.defaults());
+      eventSource = streamOpener.apply(eventHandler());
+    }
+  }
+
+  /**
+   * Hands the data of the events to the handlers subscribed to them, in a single pass.
+   *
+   * @param events The events, as received from the Bridge.
+   */
+  void route(final List<HueEvent> events) {
+    for (final HueEvent event : events) {
+      if (event.getData() == null) {
+        continue;
+      }
+      for (final HueEventData data : event.getData()) {
+        if (data.getResourceId() != null) {
+          deliver(byResource.get(data.getResourceId()), data);
+        }
+        if (data.getOwner() != null && data.getOwner().getResourceId() != null) {
+          deliver(byOwner.get(data.getOwner().getResourceId()), data);
+        }
+        deliver(byType.get(TYPES_BY_NAME.getOrDefault(data.getType(), ResourceType.UNKNOWN)), data);
+      }
+    }
+  }
+
+  /**
+   * @return {@code true} if a handler is subscribed to any of the resources, types or owners of the message.
+   */
+  private boolean isWanted(final EventMessage message) {
+    return message.concerns(
+        type -> !byType.get(TYPES_BY_NAME.getOrDefault(type, ResourceType.UNKNOWN)).isEmpty(),
+        id -> byResource.containsKey(id) || byOwner.containsKey(id));
+  }
+
+  private static void deliver(final List<Consumer<HueEventData>> handlers, final HueEventData data) {
+    if (handlers == null || handlers.isEmpty()) {
+      return;
+    }
+    for (final Consumer<HueEventData> handler : handlers) {
+      try {
+        handler.accept(data);
+      } catch (final RuntimeException e) {
+        logger.warn("Event handler failed for {}", data.getResourceId(), e);
+      }
+    }
+  }
+
+  private EventStreamListener eventHandler() {
+    final EventDispatcher eventDispatcher = dispatcher;
+    return new EventStreamListener() {
+      @Override
+      public void onOpen() {
+        logger.trace("Event registry connected.");
+      }
+
+      @Override
+      public void onClosed() {
+        logger.trace("Event registry disconnected.");
+      }
+
+      @Override
+      public void onEvents(final EventMessage message) {
+        if (!isWanted(message)) {
+          return;
+        }
+        final List<HueEvent> events = message.getEvents();
+        eventDispatcher.dispatch(null, true, () -> route(events));
+      }
+    };
+  }
+
+  /**
+   * @return The dispatcher calling the handlers, or {@code Optional.empty()} before the first subscription.
+   */
+  public synchronized Optional<EventDispatcher> getDispatcher() {
+    return Optional.ofNullable(dispatcher);
+  }
+
+  /**
+   * Closes the event stream, as also happens when the last subscription is closed. The subscriptions are kept,
+   * and the stream is opened again by the next subscription.
+   */
+  @Override
+  public synchronized void close() {
+    if (eventSource != null) {
+      eventSource.close();
+      eventSource = null;
+    }
+    if (dispatcher != null) {
+      dispatcher.close();
+      dispatcher = null;
+    }
+  }
+
+  /**
+   * A subscription of a handler, see {@link EventRegistry}.
+   */
+  @FunctionalInterface
+  public interface Subscription extends AutoCloseable {
+    /**
+     * Stops delivering events to the handler.
+     */
+    @Override
+    void close();
+  }
+}
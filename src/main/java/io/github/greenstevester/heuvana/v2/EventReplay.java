@@ -0,0 +1,341 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.launchdarkly.eventsource.MessageEvent;
+import com.launchdarkly.eventsource.background.BackgroundEventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Plays back a recording made with an {@link EventRecorder} in place of the event stream of a Bridge, for testing
+ * event handling and automations without a Bridge. See {@link Hue#replayEvents(EventReplay)}.
+ *
+ * <p>The recorded messages go through the same parsing and dispatching as live ones, so every listener,
+ * the {@link Hue#events()} registry and the reactive publishers of the {@link Hue} instance receive them.
+ * They can be played back in real time, sped up, or as fast as possible. When the recording has been played,
+ * the stream is reported as closed and {@link #whenFinished()} is completed with a {@link Report} of the
+ * throughput and of the latency of each listener.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * final EventReplay replay = EventReplay.builder(Paths.get("events.log")).speed(100).build();
+ * hue.replayEvents(replay);
+ * hue.subscribeToEvents(automation);
+ * System.out.println(replay.whenFinished().get());
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public class EventReplay {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+  private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+  private final Path file;
+  private final double speed;
+  private final CompletableFuture<Report> finished = new CompletableFuture<>();
+  private volatile Supplier<Map<String, EventDispatcher>> dispatchers = Collections::emptyMap;
+
+  private EventReplay(final Builder builder) {
+    this.file = builder.file;
+    this.speed = builder.speed;
+  }
+
+  /**
+   * @param file A recording made with an {@link EventRecorder}.
+   * @return A new builder.
+   */
+  public static Builder builder(final Path file) {
+    return new Builder(file);
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * @return How many times faster than recorded the messages are played back,
+   *     or {@link Double#POSITIVE_INFINITY} if as fast as possible.
+   */
+  public double getSpeed() {
+    return speed;
+  }
+
+  /**
+   * @return A future completed with the report once the whole recording has been played back and the listeners
+   *     have handled it, or completed exceptionally if the recording could not be read.
+   */
+  public CompletableFuture<Report> whenFinished() {
+    return finished.copy();
+  }
+
+  void setDispatchers(final Supplier<Map<String, EventDispatcher>> dispatchers) {
+    this.dispatchers = dispatchers;
+  }
+
+  /**
+   * Starts playing the recording back to the handler, like a connection to the event stream of a Bridge would.
+   *
+   * @param handler Receives the messages.
+   * @return The playback, which can be closed to stop it early.
+   */
+  HueEventSource start(final BackgroundEventHandler handler) {
+    final Playback playback = new Playback(handler);
+    final Thread thread = new Thread(playback, "hue-event-replay");
+    thread.setDaemon(true);
+    playback.thread = thread;
+    thread.start();
+    return playback;
+  }
+
+  private final class Playback implements HueEventSource, Runnable {
+    private final BackgroundEventHandler handler;
+    private volatile Thread thread;
+    private volatile HueEventStreamState state = HueEventStreamState.CONNECTING;
+    private volatile boolean stopped;
+
+    private Playback(final BackgroundEventHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public void run() {
+      long messages = 0;
+      final long startedAt = System.nanoTime();
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        state = HueEventStreamState.ACTIVE;
+        handler.onOpen();
+        long firstRecordedAt = -1;
+        String line;
+        while (!stopped && (line = reader.readLine()) != null) {
+          final int separator = line.indexOf(' ');
+          if (separator <= 0) {
+            continue;
+          }
+          final long recordedAt = Long.parseLong(line.substring(0, separator));
+          if (firstRecordedAt < 0) {
+            firstRecordedAt = recordedAt;
+          }
+          waitUntil(startedAt + (long) (TimeUnit.MILLISECONDS.toNanos(recordedAt - firstRecordedAt) / speed));
+          try {
+            handler.onMessage("message", new MessageEvent(line.substring(separator + 1)));
+          } catch (final Exception e) {
+            logger.warn("Could not replay an event", e);
+          }
+          messages++;
+        }
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+        final Map<String, EventDispatcher> listeners = dispatchers.get();
+        for (final EventDispatcher dispatcher : listeners.values()) {
+          dispatcher.awaitIdle(DRAIN_TIMEOUT);
+        }
+        finished.complete(new Report(messages, elapsed, listeners));
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        finished.cancel(false);
+      } catch (final Exception e) {
+        finished.completeExceptionally(e);
+      } finally {
+        state = HueEventStreamState.CLOSED;
+        try {
+          handler.onClosed();
+        } catch (final Exception e) {
+          logger.debug("Replay handler failed on close", e);
+        }
+      }
+    }
+
+    private void waitUntil(final long deadline) throws InterruptedException {
+      if (Double.isInfinite(speed)) {
+        return;
+      }
+      long remaining;
+      while (!stopped && (remaining = deadline - System.nanoTime()) > 0) {
+        TimeUnit.NANOSECONDS.sleep(remaining);
+      }
+    }
+
+    @Override
+    public void close() {
+      stopped = true;
+      final Thread current = thread;
+      if (current != null && current != Thread.currentThread()) {
+        current.interrupt();
+      }
+    }
+
+    @Override
+    public HueEventStreamState getState() {
+      return state;
+    }
+  }
+
+  /**
+   * The outcome of playing back a recording.
+   */
+  public static final class Report {
+    private final long messageCount;
+    private final Duration elapsed;
+    private final List<ListenerLatency> listenerLatencies;
+
+    Report(final long messageCount, final Duration elapsed, final Map<String, EventDispatcher> dispatchers) {
+      this.messageCount = messageCount;
+      this.elapsed = elapsed;
+      final List<ListenerLatency> latencies = new ArrayList<>();
+      dispatchers.forEach((listener, dispatcher) -> latencies.add(new ListenerLatency(listener,
+          dispatcher.getDeliveredCount(), dispatcher.getMeanLatency(), dispatcher.getMaxLatency())));
+      this.listenerLatencies = Collections.unmodifiableList(latencies);
+    }
+
+    /**
+     * @return The number of messages played back.
+     */
+    public long getMessageCount() {
+      return messageCount;
+    }
+
+    /**
+     * @return The time it took to play back all the messages.
+     */
+    public Duration getElapsed() {
+      return elapsed;
+    }
+
+    /**
+     * @return The number of messages played back per second.
+     */
+    public double getThroughput() {
+      final long nanos = elapsed.toNanos();
+      return nanos == 0 ? 0 : messageCount * 1e9 / nanos;
+    }
+
+    /**
+     * @return The latency of each listener with a queue of its own, such as the listeners given to
+     *     {@link Hue#subscribeToEvents(HueEventListener)}.
+     */
+    public List<ListenerLatency> getListenerLatencies() {
+      return listenerLatencies;
+    }
+
+    @Override
+    public String toString() {
+      return "Report{" +
+          "messageCount=" + messageCount +
+          ", elapsed=" + elapsed +
+          ", throughput=" + String.format("%.1f/s", getThroughput()) +
+          ", listenerLatencies=" + listenerLatencies +
+          '}';
+    }
+  }
+
+  /**
+   * How long a listener took to handle the events, from the event being queued for it to the listener returning.
+   */
+  public static final class ListenerLatency {
+    private final String listener;
+    private final long eventCount;
+    private final Duration mean;
+    private final Duration max;
+
+    ListenerLatency(final String listener, final long eventCount, final Duration mean, final Duration max) {
+      this.listener = listener;
+      this.eventCount = eventCount;
+      this.mean = mean;
+      this.max = max;
+    }
+
+    /**
+     * @return The {@code toString()} of the listener.
+     */
+    public String getListener() {
+      return listener;
+    }
+
+    /**
+     * @return The number of events and connection notifications the listener has handled.
+     */
+    public long getEventCount() {
+      return eventCount;
+    }
+
+    public Duration getMean() {
+      return mean;
+    }
+
+    public Duration getMax() {
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return "ListenerLatency{" +
+          "listener='" + listener + '\'' +
+          ", eventCount=" + eventCount +
+          ", mean=" + mean +
+          ", max=" + max +
+          '}';
+    }
+  }
+
+  /**
+   * Builder for EventReplay.
+   */
+  public static class Builder {
+    private final Path file;
+    private double speed = 1;
+
+    private Builder(final Path file) {
+      if (file == null) {
+        throw new IllegalArgumentException("file must not be null");
+      }
+      this.file = file;
+    }
+
+    /**
+     * Plays the messages back with the same timing as they were recorded (the default).
+     *
+     * @return This builder
+     */
+    public Builder realTime() {
+      return speed(1);
+    }
+
+    /**
+     * Plays the messages back faster or slower than they were recorded.
+     *
+     * @param speed How many times faster, such as {@code 100}, or {@code 0.5} for half speed.
+     * @return This builder
+     */
+    public Builder speed(final double speed) {
+      if (!(speed > 0)) {
+        throw new IllegalArgumentException("speed must be positive");
+      }
+      this.speed = speed;
+      return this;
+    }
+
+    /**
+     * Plays the messages back without waiting between them.
+     *
+     * @return This builder
+     */
+    public Builder asFastAsPossible() {
+      return speed(Double.POSITIVE_INFINITY);
+    }
+
+    public EventReplay build() {
+      return new EventReplay(this);
+    }
+  }
+}
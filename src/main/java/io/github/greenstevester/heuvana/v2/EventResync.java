@@ -0,0 +1,267 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Catches up on the changes missed while the event stream was disconnected.
+ *
+ * <p>The state of the resources that change at runtime (lights, grouped lights, motion, temperature and button
+ * services) is loaded when the stream connects. While it stays connected, its messages are only kept as received,
+ * so that the reader thread does not parse them a second time; they are folded into the known state when the
+ * stream reconnects. Then only those resource types are fetched again, and the differences to the known state are
+ * announced as synthetic events, in the format of the Bridge, so that subscribers see a consistent stream without
+ * refreshing the whole topology. At most {@value #MAX_PENDING} messages are kept; if more arrive, the oldest are
+ * forgotten, and the changes they carried may be announced again.</p>
+ *
+ * <p>The {@code button} field of a button holds its last press, which is not state: it is left out of the synthetic
+ * events, as subscribers would otherwise see the last press again after every reconnect.</p>
+ */
+final class EventResync {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  static final Set<ResourceType> RUNTIME_TYPES = EnumSet.of(ResourceType.LIGHT,
+      ResourceType.GROUPED_LIGHT,
+      ResourceType.MOTION,
+      ResourceType.TEMPERATURE,
+      ResourceType.BUTTON);
+
+  private static final Set<String> TYPE_NAMES = new HashSet<>();
+  private static final Set<String> IDENTITY_FIELDS = Set.of("id", "id_v1", "owner", "type");
+  private static final String BUTTON_PRESS_FIELD = "button";
+
+  static final int MAX_PENDING = 1000;
+
+  static {
+    for (final ResourceType type : RUNTIME_TYPES) {
+      TYPE_NAMES.add(type.name().toLowerCase());
+    }
+  }
+
+  private final ObjectMapper objectMapper;
+  private final Function<ResourceType, JsonNode> fetcher;
+  private final Map<UUID, ObjectNode> known = new HashMap<>();
+  private final Deque<String> pending = new ArrayDeque<>();
+  private boolean loaded;
+
+  /**
+   * @param objectMapper For building the synthetic events.
+   * @param fetcher      Fetches the {@code data} array of the resources of a type from the Bridge.
+   */
+  EventResync(final ObjectMapper objectMapper, final Function<ResourceType, JsonNode> fetcher) {
+    this.objectMapper = objectMapper;
+    this.fetcher = fetcher;
+  }
+
+  /**
+   * Replaces the known state with the current state of the Bridge.
+   */
+  synchronized void load() {
+    final Map<UUID, ObjectNode> current = fetch();
+    known.clear();
+    known.putAll(current);
+    pending.clear();
+    loaded = true;
+  }
+
+  /**
+   * Forgets the known state, for when the stream is closed for good.
+   */
+  synchronized void reset() {
+    known.clear();
+    pending.clear();
+    loaded = false;
+  }
+
+  /**
+   * Keeps a message of the event stream, to apply its changes to the known state on the next resync.
+   *
+   * @param message An array of events, as sent by the Bridge.
+   */
+  synchronized void track(final String message) {
+    if (!loaded) {
+      return;
+    }
+    if (pending.size() >= MAX_PENDING) {
+      pending.removeFirst();
+    }
+    pending.addLast(message);
+  }
+
+  /**
+   * Applies the changes announced by the kept messages to the known state.
+   */
+  private void applyPending() {
+    for (final String message : pending) {
+      try {
+        apply(objectMapper.readTree(message));
+      } catch (final IOException e) {
+        logger.debug("Skipping an event stream message that cannot be parsed: {}", e.getMessage());
+      }
+    }
+    pending.clear();
+  }
+
+  private void apply(final JsonNode events) {
+    for (final JsonNode event : events) {
+      final String eventType = event.path("type").asText();
+      for (final JsonNode resource : event.path("data")) {
+        if (!resource.isObject() || !TYPE_NAMES.contains(resource.path("type").asText())) {
+          continue;
+        }
+        final UUID id = ResourceDiff.idOf(resource);
+        if (id == null) {
+          continue;
+        }
+        switch (eventType) {
+          case "update":
+            final ObjectNode existing = known.get(id);
+            if (existing != null) {
+              StateMirror.deepMerge(existing, (ObjectNode) resource);
+            }
+            break;
+          case "add":
+            known.put(id, ((ObjectNode) resource).deepCopy());
+            break;
+          case "delete":
+            known.remove(id);
+            break;
+          default:
+            break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetches the current state of the runtime resource types and compares it to the known state.
+   *
+   * @return The differences as a message of events in the format of the Bridge, or {@code null} if nothing
+   *     changed or the known state was never loaded.
+   */
+  synchronized String resync() {
+    if (!loaded) {
+      load();
+      return null;
+    }
+    applyPending();
+    final Map<UUID, ObjectNode> current = fetch();
+    final ArrayNode updated = objectMapper.createArrayNode();
+    final ArrayNode added = objectMapper.createArrayNode();
+    final ArrayNode deleted = objectMapper.createArrayNode();
+    for (final Map.Entry<UUID, ObjectNode> entry : current.entrySet()) {
+      final ObjectNode previous = known.get(entry.getKey());
+      if (previous == null) {
+        added.add(withoutButtonPress(entry.getValue()));
+      } else {
+        final ObjectNode difference = difference(previous, entry.getValue());
+        if (difference != null) {
+          updated.add(difference);
+        }
+      }
+    }
+    for (final Map.Entry<UUID, ObjectNode> entry : known.entrySet()) {
+      if (!current.containsKey(entry.getKey())) {
+        final ObjectNode removed = objectMapper.createObjectNode();
+        copyIdentity(entry.getValue(), removed);
+        deleted.add(removed);
+      }
+    }
+    known.clear();
+    known.putAll(current);
+
+    final ArrayNode events = objectMapper.createArrayNode();
+    addEvent(events, "update", updated);
+    addEvent(events, "add", added);
+    addEvent(events, "delete", deleted);
+    logger.debug("Resync found {} changed, {} added and {} deleted resources",
+        updated.size(), added.size(), deleted.size());
+    return events.isEmpty() ? null : events.toString();
+  }
+
+  private Map<UUID, ObjectNode> fetch() {
+    final Map<UUID, ObjectNode> result = new HashMap<>();
+    for (final ResourceType type : RUNTIME_TYPES) {
+      for (final JsonNode resource : fetcher.apply(type)) {
+        final UUID id = ResourceDiff.idOf(resource);
+        if (id != null && resource.isObject()) {
+          result.put(id, (ObjectNode) resource);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return The fields of {@code current} that differ from {@code previous}, with the identity of the resource,
+   *     or {@code null} if nothing but the identity differs.
+   */
+  private ObjectNode difference(final ObjectNode previous, final ObjectNode current) {
+    ObjectNode result = null;
+    final Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+    while (fields.hasNext()) {
+      final Map.Entry<String, JsonNode> field = fields.next();
+      if (!IDENTITY_FIELDS.contains(field.getKey()) && !BUTTON_PRESS_FIELD.equals(field.getKey())
+          && !field.getValue().equals(previous.get(field.getKey()))) {
+        if (result == null) {
+          result = objectMapper.createObjectNode();
+        }
+        result.set(field.getKey(), field.getValue());
+      }
+    }
+    if (result != null) {
+      copyIdentity(current, result);
+    }
+    return result;
+  }
+
+  /**
+   * @return The resource without the last press of its button, if it is a button.
+   */
+  private static ObjectNode withoutButtonPress(final ObjectNode resource) {
+    if (!resource.has(BUTTON_PRESS_FIELD)) {
+      return resource;
+    }
+    final ObjectNode result = resource.deepCopy();
+    result.remove(BUTTON_PRESS_FIELD);
+    return result;
+  }
+
+  private static void copyIdentity(final ObjectNode source, final ObjectNode target) {
+    for (final String field : IDENTITY_FIELDS) {
+      if (source.has(field)) {
+        target.set(field, source.get(field));
+      }
+    }
+  }
+
+  private void addEvent(final ArrayNode events, final String type, final ArrayNode data) {
+    if (data.isEmpty()) {
+      return;
+    }
+    events.addObject()
+        .put("creationtime", Instant.now().truncatedTo(ChronoUnit.SECONDS).toString())
+        .put("id", UUID.randomUUID().toString())
+        .put("type", type)
+        .set("data", data);
+  }
+}
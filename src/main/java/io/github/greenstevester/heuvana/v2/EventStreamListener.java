@@ -0,0 +1,23 @@
+package io.github.greenstevester.heuvana.v2;
+
+/**
+ * A subscriber of the {@link SharedEventStream} of a {@link Hue} instance.
+ */
+interface EventStreamListener {
+  /**
+   * Called when the stream has been (re)connected, or right away when subscribing to a stream that is connected.
+   */
+  void onOpen();
+
+  /**
+   * Called when the stream has been disconnected.
+   */
+  void onClosed();
+
+  /**
+   * Called with every message of the stream.
+   *
+   * @param message The message, shared with the other subscribers.
+   */
+  void onEvents(EventMessage message);
+}
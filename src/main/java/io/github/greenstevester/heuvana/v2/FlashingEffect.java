@@ -1,12 +1,10 @@
 package io.github.greenstevester.heuvana.v2;
 
 import io.github.greenstevester.heuvana.Color;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for creating flashing/pulsing light effects.
@@ -36,8 +34,13 @@ import java.util.concurrent.TimeUnit;
  * // ... later ...
  * effect.stop();
  * }</pre>
+ *
+ * <p>With {@link Builder#preferNative(boolean)}, lights that support
+ * {@link io.github.greenstevester.heuvana.v2.domain.update.AlertType#BREATHE} are set to the first color and breathe
+ * on their own instead, in a single request.</p>
  */
 public class FlashingEffect {
+    private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
 
     private final Light light;
     private final Color color1;
@@ -46,11 +49,12 @@ public class FlashingEffect {
     private final int flashCount;
     private final boolean continuous;
     private final Runnable onComplete;
+    private final boolean preferNative;
+    private final EffectEngine engine;
 
-    private ScheduledExecutorService executor;
-    private ScheduledFuture<?> scheduledFuture;
-    private int currentFlashCount = 0;
-    private boolean isColor1 = true;
+    private volatile EffectEngine.Handle handle;
+    // Written on the timing thread of the engine, read on any thread
+    private volatile int currentFlashCount = 0;
 
     private FlashingEffect(Builder builder) {
         this.light = builder.light;
@@ -60,79 +64,130 @@ public class FlashingEffect {
         this.flashCount = builder.flashCount;
         this.continuous = builder.continuous;
         this.onComplete = builder.onComplete;
+        this.preferNative = builder.preferNative;
+        this.engine = builder.engine != null ? builder.engine : builder.light.getEffectEngine();
     }
 
     /**
      * Start the flashing effect.
      */
     public void start() {
-        if (executor != null && !executor.isShutdown()) {
+        if (isRunning()) {
             stop(); // Stop any existing effect
         }
 
-        executor = Executors.newSingleThreadScheduledExecutor();
         currentFlashCount = 0;
-        isColor1 = true;
-
-        scheduledFuture = executor.scheduleAtFixedRate(
-            this::toggleColor,
-            0,
-            flashDuration.toMillis(),
-            TimeUnit.MILLISECONDS
-        );
+
+        // Let the light breathe on its own if it can, and only keep time until the flashes are over
+        if (preferNative && !continuous
+                && engine.getNativeEffects().breathe(light, new UpdateState().color(color1).on())) {
+            handle = engine.start(elapsed -> {
+                currentFlashCount = flashCount * 2;
+                stop();
+                return EffectEngine.DONE;
+            }, flashDuration.toNanos() * 2 * flashCount);
+            return;
+        }
+
+        handle = engine.start(this::toggleColor, 0);
     }
 
     /**
      * Stop the flashing effect and restore the light to color2.
      */
     public void stop() {
-        if (scheduledFuture != null) {
-            scheduledFuture.cancel(false);
-        }
-        if (executor != null) {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+        final EffectEngine.Handle running = handle;
+        if (running != null) {
+            running.stop();
         }
 
         // Restore to final color
         if (light != null) {
-            light.setState(new UpdateState().color(color2).on());
+            engine.send(light, new UpdateState().color(color2).on());
         }
 
-        if (onComplete != null) {
-            onComplete.run();
-        }
+        engine.complete(onComplete);
     }
 
-    private void toggleColor() {
+    /**
+     * Shows the color that is due, skipping the flashes that a late frame missed.
+     *
+     * @param elapsed The nanoseconds since the start of the effect
+     * @return The nanoseconds until the next flash
+     */
+    private long toggleColor(final long elapsed) {
+        final long flashNanos = Math.max(1, flashDuration.toNanos());
+        final long flash = elapsed / flashNanos;
         try {
-            Color colorToUse = isColor1 ? color1 : color2;
-            light.setState(new UpdateState().color(colorToUse).on());
-            isColor1 = !isColor1;
-            currentFlashCount++;
-
             // Check if we should stop
-            if (!continuous && currentFlashCount >= flashCount * 2) {
+            if (!continuous && flash >= flashCount * 2L) {
+                currentFlashCount = flashCount * 2;
                 stop();
+                return EffectEngine.DONE;
             }
+
+            Color colorToUse = flash % 2 == 0 ? color1 : color2;
+            engine.send(light, new UpdateState().color(colorToUse).on()
+                    .priority(CommandPriority.BACKGROUND)
+                    .deadline(flashDuration));
+            currentFlashCount = (int) Math.min(flash + 1, Integer.MAX_VALUE);
         } catch (Exception e) {
             // Log error but don't stop the effect
-            System.err.println("Error toggling color: " + e.getMessage());
+            logger.warn("Color toggle failed", e);
+        }
+        return (flash + 1) * flashNanos - elapsed;
+    }
+
+    /**
+     * Pause the effect, keeping the light as it is until {@link #resume()}.
+     *
+     * @since 5.3.0
+     */
+    public void pause() {
+        final EffectEngine.Handle running = handle;
+        if (running != null) {
+            running.pause();
         }
     }
 
     /**
-     * Check if the effect is currently running.
+     * Resume a paused effect where it was paused.
+     *
+     * @since 5.3.0
+     */
+    public void resume() {
+        final EffectEngine.Handle running = handle;
+        if (running != null) {
+            running.resume();
+        }
+    }
+
+    /**
+     * Check if the effect is paused.
+     *
+     * @since 5.3.0
+     */
+    public boolean isPaused() {
+        final EffectEngine.Handle running = handle;
+        return running != null && running.isRunning() && running.isPaused();
+    }
+
+    /**
+     * Get how well the engine kept to the timing of the flashes.
+     *
+     * @since 5.3.0
+     */
+    public FrameStats getFrameStats() {
+        final EffectEngine.Handle running = handle;
+        return running != null ? running.getStats() : new FrameStats();
+    }
+
+    /**
+     * Check if the effect is currently running, including while paused.
      */
     public boolean isRunning() {
-        return scheduledFuture != null && !scheduledFuture.isDone();
+        final EffectEngine.Handle running = handle;
+        return running != null && running.isRunning();
     }
 
     /**
@@ -150,6 +205,8 @@ public class FlashingEffect {
         private int flashCount = 5;
         private boolean continuous = false;
         private Runnable onComplete;
+        private boolean preferNative = false;
+        private EffectEngine engine;
 
         /**
          * Set the light to apply the effect to.
@@ -209,6 +266,27 @@ public class FlashingEffect {
             return this;
         }
 
+        /**
+         * Set whether lights that support the breathe alert of the Bridge breathe in the first color on their own
+         * instead of being toggled between the colors (default: false). Continuous flashing is always toggled.
+         *
+         * @since 5.3.0
+         */
+        public Builder preferNative(boolean preferNative) {
+            this.preferNative = preferNative;
+            return this;
+        }
+
+        /**
+         * Set the engine to run the effect on (default: the {@link Light#getEffectEngine() engine of the light}).
+         *
+         * @since 5.3.0
+         */
+        public Builder engine(EffectEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
         /**
          * Build the FlashingEffect instance.
          */
@@ -0,0 +1,84 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How well the {@link EffectEngine} kept to the timing of one effect: how late its frames were rendered,
+ * how many were dropped, and how long the Bridge took to take them.
+ *
+ * <p>A frame is dropped when the effect is rendered so late that a whole frame interval has passed, in which case
+ * the effect skips ahead to what is due instead, or when its {@link UpdateState#deadline(Duration) deadline}
+ * passes before the {@link CommandScheduler} gets to send it.</p>
+ *
+ * @since 5.3.0
+ */
+public final class FrameStats {
+  private final AtomicLong frames = new AtomicLong();
+  private final AtomicLong droppedFrames = new AtomicLong();
+  private final LatencyHistogram jitter = new LatencyHistogram();
+  private final AtomicLong roundTripNanos = new AtomicLong();
+
+  FrameStats() {
+  }
+
+  void recordFrame(final long latenessNanos) {
+    frames.incrementAndGet();
+    jitter.record(latenessNanos);
+  }
+
+  void recordDropped(final long count) {
+    droppedFrames.addAndGet(count);
+  }
+
+  /**
+   * Folds a round trip into the moving average, weighing it by an eighth.
+   */
+  void recordRoundTrip(final long nanos) {
+    roundTripNanos.accumulateAndGet(Math.max(1, nanos),
+        (average, sample) -> average == 0 ? sample : average + (sample - average) / 8);
+  }
+
+  long getRoundTripNanos() {
+    return roundTripNanos.get();
+  }
+
+  /**
+   * @return The number of frames rendered.
+   */
+  public long getFrameCount() {
+    return frames.get();
+  }
+
+  /**
+   * @return The number of frames skipped because the effect fell behind, or dropped by the scheduler.
+   */
+  public long getDroppedFrameCount() {
+    return droppedFrames.get();
+  }
+
+  /**
+   * @return How late the frames were rendered, compared to when they were due.
+   */
+  public LatencyHistogram getJitter() {
+    return jitter;
+  }
+
+  /**
+   * @return The moving average of the time from handing a frame to the light until the Bridge answered,
+   *     or zero before the first answer.
+   */
+  public Duration getRoundTrip() {
+    return Duration.ofNanos(roundTripNanos.get());
+  }
+
+  @Override
+  public String toString() {
+    return "FrameStats{" +
+        "frames=" + getFrameCount() +
+        ", dropped=" + getDroppedFrameCount() +
+        ", jitter=" + jitter +
+        ", roundTrip=" + getRoundTrip() +
+        '}';
+  }
+}
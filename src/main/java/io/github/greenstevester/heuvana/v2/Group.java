@@ -111,4 +111,18 @@ public interface Group {
    * @return A Collection of Lights in this group after the operation.
    */
   Collection<Light> removeLight(Light lightToBeRemoved);
+
+  /**
+   * Returns the non-blocking view of this group.
+   *
+   * @return This group as an {@link AsyncGroup}.
+   * @throws UnsupportedOperationException If this implementation has no non-blocking counterpart.
+   * @since 5.3.0
+   */
+  default AsyncGroup async() {
+    if (this instanceof AsyncGroup) {
+      return (AsyncGroup) this;
+    }
+    throw new UnsupportedOperationException(getClass().getName() + " does not support asynchronous calls");
+  }
 }
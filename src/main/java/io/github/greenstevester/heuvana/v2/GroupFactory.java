@@ -3,35 +3,33 @@ package io.github.greenstevester.heuvana.v2;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.greenstevester.heuvana.HueApiException;
-import io.github.greenstevester.heuvana.v2.domain.DeviceResource;
 import io.github.greenstevester.heuvana.v2.domain.GroupResource;
 import io.github.greenstevester.heuvana.v2.domain.GroupedLightResource;
 import io.github.greenstevester.heuvana.v2.domain.GroupedLightResourceRoot;
 import io.github.greenstevester.heuvana.v2.domain.Resource;
 import io.github.greenstevester.heuvana.v2.domain.ResourceIdentifier;
 import io.github.greenstevester.heuvana.v2.domain.SceneResource;
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
 import io.github.greenstevester.heuvana.v2.domain.update.SceneActivation;
-import io.github.greenstevester.heuvana.v2.domain.update.UpdateLight;
 import io.github.greenstevester.heuvana.v2.domain.update.UpdateRoom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
-import static io.github.greenstevester.heuvana.v2.domain.ResourceType.DEVICE;
 import static io.github.greenstevester.heuvana.v2.domain.ResourceType.GROUPED_LIGHT;
-import static io.github.greenstevester.heuvana.v2.domain.ResourceType.LIGHT;
 import static io.github.greenstevester.heuvana.v2.domain.ResourceType.SCENE;
 import static java.util.stream.Collectors.toList;
 
@@ -48,25 +46,7 @@ public class GroupFactory {
 
   public GroupImpl buildGroup(final GroupResource groupResource,
                               final Map<UUID, Resource> allResources) {
-    final Supplier<Collection<Light>> lightProvider = () -> {
-      final Set<Light> deviceLights = groupResource.getChildren().stream()
-          .filter(r -> r.getResourceType() == DEVICE)
-          .map(ResourceIdentifier::getResourceId)
-          .map(hue::getResource)
-          .map(r -> (DeviceResource) r)
-          .flatMap(r -> r.getServices().stream())
-          .filter(s -> s.getResourceType() == LIGHT)
-          .map(light -> hue.getLights().get(light.getResourceId()))
-          .collect(Collectors.toSet());
-      final Set<Light> childLights = groupResource.getChildren().stream()
-          .filter(r -> r.getResourceType() == LIGHT)
-          .map(ResourceIdentifier::getResourceId)
-          .map(id -> hue.getLights().get(id))
-          .collect(Collectors.toSet());
-      final Set<Light> result = new HashSet<>(deviceLights);
-      result.addAll(childLights);
-      return result;
-    };
+    final Supplier<Collection<Light>> lightProvider = () -> hue.getLightsOfGroup(groupResource.getId());
     final List<Scene> scenes = allResources.values().stream()
         .filter(r -> r.getType() == SCENE)
         .map(r -> (SceneResource) r)
@@ -86,32 +66,52 @@ public class GroupFactory {
         scenes,
         lightProvider,
         createStateProvider(groupResource),
+        createAsyncStateProvider(groupResource),
         stateSetter(groupResource),
         groupLightsSetter(groupResource)
     );
   }
 
-  private Supplier<String> sceneStateSetter(final UUID sceneId) {
+  private Supplier<CompletableFuture<UpdateResult>> sceneStateSetter(final UUID sceneId) {
     return () -> {
+      final String body;
       try {
-        final String urlPath = resolveUrlPath(sceneId);
-        final String body = objectMapper.writeValueAsString(new SceneActivation());
-        return HttpUtil.put(hue, hue.getResourceUrl(), urlPath, body);
-      } catch (final Exception e) {
-        throw new HueApiException(e);
+        body = objectMapper.writeValueAsString(new SceneActivation());
+      } catch (final JsonProcessingException e) {
+        return CompletableFuture.failedFuture(new HueApiException(e));
       }
+      // The Bridge broadcasts scene recalls to the group, so they count against the group rate limit
+      return hue.getCommandScheduler().submit(GROUPED_LIGHT, CommandPriority.NORMAL, null,
+          () -> HttpUtil.putAsync(hue, hue.getResourceUrl(), resolveUrlPath(sceneId), body));
     };
   }
 
   private Supplier<GroupedLightResource> createStateProvider(final GroupResource groupResource) {
-    return () -> {
+    final Supplier<GroupedLightResource> networkRead = () -> {
       final String urlPath = resolveUrlPath(groupResource);
-      try (final InputStream inputStream = hue.getUrlConnection(urlPath).getInputStream()) {
+      try (final InputStream inputStream = hue.openStream(urlPath)) {
         return objectMapper.readValue(inputStream, GroupedLightResourceRoot.class).getData().get(0);
       } catch (final IOException e) {
         throw new HueApiException(e);
       }
     };
+    final UUID groupedLightId = resolveGroupedLightId(groupResource);
+    return () -> hue.getStateMirror().get(groupedLightId, GroupedLightResource.class, networkRead);
+  }
+
+  private Supplier<CompletableFuture<GroupedLightResource>> createAsyncStateProvider(final GroupResource groupResource) {
+    final Supplier<CompletableFuture<GroupedLightResource>> networkRead = () -> {
+      final URL url;
+      try {
+        url = new URL(hue.getResourceUrl().toString() + resolveUrlPath(groupResource));
+      } catch (final MalformedURLException e) {
+        return CompletableFuture.failedFuture(new HueApiException(e));
+      }
+      return hue.getTransport().getAsync(url)
+          .thenApply(json -> HttpUtil.readValue(objectMapper, json, GroupedLightResourceRoot.class).getData().get(0));
+    };
+    final UUID groupedLightId = resolveGroupedLightId(groupResource);
+    return () -> hue.getStateMirror().getAsync(groupedLightId, GroupedLightResource.class, networkRead);
   }
 
   private Function<Collection<Light>, String> groupLightsSetter(final GroupResource groupResource) {
@@ -133,25 +133,36 @@ public class GroupFactory {
     };
   }
 
-  private Function<UpdateLight, String> stateSetter(final GroupResource groupResource) {
+  private Function<UpdateState, CompletableFuture<UpdateResult>> stateSetter(final GroupResource groupResource) {
+    final Function<UpdateState, CompletableFuture<UpdateResult>> sender = stateSender(groupResource);
+    return state -> hue.getWriteBehindBuffer().submit(groupResource.getId(), state, sender);
+  }
+
+  private Function<UpdateState, CompletableFuture<UpdateResult>> stateSender(final GroupResource groupResource) {
     return state -> {
-      final String urlPath = resolveUrlPath(groupResource);
+      final String body;
       try {
-        final String body = objectMapper.writeValueAsString(state);
-        return HttpUtil.put(hue, hue.getResourceUrl(), urlPath, body);
-      } catch (final Exception e) {
-        throw new HueApiException(e);
+        body = objectMapper.writeValueAsString(state.getUpdateLight());
+      } catch (final JsonProcessingException e) {
+        return CompletableFuture.failedFuture(new HueApiException(e));
       }
+      return hue.getCommandScheduler().submit(GROUPED_LIGHT, state.getPriority(), state.getDeadline(),
+          () -> HttpUtil.putAsync(hue, hue.getResourceUrl(), resolveUrlPath(groupResource), body));
     };
   }
 
   private static String resolveUrlPath(final GroupResource groupResource) {
+    return Optional.ofNullable(resolveGroupedLightId(groupResource))
+        .map(uuid -> "/grouped_light/" + uuid)
+        .orElse(null);
+  }
+
+  private static UUID resolveGroupedLightId(final GroupResource groupResource) {
     return groupResource.getServices()
         .stream()
         .filter(service -> service.getResourceType() == GROUPED_LIGHT)
         .map(ResourceIdentifier::getResourceId)
         .findFirst()
-        .map(uuid -> "/grouped_light/" + uuid)
         .orElse(null);
   }
 
@@ -2,33 +2,37 @@ package io.github.greenstevester.heuvana.v2;
 
 import io.github.greenstevester.heuvana.v2.domain.GroupedLightResource;
 import io.github.greenstevester.heuvana.v2.domain.ResourceType;
-import io.github.greenstevester.heuvana.v2.domain.update.UpdateLight;
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import static io.github.greenstevester.heuvana.v2.domain.update.On.OFF;
-import static io.github.greenstevester.heuvana.v2.domain.update.On.ON;
+import static java.util.stream.Collectors.toList;
 
-public class GroupImpl implements Group {
+public class GroupImpl implements Group, AsyncGroup {
   private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
 
   private UUID id;
   private ResourceType type;
   private String name;
   private List<Scene> scenes;
+  private final Map<String, Scene> scenesByName = new HashMap<>();
   private Supplier<Collection<Light>> lights;
   private Supplier<GroupedLightResource> stateProvider;
-  private final Function<UpdateLight, String> stateSetter;
+  private final Supplier<CompletableFuture<GroupedLightResource>> asyncStateProvider;
+  private final Function<UpdateState, CompletableFuture<UpdateResult>> stateSetter;
   private final Function<Collection<Light>, String> lightsSetter;
 
 
@@ -38,14 +42,17 @@ public class GroupImpl implements Group {
                    final List<Scene> scenes,
                    final Supplier<Collection<Light>> lights,
                    final Supplier<GroupedLightResource> stateProvider,
-                   final Function<UpdateLight, String> stateSetter,
+                   final Supplier<CompletableFuture<GroupedLightResource>> asyncStateProvider,
+                   final Function<UpdateState, CompletableFuture<UpdateResult>> stateSetter,
                    final Function<Collection<Light>, String> lightsSetter) {
     this.id = id;
     this.type = type;
     this.name = name;
     this.scenes = scenes;
+    scenes.forEach(scene -> scenesByName.putIfAbsent(scene.getName(), scene));
     this.lights = lights;
     this.stateProvider = stateProvider;
+    this.asyncStateProvider = asyncStateProvider;
     this.stateSetter = stateSetter;
     this.lightsSetter = lightsSetter;
   }
@@ -67,7 +74,7 @@ public class GroupImpl implements Group {
 
   @Override
   public Optional<Scene> getSceneByName(String sceneName) {
-    return scenes.stream().filter(scene -> Objects.equals(scene.getName(), sceneName)).findFirst();
+    return Optional.ofNullable(scenesByName.get(sceneName));
   }
 
   @Override
@@ -92,27 +99,61 @@ public class GroupImpl implements Group {
 
   @Override
   public void turnOn() {
-    stateSetter.apply(new UpdateLight().setOn(ON));
+    setState(new UpdateState().on().priority(CommandPriority.INTERACTIVE));
   }
 
   @Override
   public void turnOff() {
-    stateSetter.apply(new UpdateLight().setOn(OFF));
+    setState(new UpdateState().off().priority(CommandPriority.INTERACTIVE));
   }
 
   @Override
   public void setBrightness(final int brightness) {
-    setState(new UpdateState().brightness(brightness).getUpdateLight());
+    setState(new UpdateState().brightness(brightness));
   }
 
   @Override
   public void setState(final UpdateState state) {
-    setState(state.getUpdateLight());
+    try {
+      final UpdateResult result = HttpUtil.await(stateSetter.apply(state));
+      logger.info("Group update result: {}", result);
+    } catch (final CommandDroppedException e) {
+      logger.debug("Group {}: {}", id, e.getMessage());
+    }
   }
 
-  private void setState(final UpdateLight state) {
-    final String result = stateSetter.apply(state);
-    logger.info("Group update result: {}", result);
+  @Override
+  public CompletableFuture<Boolean> isAnyOnAsync() {
+    return asyncStateProvider.get().thenApply(state -> state.getOn().isOn());
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> turnOnAsync() {
+    return stateSetter.apply(new UpdateState().on().priority(CommandPriority.INTERACTIVE));
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> turnOffAsync() {
+    return stateSetter.apply(new UpdateState().off().priority(CommandPriority.INTERACTIVE));
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> setBrightnessAsync(final int brightness) {
+    return setStateAsync(new UpdateState().brightness(brightness));
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> setStateAsync(final UpdateState state) {
+    return stateSetter.apply(state);
+  }
+
+  @Override
+  public CompletableFuture<List<UpdateResult>> setStateOfEachLightAsync(final UpdateState state) {
+    final List<CompletableFuture<UpdateResult>> futures = getLights().stream()
+        .map(light -> light.async().setStateAsync(state))
+        .collect(toList());
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(allDone -> futures.stream().map(CompletableFuture::join).collect(toList()));
   }
 
   @Override
@@ -1,9 +1,6 @@
 package io.github.greenstevester.heuvana.v2;
 
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -42,15 +39,18 @@ public class HeartbeatEffect {
     private final int beatCount;
     private final boolean preserveState;
     private final Runnable onComplete;
+    private final EffectEngine engine;
 
-    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private volatile EffectEngine.Handle handle;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicInteger completedBeats = new AtomicInteger(0);
+    private int phase;
 
     private HeartbeatEffect(final Light light, final int minBrightness, final int maxBrightness,
                            final Duration beatDuration, final Duration pauseBetweenBeats,
                            final Duration pauseBetweenCycles, final int beatCount,
-                           final boolean preserveState, final Runnable onComplete) {
+                           final boolean preserveState, final Runnable onComplete,
+                           final EffectEngine engine) {
         this.light = light;
         this.minBrightness = minBrightness;
         this.maxBrightness = maxBrightness;
@@ -60,6 +60,7 @@ public class HeartbeatEffect {
         this.beatCount = beatCount;
         this.preserveState = preserveState;
         this.onComplete = onComplete;
+        this.engine = engine;
     }
 
     /**
@@ -72,44 +73,49 @@ public class HeartbeatEffect {
 
         final UpdateState initialState = preserveState ? captureCurrentState() : null;
 
-        scheduleNextBeat(initialState);
+        phase = 0;
+        handle = engine.start(elapsed -> nextBeatFrame(initialState), 0);
     }
 
-    private void scheduleNextBeat(final UpdateState initialState) {
-        if (completedBeats.get() >= beatCount || !running.get()) {
+    /**
+     * Renders the next frame of the cycle: bright, dim, pause, bright, dim, longer pause.
+     *
+     * @return The nanoseconds until the frame after it.
+     */
+    private long nextBeatFrame(final UpdateState initialState) {
+        if (phase == 0 && (completedBeats.get() >= beatCount || !running.get())) {
             handleCompletion(initialState);
-            return;
+            return EffectEngine.DONE;
+        }
+        switch (phase) {
+            case 0:
+                // First beat up to bright
+                engine.send(light, beatFrame(maxBrightness));
+                phase = 1;
+                return beatDuration.toNanos();
+            case 1:
+                // Back to dim, short pause
+                engine.send(light, beatFrame(minBrightness));
+                phase = 2;
+                return pauseBetweenBeats.toNanos();
+            case 2:
+                // Second beat
+                engine.send(light, beatFrame(maxBrightness));
+                phase = 3;
+                return beatDuration.toNanos();
+            default:
+                // Back to dim, longer pause before the next cycle
+                engine.send(light, beatFrame(minBrightness));
+                phase = 0;
+                completedBeats.incrementAndGet();
+                return pauseBetweenCycles.toNanos();
         }
-
-        // Each heartbeat cycle has two beats
-        scheduleSingleBeat(0); // First beat
-        scheduleSingleBeat(beatDuration.toMillis() + pauseBetweenBeats.toMillis()); // Second beat
-
-        // Schedule next cycle
-        final long nextCycleDelay = (beatDuration.toMillis() * 2) +
-                                    pauseBetweenBeats.toMillis() +
-                                    pauseBetweenCycles.toMillis();
-
-        executor.schedule(() -> {
-            completedBeats.incrementAndGet();
-            scheduleNextBeat(initialState);
-        }, nextCycleDelay, TimeUnit.MILLISECONDS);
     }
 
-    private void scheduleSingleBeat(final long initialDelay) {
-        // Beat down to bright
-        executor.schedule(() ->
-            light.setBrightness(maxBrightness),
-            initialDelay,
-            TimeUnit.MILLISECONDS
-        );
-
-        // Beat back to dim
-        executor.schedule(() ->
-            light.setBrightness(minBrightness),
-            initialDelay + beatDuration.toMillis(),
-            TimeUnit.MILLISECONDS
-        );
+    private UpdateState beatFrame(final int brightness) {
+        return new UpdateState().brightness(brightness)
+                .priority(CommandPriority.BACKGROUND)
+                .deadline(beatDuration);
     }
 
     /**
@@ -117,7 +123,56 @@ public class HeartbeatEffect {
      */
     public void stop() {
         running.set(false);
-        executor.shutdownNow();
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    /**
+     * Pauses the effect, keeping the light as it is until {@link #resume()}.
+     *
+     * @since 5.3.0
+     */
+    public void pause() {
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.pause();
+        }
+    }
+
+    /**
+     * Resumes a paused effect where it was paused.
+     *
+     * @since 5.3.0
+     */
+    public void resume() {
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.resume();
+        }
+    }
+
+    /**
+     * Returns whether the effect is paused.
+     *
+     * @return true if paused, false otherwise
+     * @since 5.3.0
+     */
+    public boolean isPaused() {
+        final EffectEngine.Handle current = handle;
+        return running.get() && current != null && current.isPaused();
+    }
+
+    /**
+     * Returns how well the engine kept to the timing of the beats.
+     *
+     * @return The frame statistics of the effect
+     * @since 5.3.0
+     */
+    public FrameStats getFrameStats() {
+        final EffectEngine.Handle current = handle;
+        return current != null ? current.getStats() : new FrameStats();
     }
 
     /**
@@ -131,15 +186,12 @@ public class HeartbeatEffect {
 
     private void handleCompletion(final UpdateState initialState) {
         running.set(false);
-        executor.shutdown();
 
         if (preserveState && initialState != null) {
-            light.setState(initialState);
+            engine.send(light, initialState);
         }
 
-        if (onComplete != null) {
-            onComplete.run();
-        }
+        engine.complete(onComplete);
     }
 
     private UpdateState captureCurrentState() {
@@ -168,6 +220,7 @@ public class HeartbeatEffect {
         private int beatCount = Integer.MAX_VALUE; // Infinite by default
         private boolean preserveState = false;
         private Runnable onComplete;
+        private EffectEngine engine;
 
         /**
          * Sets the light to apply the effect to.
@@ -268,6 +321,18 @@ public class HeartbeatEffect {
             return this;
         }
 
+        /**
+         * Sets the engine to run the effect on (default: the {@link Light#getEffectEngine() engine of the light}).
+         *
+         * @param engine The effect engine
+         * @return This builder
+         * @since 5.3.0
+         */
+        public Builder engine(final EffectEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
         /**
          * Builds the HeartbeatEffect.
          *
@@ -289,7 +354,8 @@ public class HeartbeatEffect {
 
             return new HeartbeatEffect(light, minBrightness, maxBrightness, beatDuration,
                                       pauseBetweenBeats, pauseBetweenCycles, beatCount,
-                                      preserveState, onComplete);
+                                      preserveState, onComplete,
+                                      engine != null ? engine : light.getEffectEngine());
         }
     }
 }
@@ -0,0 +1,24 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.io.IOException;
+
+/**
+ * Thrown by an {@link HttpTransport} when the Bridge answers with a non-successful HTTP status code.
+ *
+ * @since 5.3.0
+ */
+public class HttpStatusException extends IOException {
+  private final int statusCode;
+
+  public HttpStatusException(final int statusCode, final String message) {
+    super("HTTP " + statusCode + ": " + message);
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * @return The HTTP status code returned by the Bridge, such as {@code 429} or {@code 503}.
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+}
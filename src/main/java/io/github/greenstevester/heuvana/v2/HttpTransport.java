@@ -0,0 +1,63 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The HTTP layer used for all the CLIP v2 REST calls made on behalf of a {@link Hue} instance.
+ * Implementations are expected to keep connections to the Bridge alive between calls,
+ * so that TLS handshakes do not show up in the latency of ordinary requests.
+ *
+ * @see OkHttpTransport
+ * @since 5.3.0
+ */
+public interface HttpTransport extends AutoCloseable {
+
+  /**
+   * Performs a GET request.
+   *
+   * @param url The URL to be fetched.
+   * @return The response body. The caller is responsible for closing it.
+   * @throws IOException If the request fails or the Bridge responds with a non-successful status code.
+   */
+  InputStream get(URL url) throws IOException;
+
+  /**
+   * Performs a request with the given method and body.
+   *
+   * @param method HTTP method, such as {@code PUT} or {@code POST}.
+   * @param url    The URL of the request.
+   * @param body   The request body, or {@code null} for an empty body.
+   * @return The response body as a String.
+   * @throws IOException If the request fails or the Bridge responds with a non-successful status code.
+   */
+  String send(String method, URL url, String body) throws IOException;
+
+  /**
+   * Performs a GET request without blocking the calling thread.
+   *
+   * @param url The URL to be fetched.
+   * @return A future completed with the response body, or completed exceptionally with a
+   * {@link io.github.greenstevester.heuvana.HueApiException} if the request fails.
+   */
+  CompletableFuture<String> getAsync(URL url);
+
+  /**
+   * Performs a request with the given method and body without blocking the calling thread.
+   *
+   * @param method HTTP method, such as {@code PUT} or {@code POST}.
+   * @param url    The URL of the request.
+   * @param body   The request body, or {@code null} for an empty body.
+   * @return A future completed with the response body, or completed exceptionally with a
+   * {@link io.github.greenstevester.heuvana.HueApiException} if the request fails.
+   */
+  CompletableFuture<String> sendAsync(String method, URL url, String body);
+
+  /**
+   * Releases the pooled connections and any threads held by this transport.
+   */
+  @Override
+  void close();
+}
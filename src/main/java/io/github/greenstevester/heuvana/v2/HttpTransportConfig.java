@@ -0,0 +1,177 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings for the {@link HttpTransport} of a {@link Hue} instance.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * Hue hue = new Hue(bridgeIp, apiKey, HttpTransportConfig.builder()
+ *     .maxConnectionsPerBridge(6)
+ *     .idleTimeout(Duration.ofSeconds(30))
+ *     .readTimeout(Duration.ofSeconds(5))
+ *     .build());
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public final class HttpTransportConfig {
+
+  private final int maxConnectionsPerBridge;
+  private final int maxConcurrentRequests;
+  private final Duration idleTimeout;
+  private final Duration connectTimeout;
+  private final Duration readTimeout;
+
+  private HttpTransportConfig(final Builder builder) {
+    this.maxConnectionsPerBridge = builder.maxConnectionsPerBridge;
+    this.maxConcurrentRequests = builder.maxConcurrentRequests == null
+        ? builder.maxConnectionsPerBridge : builder.maxConcurrentRequests;
+    this.idleTimeout = builder.idleTimeout;
+    this.connectTimeout = builder.connectTimeout;
+    this.readTimeout = builder.readTimeout;
+  }
+
+  /**
+   * Returns the configuration used when none is given explicitly.
+   *
+   * @return The default configuration.
+   */
+  public static HttpTransportConfig defaults() {
+    return builder().build();
+  }
+
+  /**
+   * Creates a builder for constructing HttpTransportConfig instances.
+   *
+   * @return A new builder instance
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getMaxConnectionsPerBridge() {
+    return maxConnectionsPerBridge;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  public Duration getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public Duration getReadTimeout() {
+    return readTimeout;
+  }
+
+  @Override
+  public String toString() {
+    return "HttpTransportConfig{" +
+        "maxConnectionsPerBridge=" + maxConnectionsPerBridge +
+        ", maxConcurrentRequests=" + maxConcurrentRequests +
+        ", idleTimeout=" + idleTimeout +
+        ", connectTimeout=" + connectTimeout +
+        ", readTimeout=" + readTimeout +
+        '}';
+  }
+
+  /**
+   * Builder for HttpTransportConfig.
+   */
+  public static class Builder {
+    private int maxConnectionsPerBridge = 4;
+    private Integer maxConcurrentRequests;
+    private Duration idleTimeout = Duration.ofSeconds(20);
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Sets the maximum number of connections to the Bridge in use at the same time, which is also the number of
+     * idle connections kept open between requests (default: 4). Requests beyond it wait for a connection to be
+     * released. The Bridge itself only serves a handful of connections in parallel, so there is rarely any benefit
+     * in raising this much higher. The event stream has a connection of its own, not counted here.
+     *
+     * @param maxConnectionsPerBridge Maximum number of connections
+     * @return This builder
+     */
+    public Builder maxConnectionsPerBridge(final int maxConnectionsPerBridge) {
+      if (maxConnectionsPerBridge < 1) {
+        throw new IllegalArgumentException("maxConnectionsPerBridge must be at least 1");
+      }
+      this.maxConnectionsPerBridge = maxConnectionsPerBridge;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of asynchronous requests in flight to the Bridge at once (default: the same as
+     * {@link #maxConnectionsPerBridge(int)}). Further requests are queued without blocking the caller until earlier
+     * ones complete. Raising it above the number of connections only lets more requests wait for a connection.
+     *
+     * @param maxConcurrentRequests Maximum number of concurrent asynchronous requests
+     * @return This builder
+     */
+    public Builder maxConcurrentRequests(final int maxConcurrentRequests) {
+      if (maxConcurrentRequests < 1) {
+        throw new IllegalArgumentException("maxConcurrentRequests must be at least 1");
+      }
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      return this;
+    }
+
+    /**
+     * Sets how long an unused connection is kept in the pool before it is evicted (default: 20 seconds).
+     *
+     * @param idleTimeout Idle eviction timeout
+     * @return This builder
+     */
+    public Builder idleTimeout(final Duration idleTimeout) {
+      this.idleTimeout = requirePositive(idleTimeout, "idleTimeout");
+      return this;
+    }
+
+    /**
+     * Sets the timeout for establishing a new connection (default: 5 seconds).
+     *
+     * @param connectTimeout Connect timeout
+     * @return This builder
+     */
+    public Builder connectTimeout(final Duration connectTimeout) {
+      this.connectTimeout = requirePositive(connectTimeout, "connectTimeout");
+      return this;
+    }
+
+    /**
+     * Sets the timeout for reading a response (default: 10 seconds).
+     *
+     * @param readTimeout Read timeout
+     * @return This builder
+     */
+    public Builder readTimeout(final Duration readTimeout) {
+      this.readTimeout = requirePositive(readTimeout, "readTimeout");
+      return this;
+    }
+
+    /**
+     * Builds the HttpTransportConfig.
+     *
+     * @return A new HttpTransportConfig instance
+     */
+    public HttpTransportConfig build() {
+      return new HttpTransportConfig(this);
+    }
+
+    private static Duration requirePositive(final Duration duration, final String name) {
+      if (duration == null || duration.isNegative() || duration.isZero()) {
+        throw new IllegalArgumentException(name + " must be positive");
+      }
+      return duration;
+    }
+  }
+}
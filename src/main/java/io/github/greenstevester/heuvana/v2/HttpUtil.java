@@ -1,11 +1,14 @@
 package io.github.greenstevester.heuvana.v2;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import io.github.greenstevester.heuvana.HueApiException;
+import io.github.greenstevester.heuvana.HueTlsContext;
 import io.github.greenstevester.heuvana.SecureJsonFactory;
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,7 +17,10 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -36,11 +42,47 @@ public class HttpUtil {
   }
 
   public static String put(final Hue hue, final URL baseUrl, final String path, final String body) {
-    return getString(hue::getUrlConnection, baseUrl, path, body, "PUT");
+    return send(hue.getTransport(), baseUrl, path, body, "PUT");
   }
 
   public static String post(final Hue hue, final URL baseUrl, final String path, final String body) {
-    return getString(hue::getUrlConnection, baseUrl, path, body, "POST");
+    return send(hue.getTransport(), baseUrl, path, body, "POST");
+  }
+
+  public static CompletableFuture<UpdateResult> putAsync(final Hue hue,
+                                                         final URL baseUrl,
+                                                         final String path,
+                                                         final String body) {
+    final URL url;
+    try {
+      url = new URL(baseUrl.toString() + path);
+    } catch (final MalformedURLException e) {
+      return CompletableFuture.failedFuture(new HueApiException(e));
+    }
+    return hue.getTransport().sendAsync("PUT", url, body)
+        .thenApply(result -> readValue(hue.objectMapper, result, UpdateResult.class));
+  }
+
+  /**
+   * Waits for an asynchronous call, rethrowing its failure as is if it is unchecked.
+   */
+  static <T> T await(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new HueApiException(e.getCause());
+    }
+  }
+
+  static <T> T readValue(final ObjectMapper objectMapper, final String json, final Class<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (final JsonProcessingException e) {
+      throw new HueApiException(e);
+    }
   }
 
   public static String post(final URL baseUrl, final String path, final String body) {
@@ -50,15 +92,27 @@ public class HttpUtil {
   public static HttpsURLConnection getAnonymousUrlConnection(final URL url) {
     try {
       var urlConnection = (HttpsURLConnection) url.openConnection();
-      var factory = (SecureJsonFactory) buildObjectMapper(url.getHost()).getFactory();
-      urlConnection.setSSLSocketFactory(factory.getSocketFactory());
-      urlConnection.setHostnameVerifier(factory.getHostnameVerifier());
+      var tlsContext = HueTlsContext.forHost(url.getHost());
+      urlConnection.setSSLSocketFactory(tlsContext.getSocketFactory());
+      urlConnection.setHostnameVerifier(tlsContext.getHostnameVerifier());
       return urlConnection;
     } catch (IOException e) {
       throw new HueApiException(e);
     }
   }
 
+  private static String send(final HttpTransport transport,
+                             final URL baseUrl,
+                             final String path,
+                             final String body,
+                             final String method) {
+    try {
+      return transport.send(method, new URL(baseUrl.toString() + path), body);
+    } catch (final IOException e) {
+      throw new HueApiException(e);
+    }
+  }
+
   private static String getString(final Function<URL, HttpsURLConnection> urlConnector,
                                   final URL baseUrl,
                                   final String path,
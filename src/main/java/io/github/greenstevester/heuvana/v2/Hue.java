@@ -1,10 +1,11 @@
 package io.github.greenstevester.heuvana.v2;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.launchdarkly.eventsource.ConnectStrategy;
 import com.launchdarkly.eventsource.EventSource;
+import com.launchdarkly.eventsource.background.BackgroundEventHandler;
 import com.launchdarkly.eventsource.background.BackgroundEventSource;
 import io.github.greenstevester.heuvana.HueApiException;
 import io.github.greenstevester.heuvana.HueBridgeConnectionBuilder;
@@ -13,38 +14,47 @@ import io.github.greenstevester.heuvana.v2.domain.BridgeResource;
 import io.github.greenstevester.heuvana.v2.domain.ButtonResource;
 import io.github.greenstevester.heuvana.v2.domain.DeviceResource;
 import io.github.greenstevester.heuvana.v2.domain.GroupResource;
+import io.github.greenstevester.heuvana.v2.domain.HueEvent;
 import io.github.greenstevester.heuvana.v2.domain.LightResource;
 import io.github.greenstevester.heuvana.v2.domain.Resource;
-import io.github.greenstevester.heuvana.v2.domain.ResourceRoot;
+import io.github.greenstevester.heuvana.v2.domain.ResourceIdentifier;
 import io.github.greenstevester.heuvana.v2.domain.ResourceType;
 import io.github.greenstevester.heuvana.v2.domain.RoomResource;
+import io.github.greenstevester.heuvana.v2.domain.SceneResource;
 import io.github.greenstevester.heuvana.v2.domain.ZoneResource;
+import io.github.greenstevester.heuvana.v2.domain.event.ButtonEvent;
+import io.github.greenstevester.heuvana.v2.domain.event.MotionEvent;
 import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -52,9 +62,8 @@ import static io.github.greenstevester.heuvana.v2.domain.ResourceType.MOTION;
 import static io.github.greenstevester.heuvana.v2.domain.ResourceType.TEMPERATURE;
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 
-public class Hue {
+public class Hue implements AutoCloseable {
   private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
   private static final int EXPECTED_NEW_LIGHTS_SEARCH_TIME_IN_SECONDS = 50;
   public static final String HUE_APPLICATION_KEY_HEADER = "hue-application-key";
@@ -62,6 +71,17 @@ public class Hue {
   public static final Duration EVENTS_READ_TIMEOUT = Duration.ofMillis(Integer.MAX_VALUE);
 
   final ObjectMapper objectMapper;
+  final EventDecoder buttonAndMotionDecoder;
+  private final HttpTransport transport;
+  private final SecureJsonFactory jsonFactory;
+  private final CommandScheduler commandScheduler = new CommandScheduler();
+  private final WriteBehindBuffer writeBehindBuffer = new WriteBehindBuffer();
+  private final EffectEngine effectEngine = new EffectEngine();
+  private final StateMirror stateMirror;
+  private HueEventSource stateMirrorEventSource;
+  private final EventLatencies eventLatencies = new EventLatencies();
+  private final List<EventMetrics> eventMetricsExporters = new CopyOnWriteArrayList<>();
+  final EventLatencies.OnDemand eventMetrics = new EventLatencies.OnDemand(this::recordEventLatency);
 
   private final LightFactory lightFactory;
   private final SwitchFactory switchFactory;
@@ -72,14 +92,13 @@ public class Hue {
   private final URL resourceUrl;
   private final URL eventUrl;
   private final String apiKey;
-  private Map<UUID, Resource> allResources;
-  private Map<UUID, Light> lights;
-  private Map<UUID, Switch> switches;
-  private Map<UUID, Group> groups;
-  private Map<UUID, MotionSensor> motionSensors;
-  private Map<UUID, TemperatureSensor> temperatureSensors;
+  private final AtomicReference<HueTopology> topology = new AtomicReference<>(HueTopology.EMPTY);
+  private final CompletableFuture<HueTopology> revalidation = new CompletableFuture<>();
+  private final EventRegistry eventRegistry;
+  private final SharedEventStream eventStream;
+  private volatile EventReplay eventReplay;
+  private final TopologyCache topologyCache;
   private final String bridgeIp;
-  private String bridgeId;
 
   /**
    * The basic constructor for initializing the Hue Bridge APIv2 connection for this library.
@@ -89,6 +108,66 @@ public class Hue {
    * @since 3.0.0
    */
   public Hue(final String bridgeIp, final String apiKey) {
+    this(bridgeIp, apiKey, HttpTransportConfig.defaults());
+  }
+
+  /**
+   * Initializes the Hue Bridge APIv2 connection with custom connection pool and timeout settings.
+   *
+   * @param bridgeIp        The IP address of the Hue Bridge.
+   * @param apiKey          The API key of your application.
+   * @param transportConfig Connection pool and timeout settings for the REST calls made to the Bridge.
+   * @since 5.3.0
+   */
+  public Hue(final String bridgeIp, final String apiKey, final HttpTransportConfig transportConfig) {
+    this(bridgeIp, apiKey, transportConfig, null);
+  }
+
+  /**
+   * Initializes the Hue Bridge APIv2 connection, starting from the resources cached in a local file if there are any.
+   * In that case the constructor returns without waiting for the Bridge, and the resources are revalidated against
+   * the Bridge in the background, see {@link #whenRevalidated()}.
+   *
+   * @param bridgeIp        The IP address of the Hue Bridge.
+   * @param apiKey          The API key of your application.
+   * @param transportConfig Connection pool and timeout settings for the REST calls made to the Bridge.
+   * @param topologyCache   The file to start from and to keep up to date, or {@code null} to always read the
+   *                        resources from the Bridge.
+   * @since 5.3.0
+   */
+  public Hue(final String bridgeIp,
+             final String apiKey,
+             final HttpTransportConfig transportConfig,
+             final TopologyCache topologyCache) {
+    this(bridgeIp, apiKey, factory -> new OkHttpTransport(factory, apiKey, transportConfig), topologyCache);
+  }
+
+  /**
+   * Initializes the Hue Bridge APIv2 connection with a transport of your own for the REST calls made to the Bridge,
+   * for example one backed by a different HTTP client, or one that records the calls in tests. The transport is
+   * closed by {@link #close()}.
+   *
+   * <p>The event stream is read with an OkHttp client of its own, unless the transport is an
+   * {@link OkHttpTransport}, whose connection pool it then shares.</p>
+   *
+   * @param bridgeIp      The IP address of the Hue Bridge.
+   * @param apiKey        The API key of your application.
+   * @param transport     The transport for the REST calls made to the Bridge.
+   * @param topologyCache The file to start from and to keep up to date, or {@code null} to always read the
+   *                      resources from the Bridge.
+   * @since 5.3.0
+   */
+  public Hue(final String bridgeIp,
+             final String apiKey,
+             final HttpTransport transport,
+             final TopologyCache topologyCache) {
+    this(bridgeIp, apiKey, factory -> Objects.requireNonNull(transport, "transport"), topologyCache);
+  }
+
+  private Hue(final String bridgeIp,
+              final String apiKey,
+              final Function<SecureJsonFactory, HttpTransport> transportFactory,
+              final TopologyCache topologyCache) {
     this.bridgeIp = bridgeIp;
     try {
       this.resourceUrl = new URL("https://" + this.bridgeIp + "/clip/v2/resource");
@@ -103,106 +182,322 @@ public class Hue {
 
     this.apiKey = apiKey;
     this.objectMapper = HttpUtil.buildObjectMapper(this.bridgeIp);
+    // Shared by all the subscribers that only want button and motion events, so each message is decoded once
+    this.buttonAndMotionDecoder = new EventDecoder(objectMapper.getFactory(), BasicHueEventHandler.BUTTON_AND_MOTION);
+    this.jsonFactory = (SecureJsonFactory) objectMapper.getFactory();
+    this.transport = transportFactory.apply(jsonFactory);
+    this.stateMirror = new StateMirror(objectMapper);
+    this.eventStream = new SharedEventStream(objectMapper, this::connectEventStream, new EventResync(objectMapper,
+        resourceType -> eventReplay != null
+            ? objectMapper.createArrayNode()
+            : fetchResources("/" + resourceType.name().toLowerCase()).path("data")), eventMetrics);
+    this.eventRegistry = new EventRegistry(listener -> eventStream.subscribe(listener, null));
 
     lightFactory = new LightFactory(this, objectMapper);
     switchFactory = new SwitchFactory(this, objectMapper);
     groupFactory = new GroupFactory(this, objectMapper);
     motionSensorFactory = new MotionSensorFactory(this, objectMapper);
     temperatureSensorFactory = new TemperatureSensorFactory(this, objectMapper);
-    refresh();
+    this.topologyCache = topologyCache;
+    final JsonNode cached = topologyCache == null ? null : topologyCache.read(objectMapper);
+    if (cached == null) {
+      refresh();
+      revalidation.complete(topology.get());
+    } else {
+      applyResources(cached, null);
+      logger.debug("Started from {} cached resources, revalidating in the background", cached.size());
+      final Thread revalidator = new Thread(() -> {
+        try {
+          refresh();
+          revalidation.complete(topology.get());
+        } catch (final RuntimeException e) {
+          logger.warn("Could not revalidate the cached resources against the Bridge", e);
+          revalidation.completeExceptionally(e);
+        }
+      }, "hue-topology-revalidation");
+      revalidator.setDaemon(true);
+      revalidator.start();
+    }
   }
 
   URL getResourceUrl() {
     return resourceUrl;
   }
 
+  /**
+   * Returns the transport through which all the REST calls to the Bridge are made.
+   *
+   * @return The HTTP transport of this instance.
+   * @since 5.3.0
+   */
+  public HttpTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Returns the scheduler that paces all the state changes sent to the Bridge. Use it to adjust the rate
+   * limits, or to see how many commands are waiting or have been dropped.
+   *
+   * @return The command scheduler of this instance.
+   * @since 5.3.0
+   */
+  public CommandScheduler getCommandScheduler() {
+    return commandScheduler;
+  }
+
+  /**
+   * Returns the engine that times the effects of the lights of this instance, such as {@link PulsingEffect},
+   * on a single thread, however many effects are running.
+   *
+   * @return The effect engine.
+   * @since 5.3.0
+   */
+  public EffectEngine getEffectEngine() {
+    return effectEngine;
+  }
+
+  /**
+   * Returns the buffer that can merge rapid state changes of the same light or group into a single request.
+   * Buffering is disabled until a flush window is set.
+   *
+   * @return The write-behind buffer of this instance.
+   * @since 5.3.0
+   */
+  public WriteBehindBuffer getWriteBehindBuffer() {
+    return writeBehindBuffer;
+  }
+
+  /**
+   * Keeps an in-memory copy of the state of all the resources of the Bridge, updated by the event stream
+   * of the Bridge, and answers the state getters of lights, groups and sensors from it instead of
+   * making a request to the Bridge on every call. Calling this method again only updates the staleness bound.
+   *
+   * @param stalenessBound How long the in-memory state may still be used after the event stream has been
+   *                       disconnected. After that, the getters read from the Bridge again until the stream
+   *                       has reconnected.
+   * @return The state mirror.
+   * @since 5.3.0
+   */
+  public synchronized StateMirror enableStateMirror(final Duration stalenessBound) {
+    stateMirror.setStalenessBound(stalenessBound);
+    if (!stateMirror.isEnabled()) {
+      // Subscribe first, so that no change is missed between loading the resources and the stream connecting
+      stateMirrorEventSource = eventStream.subscribe(stateMirror.eventHandler(), null);
+      stateMirror.load(fetchResources().path("data"));
+      stateMirror.setEnabled(true);
+    }
+    return stateMirror;
+  }
+
+  /**
+   * Stops updating the in-memory state, so that the state getters read from the Bridge again.
+   *
+   * @since 5.3.0
+   */
+  public synchronized void disableStateMirror() {
+    if (stateMirrorEventSource != null) {
+      stateMirrorEventSource.close();
+      stateMirrorEventSource = null;
+    }
+    stateMirror.setEnabled(false);
+  }
+
+  /**
+   * @return The state mirror of this instance, disabled unless {@link #enableStateMirror(Duration)} has been called.
+   * @since 5.3.0
+   */
+  public StateMirror getStateMirror() {
+    return stateMirror;
+  }
+
+  private JsonNode fetchResources() {
+    return fetchResources("");
+  }
+
+  private JsonNode fetchResources(final String path) {
+    try (final InputStream inputStream = openStream(path)) {
+      return objectMapper.readTree(inputStream);
+    } catch (final IOException e) {
+      throw new HueApiException(e);
+    }
+  }
+
   /**
    * Refreshes the room, lamp, etc. data from the Hue Bridge, in case
    * it has been updated since the application was started.
+   * Only the lights, rooms, etc. whose data has changed are rebuilt.
    *
    * @since 3.0.0
    */
   public void refresh() {
-    try (final InputStream inputStream = getUrlConnection("").getInputStream()) {
-      final ResourceRoot resourceRoot = objectMapper.readValue(inputStream, ResourceRoot.class);
-      allResources = resourceRoot.getData().stream().collect(Collectors.toMap(r -> r.getId(), r -> r));
-      logger.trace("Resource root: " + resourceRoot);
-    } catch (final IOException e) {
-      throw new HueApiException(e);
+    final JsonNode resources = fetchResources();
+    if (stateMirror.isEnabled()) {
+      stateMirror.load(resources.path("data"));
     }
-    lights = allResources.values().stream()
-        .filter(r -> r instanceof LightResource)
-        .map(r -> (LightResource) r)
-        .map(this::buildLight)
-        .collect(toMap(LightImpl::getId, light -> light));
-
-    final List<DeviceResource> devices = allResources.values().stream()
-        .filter(r -> r instanceof DeviceResource)
-        .map(r -> (DeviceResource) r)
-        .collect(toList());
-
-    final List<ButtonResource> allButtons = allResources.values().stream()
-        .filter(r -> r instanceof ButtonResource)
-        .map(r -> (ButtonResource) r)
-        .collect(toList());
+    applyResources(resources.path("data"), null);
+  }
 
-    switches = devices.stream()
-        .map(device -> buildSwitch(device, allButtons))
-        .filter(Objects::nonNull)
-        .collect(toMap(Switch::getId, s -> s));
+  /**
+   * Refreshes only the resources of the given types from the Hue Bridge, which is a lot faster than
+   * {@link #refresh()} on large installations. For example, to pick up renamed or added lights and
+   * changes to rooms, call {@code hue.refresh(ResourceType.LIGHT, ResourceType.DEVICE, ResourceType.ROOM)}.
+   * Only the lights, rooms, etc. whose data has changed are rebuilt.
+   *
+   * @param resourceTypes The types of the resources to refresh.
+   * @since 5.3.0
+   */
+  public void refresh(final ResourceType... resourceTypes) {
+    if (resourceTypes.length == 0) {
+      refresh();
+      return;
+    }
+    final Set<ResourceType> scope = EnumSet.copyOf(Arrays.asList(resourceTypes));
+    if (scope.contains(ResourceType.UNKNOWN)) {
+      throw new IllegalArgumentException("Cannot refresh resources of unknown type");
+    }
+    final ArrayNode data = objectMapper.createArrayNode();
+    for (final ResourceType resourceType : scope) {
+      fetchResources("/" + resourceType.name().toLowerCase()).path("data").forEach(data::add);
+    }
+    applyResources(data, scope);
+  }
 
-    motionSensors = devices.stream()
-        .filter(device -> device.getServices().stream().anyMatch(service -> MOTION == service.getResourceType()))
-        .map(device -> buildMotionSensor(device))
-        .collect(Collectors.toMap(MotionSensor::getId, d -> d));
+  private synchronized void applyResources(final JsonNode data, final Set<ResourceType> scope) {
+    final HueTopology previous = topology.get();
+    final ResourceDiff diff = ResourceDiff.compute(previous.getRawResources(), data, scope);
+    if (diff.isEmpty()) {
+      logger.debug("Refresh found no changes");
+      return;
+    }
+    final Map<UUID, Resource> previousResources = previous.getAllResources();
+    final Map<UUID, Resource> resources = new HashMap<>(previousResources);
+    final List<Resource> affected = new ArrayList<>();
+    for (final JsonNode node : diff.getChanged()) {
+      final Resource resource = readResource(node);
+      resources.put(resource.getId(), resource);
+      affected.add(resource);
+      // Also whatever the resource belonged to before it changed
+      Optional.ofNullable(previousResources.get(resource.getId())).ifPresent(affected::add);
+    }
+    for (final UUID id : diff.getRemoved()) {
+      resources.remove(id);
+      Optional.ofNullable(previousResources.get(id)).ifPresent(affected::add);
+    }
+    logger.debug("Refresh found {} changed and {} removed resources", diff.getChanged().size(), diff.getRemoved().size());
+
+    final Set<UUID> dirtyLights = new HashSet<>();
+    final Set<UUID> dirtyDevices = new HashSet<>();
+    final Set<UUID> dirtyGroups = new HashSet<>();
+    boolean bridgeChanged = false;
+    for (final Resource resource : affected) {
+      if (resource instanceof LightResource) {
+        dirtyLights.add(resource.getId());
+      } else if (resource instanceof DeviceResource) {
+        dirtyDevices.add(resource.getId());
+      } else if (resource instanceof ButtonResource) {
+        Optional.ofNullable(((ButtonResource) resource).getOwner())
+            .map(ResourceIdentifier::getResourceId)
+            .ifPresent(dirtyDevices::add);
+      } else if (resource instanceof RoomResource || resource instanceof ZoneResource) {
+        dirtyGroups.add(resource.getId());
+      } else if (resource instanceof SceneResource) {
+        Optional.ofNullable(((SceneResource) resource).getGroup())
+            .map(ResourceIdentifier::getResourceId)
+            .ifPresent(dirtyGroups::add);
+      } else if (resource instanceof BridgeResource) {
+        bridgeChanged = true;
+      }
+    }
 
-    temperatureSensors = devices.stream()
-        .filter(device -> device.getServices().stream().anyMatch(service -> TEMPERATURE == service.getResourceType()))
-        .map(device -> buildTemperatureSensor(device))
-        .collect(Collectors.toMap(TemperatureSensor::getId, d -> d));
+    final Map<UUID, Light> lights = rebuild(previous.getLights(), resources, dirtyLights,
+        r -> r instanceof LightResource ? buildLight((LightResource) r) : null);
+
+    Map<UUID, Switch> switches = previous.getSwitches();
+    Map<UUID, MotionSensor> motionSensors = previous.getMotionSensors();
+    Map<UUID, TemperatureSensor> temperatureSensors = previous.getTemperatureSensors();
+    if (!dirtyDevices.isEmpty()) {
+      final List<ButtonResource> allButtons = resources.values().stream()
+          .filter(r -> r instanceof ButtonResource)
+          .map(r -> (ButtonResource) r)
+          .collect(toList());
+      switches = rebuild(switches, resources, dirtyDevices,
+          r -> r instanceof DeviceResource ? buildSwitch((DeviceResource) r, allButtons) : null);
+      motionSensors = rebuild(motionSensors, resources, dirtyDevices,
+          r -> hasService(r, MOTION) ? buildMotionSensor((DeviceResource) r) : null);
+      temperatureSensors = rebuild(temperatureSensors, resources, dirtyDevices,
+          r -> hasService(r, TEMPERATURE) ? buildTemperatureSensor((DeviceResource) r) : null);
+    }
 
-    groups = allResources.values().stream()
-        .filter(r -> r instanceof RoomResource || r instanceof ZoneResource)
-        .map(r -> (GroupResource) r)
-        .map(this::buildGroup)
-        .collect(toMap(GroupImpl::getId, group -> group));
+    final Map<UUID, Group> groups = rebuild(previous.getGroups(), resources, dirtyGroups,
+        r -> r instanceof RoomResource || r instanceof ZoneResource ? buildGroup((GroupResource) r, resources) : null);
+
+    String bridgeId = previous.getBridgeId();
+    if (bridgeChanged) {
+      bridgeId = resources.values().stream()
+          .filter(r -> r instanceof BridgeResource)
+          .map(r -> (BridgeResource) r)
+          .map(bridge -> bridge.getBridgeId())
+          .findFirst()
+          .orElse(null);
+    }
 
-    bridgeId = allResources.values().stream()
-        .filter(r -> r instanceof BridgeResource)
-        .map(r -> (BridgeResource) r)
-        .map(bridge -> bridge.getBridgeId())
-        .findFirst()
-        .orElse(null);
+    topology.set(new HueTopology(diff.getResources(), resources, lights, switches, groups,
+        motionSensors, temperatureSensors, bridgeId));
+    if (topologyCache != null) {
+      topologyCache.write(objectMapper, diff.getResources().values());
+    }
   }
 
-  URLConnection getUrlConnection(final String path) {
+  private Resource readResource(final JsonNode node) {
     try {
-      final URL url = new URL(this.resourceUrl.toString() + path);
-      return getUrlConnection(url);
-    } catch (final MalformedURLException e) {
+      return objectMapper.treeToValue(node, Resource.class);
+    } catch (final IOException e) {
       throw new HueApiException(e);
     }
   }
 
-  HttpsURLConnection getUrlConnection(final URL url) {
-    try {
-      final HttpsURLConnection urlConnection = (HttpsURLConnection) url.openConnection();
-      final SecureJsonFactory factory = (SecureJsonFactory) objectMapper.getFactory();
-      urlConnection.setSSLSocketFactory(factory.getSocketFactory());
-      urlConnection.setHostnameVerifier(factory.getHostnameVerifier());
-      urlConnection.setRequestProperty(HUE_APPLICATION_KEY_HEADER, apiKey);
-      return urlConnection;
-    } catch (IOException e) {
-      throw new HueApiException(e);
+  /**
+   * Returns a copy of the given model map in which the entries of the given resources have been rebuilt,
+   * or removed if the resources no longer exist or no longer qualify.
+   */
+  private static <T> Map<UUID, T> rebuild(final Map<UUID, T> current,
+                                          final Map<UUID, Resource> resources,
+                                          final Set<UUID> dirty,
+                                          final Function<Resource, ? extends T> builder) {
+    if (dirty.isEmpty()) {
+      return current;
     }
+    final Map<UUID, T> result = new HashMap<>(current);
+    for (final UUID id : dirty) {
+      result.remove(id);
+      final Resource resource = resources.get(id);
+      final T built = resource == null ? null : builder.apply(resource);
+      if (built != null) {
+        result.put(id, built);
+      }
+    }
+    return result;
+  }
+
+  private static boolean hasService(final Resource resource, final ResourceType serviceType) {
+    return resource instanceof DeviceResource && ((DeviceResource) resource).getServices().stream()
+        .anyMatch(service -> serviceType == service.getResourceType());
+  }
+
+  InputStream openStream(final String path) throws IOException {
+    return openStream(new URL(this.resourceUrl.toString() + path));
+  }
+
+  InputStream openStream(final URL url) throws IOException {
+    return transport.get(url);
   }
 
   private LightImpl buildLight(final LightResource lightResource) {
     return lightFactory.buildLight(lightResource, resourceUrl);
   }
 
-  private GroupImpl buildGroup(final GroupResource groupResource) {
-    return groupFactory.buildGroup(groupResource, allResources);
+  private GroupImpl buildGroup(final GroupResource groupResource, final Map<UUID, Resource> resources) {
+    return groupFactory.buildGroup(groupResource, resources);
   }
 
   private Switch buildSwitch(final DeviceResource deviceResource, final List<ButtonResource> allButtons) {
@@ -225,7 +520,45 @@ public class Hue {
    * @return A Map of lights, the keys being their ids.
    */
   public Map<UUID, Light> getLights() {
-    return lights;
+    return topology.get().getLights();
+  }
+
+  /**
+   * Returns a specific light by its APIv1 id.
+   *
+   * @param idV1 The APIv1 id of the light, such as {@code "/lights/12"}
+   * @return A light or {@code Optional.empty()} if a light with the given id does not exist.
+   * @since 5.3.0
+   */
+  public Optional<Light> getLightByIdV1(final String idV1) {
+    return topology.get().getLightByIdV1(idV1);
+  }
+
+  /**
+   * Returns the lights provided by a device, such as the single light of a bulb or the multiple lights
+   * of a light strip with several segments.
+   *
+   * @param deviceId The id of the device.
+   * @return The lights of the device, or an empty list if the device has none or does not exist.
+   * @since 5.3.0
+   */
+  public List<Light> getLightsOfDevice(final UUID deviceId) {
+    return topology.get().getLightsOfDevice(deviceId);
+  }
+
+  /**
+   * Returns the rooms and zones that contain a light.
+   *
+   * @param lightId The id of the light.
+   * @return The rooms and zones of the light, or an empty list if the light is in none or does not exist.
+   * @since 5.3.0
+   */
+  public List<Group> getGroupsOfLight(final UUID lightId) {
+    return topology.get().getGroupsOfLight(lightId);
+  }
+
+  Collection<Light> getLightsOfGroup(final UUID groupId) {
+    return topology.get().getIndex().getLightsOfGroup(groupId);
   }
 
   /**
@@ -236,7 +569,7 @@ public class Hue {
    * @since 3.0.0
    */
   public Map<UUID, Switch> getSwitches() {
-    return switches;
+    return topology.get().getSwitches();
   }
 
   /**
@@ -246,7 +579,7 @@ public class Hue {
    * @since 3.0.0
    */
   public Map<UUID, MotionSensor> getMotionSensors() {
-    return motionSensors;
+    return topology.get().getMotionSensors();
   }
 
   /**
@@ -256,15 +589,15 @@ public class Hue {
    * @since 3.0.0
    */
   public Map<UUID, TemperatureSensor> getTemperatureSensors() {
-    return temperatureSensors;
+    return topology.get().getTemperatureSensors();
   }
 
   Resource getResource(final UUID uuid) {
-    return allResources.get(uuid);
+    return topology.get().getAllResources().get(uuid);
   }
 
   List<DeviceResource> getDevices() {
-    return allResources.values().stream()
+    return topology.get().getAllResources().values().stream()
         .filter(resource -> resource.getType() == ResourceType.DEVICE)
         .map(resource -> (DeviceResource) resource)
         .collect(toList());
@@ -277,9 +610,7 @@ public class Hue {
    * @since 3.0.0
    */
   public Map<UUID, Group> getRooms() {
-    return groups.values().stream()
-        .filter(r -> r.getType() == ResourceType.ROOM)
-        .collect(toMap(Group::getId, r -> r));
+    return topology.get().getRooms();
   }
 
   /**
@@ -289,9 +620,7 @@ public class Hue {
    * @since 3.0.0
    */
   public Map<UUID, Group> getZones() {
-    return groups.values().stream()
-        .filter(r -> r.getType() == ResourceType.ZONE)
-        .collect(toMap(Group::getId, r -> r));
+    return topology.get().getZones();
   }
 
   /**
@@ -302,7 +631,7 @@ public class Hue {
    * @since 3.0.0
    */
   public Optional<Group> getRoomByName(final String roomName) {
-    return getRooms().values().stream().filter(group -> Objects.equals(group.getName(), roomName)).findFirst();
+    return topology.get().getRoomByName(roomName);
   }
 
   /**
@@ -313,7 +642,7 @@ public class Hue {
    * @since 3.0.0
    */
   public Optional<Group> getZoneByName(final String zoneName) {
-    return getZones().values().stream().filter(group -> Objects.equals(group.getName(), zoneName)).findFirst();
+    return topology.get().getZoneByName(zoneName);
   }
 
   /**
@@ -323,28 +652,203 @@ public class Hue {
    * @since 3.0.0
    */
   public String getBridgeId() {
-    return bridgeId;
+    return topology.get().getBridgeId();
+  }
+
+  /**
+   * Returns the current snapshot of the lights, groups, sensors, etc. Unlike the getters of this class,
+   * which always read the latest refresh, the snapshot stays the same while other threads refresh,
+   * so that a batch of lookups sees consistent data.
+   *
+   * @return The snapshot as of the latest refresh.
+   * @since 5.3.0
+   */
+  public HueTopology snapshot() {
+    return topology.get();
+  }
+
+  /**
+   * Returns a future that completes once the resources have been read from the Bridge. When starting from a
+   * {@link TopologyCache}, that happens in the background after the constructor has returned; otherwise the
+   * future is already complete.
+   *
+   * @return A future completed with the snapshot after revalidation, or completed exceptionally if the
+   * Bridge could not be reached.
+   * @since 5.3.0
+   */
+  public CompletableFuture<HueTopology> whenRevalidated() {
+    return revalidation.copy();
+  }
+
+  /**
+   * Returns the registry for subscribing to the events of specific resources, resource types or devices.
+   * The event stream is opened with the first subscription.
+   *
+   * @return The event registry of this instance.
+   * @since 5.3.0
+   */
+  public EventRegistry events() {
+    return eventRegistry;
   }
 
   public HueEventSource subscribeToEvents(final HueEventListener eventListener) {
-    try {
-      SSLSocketFactory factory;
-      X509TrustManager trustManager;
+    return subscribeToEvents(eventListener, EventDispatchConfig.defaults());
+  }
+
+  /**
+   * Subscribes to the events of the Bridge like {@link #subscribeToEvents(HueEventListener)}, with custom
+   * settings for the queue through which the events are delivered to the listener. The listener is called on
+   * a thread of its own, so a slow listener does not hold up the event stream.
+   *
+   * @param eventListener  The listener to receive the events.
+   * @param dispatchConfig The queue capacity and overflow policy for the listener.
+   * @return A source of events, through which the queue depth and drop counters are available.
+   * @since 5.3.0
+   */
+  public HueEventSource subscribeToEvents(final HueEventListener eventListener,
+                                          final EventDispatchConfig dispatchConfig) {
+    final BasicHueEventHandler eventHandler = new BasicHueEventHandler(this, eventListener, dispatchConfig);
+    return eventStream.subscribe(eventHandler.asStreamListener(), eventHandler.getDispatcher());
+  }
 
-      JsonFactory jsonFactory = objectMapper.getFactory();
-      SecureJsonFactory secureJsonFactory = (SecureJsonFactory) jsonFactory;
-      factory = secureJsonFactory.getSocketFactory();
-      trustManager = secureJsonFactory.getTrustManager();
+  /**
+   * @return The number of subscribers sharing the single event stream connection of this instance, including
+   *     the {@link #events()} registry and the {@link StateMirror} while they are in use.
+   * @since 5.3.0
+   */
+  public int getEventSubscriberCount() {
+    return eventStream.getSubscriberCount();
+  }
+
+  /**
+   * Returns a reactive publisher of all the events of the Bridge, for plugging the Bridge into pipelines that
+   * batch, window or aggregate events. Each subscriber only receives as many events as it has requested; the rest
+   * wait in a buffer of its own, bounded as configured.
+   *
+   * @param dispatchConfig The buffer capacity and overflow policy for each subscriber.
+   * @return A new publisher, sharing the event stream of this instance.
+   * @since 5.3.0
+   */
+  public EventPublisher<HueEvent> eventPublisher(final EventDispatchConfig dispatchConfig) {
+    return new EventPublisher<>(dispatchConfig, listener -> eventStream.subscribe(listener, null),
+        (message, publisher) -> message.getEvents().forEach(event -> publisher.publish(null, event)));
+  }
 
-      final OkHttpClient client = new OkHttpClient.Builder()
-          .sslSocketFactory(factory, trustManager)
+  /**
+   * Returns a reactive publisher of the button events of the Bridge, see {@link #eventPublisher(EventDispatchConfig)}.
+   *
+   * @param dispatchConfig The buffer capacity and overflow policy for each subscriber.
+   * @return A new publisher, sharing the event stream of this instance.
+   * @since 5.3.0
+   */
+  public EventPublisher<ButtonEvent> buttonEventPublisher(final EventDispatchConfig dispatchConfig) {
+    return new EventPublisher<>(dispatchConfig, listener -> eventStream.subscribe(listener, null),
+        (message, publisher) -> message.decode(buttonAndMotionDecoder).stream()
+            .filter(event -> event.getButtonEvent() != null)
+            .forEach(event -> publisher.publish(null, BasicHueEventHandler.toButtonEvent(this, event))));
+  }
+
+  /**
+   * Returns a reactive publisher of the motion events of the Bridge, see {@link #eventPublisher(EventDispatchConfig)}.
+   *
+   * @param dispatchConfig The buffer capacity and overflow policy for each subscriber.
+   * @return A new publisher, sharing the event stream of this instance.
+   * @since 5.3.0
+   */
+  public EventPublisher<MotionEvent> motionEventPublisher(final EventDispatchConfig dispatchConfig) {
+    return new EventPublisher<>(dispatchConfig, listener -> eventStream.subscribe(listener, null),
+        (message, publisher) -> message.decode(buttonAndMotionDecoder).stream()
+            .filter(event -> event.getMotion() != null)
+            .forEach(event -> publisher.publish("motion:" + event.getResourceId(),
+                BasicHueEventHandler.toMotionEvent(this, event))));
+  }
+
+  /**
+   * Returns the built-in latency histograms of the events, per event type, from the Bridge creating the event to
+   * the event stream receiving it, parsing it, the event waiting in the queue of each listener, and the listener
+   * handling it. Only the listeners of {@link #subscribeToEvents(HueEventListener)} are measured.
+   *
+   * <p>Nothing is measured until this method or {@link #addEventMetrics(EventMetrics)} is first called.</p>
+   *
+   * @return The histograms, updated as events arrive.
+   * @since 5.3.0
+   */
+  public EventLatencies getEventLatencies() {
+    eventMetrics.switchOn();
+    return eventLatencies;
+  }
+
+  /**
+   * Exports the latency measurements of the events, see {@link #getEventLatencies()}, into a metrics library.
+   * The events are measured from the first call of this method or {@link #getEventLatencies()} on.
+   *
+   * @param metrics Receives every measurement.
+   * @since 5.3.0
+   */
+  public void addEventMetrics(final EventMetrics metrics) {
+    eventMetricsExporters.add(metrics);
+    eventMetrics.switchOn();
+  }
+
+  /**
+   * @param metrics An exporter added with {@link #addEventMetrics(EventMetrics)}.
+   * @since 5.3.0
+   */
+  public void removeEventMetrics(final EventMetrics metrics) {
+    eventMetricsExporters.remove(metrics);
+  }
+
+  private void recordEventLatency(final String eventType, final EventLatencyStage stage, final long nanos) {
+    eventLatencies.record(eventType, stage, nanos);
+    for (final EventMetrics exporter : eventMetricsExporters) {
+      try {
+        exporter.record(eventType, stage, nanos);
+      } catch (final RuntimeException e) {
+        logger.warn("Event metrics exporter failed", e);
+      }
+    }
+  }
+
+  /**
+   * Records the raw messages of the event stream of the Bridge into a file, for replaying them later with
+   * {@link #replayEvents(EventReplay)}. The recording shares the event stream connection of this instance.
+   *
+   * @param file The file to append the messages to.
+   * @return The recorder, to be closed to stop recording.
+   * @since 5.3.0
+   */
+  public EventRecorder recordEvents(final Path file) {
+    return new EventRecorder(file, listener -> eventStream.subscribe(listener, null));
+  }
+
+  /**
+   * Replaces the event stream of the Bridge with a recording, for testing event handling and automations
+   * without a Bridge. Subscriptions made after this call receive the recorded events as if they came from the
+   * Bridge; subscriptions that already share a connection to the Bridge keep it. While replaying, no resources
+   * are fetched from the Bridge to catch up on changes missed between connections.
+   *
+   * @param replay The recording to play back, or {@code null} to connect to the Bridge again.
+   * @since 5.3.0
+   */
+  public void replayEvents(final EventReplay replay) {
+    if (replay != null) {
+      replay.setDispatchers(eventStream::getDispatchers);
+    }
+    this.eventReplay = replay;
+  }
+
+  private HueEventSource connectEventStream(final BackgroundEventHandler eventHandler) {
+    final EventReplay replay = eventReplay;
+    return replay != null ? replay.start(eventHandler) : openEventStream(eventHandler);
+  }
+
+  private HueEventSource openEventStream(final BackgroundEventHandler eventHandler) {
+    try {
+      final OkHttpClient client = eventStreamClientBase().newBuilder()
           .connectTimeout(Duration.ofMinutes(EVENTS_CONNECTION_TIMEOUT_MINUTES))
           .readTimeout(EVENTS_READ_TIMEOUT)
-          .hostnameVerifier(secureJsonFactory.getHostnameVerifier())
           .build();
 
-      final BasicHueEventHandler eventHandler = new BasicHueEventHandler(this, eventListener);
-
       final BackgroundEventSource.Builder builder = new BackgroundEventSource.Builder(eventHandler,
           new EventSource.Builder(ConnectStrategy.http(eventUrl.toURI())
               .httpClient(client)
@@ -362,6 +866,32 @@ public class Hue {
 
   }
 
+  private OkHttpClient eventStreamClientBase() {
+    if (transport instanceof OkHttpTransport) {
+      return ((OkHttpTransport) transport).getClient();
+    }
+    return new OkHttpClient.Builder()
+        .sslSocketFactory(jsonFactory.getSocketFactory(), jsonFactory.getTrustManager())
+        .hostnameVerifier(jsonFactory.getHostnameVerifier())
+        .build();
+  }
+
+  /**
+   * Stops all the effects, sends the state changes still held by the {@link WriteBehindBuffer}, closes the event
+   * stream and releases the threads and connections of this instance. The instance cannot be used afterwards.
+   *
+   * @since 5.3.0
+   */
+  @Override
+  public void close() {
+    effectEngine.close();
+    writeBehindBuffer.close();
+    disableStateMirror();
+    eventRegistry.close();
+    commandScheduler.close();
+    transport.close();
+  }
+
 
   /**
    * Orders the Bridge to search for new lights. The operation takes some 40-60 seconds -- longer, if there are many
@@ -371,7 +901,8 @@ public class Hue {
    */
   public Future<Collection<Light>> searchForNewLights() {
     try {
-      final String searchStartResult = HttpUtil.post(new URL("https://" + bridgeIp + "/api/" + apiKey + "/lights"), "", null);
+      final URL searchUrl = new URL("https://" + bridgeIp + "/api/" + apiKey + "/lights");
+      final String searchStartResult = HttpUtil.post(this, searchUrl, "", null);
       logger.info("Starting to search for new lights: " + searchStartResult);
       final Supplier<Collection<Light>> newLightsSupplier = () -> {
         NewLightsResult newLightsResult = getNewLightsSearchStatus();
@@ -406,8 +937,8 @@ public class Hue {
   public NewLightsResult getNewLightsSearchStatus() {
 
     final JsonNode result;
-    try {
-      result = objectMapper.readTree(new URL("https://" + bridgeIp + "/api/" + apiKey + "/lights/new"));
+    try (final InputStream inputStream = openStream(new URL("https://" + bridgeIp + "/api/" + apiKey + "/lights/new"))) {
+      result = objectMapper.readTree(inputStream);
     } catch (final IOException e) {
       throw new HueApiException(e);
     }
@@ -437,9 +968,7 @@ public class Hue {
           if ("lastscan".equals(lightIdField)) {
             continue;
           }
-          final Optional<Light> light = getLights().values().stream()
-              .filter(aLight -> Objects.equals(String.format("/lights/%s", lightIdField), ((LightImpl) aLight).getIdV1()))
-              .findFirst();
+          final Optional<Light> light = getLightByIdV1(String.format("/lights/%s", lightIdField));
           if (light.isPresent()) {
             newLights.add(light.get());
           } else {
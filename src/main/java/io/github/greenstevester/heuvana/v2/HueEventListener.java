@@ -2,6 +2,7 @@ package io.github.greenstevester.heuvana.v2;
 
 import io.github.greenstevester.heuvana.v2.domain.HueEvent;
 import io.github.greenstevester.heuvana.v2.domain.event.ButtonEvent;
+import io.github.greenstevester.heuvana.v2.domain.event.LightStateChangedEvent;
 import io.github.greenstevester.heuvana.v2.domain.event.MotionEvent;
 
 import java.util.List;
@@ -34,6 +35,18 @@ public interface HueEventListener {
   default void receiveMotionEvent(MotionEvent event) {
   }
 
+  /**
+   * This method will be called when the state of a light, or of the lights of a room or zone, changes:
+   * when it is turned on or off, dimmed, or its color, color temperature, dynamics, effect or gradient changes.
+   * Each event only carries the parts of the state that changed, so the full state of the lights can be tracked
+   * without polling. These events are a more specific subset of what the {@link #receive(List)} method will receive.
+   *
+   * @param event A light state change as received from the Bridge.
+   * @since 5.3.0
+   */
+  default void receiveLightStateEvent(LightStateChangedEvent event) {
+  }
+
   /**
    * <p>This method will be called when events are received.
    * Note that this method is called for all events.
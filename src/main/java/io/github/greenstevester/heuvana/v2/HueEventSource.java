@@ -1,5 +1,7 @@
 package io.github.greenstevester.heuvana.v2;
 
+import java.util.Optional;
+
 /**
  * Source of streaming events from the Hue Bridge.
  */
@@ -15,4 +17,14 @@ public interface HueEventSource extends AutoCloseable {
    * @return State of this event stream. Should be {@code ACTIVE} for this to work properly.
    */
   HueEventStreamState getState();
+
+  /**
+   * Returns the dispatcher delivering the events to the listener, with its queue depth and drop counters.
+   *
+   * @return The dispatcher, or {@code Optional.empty()} if the events are not delivered through one.
+   * @since 5.3.0
+   */
+  default Optional<EventDispatcher> getDispatcher() {
+    return Optional.empty();
+  }
 }
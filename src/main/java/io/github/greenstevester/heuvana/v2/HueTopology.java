@@ -0,0 +1,168 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.greenstevester.heuvana.v2.domain.Resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static java.util.Collections.emptyMap;
+
+/**
+ * An immutable snapshot of the lights, groups, sensors, etc. of the Bridge, as of a single refresh.
+ *
+ * <p>{@link Hue#refresh()} builds a new snapshot off to the side and publishes it atomically, so a snapshot
+ * never mixes the results of two refreshes, for example new lights with old rooms. The getters of {@link Hue}
+ * always read the latest snapshot; to run several lookups against the same state, pin one with
+ * {@link Hue#snapshot()}:</p>
+ * <pre>{@code
+ * final HueTopology topology = hue.snapshot();
+ * topology.getRoomByName("Living room").ifPresent(room -> ...);
+ * topology.getLights().values().forEach(light -> ...);
+ * }</pre>
+ *
+ * <p>Only the model is frozen. Lights, groups and sensors still read and change their state on the Bridge,
+ * and {@link Group#getLights()} reflects the membership of the latest refresh.</p>
+ *
+ * @since 5.3.0
+ */
+public final class HueTopology {
+  static final HueTopology EMPTY = new HueTopology(emptyMap(), emptyMap(), emptyMap(), emptyMap(), emptyMap(),
+      emptyMap(), emptyMap(), null);
+
+  private final Map<UUID, JsonNode> rawResources;
+  private final Map<UUID, Resource> allResources;
+  private final Map<UUID, Light> lights;
+  private final Map<UUID, Switch> switches;
+  private final Map<UUID, Group> groups;
+  private final Map<UUID, MotionSensor> motionSensors;
+  private final Map<UUID, TemperatureSensor> temperatureSensors;
+  private final String bridgeId;
+  private final TopologyIndex index;
+
+  HueTopology(final Map<UUID, JsonNode> rawResources,
+              final Map<UUID, Resource> allResources,
+              final Map<UUID, Light> lights,
+              final Map<UUID, Switch> switches,
+              final Map<UUID, Group> groups,
+              final Map<UUID, MotionSensor> motionSensors,
+              final Map<UUID, TemperatureSensor> temperatureSensors,
+              final String bridgeId) {
+    this.rawResources = Map.copyOf(rawResources);
+    this.allResources = Map.copyOf(allResources);
+    this.lights = Map.copyOf(lights);
+    this.switches = Map.copyOf(switches);
+    this.groups = Map.copyOf(groups);
+    this.motionSensors = Map.copyOf(motionSensors);
+    this.temperatureSensors = Map.copyOf(temperatureSensors);
+    this.bridgeId = bridgeId;
+    this.index = TopologyIndex.build(this.allResources, this.lights, this.groups);
+  }
+
+  /**
+   * @return All the lights, the keys being their ids.
+   */
+  public Map<UUID, Light> getLights() {
+    return lights;
+  }
+
+  /**
+   * @return All the switches, the keys being their ids.
+   */
+  public Map<UUID, Switch> getSwitches() {
+    return switches;
+  }
+
+  /**
+   * @return All the motion sensors, the keys being their ids.
+   */
+  public Map<UUID, MotionSensor> getMotionSensors() {
+    return motionSensors;
+  }
+
+  /**
+   * @return All the temperature sensors, the keys being their ids.
+   */
+  public Map<UUID, TemperatureSensor> getTemperatureSensors() {
+    return temperatureSensors;
+  }
+
+  /**
+   * @return All the rooms, the keys being their ids.
+   */
+  public Map<UUID, Group> getRooms() {
+    return index.getRooms();
+  }
+
+  /**
+   * @return All the zones, the keys being their ids.
+   */
+  public Map<UUID, Group> getZones() {
+    return index.getZones();
+  }
+
+  /**
+   * @param roomName The name of a room
+   * @return A room or {@code Optional.empty()} if a room with the given name does not exist.
+   */
+  public Optional<Group> getRoomByName(final String roomName) {
+    return Optional.ofNullable(index.getRoomByName(roomName));
+  }
+
+  /**
+   * @param zoneName The name of a zone
+   * @return A zone or {@code Optional.empty()} if a zone with the given name does not exist.
+   */
+  public Optional<Group> getZoneByName(final String zoneName) {
+    return Optional.ofNullable(index.getZoneByName(zoneName));
+  }
+
+  /**
+   * @param idV1 The APIv1 id of the light, such as {@code "/lights/12"}
+   * @return A light or {@code Optional.empty()} if a light with the given id does not exist.
+   */
+  public Optional<Light> getLightByIdV1(final String idV1) {
+    return Optional.ofNullable(index.getLightByIdV1(idV1));
+  }
+
+  /**
+   * @param deviceId The id of the device.
+   * @return The lights of the device, or an empty list if the device has none or does not exist.
+   */
+  public List<Light> getLightsOfDevice(final UUID deviceId) {
+    return index.getLightsByOwner(deviceId);
+  }
+
+  /**
+   * @param lightId The id of the light.
+   * @return The rooms and zones of the light, or an empty list if the light is in none or does not exist.
+   */
+  public List<Group> getGroupsOfLight(final UUID lightId) {
+    return index.getGroupsOfLight(lightId);
+  }
+
+  /**
+   * @return The technical ID of the Bridge, such as "00173321ae25bae8"
+   */
+  public String getBridgeId() {
+    return bridgeId;
+  }
+
+  Map<UUID, JsonNode> getRawResources() {
+    return rawResources;
+  }
+
+  Map<UUID, Resource> getAllResources() {
+    return allResources;
+  }
+
+  Map<UUID, Group> getGroups() {
+    return groups;
+  }
+
+  TopologyIndex getIndex() {
+    return index;
+  }
+}
@@ -0,0 +1,124 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a pool of threads, one at a time and in submission order for each key, and in parallel for
+ * different keys. Handy for acting on events of the Bridge with blocking calls such as {@code Light.setState},
+ * using the id of the resource as the key, so that a slow light does not hold up the others.
+ * Used by {@link EventDispatcher} when {@link EventDispatchConfig.Builder#parallelism(int)} is above one.
+ *
+ * <p>Tasks of different keys take turns on the threads, so a key with many tasks does not starve the others.
+ * A task that throws does not stop the tasks after it.</p>
+ *
+ * @since 5.3.0
+ */
+public class KeyedSerialExecutor implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+  private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+  private final ExecutorService pool;
+  private final Map<Object, Deque<Runnable>> pending = new HashMap<>();
+  private boolean closed;
+
+  /**
+   * @param threads The number of tasks of different keys that may run at once.
+   */
+  public KeyedSerialExecutor(final int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+    final String prefix = "hue-keyed-" + POOL_NUMBER.incrementAndGet() + "-";
+    final AtomicInteger threadNumber = new AtomicInteger();
+    this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+      final Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Runs the task after all the earlier tasks of the same key have finished.
+   *
+   * @param key  Such as the id of a resource.
+   * @param task The task.
+   * @throws RejectedExecutionException If this executor has been closed.
+   */
+  public void execute(final Object key, final Runnable task) {
+    if (key == null || task == null) {
+      throw new IllegalArgumentException("key and task must not be null");
+    }
+    synchronized (pending) {
+      if (closed) {
+        throw new RejectedExecutionException("Executor closed");
+      }
+      final Deque<Runnable> queue = pending.get(key);
+      if (queue != null) {
+        queue.addLast(task);
+        return;
+      }
+      pending.put(key, new ArrayDeque<>());
+    }
+    pool.execute(() -> run(key, task));
+  }
+
+  private void run(final Object key, final Runnable task) {
+    try {
+      task.run();
+    } catch (final RuntimeException e) {
+      logger.warn("Task of {} failed", key, e);
+    } finally {
+      // Also after an Error, which would otherwise leave the later tasks of the key waiting forever
+      runNext(key);
+    }
+  }
+
+  private void runNext(final Object key) {
+    final Runnable next;
+    synchronized (pending) {
+      final Deque<Runnable> queue = pending.get(key);
+      next = queue.pollFirst();
+      if (next == null) {
+        pending.remove(key);
+        if (closed && pending.isEmpty()) {
+          pool.shutdown();
+        }
+        return;
+      }
+    }
+    // Back to the end of the pool queue, to let the other keys have their turn
+    pool.execute(() -> run(key, next));
+  }
+
+  /**
+   * @return The number of keys with tasks running or waiting.
+   */
+  public int getActiveKeyCount() {
+    synchronized (pending) {
+      return pending.size();
+    }
+  }
+
+  /**
+   * Stops accepting tasks. The tasks already submitted are still run, after which the threads end.
+   */
+  @Override
+  public void close() {
+    synchronized (pending) {
+      closed = true;
+      if (pending.isEmpty()) {
+        pool.shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, with buckets that are at most an eighth of their lower bound wide,
+ * so percentiles are accurate to within 12.5% from a nanosecond to centuries.
+ *
+ * @since 5.3.0
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  void record(final long nanos) {
+    final long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    totalNanos.addAndGet(value);
+    maxNanos.accumulateAndGet(value, Math::max);
+    count.incrementAndGet();
+  }
+
+  static int bucketOf(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  static long upperBoundOf(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    final long lowerBound = (long) ((bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+
+  /**
+   * @return The number of latencies recorded.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return The mean latency, or zero if none has been recorded.
+   */
+  public Duration getMean() {
+    final long n = count.get();
+    return n == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.get() / n);
+  }
+
+  /**
+   * @return The highest latency recorded.
+   */
+  public Duration getMax() {
+    return Duration.ofNanos(maxNanos.get());
+  }
+
+  /**
+   * @param percentile Between 0 and 100, such as {@code 99} for the 99th percentile.
+   * @return The latency that the given percentage of the recorded latencies did not exceed,
+   *     or zero if none has been recorded.
+   */
+  public Duration getPercentile(final double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+    final long n = count.get();
+    if (n == 0) {
+      return Duration.ZERO;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Duration.ofNanos(Math.min(upperBoundOf(bucket), maxNanos.get()));
+      }
+    }
+    return getMax();
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram{" +
+        "count=" + getCount() +
+        ", mean=" + getMean() +
+        ", p50=" + getPercentile(50) +
+        ", p99=" + getPercentile(99) +
+        ", max=" + getMax() +
+        '}';
+  }
+}
@@ -1,8 +1,11 @@
 package io.github.greenstevester.heuvana.v2;
 
+import io.github.greenstevester.heuvana.v2.domain.update.AlertType;
 import io.github.greenstevester.heuvana.v2.domain.update.EffectType;
+import io.github.greenstevester.heuvana.v2.domain.update.TimedEffectType;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.UUID;
 
 /**
@@ -68,6 +71,26 @@ public interface Light extends Device {
    */
   Collection<EffectType> getSupportedEffects();
 
+  /**
+   * The timed effects, such as {@link TimedEffectType#SUNRISE}, that this light supports. May be empty but never null.
+   *
+   * @return A collection of supported timed effect types.
+   * @since 5.3.0
+   */
+  default Collection<TimedEffectType> getSupportedTimedEffects() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * The alerts, such as {@link AlertType#BREATHE}, that this light supports. May be empty but never null.
+   *
+   * @return A collection of supported alert types.
+   * @since 5.3.0
+   */
+  default Collection<AlertType> getSupportedAlerts() {
+    return Collections.emptyList();
+  }
+
   /**
    * <p>Returns the technical id of the device that "owns" this light, as assigned by the Bridge.</p>
    *
@@ -75,4 +98,29 @@ public interface Light extends Device {
    */
   UUID getOwnerId();
 
+  /**
+   * Returns the non-blocking view of this light.
+   *
+   * @return This light as an {@link AsyncLight}.
+   * @throws UnsupportedOperationException If this implementation has no non-blocking counterpart.
+   * @since 5.3.0
+   */
+  default AsyncLight async() {
+    if (this instanceof AsyncLight) {
+      return (AsyncLight) this;
+    }
+    throw new UnsupportedOperationException(getClass().getName() + " does not support asynchronous calls");
+  }
+
+  /**
+   * Returns the engine that runs the effects of this light, such as {@link PulsingEffect}, unless they are given
+   * another one. The lights of a {@link Hue} instance use {@link Hue#getEffectEngine()}.
+   *
+   * @return The effect engine of this light.
+   * @since 5.3.0
+   */
+  default EffectEngine getEffectEngine() {
+    return EffectEngine.shared();
+  }
+
 }
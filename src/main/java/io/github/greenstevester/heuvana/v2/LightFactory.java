@@ -5,13 +5,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.greenstevester.heuvana.HueApiException;
 import io.github.greenstevester.heuvana.v2.domain.LightResource;
 import io.github.greenstevester.heuvana.v2.domain.LightResourceRoot;
-import io.github.greenstevester.heuvana.v2.domain.update.UpdateLight;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -32,34 +34,49 @@ public class LightFactory {
       return new LightImpl(
           id,
           resource,
-          createStateProvider(url),
-          stateSetter(url)
+          createStateProvider(id, url),
+          createAsyncStateProvider(id, url),
+          stateSetter(id, url),
+          hue.getEffectEngine()
       );
     } catch (final MalformedURLException e) {
       throw new HueApiException(e);
     }
   }
 
-  private Supplier<LightResource> createStateProvider(final URL url) {
-    return () -> {
-      try (final InputStream inputStream = hue.getUrlConnection(url).getInputStream()) {
+  private Supplier<LightResource> createStateProvider(final UUID id, final URL url) {
+    final Supplier<LightResource> networkRead = () -> {
+      try (final InputStream inputStream = hue.openStream(url)) {
         final LightResource lightResource = objectMapper.readValue(inputStream, LightResourceRoot.class).getData().get(0);
         return lightResource;
       } catch (final IOException e) {
         throw new HueApiException(e);
       }
     };
+    return () -> hue.getStateMirror().get(id, LightResource.class, networkRead);
   }
 
-  private Function<UpdateLight, String> stateSetter(final URL url) {
+  private Supplier<CompletableFuture<LightResource>> createAsyncStateProvider(final UUID id, final URL url) {
+    final Supplier<CompletableFuture<LightResource>> networkRead = () -> hue.getTransport().getAsync(url)
+        .thenApply(json -> HttpUtil.readValue(objectMapper, json, LightResourceRoot.class).getData().get(0));
+    return () -> hue.getStateMirror().getAsync(id, LightResource.class, networkRead);
+  }
+
+  private Function<UpdateState, CompletableFuture<UpdateResult>> stateSetter(final UUID id, final URL url) {
+    final Function<UpdateState, CompletableFuture<UpdateResult>> sender = stateSender(url);
+    return state -> hue.getWriteBehindBuffer().submit(id, state, sender);
+  }
+
+  private Function<UpdateState, CompletableFuture<UpdateResult>> stateSender(final URL url) {
     return state -> {
       final String body;
       try {
-        body = objectMapper.writeValueAsString(state);
+        body = objectMapper.writeValueAsString(state.getUpdateLight());
       } catch (final JsonProcessingException e) {
-        throw new HueApiException(e);
+        return CompletableFuture.failedFuture(new HueApiException(e));
       }
-      return HttpUtil.put(hue, url, "", body);
+      return hue.getCommandScheduler().submit(ResourceType.LIGHT, state.getPriority(), state.getDeadline(),
+          () -> HttpUtil.putAsync(hue, url, "", body));
     };
   }
 }
@@ -1,24 +1,28 @@
 package io.github.greenstevester.heuvana.v2;
 
 import io.github.greenstevester.heuvana.HueApiException;
+import io.github.greenstevester.heuvana.v2.domain.Alert;
 import io.github.greenstevester.heuvana.v2.domain.Effects;
 import io.github.greenstevester.heuvana.v2.domain.LightResource;
+import io.github.greenstevester.heuvana.v2.domain.TimedEffects;
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
+import io.github.greenstevester.heuvana.v2.domain.update.AlertType;
 import io.github.greenstevester.heuvana.v2.domain.update.EffectType;
-import io.github.greenstevester.heuvana.v2.domain.update.UpdateLight;
+import io.github.greenstevester.heuvana.v2.domain.update.TimedEffectType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
-import static io.github.greenstevester.heuvana.v2.domain.update.On.OFF;
-import static io.github.greenstevester.heuvana.v2.domain.update.On.ON;
-
-public class LightImpl implements Light {
+public class LightImpl implements Light, AsyncLight {
   private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
 
   private final UUID id;
@@ -26,16 +30,34 @@ public class LightImpl implements Light {
   private final UUID ownerId;
   private final String name;
   private final Supplier<LightResource> stateProvider;
-  private final Function<UpdateLight, String> stateSetter;
+  private final Supplier<CompletableFuture<LightResource>> asyncStateProvider;
+  private final Function<UpdateState, CompletableFuture<UpdateResult>> stateSetter;
+  private final EffectEngine effectEngine;
+
+  public LightImpl(final UUID id, final LightResource light,
+                   final Supplier<LightResource> stateProvider,
+                   final Supplier<CompletableFuture<LightResource>> asyncStateProvider,
+                   final Function<UpdateState, CompletableFuture<UpdateResult>> stateSetter) {
+    this(id, light, stateProvider, asyncStateProvider, stateSetter, null);
+  }
 
-  public LightImpl(final UUID id, final LightResource light, final Supplier<LightResource> stateProvider,
-                   final Function<UpdateLight, String> stateSetter) {
+  /**
+   * @param effectEngine The engine to run the effects of this light on, or {@code null} for the shared one.
+   * @since 5.3.0
+   */
+  public LightImpl(final UUID id, final LightResource light,
+                   final Supplier<LightResource> stateProvider,
+                   final Supplier<CompletableFuture<LightResource>> asyncStateProvider,
+                   final Function<UpdateState, CompletableFuture<UpdateResult>> stateSetter,
+                   final EffectEngine effectEngine) {
     this.id = id;
+    this.effectEngine = effectEngine;
     if (light == null) {
       throw new HueApiException("Light " + id + " cannot be found.");
     }
     this.name = light.getMetadata().getName();
     this.stateProvider = stateProvider;
+    this.asyncStateProvider = asyncStateProvider;
     this.stateSetter = stateSetter;
     this.ownerId = light.getOwner().getResourceId();
     this.idV1 = light.getIdV1();
@@ -57,12 +79,12 @@ public class LightImpl implements Light {
 
   @Override
   public void turnOn() {
-    stateSetter.apply(new UpdateLight().setOn(ON));
+    setState(new UpdateState().on().priority(CommandPriority.INTERACTIVE));
   }
 
   @Override
   public void turnOff() {
-    stateSetter.apply(new UpdateLight().setOn(OFF));
+    setState(new UpdateState().off().priority(CommandPriority.INTERACTIVE));
   }
 
   @Override
@@ -78,12 +100,17 @@ public class LightImpl implements Light {
 
   @Override
   public void setBrightness(final int brightness) {
-    setState(new UpdateState().brightness(brightness).getUpdateLight());
+    setState(new UpdateState().brightness(brightness));
   }
 
   @Override
   public void setState(final UpdateState state) {
-    setState(state.getUpdateLight());
+    try {
+      final UpdateResult result = HttpUtil.await(stateSetter.apply(state));
+      logger.info("Update result: {}", result);
+    } catch (final CommandDroppedException e) {
+      logger.debug("Light {}: {}", id, e.getMessage());
+    }
   }
 
   @Override
@@ -92,9 +119,56 @@ public class LightImpl implements Light {
         .map(Effects::getEffectValues).orElse(Collections.emptyList());
   }
 
-  private void setState(final UpdateLight state) {
-    final String result = stateSetter.apply(state);
-    logger.info("Update result: {}", result);
+  @Override
+  public Collection<TimedEffectType> getSupportedTimedEffects() {
+    return Optional.ofNullable(stateProvider.get().getTimedEffects())
+        .map(TimedEffects::getEffectValues).orElse(Collections.emptyList());
+  }
+
+  @Override
+  public Collection<AlertType> getSupportedAlerts() {
+    return Optional.ofNullable(stateProvider.get().getAlert())
+        .map(Alert::getActionValues).orElse(Collections.<String>emptyList()).stream()
+        .map(LightImpl::toAlertType)
+        .collect(Collectors.toList());
+  }
+
+  private static AlertType toAlertType(final String action) {
+    try {
+      return AlertType.valueOf(action.toUpperCase(Locale.ROOT));
+    } catch (final IllegalArgumentException e) {
+      return AlertType.UNKNOWN;
+    }
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> turnOnAsync() {
+    return stateSetter.apply(new UpdateState().on().priority(CommandPriority.INTERACTIVE));
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> turnOffAsync() {
+    return stateSetter.apply(new UpdateState().off().priority(CommandPriority.INTERACTIVE));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> isOnAsync() {
+    return asyncStateProvider.get().thenApply(state -> state.getOn().isOn());
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> setBrightnessAsync(final int brightness) {
+    return setStateAsync(new UpdateState().brightness(brightness));
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> setStateAsync(final UpdateState state) {
+    return stateSetter.apply(state);
+  }
+
+  @Override
+  public EffectEngine getEffectEngine() {
+    return effectEngine != null ? effectEngine : Light.super.getEffectEngine();
   }
 
   @Override
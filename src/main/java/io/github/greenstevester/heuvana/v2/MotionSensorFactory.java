@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.greenstevester.heuvana.HueApiException;
 import io.github.greenstevester.heuvana.v2.domain.DeviceResource;
 import io.github.greenstevester.heuvana.v2.domain.Motion;
+import io.github.greenstevester.heuvana.v2.domain.MotionResource;
 import io.github.greenstevester.heuvana.v2.domain.MotionResourceRoot;
 import io.github.greenstevester.heuvana.v2.domain.ResourceIdentifier;
 import io.github.greenstevester.heuvana.v2.domain.ResourceType;
@@ -26,28 +27,28 @@ public class MotionSensorFactory {
 
   public MotionSensorImpl buildMotionSensor(final DeviceResource device, final URL bridgeUrl) {
     try {
-      final String motionSensorId = device.getServices().stream()
+      final UUID motionSensorId = device.getServices().stream()
           .filter(service -> service.getResourceType() == ResourceType.MOTION)
           .findFirst()
           .map(ResourceIdentifier::getResourceId)
-          .map(UUID::toString)
           .orElse(null);
       final URL url = new URL(bridgeUrl, "/clip/v2/resource/motion/" + motionSensorId);
-      final Supplier<Motion> stateProvider = createStateProvider(url);
+      final Supplier<Motion> stateProvider = createStateProvider(motionSensorId, url);
       return new MotionSensorImpl(device.getId(), device.getMetadata().getName(), stateProvider);
     } catch (final MalformedURLException e) {
       throw new HueApiException(e);
     }
   }
 
-  private Supplier<Motion> createStateProvider(final URL url) {
-    return () -> {
-      try (final InputStream inputStream = hue.getUrlConnection(url).getInputStream()) {
+  private Supplier<Motion> createStateProvider(final UUID id, final URL url) {
+    final Supplier<MotionResource> networkRead = () -> {
+      try (final InputStream inputStream = hue.openStream(url)) {
         final MotionResourceRoot motionResource = objectMapper.readValue(inputStream, MotionResourceRoot.class);
-        return motionResource.getData().get(0).getMotion();
+        return motionResource.getData().get(0);
       } catch (final IOException e) {
         throw new HueApiException(e);
       }
     };
+    return () -> hue.getStateMirror().get(id, MotionResource.class, networkRead).getMotion();
   }
 }
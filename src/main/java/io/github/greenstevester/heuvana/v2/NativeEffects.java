@@ -0,0 +1,149 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.update.AlertType;
+import io.github.greenstevester.heuvana.v2.domain.update.EffectType;
+import io.github.greenstevester.heuvana.v2.domain.update.TimedEffectType;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs effects on the lights themselves when their hardware supports it, so that an effect takes a single request
+ * instead of a stream of client-side steps. The effects of an {@link EffectEngine}, such as {@link SunriseEffect},
+ * ask the {@link EffectEngine#getNativeEffects() native effects of their engine} first, and only step the light
+ * themselves when it cannot run the effect on its own.
+ *
+ * <p>What a light supports is read once from {@link Light#getSupportedEffects()},
+ * {@link Light#getSupportedTimedEffects()} and {@link Light#getSupportedAlerts()}, and cached by the id of the
+ * light. Call {@link #forget(UUID)} if the hardware behind a light changes.</p>
+ *
+ * @since 5.3.0
+ */
+public final class NativeEffects {
+  private final ConcurrentMap<UUID, Capabilities> capabilities = new ConcurrentHashMap<>();
+
+  NativeEffects() {
+  }
+
+  /**
+   * @param light The light.
+   * @param effect The effect.
+   * @return Whether the light can run the effect on its own.
+   */
+  public boolean supports(final Light light, final EffectType effect) {
+    return capabilitiesOf(light).effects.contains(effect);
+  }
+
+  /**
+   * @param light The light.
+   * @return Whether the light can run {@link TimedEffectType#SUNRISE} on its own.
+   */
+  public boolean supportsSunrise(final Light light) {
+    return capabilitiesOf(light).timedEffects.contains(TimedEffectType.SUNRISE);
+  }
+
+  /**
+   * @param light The light.
+   * @return Whether the light can run {@link AlertType#BREATHE} on its own.
+   */
+  public boolean supportsBreathe(final Light light) {
+    return capabilitiesOf(light).alerts.contains(AlertType.BREATHE);
+  }
+
+  /**
+   * Starts an effect on the light, if it supports the effect.
+   *
+   * @param light The light.
+   * @param effect The effect to start, or {@link EffectType#NO_EFFECT} to stop the current one.
+   * @return Whether the effect was started. If not, nothing was sent to the light.
+   */
+  public boolean startEffect(final Light light, final EffectType effect) {
+    if (effect != EffectType.NO_EFFECT && !supports(light, effect)) {
+      return false;
+    }
+    light.setState(new UpdateState().effect(effect).on());
+    return true;
+  }
+
+  /**
+   * Starts the sunrise of the Bridge on the light, if it supports it.
+   *
+   * @param light The light.
+   * @param duration The duration of the sunrise, at most six hours.
+   * @return Whether the sunrise was started. If not, nothing was sent to the light.
+   */
+  boolean sunrise(final Light light, final Duration duration) {
+    if (!supportsSunrise(light)) {
+      return false;
+    }
+    light.setState(new UpdateState().sunrise(duration).on());
+    return true;
+  }
+
+  /**
+   * Breathes the light, if it supports it.
+   *
+   * @param light The light.
+   * @param state The state to set along with the alert.
+   * @return Whether the alert was sent. If not, nothing was sent to the light.
+   */
+  boolean breathe(final Light light, final UpdateState state) {
+    if (!supportsBreathe(light)) {
+      return false;
+    }
+    light.setState(state.alert());
+    return true;
+  }
+
+  /**
+   * Forgets what a light supports, to read it again from the light the next time.
+   *
+   * @param lightId The id of the light.
+   */
+  public void forget(final UUID lightId) {
+    capabilities.remove(lightId);
+  }
+
+  /**
+   * @return The number of lights whose capabilities are cached.
+   */
+  int size() {
+    return capabilities.size();
+  }
+
+  private Capabilities capabilitiesOf(final Light light) {
+    return capabilities.computeIfAbsent(light.getId(), id -> new Capabilities(light));
+  }
+
+  /**
+   * The effects that one light supports.
+   */
+  private static final class Capabilities {
+    private final Set<EffectType> effects;
+    private final Set<TimedEffectType> timedEffects;
+    private final Set<AlertType> alerts;
+
+    private Capabilities(final Light light) {
+      this.effects = copy(light.getSupportedEffects(), EffectType.class);
+      this.timedEffects = copy(light.getSupportedTimedEffects(), TimedEffectType.class);
+      this.alerts = copy(light.getSupportedAlerts(), AlertType.class);
+    }
+
+    private static <E extends Enum<E>> Set<E> copy(final Collection<E> values, final Class<E> type) {
+      final Set<E> result = EnumSet.noneOf(type);
+      if (values != null) {
+        for (final E value : values) {
+          if (value != null) {
+            result.add(value);
+          }
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.HueApiException;
+import io.github.greenstevester.heuvana.SecureJsonFactory;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.github.greenstevester.heuvana.v2.Hue.HUE_APPLICATION_KEY_HEADER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The default {@link HttpTransport}, backed by an {@link OkHttpClient} with a bounded keep-alive connection pool.
+ * The TLS settings are taken from the {@link SecureJsonFactory} of the {@link Hue} instance, so the Bridge
+ * certificate is validated exactly as before.
+ *
+ * <p>No more than {@link HttpTransportConfig#getMaxConnectionsPerBridge()} requests use a connection to the
+ * Bridge at the same time, whether they are made synchronously or asynchronously; further synchronous calls
+ * wait for a connection to be released. A request holds its connection until its response body has been
+ * closed. The asynchronous methods are served by the OkHttp dispatcher, which keeps up to
+ * {@link HttpTransportConfig#getMaxConcurrentRequests()} requests in flight per Bridge and queues the rest
+ * without blocking the caller.</p>
+ *
+ * @since 5.3.0
+ */
+public class OkHttpTransport implements HttpTransport {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+  private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+  private static final byte[] EMPTY_BODY = new byte[0];
+
+  private final OkHttpClient baseClient;
+  private final OkHttpClient client;
+  private final Semaphore connections;
+  private final String apiKey;
+
+  /**
+   * Creates a new transport.
+   *
+   * @param factory The factory holding the TLS settings for the Bridge.
+   * @param apiKey  The API key sent with every request, or {@code null} for anonymous requests.
+   * @param config  Connection pool and timeout settings.
+   */
+  public OkHttpTransport(final SecureJsonFactory factory, final String apiKey, final HttpTransportConfig config) {
+    this.apiKey = apiKey;
+    this.connections = new Semaphore(config.getMaxConnectionsPerBridge(), true);
+    final Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(config.getMaxConcurrentRequests());
+    dispatcher.setMaxRequestsPerHost(config.getMaxConcurrentRequests());
+    this.baseClient = new OkHttpClient.Builder()
+        .connectionPool(new ConnectionPool(config.getMaxConnectionsPerBridge(),
+            config.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS))
+        .dispatcher(dispatcher)
+        .sslSocketFactory(factory.getSocketFactory(), factory.getTrustManager())
+        .hostnameVerifier(factory.getHostnameVerifier())
+        .connectTimeout(config.getConnectTimeout())
+        .readTimeout(config.getReadTimeout())
+        .build();
+    this.client = baseClient.newBuilder()
+        .addInterceptor(this::limitConnections)
+        .build();
+    logger.debug("Created HTTP transport with {}", config);
+  }
+
+  /**
+   * Returns the underlying client. Clients derived from it with {@link OkHttpClient#newBuilder()}
+   * share its connection pool and dispatcher, but not the limit on connections in use, so that a long-lived
+   * call such as the event stream does not hold one of the connections meant for the REST calls.
+   *
+   * @return The pooled OkHttp client.
+   */
+  public OkHttpClient getClient() {
+    return baseClient;
+  }
+
+  /**
+   * @return The number of further requests that can use a connection to the Bridge right now.
+   */
+  public int getAvailableConnections() {
+    return connections.availablePermits();
+  }
+
+  /**
+   * Holds one of the connections to the Bridge from sending the request until the response body is closed.
+   */
+  private Response limitConnections(final Interceptor.Chain chain) throws IOException {
+    try {
+      connections.acquire();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a connection to the Bridge");
+    }
+    final Response response;
+    try {
+      response = chain.proceed(chain.request());
+    } catch (final IOException | RuntimeException e) {
+      connections.release();
+      throw e;
+    }
+    final ResponseBody body = response.body();
+    if (body == null) {
+      connections.release();
+      return response;
+    }
+    final AtomicBoolean released = new AtomicBoolean();
+    final ForwardingSource source = new ForwardingSource(body.source()) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          if (released.compareAndSet(false, true)) {
+            connections.release();
+          }
+        }
+      }
+    };
+    return response.newBuilder()
+        .body(ResponseBody.create(Okio.buffer(source), body.contentType(), body.contentLength()))
+        .build();
+  }
+
+  @Override
+  public InputStream get(final URL url) throws IOException {
+    final Response response = client.newCall(newRequest(url).get().build()).execute();
+    final ResponseBody body = checkSuccessful(response);
+    return body.byteStream();
+  }
+
+  @Override
+  public String send(final String method, final URL url, final String body) throws IOException {
+    logger.trace("Request body: " + body);
+    try (final Response response = client.newCall(newRequest(url).method(method, requestBody(body)).build()).execute()) {
+      return checkSuccessful(response).string();
+    }
+  }
+
+  @Override
+  public CompletableFuture<String> getAsync(final URL url) {
+    return enqueue(newRequest(url).get().build());
+  }
+
+  @Override
+  public CompletableFuture<String> sendAsync(final String method, final URL url, final String body) {
+    logger.trace("Request body: " + body);
+    return enqueue(newRequest(url).method(method, requestBody(body)).build());
+  }
+
+  private CompletableFuture<String> enqueue(final Request request) {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final Call call = client.newCall(request);
+    call.enqueue(new Callback() {
+      @Override
+      public void onFailure(final Call call, final IOException e) {
+        future.completeExceptionally(new HueApiException(e));
+      }
+
+      @Override
+      public void onResponse(final Call call, final Response response) {
+        try (response) {
+          future.complete(checkSuccessful(response).string());
+        } catch (final IOException e) {
+          future.completeExceptionally(new HueApiException(e));
+        }
+      }
+    });
+    future.whenComplete((result, throwable) -> {
+      if (future.isCancelled()) {
+        call.cancel();
+      }
+    });
+    return future;
+  }
+
+  private static RequestBody requestBody(final String body) {
+    return RequestBody.create(body == null ? EMPTY_BODY : body.getBytes(UTF_8), JSON);
+  }
+
+  Request.Builder newRequest(final URL url) {
+    final Request.Builder builder = new Request.Builder().url(url);
+    if (apiKey != null) {
+      builder.header(HUE_APPLICATION_KEY_HEADER, apiKey);
+    }
+    return builder;
+  }
+
+  static ResponseBody checkSuccessful(final Response response) throws IOException {
+    final ResponseBody body = response.body();
+    if (!response.isSuccessful() || body == null) {
+      final String message = body == null ? response.message() : body.string();
+      response.close();
+      throw new HttpStatusException(response.code(), message);
+    }
+    return body;
+  }
+
+  @Override
+  public void close() {
+    client.dispatcher().executorService().shutdown();
+    client.connectionPool().evictAll();
+  }
+}
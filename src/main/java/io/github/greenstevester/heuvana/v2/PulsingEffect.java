@@ -1,13 +1,10 @@
 package io.github.greenstevester.heuvana.v2;
 
 import io.github.greenstevester.heuvana.v2.domain.update.Dimming;
-import io.github.greenstevester.heuvana.v2.domain.update.Dynamics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for creating smooth brightness-based pulsing light effects.
@@ -16,7 +13,8 @@ import java.util.concurrent.TimeUnit;
  *
  * <p>Each pulse cycle is divided into 10 steps: 5 steps fading up from min to max brightness,
  * followed by 5 steps fading down from max to min brightness. This creates a smooth
- * breathing effect.</p>
+ * breathing effect. The steps are planned by a {@link TransitionPlanner}, so the Bridge fades between
+ * them on its own and a pulse usually takes two requests: one up to the peak and one back down.</p>
  *
  * <p>Example usage:</p>
  * <pre>{@code
@@ -42,8 +40,14 @@ import java.util.concurrent.TimeUnit;
  * // ... later ...
  * effect.stop();
  * }</pre>
+ *
+ * <p>The steps are timed by the {@link EffectEngine} of the light, shared with all the other running effects.
+ * With {@link Builder#preferNative(boolean)}, lights that support
+ * {@link io.github.greenstevester.heuvana.v2.domain.update.AlertType#BREATHE} breathe on their own instead,
+ * in a single request.</p>
  */
 public class PulsingEffect {
+    private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
 
     private static final int STEPS_PER_PULSE = 10; // 5 steps up, 5 steps down
 
@@ -55,11 +59,15 @@ public class PulsingEffect {
     private final boolean continuous;
     private final boolean preserveState;
     private final Runnable onComplete;
-
-    private ScheduledExecutorService executor;
-    private ScheduledFuture<?> scheduledFuture;
-    private int currentStep = 0;
-    private int completedPulses = 0;
+    private final boolean preferNative;
+    private final TransitionPlanner planner;
+    private final EffectEngine engine;
+
+    private volatile EffectEngine.Handle handle;
+    private int[] keyframes;
+    private boolean started;
+    // Written on the timing thread of the engine, read on any thread
+    private volatile int completedPulses = 0;
     private Boolean originalOnState;
 
     private PulsingEffect(Builder builder) {
@@ -71,13 +79,16 @@ public class PulsingEffect {
         this.continuous = builder.continuous;
         this.preserveState = builder.preserveState;
         this.onComplete = builder.onComplete;
+        this.preferNative = builder.preferNative;
+        this.planner = builder.planner;
+        this.engine = builder.engine != null ? builder.engine : builder.light.getEffectEngine();
     }
 
     /**
      * Start the pulsing effect.
      */
     public void start() {
-        if (executor != null && !executor.isShutdown()) {
+        if (isRunning()) {
             stop(); // Stop any existing effect
         }
 
@@ -91,38 +102,36 @@ public class PulsingEffect {
             light.setState(new UpdateState().on());
         }
 
-        executor = Executors.newSingleThreadScheduledExecutor();
-        currentStep = 0;
         completedPulses = 0;
 
-        // Calculate step duration (each pulse has 10 steps)
-        long stepDurationMs = pulseDuration.toMillis() / STEPS_PER_PULSE;
-
-        scheduledFuture = executor.scheduleAtFixedRate(
-            this::executePulseStep,
-            0,
-            stepDurationMs,
-            TimeUnit.MILLISECONDS
-        );
+        // Let the light breathe on its own if it can, and only keep time until the pulses are over
+        if (preferNative && !continuous && engine.getNativeEffects().breathe(light, new UpdateState())) {
+            handle = engine.start(elapsed -> {
+                completedPulses = pulseCount;
+                stop();
+                return EffectEngine.DONE;
+            }, pulseDuration.toNanos() * pulseCount);
+            return;
+        }
+
+        // Only send the steps of a pulse that the Bridge cannot reach by fading linearly from the previous one
+        final double[] samples = new double[STEPS_PER_PULSE + 1];
+        for (int step = 0; step <= STEPS_PER_PULSE; step++) {
+            samples[step] = calculateBrightnessForStep(step % STEPS_PER_PULSE);
+        }
+        keyframes = planner.planBrightness(samples);
+        started = false;
+
+        handle = engine.start(this::executePulseStep, 0);
     }
 
     /**
      * Stop the pulsing effect and optionally restore the original light on/off state.
      */
     public void stop() {
-        if (scheduledFuture != null) {
-            scheduledFuture.cancel(false);
-        }
-        if (executor != null) {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+        final EffectEngine.Handle running = handle;
+        if (running != null) {
+            running.stop();
         }
 
         // Restore original on/off state if preservation was enabled
@@ -133,45 +142,64 @@ public class PulsingEffect {
             } else {
                 restoreState.off();
             }
-            light.setState(restoreState);
+            engine.send(light, restoreState);
         }
 
-        if (onComplete != null) {
-            onComplete.run();
-        }
+        engine.complete(onComplete);
     }
 
-    private void executePulseStep() {
+    /**
+     * Fades to the keyframe that follows the current point of the pulse, so that a late frame picks up where the
+     * pulse should be by now instead of where the previous frame left off.
+     *
+     * @param elapsed The nanoseconds since the start of the effect
+     * @return The nanoseconds until the keyframe is reached
+     */
+    private long executePulseStep(final long elapsed) {
+        // Calculate step duration (each pulse has 10 steps)
+        final long stepDurationNanos = pulseDuration.toNanos() / STEPS_PER_PULSE;
         try {
-            // Calculate brightness for current step
-            int brightness = calculateBrightnessForStep(currentStep);
-
-            // Apply brightness with smooth transition
-            UpdateState state = new UpdateState()
-                .brightness(brightness)
-                .on();
-
-            // Add smooth transition dynamics (1/10th of pulse duration per step)
-            long transitionMs = pulseDuration.toMillis() / STEPS_PER_PULSE;
-            state.getUpdateLight().setDynamics(new Dynamics().setDuration((int) transitionMs));
+            // Start the first pulse from the minimum brightness
+            if (!started) {
+                engine.send(light, new UpdateState()
+                    .brightness(calculateBrightnessForStep(0))
+                    .on()
+                    .priority(CommandPriority.BACKGROUND));
+                started = true;
+                return 0;
+            }
 
-            light.setState(state);
+            // Check if we completed the pulses
+            final long pulseNanos = stepDurationNanos * STEPS_PER_PULSE;
+            final int pulses = (int) Math.min(elapsed / pulseNanos, Integer.MAX_VALUE);
+            completedPulses = continuous ? pulses : Math.min(pulses, pulseCount);
+            if (!continuous && pulses >= pulseCount) {
+                stop();
+                return EffectEngine.DONE;
+            }
 
-            currentStep++;
+            // Fade to the next keyframe of the current pulse, reaching it when it is due
+            final long phase = elapsed % pulseNanos;
+            int keyframe = 1;
+            while ((long) keyframes[keyframe] * stepDurationNanos <= phase) {
+                keyframe++;
+            }
+            final int step = keyframes[keyframe];
+            final Duration transition = Duration.ofNanos(step * stepDurationNanos - phase);
+            UpdateState state = new UpdateState()
+                .brightness(calculateBrightnessForStep(step % STEPS_PER_PULSE))
+                .on()
+                .transitionTime(transition)
+                .priority(CommandPriority.BACKGROUND)
+                .deadline(transition);
 
-            // Check if we completed a full pulse cycle (10 steps)
-            if (currentStep >= STEPS_PER_PULSE) {
-                currentStep = 0;
-                completedPulses++;
+            engine.send(light, state);
 
-                // Check if we should stop
-                if (!continuous && completedPulses >= pulseCount) {
-                    stop();
-                }
-            }
+            return transition.toNanos();
         } catch (Exception e) {
             // Log error but don't stop the effect
-            System.err.println("Error executing pulse step: " + e.getMessage());
+            logger.warn("Pulse step failed", e);
+            return stepDurationNanos;
         }
     }
 
@@ -196,10 +224,55 @@ public class PulsingEffect {
     }
 
     /**
-     * Check if the effect is currently running.
+     * Pause the effect, keeping the light as it is until {@link #resume()}.
+     *
+     * @since 5.3.0
+     */
+    public void pause() {
+        final EffectEngine.Handle running = handle;
+        if (running != null) {
+            running.pause();
+        }
+    }
+
+    /**
+     * Resume a paused effect from the step it was paused at.
+     *
+     * @since 5.3.0
+     */
+    public void resume() {
+        final EffectEngine.Handle running = handle;
+        if (running != null) {
+            running.resume();
+        }
+    }
+
+    /**
+     * Check if the effect is currently running, including while paused.
      */
     public boolean isRunning() {
-        return scheduledFuture != null && !scheduledFuture.isDone();
+        final EffectEngine.Handle running = handle;
+        return running != null && running.isRunning();
+    }
+
+    /**
+     * Check if the effect is paused.
+     *
+     * @since 5.3.0
+     */
+    public boolean isPaused() {
+        final EffectEngine.Handle running = handle;
+        return running != null && running.isRunning() && running.isPaused();
+    }
+
+    /**
+     * Get how well the engine kept to the timing of the steps.
+     *
+     * @since 5.3.0
+     */
+    public FrameStats getFrameStats() {
+        final EffectEngine.Handle running = handle;
+        return running != null ? running.getStats() : new FrameStats();
     }
 
     /**
@@ -225,6 +298,9 @@ public class PulsingEffect {
         private boolean continuous = false;
         private boolean preserveState = true; // Default to preserving original state
         private Runnable onComplete;
+        private boolean preferNative = false;
+        private TransitionPlanner planner = TransitionPlanner.defaults();
+        private EffectEngine engine;
 
         /**
          * Set the light to apply the effect to.
@@ -303,6 +379,42 @@ public class PulsingEffect {
             return this;
         }
 
+        /**
+         * Set whether lights that support the breathe alert of the Bridge breathe on their own instead of being
+         * stepped (default: false). The Bridge breathes the light in its own way, regardless of the brightness range
+         * and pulse duration, so this is off by default. Continuous pulsing is always stepped.
+         *
+         * @since 5.3.0
+         */
+        public Builder preferNative(boolean preferNative) {
+            this.preferNative = preferNative;
+            return this;
+        }
+
+        /**
+         * Set how closely the fades of the Bridge must follow the steps of a pulse
+         * (default: {@link TransitionPlanner#defaults()}).
+         *
+         * @since 5.3.0
+         */
+        public Builder planner(TransitionPlanner planner) {
+            if (planner == null) {
+                throw new IllegalArgumentException("planner must not be null");
+            }
+            this.planner = planner;
+            return this;
+        }
+
+        /**
+         * Set the engine to run the effect on (default: the {@link Light#getEffectEngine() engine of the light}).
+         *
+         * @since 5.3.0
+         */
+        public Builder engine(EffectEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
         /**
          * Build the PulsingEffect instance.
          */
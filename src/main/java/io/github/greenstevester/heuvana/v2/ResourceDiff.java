@@ -0,0 +1,152 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The differences between the raw resources known from a previous refresh and a freshly fetched set of resources.
+ *
+ * <p>Only the parts of a resource that the lights, groups and sensors are built from count as a change: its name
+ * and other metadata, owner, children, services and capabilities. A light that was only switched on or dimmed
+ * between two refreshes is not rebuilt, since its state is always read from the Bridge or the state mirror.</p>
+ */
+final class ResourceDiff {
+  /**
+   * The members that only hold the runtime state of a resource, by the name of the object they are in, or by the
+   * empty string for the members of the resource itself. Capabilities next to them, such as {@code color.gamut}
+   * or {@code effects.effect_values}, are compared.
+   */
+  private static final Map<String, Set<String>> RUNTIME_STATE = Map.ofEntries(
+      Map.entry("", Set.of("mode", "status")),
+      Map.entry("on", Set.of("on")),
+      Map.entry("dimming", Set.of("brightness")),
+      Map.entry("color", Set.of("xy")),
+      Map.entry("color_temperature", Set.of("mirek", "mirek_valid")),
+      Map.entry("dynamics", Set.of("status", "speed", "speed_valid")),
+      Map.entry("effects", Set.of("effect", "status")),
+      Map.entry("timed_effects", Set.of("effect", "status", "duration")),
+      Map.entry("gradient", Set.of("points", "mode")),
+      Map.entry("signaling", Set.of("status")),
+      Map.entry("motion", Set.of("motion", "motion_valid", "motion_report")),
+      Map.entry("temperature", Set.of("temperature", "temperature_valid", "temperature_report")),
+      Map.entry("light", Set.of("light_level", "light_level_valid", "light_level_report")),
+      Map.entry("button", Set.of("last_event", "button_report")),
+      Map.entry("relative_rotary", Set.of("last_event", "rotary_report")),
+      Map.entry("power_state", Set.of("battery_state", "battery_level")));
+
+  private final Map<UUID, JsonNode> resources;
+  private final List<JsonNode> changed;
+  private final Set<UUID> removed;
+
+  private ResourceDiff(final Map<UUID, JsonNode> resources, final List<JsonNode> changed, final Set<UUID> removed) {
+    this.resources = resources;
+    this.changed = changed;
+    this.removed = removed;
+  }
+
+  /**
+   * @param previous The raw resources known from the previous refresh, by id.
+   * @param fetched  The {@code data} array of the freshly fetched resources.
+   * @param scope    The resource types that were fetched, or {@code null} if all of them were.
+   *                 Previous resources of other types are kept as they are.
+   */
+  static ResourceDiff compute(final Map<UUID, JsonNode> previous,
+                              final JsonNode fetched,
+                              final Collection<ResourceType> scope) {
+    final Map<UUID, JsonNode> resources = new HashMap<>(previous);
+    final List<JsonNode> changed = new ArrayList<>();
+    final Set<UUID> seen = new HashSet<>();
+    for (final JsonNode node : fetched) {
+      final UUID id = idOf(node);
+      if (id == null) {
+        continue;
+      }
+      seen.add(id);
+      final JsonNode before = resources.put(id, node);
+      if (before == null || !topologyOf(node).equals(topologyOf(before))) {
+        changed.add(node);
+      }
+    }
+    final Set<UUID> removed = new HashSet<>();
+    for (final Map.Entry<UUID, JsonNode> entry : previous.entrySet()) {
+      if (!seen.contains(entry.getKey()) && isInScope(entry.getValue(), scope)) {
+        resources.remove(entry.getKey());
+        removed.add(entry.getKey());
+      }
+    }
+    return new ResourceDiff(resources, changed, removed);
+  }
+
+  /**
+   * @return A copy of the resource without its {@link #RUNTIME_STATE runtime state}.
+   */
+  static JsonNode topologyOf(final JsonNode node) {
+    if (!node.isObject()) {
+      return node;
+    }
+    final ObjectNode topology = ((ObjectNode) node).deepCopy();
+    for (final Map.Entry<String, Set<String>> entry : RUNTIME_STATE.entrySet()) {
+      final JsonNode container = entry.getKey().isEmpty() ? topology : topology.get(entry.getKey());
+      if (container instanceof ObjectNode) {
+        ((ObjectNode) container).remove(entry.getValue());
+      }
+    }
+    return topology;
+  }
+
+  private static boolean isInScope(final JsonNode node, final Collection<ResourceType> scope) {
+    if (scope == null) {
+      return true;
+    }
+    final String type = node.path("type").asText();
+    return scope.stream().anyMatch(resourceType -> resourceType.name().toLowerCase().equals(type));
+  }
+
+  static UUID idOf(final JsonNode node) {
+    final String id = node.path("id").asText(null);
+    if (id == null) {
+      return null;
+    }
+    try {
+      return UUID.fromString(id);
+    } catch (final IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return All the raw resources after applying the differences, by id, with the latest runtime state of all
+   *     the fetched resources, whether they changed or not.
+   */
+  Map<UUID, JsonNode> getResources() {
+    return resources;
+  }
+
+  /**
+   * @return The raw resources that were added, or whose parts other than their runtime state changed.
+   */
+  List<JsonNode> getChanged() {
+    return changed;
+  }
+
+  /**
+   * @return The ids of the resources that were removed.
+   */
+  Set<UUID> getRemoved() {
+    return removed;
+  }
+
+  boolean isEmpty() {
+    return changed.isEmpty() && removed.isEmpty();
+  }
+}
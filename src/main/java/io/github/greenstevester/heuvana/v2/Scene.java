@@ -28,4 +28,18 @@ public interface Scene {
    * Activates this scene.
    */
   void activate();
+
+  /**
+   * Returns the non-blocking view of this scene.
+   *
+   * @return This scene as an {@link AsyncScene}.
+   * @throws UnsupportedOperationException If this implementation has no non-blocking counterpart.
+   * @since 5.3.0
+   */
+  default AsyncScene async() {
+    if (this instanceof AsyncScene) {
+      return (AsyncScene) this;
+    }
+    throw new UnsupportedOperationException(getClass().getName() + " does not support asynchronous calls");
+  }
 }
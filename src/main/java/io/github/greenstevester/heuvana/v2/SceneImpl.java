@@ -1,19 +1,21 @@
 package io.github.greenstevester.heuvana.v2;
 
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
-public class SceneImpl implements Scene {
+public class SceneImpl implements Scene, AsyncScene {
   private static final Logger logger = LoggerFactory.getLogger(SceneImpl.class);
 
   private UUID id;
   private String name;
-  private Supplier<String> stateSetter;
+  private Supplier<CompletableFuture<UpdateResult>> stateSetter;
 
-  public SceneImpl(final UUID id, final String name, final Supplier<String> stateSetter) {
+  public SceneImpl(final UUID id, final String name, final Supplier<CompletableFuture<UpdateResult>> stateSetter) {
 
     this.id = id;
     this.name = name;
@@ -32,8 +34,13 @@ public class SceneImpl implements Scene {
 
   @Override
   public void activate() {
-    final String result = stateSetter.get();
-    logger.info(result);
+    final UpdateResult result = HttpUtil.await(stateSetter.get());
+    logger.info("Scene activation result: {}", result);
+  }
+
+  @Override
+  public CompletableFuture<UpdateResult> activateAsync() {
+    return stateSetter.get();
   }
 
   @Override
@@ -0,0 +1,264 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.launchdarkly.eventsource.MessageEvent;
+import com.launchdarkly.eventsource.background.BackgroundEventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The single connection to the event stream of a Bridge, shared by all the subscribers of a {@link Hue} instance.
+ *
+ * <p>The Bridge only accepts a few event stream connections at a time, so instead of opening a connection per
+ * subscriber, the connection is opened with the first subscriber and closed when the last one has closed its
+ * {@link HueEventSource}. Every message is handed to all the subscribers as
+ * one {@link EventMessage}, which parses it into a tree at most once, and reads it with the streaming
+ * {@link EventDecoder} at most once per set of resource types.</p>
+ *
+ * <p>When the connection is dropped, it reconnects on its own, and the changes missed in the meantime are
+ * announced as synthetic events right after the subscribers have been told of the reconnection, see
+ * {@link EventResync}.</p>
+ */
+class SharedEventStream {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  private final ObjectMapper objectMapper;
+  private final Function<BackgroundEventHandler, HueEventSource> connector;
+  private final List<EventStreamListener> listeners = new CopyOnWriteArrayList<>();
+  private final Map<EventStreamListener, EventDispatcher> dispatchers = new ConcurrentHashMap<>();
+  private final EventResync resync;
+  private final EventMetrics metrics;
+  private HueEventSource connection;
+  private volatile boolean open;
+  private volatile String lastEventId;
+  private volatile Instant disconnectedAt;
+
+  /**
+   * @param objectMapper For parsing the messages.
+   * @param connector    Opens a connection to the event stream, delivering to the given handler.
+   * @param resync       Catches up on the changes missed while disconnected, or {@code null} to not catch up.
+   */
+  SharedEventStream(final ObjectMapper objectMapper,
+                    final Function<BackgroundEventHandler, HueEventSource> connector,
+                    final EventResync resync) {
+    this(objectMapper, connector, resync, EventLatencies.NONE);
+  }
+
+  /**
+   * @param objectMapper For parsing the messages.
+   * @param connector    Opens a connection to the event stream, delivering to the given handler.
+   * @param resync       Catches up on the changes missed while disconnected, or {@code null} to not catch up.
+   * @param metrics      Receives the latency from the Bridge to this stream and the parse times.
+   */
+  SharedEventStream(final ObjectMapper objectMapper,
+                    final Function<BackgroundEventHandler, HueEventSource> connector,
+                    final EventResync resync,
+                    final EventMetrics metrics) {
+    this.objectMapper = objectMapper;
+    this.connector = connector;
+    this.resync = resync;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Adds a subscriber, opening the connection if it is the first one.
+   *
+   * @param listener   The subscriber.
+   * @param dispatcher The dispatcher of the subscriber, closed together with the returned view, or {@code null}.
+   * @return A view of the stream for the subscriber. Closing it removes the subscriber.
+   */
+  synchronized HueEventSource subscribe(final EventStreamListener listener, final EventDispatcher dispatcher) {
+    listeners.add(listener);
+    if (connection == null) {
+      try {
+        connection = connector.apply(new Handler());
+      } catch (final RuntimeException e) {
+        listeners.remove(listener);
+        if (dispatcher != null) {
+          dispatcher.close();
+        }
+        throw e;
+      }
+      logger.debug("Opened the shared event stream");
+    } else if (open) {
+      listener.onOpen();
+    }
+    if (dispatcher != null) {
+      dispatchers.put(listener, dispatcher);
+    }
+    return new View(listener, dispatcher);
+  }
+
+  private synchronized void unsubscribe(final EventStreamListener listener) {
+    dispatchers.remove(listener);
+    if (listeners.remove(listener) && listeners.isEmpty() && connection != null) {
+      connection.close();
+      connection = null;
+      open = false;
+      if (resync != null) {
+        resync.reset();
+      }
+      logger.debug("Closed the shared event stream after its last subscriber");
+    }
+  }
+
+  /**
+   * @return The number of subscribers currently sharing the connection.
+   */
+  int getSubscriberCount() {
+    return listeners.size();
+  }
+
+  /**
+   * @return The dispatchers of the current subscribers that have one, by the description of the subscriber.
+   */
+  Map<String, EventDispatcher> getDispatchers() {
+    final Map<String, EventDispatcher> result = new LinkedHashMap<>();
+    for (final EventStreamListener listener : listeners) {
+      final EventDispatcher dispatcher = dispatchers.get(listener);
+      if (dispatcher != null) {
+        result.put(String.valueOf(listener), dispatcher);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return The id of the last message received, or {@code null} if none has been.
+   */
+  String getLastEventId() {
+    return lastEventId;
+  }
+
+  /**
+   * @return The time the stream was last disconnected, or {@code null} if it has not been.
+   */
+  Instant getDisconnectedAt() {
+    return disconnectedAt;
+  }
+
+  private synchronized HueEventStreamState getState() {
+    return connection == null ? HueEventStreamState.CLOSED : connection.getState();
+  }
+
+  /**
+   * Receives the messages of a single connection, which reconnects on its own after it is dropped.
+   */
+  private final class Handler implements BackgroundEventHandler {
+    private boolean connectedBefore;
+
+    @Override
+    public void onOpen() {
+      final String missed = catchUp();
+      connectedBefore = true;
+      open = true;
+      listeners.forEach(listener -> notify(listener, EventStreamListener::onOpen));
+      if (missed != null) {
+        publish(new EventMessage(objectMapper, missed, metrics));
+      }
+    }
+
+    private String catchUp() {
+      if (resync == null) {
+        return null;
+      }
+      try {
+        if (!connectedBefore) {
+          resync.load();
+          return null;
+        }
+        logger.info("Event stream reconnected after {}, last event id {}, resyncing",
+            disconnectedAt == null ? Duration.ZERO : Duration.between(disconnectedAt, Instant.now()), lastEventId);
+        return resync.resync();
+      } catch (final RuntimeException e) {
+        logger.warn("Could not resync the resources after connecting to the event stream", e);
+        return null;
+      }
+    }
+
+    @Override
+    public void onClosed() {
+      open = false;
+      disconnectedAt = Instant.now();
+      listeners.forEach(listener -> notify(listener, EventStreamListener::onClosed));
+    }
+
+    @Override
+    public void onMessage(final String event, final MessageEvent messageEvent) {
+      logger.debug("Message: " + messageEvent.getData());
+      final long receivedAt = System.currentTimeMillis();
+      lastEventId = messageEvent.getLastEventId();
+      final EventMessage message = new EventMessage(objectMapper, messageEvent.getData(), metrics);
+      message.recordReceived(receivedAt);
+      if (resync != null) {
+        resync.track(message.getData());
+      }
+      publish(message);
+    }
+
+    private void publish(final EventMessage message) {
+      listeners.forEach(listener -> notify(listener, l -> l.onEvents(message)));
+    }
+
+    @Override
+    public void onComment(final String comment) {
+      logger.trace("Comment received: " + comment);
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+      logger.info("onError: " + t);
+    }
+
+    private void notify(final EventStreamListener listener,
+                        final Consumer<EventStreamListener> notification) {
+      try {
+        notification.accept(listener);
+      } catch (final RuntimeException e) {
+        logger.warn("Event stream subscriber failed", e);
+      }
+    }
+  }
+
+  /**
+   * The {@link HueEventSource} of a single subscriber.
+   */
+  private final class View implements HueEventSource {
+    private final EventStreamListener listener;
+    private final EventDispatcher dispatcher;
+
+    private View(final EventStreamListener listener, final EventDispatcher dispatcher) {
+      this.listener = listener;
+      this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void close() {
+      unsubscribe(listener);
+      if (dispatcher != null) {
+        dispatcher.close();
+      }
+    }
+
+    @Override
+    public HueEventStreamState getState() {
+      return SharedEventStream.this.getState();
+    }
+
+    @Override
+    public Optional<EventDispatcher> getDispatcher() {
+      return Optional.ofNullable(dispatcher);
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.greenstevester.heuvana.v2.domain.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory copy of the resources of the Bridge, kept up to date by the event stream of the Bridge.
+ * See {@link Hue#enableStateMirror(Duration)}.
+ *
+ * <p>Once enabled, the state getters of lights, groups and sensors, such as {@link Light#isOn()} and
+ * {@link MotionSensor#isMotion()}, are answered from memory instead of with a request to the Bridge.
+ * The mirror keeps the raw JSON of each resource and merges the changes announced by the event stream into it;
+ * the resources are only deserialized again when they are read after a change.</p>
+ *
+ * <p>While the event stream is disconnected, the mirror may miss changes. The getters therefore fall back to
+ * requests to the Bridge once the stream has been disconnected for longer than the configured staleness bound.
+ * When the stream reconnects, the changes of the lights and sensors missed in the meantime arrive as synthetic
+ * events (see {@link EventResync}) and are merged like any other, so the resources are not reloaded.</p>
+ *
+ * @since 5.3.0
+ */
+public class StateMirror {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  private final ObjectMapper objectMapper;
+  private final Map<UUID, ObjectNode> nodes = new HashMap<>();
+  private final Map<UUID, Resource> materialized = new ConcurrentHashMap<>();
+  private volatile Duration stalenessBound = Duration.ZERO;
+  private volatile boolean enabled;
+  private volatile boolean connected;
+  private volatile long disconnectedAtNanos = System.nanoTime();
+
+  StateMirror(final ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * @return {@code true} if the mirror has been enabled, see {@link Hue#enableStateMirror(Duration)}.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return {@code true} if the getters are currently answered from memory.
+   */
+  public boolean isFresh() {
+    return enabled && (connected || System.nanoTime() - disconnectedAtNanos <= stalenessBound.toNanos());
+  }
+
+  /**
+   * @return {@code true} if the event stream feeding the mirror is currently connected.
+   */
+  public boolean isConnected() {
+    return connected;
+  }
+
+  public Duration getStalenessBound() {
+    return stalenessBound;
+  }
+
+  void setStalenessBound(final Duration stalenessBound) {
+    if (stalenessBound == null || stalenessBound.isNegative()) {
+      throw new IllegalArgumentException("stalenessBound must not be null or negative");
+    }
+    this.stalenessBound = stalenessBound;
+  }
+
+  void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    if (!enabled) {
+      connected = false;
+      synchronized (this) {
+        nodes.clear();
+        materialized.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns a resource from memory if the mirror is fresh, or reads it from the Bridge otherwise.
+   *
+   * @param id          The id of the resource.
+   * @param type        The expected type of the resource.
+   * @param networkRead Reads the resource from the Bridge.
+   * @param <T>         The type of the resource.
+   * @return The resource.
+   */
+  <T extends Resource> T get(final UUID id, final Class<T> type, final Supplier<T> networkRead) {
+    final T resource = lookup(id, type);
+    return resource != null ? resource : networkRead.get();
+  }
+
+  /**
+   * Asynchronous variant of {@link #get(UUID, Class, Supplier)}.
+   */
+  <T extends Resource> CompletableFuture<T> getAsync(final UUID id,
+                                                     final Class<T> type,
+                                                     final Supplier<CompletableFuture<T>> networkRead) {
+    final T resource = lookup(id, type);
+    return resource != null ? CompletableFuture.completedFuture(resource) : networkRead.get();
+  }
+
+  private <T extends Resource> T lookup(final UUID id, final Class<T> type) {
+    if (!isFresh()) {
+      return null;
+    }
+    Resource resource = materialized.get(id);
+    if (resource == null) {
+      resource = materialize(id);
+    }
+    if (!type.isInstance(resource)) {
+      logger.debug("Resource {} not found in the state mirror", id);
+      return null;
+    }
+    return type.cast(resource);
+  }
+
+  private synchronized Resource materialize(final UUID id) {
+    final ObjectNode node = nodes.get(id);
+    if (node == null) {
+      return null;
+    }
+    try {
+      final Resource resource = objectMapper.treeToValue(node, Resource.class);
+      materialized.put(id, resource);
+      return resource;
+    } catch (final JsonProcessingException e) {
+      logger.warn("Could not read resource {} from the state mirror", id, e);
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the contents of the mirror. The resources are copied, since the document is also the source of the
+   * {@link HueTopology} snapshots, which must not change when events are applied to the mirror.
+   *
+   * @param data The {@code data} array of the resource document of the Bridge.
+   */
+  synchronized void load(final JsonNode data) {
+    nodes.clear();
+    materialized.clear();
+    for (final JsonNode resource : data) {
+      final UUID id = ResourceDiff.idOf(resource);
+      if (id != null && resource.isObject()) {
+        nodes.put(id, ((ObjectNode) resource).deepCopy());
+      }
+    }
+    if (!connected) {
+      // The staleness bound counts from the last time the contents were known to be current
+      disconnectedAtNanos = System.nanoTime();
+    }
+    logger.debug("State mirror loaded with {} resources", nodes.size());
+  }
+
+  /**
+   * Applies the changes announced by the event stream. The events are shared with the other subscribers of the
+   * stream, so they are copied, never kept or modified.
+   *
+   * @param events An array of events, as sent by the Bridge.
+   */
+  synchronized void apply(final JsonNode events) {
+    for (final JsonNode event : events) {
+      final String eventType = event.path("type").asText();
+      for (final JsonNode resource : event.path("data")) {
+        final UUID id = ResourceDiff.idOf(resource);
+        if (id == null || !resource.isObject()) {
+          continue;
+        }
+        switch (eventType) {
+          case "update":
+            final ObjectNode existing = nodes.get(id);
+            if (existing != null) {
+              deepMerge(existing, (ObjectNode) resource);
+            }
+            break;
+          case "add":
+            nodes.put(id, ((ObjectNode) resource).deepCopy());
+            break;
+          case "delete":
+            nodes.remove(id);
+            break;
+          default:
+            continue;
+        }
+        materialized.remove(id);
+      }
+    }
+  }
+
+  static void deepMerge(final ObjectNode target, final ObjectNode update) {
+    final Iterator<Map.Entry<String, JsonNode>> fields = update.fields();
+    while (fields.hasNext()) {
+      final Map.Entry<String, JsonNode> field = fields.next();
+      final JsonNode existing = target.get(field.getKey());
+      if (existing instanceof ObjectNode && field.getValue() instanceof ObjectNode) {
+        deepMerge((ObjectNode) existing, (ObjectNode) field.getValue());
+      } else {
+        target.set(field.getKey(), field.getValue().deepCopy());
+      }
+    }
+  }
+
+  /**
+   * Creates the handler for the event stream that feeds this mirror. The changes missed while the stream was
+   * disconnected are expected to be announced by the stream itself right after it reconnects.
+   */
+  EventStreamListener eventHandler() {
+    return new EventStreamListener() {
+      @Override
+      public void onOpen() {
+        connected = true;
+        logger.trace("State mirror connected.");
+      }
+
+      @Override
+      public void onClosed() {
+        connected = false;
+        disconnectedAtNanos = System.nanoTime();
+        logger.trace("State mirror disconnected.");
+      }
+
+      @Override
+      public void onEvents(final EventMessage message) {
+        apply(message.getTree());
+      }
+    };
+  }
+}
@@ -1,10 +1,9 @@
 package io.github.greenstevester.heuvana.v2;
 
 import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.XAndYAndBrightness;
 
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -30,10 +29,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *     .start();
  * }</pre>
  *
+ * <p>Lights that support {@link io.github.greenstevester.heuvana.v2.domain.update.TimedEffectType#SUNRISE} run the
+ * sunrise of the Bridge instead, in a single request, unless the brightness range is changed from the full one or
+ * {@link Builder#preferNative(boolean)} is turned off. See {@link NativeEffects}.</p>
+ *
  * @since 5.3.0
  */
 public class SunriseEffect {
 
+    // The longest timed effect the Bridge runs
+    private static final Duration MAX_NATIVE_DURATION = Duration.ofHours(6);
+
     // Sunrise color progression
     private static final Color DEEP_RED = Color.of(80, 20, 0);      // Pre-dawn
     private static final Color WARM_ORANGE = Color.of(200, 80, 0);  // Early sunrise
@@ -46,18 +52,30 @@ public class SunriseEffect {
     private final int endBrightness;
     private final int steps;
     private final Runnable onComplete;
-
-    private volatile ScheduledExecutorService executor;
+    private final boolean preferNative;
+
+    private final TransitionPlanner planner;
+    private final EffectEngine engine;
+    private volatile EffectEngine.Handle handle;
+    private Color[] curve;
+    private int[] brightnessCurve;
+    private int[] keyframes;
+    private int nextKeyframe;
+    private volatile boolean runningNatively;
     private final AtomicBoolean running = new AtomicBoolean(false);
 
     private SunriseEffect(final Light light, final Duration duration, final int startBrightness,
-                         final int endBrightness, final int steps, final Runnable onComplete) {
+                         final int endBrightness, final int steps, final Runnable onComplete,
+                         final boolean preferNative, final TransitionPlanner planner, final EffectEngine engine) {
         this.light = light;
         this.duration = duration;
         this.startBrightness = startBrightness;
         this.endBrightness = endBrightness;
         this.steps = steps;
         this.onComplete = onComplete;
+        this.preferNative = preferNative;
+        this.planner = planner;
+        this.engine = engine;
     }
 
     /**
@@ -68,79 +86,150 @@ public class SunriseEffect {
             throw new IllegalStateException("Effect is already running");
         }
 
-        // Create executor - done here to avoid resource leak if effect is never started
-        executor = Executors.newSingleThreadScheduledExecutor();
-
         final long delayMs = duration.toMillis() / steps;
 
         // Validate delay is reasonable
         if (delayMs < 10) {
             running.set(false);
-            executor.shutdown();
             throw new IllegalStateException(
                 "Duration too short for number of steps (minimum 10ms per step required)");
         }
 
+        // Let the light rise on its own if it can, and only keep time until the sunrise is over
+        runningNatively = preferNative && startBrightness == 1 && endBrightness == 100
+                && duration.compareTo(MAX_NATIVE_DURATION) <= 0
+                && engine.getNativeEffects().sunrise(light, duration);
+        if (runningNatively) {
+            handle = engine.start(elapsed -> {
+                handleCompletion();
+                return EffectEngine.DONE;
+            }, duration.toNanos());
+            return;
+        }
+
         // Set initial state - very dim deep red
         light.setState(new UpdateState()
                 .color(DEEP_RED)
                 .brightness(startBrightness)
                 .on());
 
-        // Schedule first step, which will schedule subsequent steps
-        scheduleStep(1, delayMs);
+        // Sample the sunrise at every step, and only send the steps that the Bridge cannot reach by fading linearly
+        curve = new Color[steps + 1];
+        brightnessCurve = new int[steps + 1];
+        final double[][] samples = new double[steps + 1][];
+        for (int step = 0; step <= steps; step++) {
+            final float progress = (float) step / steps;
+            curve[step] = getSunriseColor(progress);
+            brightnessCurve[step] = calculateBrightness(progress);
+            final XAndYAndBrightness xy = XAndYAndBrightness.rgbToXy(curve[step]);
+            samples[step] = new double[] {xy.getX(), xy.getY(), brightnessCurve[step]};
+        }
+        keyframes = planner.planColor(samples);
+
+        // Each keyframe is sent when the previous one is reached, to fade until it is due
+        nextKeyframe = 1;
+        handle = engine.start(elapsed -> renderKeyframe(elapsed, delayMs), 0);
     }
 
     /**
-     * Schedules a single step, which will recursively schedule the next step.
+     * Sends the next keyframe that is still due, with a transition that reaches it when it is due. Keyframes that
+     * a late frame has already passed are skipped.
      *
-     * @param step Current step number (1-based)
+     * @param elapsed The nanoseconds since the start of the effect
      * @param delayMs Delay between steps in milliseconds
+     * @return The nanoseconds until the keyframe is reached, or {@link EffectEngine#DONE} once the last one is
      */
-    private void scheduleStep(final int step, final long delayMs) {
-        if (!running.get() || step > steps) {
-            return;
+    private long renderKeyframe(final long elapsed, final long delayMs) {
+        if (!running.get()) {
+            return EffectEngine.DONE;
         }
 
-        executor.schedule(() -> {
-            // Double-check running flag at execution time
-            if (!running.get()) {
-                return;
-            }
-
-            final float progress = (float) step / steps;
-
-            // Determine color based on progress through sunrise
-            final Color color = getSunriseColor(progress);
-            final int brightness = calculateBrightness(progress);
-
-            light.setState(new UpdateState()
-                    .color(color)
-                    .brightness(brightness)
-                    .on());
+        // On final step
+        if (nextKeyframe >= keyframes.length) {
+            handleCompletion();
+            return EffectEngine.DONE;
+        }
 
-            // On final step
-            if (step == steps) {
-                handleCompletion();
-            } else {
-                // Check running flag again before scheduling next step to avoid race condition
-                if (running.get()) {
-                    scheduleStep(step + 1, delayMs);
-                }
-            }
-        }, delayMs, TimeUnit.MILLISECONDS);
+        final long stepNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+        int keyframe = nextKeyframe;
+        while (keyframe < keyframes.length - 1 && keyframes[keyframe] * stepNanos <= elapsed) {
+            keyframe++;
+        }
+        nextKeyframe = keyframe + 1;
+
+        final int step = keyframes[keyframe];
+        final Duration transition = Duration.ofNanos(Math.max(0, step * stepNanos - elapsed));
+        engine.send(light, new UpdateState()
+                .color(curve[step])
+                .brightness(brightnessCurve[step])
+                .on()
+                .transitionTime(transition)
+                .priority(CommandPriority.BACKGROUND)
+                .deadline(transition.isZero() ? Duration.ofMillis(delayMs) : transition));
+        return transition.toNanos();
     }
 
     /**
      * Stops the effect immediately.
      */
     public void stop() {
-        running.set(false);
-        if (executor != null) {
-            executor.shutdownNow();
+        final boolean wasRunning = running.getAndSet(false);
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.stop();
+        }
+        if (wasRunning && runningNatively) {
+            engine.send(light, new UpdateState().clearTimedEffect());
+        }
+    }
+
+    /**
+     * Pauses the effect, keeping the light as it is until {@link #resume()}.
+     * A sunrise that the light runs on its own keeps rising, and only its completion is held.
+     *
+     * @since 5.3.0
+     */
+    public void pause() {
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.pause();
         }
     }
 
+    /**
+     * Resumes a paused effect where it was paused.
+     *
+     * @since 5.3.0
+     */
+    public void resume() {
+        final EffectEngine.Handle current = handle;
+        if (current != null) {
+            current.resume();
+        }
+    }
+
+    /**
+     * Returns whether the effect is paused.
+     *
+     * @return true if paused, false otherwise
+     * @since 5.3.0
+     */
+    public boolean isPaused() {
+        final EffectEngine.Handle current = handle;
+        return running.get() && current != null && current.isPaused();
+    }
+
+    /**
+     * Returns how well the engine kept to the timing of the keyframes.
+     *
+     * @return The frame statistics of the effect
+     * @since 5.3.0
+     */
+    public FrameStats getFrameStats() {
+        final EffectEngine.Handle current = handle;
+        return current != null ? current.getStats() : new FrameStats();
+    }
+
     /**
      * Returns whether the effect is currently running.
      *
@@ -153,28 +242,8 @@ public class SunriseEffect {
     private void handleCompletion() {
         running.set(false);
 
-        // Proper executor shutdown with timeout
-        if (executor != null) {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-
-        // Execute callback with exception handling to prevent user code from breaking cleanup
-        if (onComplete != null) {
-            try {
-                onComplete.run();
-            } catch (Exception e) {
-                // Log error but don't propagate to avoid breaking effect cleanup
-                System.err.println("Error in SunriseEffect completion callback: " + e.getMessage());
-            }
-        }
+        // Off the timing thread, and with failures logged, so that user code cannot break the other effects
+        engine.complete(onComplete);
     }
 
     /**
@@ -240,6 +309,9 @@ public class SunriseEffect {
         private int endBrightness = 100;
         private int steps = 100; // 100 steps for smooth transition
         private Runnable onComplete;
+        private boolean preferNative = true;
+        private TransitionPlanner planner = TransitionPlanner.defaults();
+        private EffectEngine engine;
 
         /**
          * Sets the light to apply the effect to.
@@ -286,7 +358,8 @@ public class SunriseEffect {
         }
 
         /**
-         * Sets the number of steps for the sunrise (more steps = smoother).
+         * Sets the number of steps the sunrise is sampled at (more steps = closer to the exact colors). Only the steps
+         * that the Bridge cannot reach by fading linearly from the previous one are sent, see {@link TransitionPlanner}.
          *
          * @param steps Number of transition steps
          * @return This builder
@@ -307,6 +380,47 @@ public class SunriseEffect {
             return this;
         }
 
+        /**
+         * Sets whether lights that support the sunrise of the Bridge run it on their own (default: true).
+         * The sunrise of the Bridge always rises from off to full brightness, so it is only used when the brightness
+         * range is the full one and the duration is at most six hours.
+         *
+         * @param preferNative Whether to run the sunrise on the light when it supports it
+         * @return This builder
+         * @since 5.3.0
+         */
+        public Builder preferNative(final boolean preferNative) {
+            this.preferNative = preferNative;
+            return this;
+        }
+
+        /**
+         * Sets how closely the fades of the Bridge must follow the steps (default: {@link TransitionPlanner#defaults()}).
+         *
+         * @param planner The planner of the keyframes
+         * @return This builder
+         * @since 5.3.0
+         */
+        public Builder planner(final TransitionPlanner planner) {
+            if (planner == null) {
+                throw new IllegalArgumentException("Planner must not be null");
+            }
+            this.planner = planner;
+            return this;
+        }
+
+        /**
+         * Sets the engine to run the effect on (default: the {@link Light#getEffectEngine() engine of the light}).
+         *
+         * @param engine The effect engine
+         * @return This builder
+         * @since 5.3.0
+         */
+        public Builder engine(final EffectEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
         /**
          * Builds the SunriseEffect.
          *
@@ -329,7 +443,8 @@ public class SunriseEffect {
                 throw new IllegalStateException("Steps must be at least 10 for a smooth sunrise");
             }
 
-            return new SunriseEffect(light, duration, startBrightness, endBrightness, steps, onComplete);
+            return new SunriseEffect(light, duration, startBrightness, endBrightness, steps, onComplete, preferNative, planner,
+                    engine != null ? engine : light.getEffectEngine());
         }
     }
 }
@@ -55,7 +55,7 @@ public class SwitchFactory {
 //      if (hue.isCaching()) {
 //        return hue.getRaw().getSensors().get(id).getState();
 //      }
-      try (final InputStream inputStream = hue.getUrlConnection("/button/" + buttonId.toString()).getInputStream()) {
+      try (final InputStream inputStream = hue.openStream("/button/" + buttonId.toString())) {
         return objectMapper.readValue(inputStream, ButtonResourceRoot.class).getData().get(0);
       } catch (final IOException e) {
         throw new HueApiException(e);
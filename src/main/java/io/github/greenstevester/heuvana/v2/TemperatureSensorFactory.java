@@ -6,6 +6,7 @@ import io.github.greenstevester.heuvana.v2.domain.DeviceResource;
 import io.github.greenstevester.heuvana.v2.domain.ResourceIdentifier;
 import io.github.greenstevester.heuvana.v2.domain.ResourceType;
 import io.github.greenstevester.heuvana.v2.domain.Temperature;
+import io.github.greenstevester.heuvana.v2.domain.TemperatureResource;
 import io.github.greenstevester.heuvana.v2.domain.TemperatureResourceRoot;
 
 import java.io.IOException;
@@ -26,28 +27,28 @@ public class TemperatureSensorFactory {
 
   public TemperatureSensorImpl buildTemperatureSensor(final DeviceResource device, final URL bridgeUrl) {
     try {
-      final String sensorId = device.getServices().stream()
+      final UUID sensorId = device.getServices().stream()
           .filter(service -> service.getResourceType() == ResourceType.TEMPERATURE)
           .findFirst()
           .map(ResourceIdentifier::getResourceId)
-          .map(UUID::toString)
           .orElse(null);
       final URL url = new URL(bridgeUrl, "/clip/v2/resource/temperature/" + sensorId);
-      final Supplier<Temperature> stateProvider = createStateProvider(url);
+      final Supplier<Temperature> stateProvider = createStateProvider(sensorId, url);
       return new TemperatureSensorImpl(device.getId(), device.getMetadata().getName(), stateProvider);
     } catch (final MalformedURLException e) {
       throw new HueApiException(e);
     }
   }
 
-  private Supplier<Temperature> createStateProvider(final URL url) {
-    return () -> {
-      try (final InputStream inputStream = hue.getUrlConnection(url).getInputStream()) {
+  private Supplier<Temperature> createStateProvider(final UUID id, final URL url) {
+    final Supplier<TemperatureResource> networkRead = () -> {
+      try (final InputStream inputStream = hue.openStream(url)) {
         final TemperatureResourceRoot resource = objectMapper.readValue(inputStream, TemperatureResourceRoot.class);
-        return resource.getData().get(0).getTemperature();
+        return resource.getData().get(0);
       } catch (final IOException e) {
         throw new HueApiException(e);
       }
     };
+    return () -> hue.getStateMirror().get(id, TemperatureResource.class, networkRead).getTemperature();
   }
 }
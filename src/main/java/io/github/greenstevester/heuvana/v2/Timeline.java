@@ -0,0 +1,475 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.Color;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays a light show on any number of lights, rooms and zones: keyframed {@link TimelineTrack}s bound to the
+ * targets by {@link TimelineLayer}s. On every tick, one frame is rendered for all the targets by blending the
+ * layers, and only the targets whose output changed since the last frame are sent a request, with only the
+ * properties that changed. Lights that stay the same cost no requests at all.
+ *
+ * <p>If both a color and a color temperature reach a target, the one of the topmost layer wins.
+ * The first request to each target also turns it on.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * Timeline show = Timeline.builder()
+ *     .layer(TimelineLayer.builder()
+ *         .target(livingRoom)
+ *         .track(TimelineTrack.colorTemperature().key(Duration.ZERO, 250))
+ *         .track(TimelineTrack.brightness().key(Duration.ZERO, 40))
+ *         .build())
+ *     .layer(TimelineLayer.builder()
+ *         .target(lamp)
+ *         .track(TimelineTrack.color()
+ *             .key(Duration.ZERO, Color.of(255, 0, 0))
+ *             .key(Duration.ofSeconds(10), Color.of(0, 0, 255)))
+ *         .build())
+ *     .loop(true)
+ *     .build();
+ * show.start();
+ * }</pre>
+ *
+ * <p>The frames are timed by an {@link EffectEngine}, shared with all the other running effects.</p>
+ *
+ * @since 5.3.0
+ */
+public class Timeline {
+  private static final TimelineTrack.Channel[] CHANNELS = TimelineTrack.Channel.values();
+
+  private final List<TimelineLayer> layers;
+  private final Duration frameInterval;
+  private final long length;
+  private final boolean loop;
+  private final Runnable onComplete;
+  private final EffectEngine engine;
+
+  private final Map<UUID, int[][]> lastSent = new HashMap<>();
+  private final AtomicBoolean running = new AtomicBoolean(false);
+  private final AtomicLong frameCount = new AtomicLong();
+  private final AtomicLong sentUpdateCount = new AtomicLong();
+  private final AtomicLong skippedUpdateCount = new AtomicLong();
+  private volatile EffectEngine.Handle handle;
+
+  private Timeline(final Builder builder) {
+    this.layers = Collections.unmodifiableList(new ArrayList<>(builder.layers));
+    this.frameInterval = builder.frameInterval;
+    this.loop = builder.loop;
+    this.onComplete = builder.onComplete;
+    long longest = 0;
+    for (final TimelineLayer layer : layers) {
+      for (final TimelineTrack track : layer.getTracks()) {
+        longest = Math.max(longest, track.getLength().toNanos());
+      }
+    }
+    this.length = builder.duration != null ? builder.duration.toNanos() : longest;
+    this.engine = builder.engine != null ? builder.engine : defaultEngine(layers);
+  }
+
+  private static EffectEngine defaultEngine(final List<TimelineLayer> layers) {
+    for (final TimelineLayer layer : layers) {
+      for (final TimelineLayer.Target target : layer.getTargets().values()) {
+        final EffectEngine engine = target.getEffectEngine();
+        if (engine != null) {
+          return engine;
+        }
+      }
+    }
+    return EffectEngine.shared();
+  }
+
+  /**
+   * Starts playing the timeline from the beginning.
+   */
+  public void start() {
+    if (!running.compareAndSet(false, true)) {
+      throw new IllegalStateException("Timeline is already running");
+    }
+    synchronized (this) {
+      lastSent.clear();
+    }
+    handle = engine.start(this::nextFrame, 0);
+  }
+
+  /**
+   * Stops the timeline, leaving the lights as they are.
+   */
+  public void stop() {
+    running.set(false);
+    final EffectEngine.Handle current = handle;
+    if (current != null) {
+      current.stop();
+    }
+  }
+
+  /**
+   * Pauses the timeline, keeping the lights as they are until {@link #resume()}.
+   */
+  public synchronized void pause() {
+    final EffectEngine.Handle current = handle;
+    if (running.get() && current != null && !current.isPaused()) {
+      current.pause();
+    }
+  }
+
+  /**
+   * Resumes a paused timeline where it was paused.
+   */
+  public synchronized void resume() {
+    final EffectEngine.Handle current = handle;
+    if (current != null && current.isPaused()) {
+      current.resume();
+    }
+  }
+
+  public boolean isPaused() {
+    final EffectEngine.Handle current = handle;
+    return running.get() && current != null && current.isPaused();
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  /**
+   * @return The time from the start to the end of the timeline: the time of the last keyframe,
+   *     unless set with {@link Builder#duration(Duration)}.
+   */
+  public Duration getLength() {
+    return Duration.ofNanos(length);
+  }
+
+  /**
+   * @return The number of frames rendered since the timeline was built.
+   */
+  public long getFrameCount() {
+    return frameCount.get();
+  }
+
+  /**
+   * @return How well the engine kept to the frame interval, see {@link FrameStats}.
+   */
+  public FrameStats getFrameStats() {
+    final EffectEngine.Handle current = handle;
+    return current != null ? current.getStats() : new FrameStats();
+  }
+
+  /**
+   * @return The number of requests sent to the targets.
+   */
+  public long getSentUpdateCount() {
+    return sentUpdateCount.get();
+  }
+
+  /**
+   * @return The number of times a frame left a target out because its output had not changed.
+   */
+  public long getSkippedUpdateCount() {
+    return skippedUpdateCount.get();
+  }
+
+  private synchronized long nextFrame(final long elapsed) {
+    if (!running.get()) {
+      return EffectEngine.DONE;
+    }
+    final long interval = frameInterval.toNanos();
+    if (loop) {
+      renderFrame(length == 0 ? 0 : elapsed % length);
+      return interval;
+    }
+    if (elapsed >= length) {
+      renderFrame(length, true);
+      handleCompletion();
+      return EffectEngine.DONE;
+    }
+    renderFrame(elapsed);
+    return Math.min(interval, length - elapsed);
+  }
+
+  /**
+   * Renders the frame at the given time and sends the targets whose output changed.
+   *
+   * @param nanos The time from the start of the timeline.
+   * @return The number of requests sent.
+   */
+  synchronized int renderFrame(final long nanos) {
+    return renderFrame(nanos, false);
+  }
+
+  /**
+   * @param last Whether this is the last frame, which is sent in full and without a deadline, so that the targets
+   *     end up in the final state even if the Bridge is busy or dropped one of the frames before.
+   */
+  private int renderFrame(final long nanos, final boolean last) {
+    final Map<UUID, Output> outputs = new LinkedHashMap<>();
+    for (int index = 0; index < layers.size(); index++) {
+      final TimelineLayer layer = layers.get(index);
+      for (final TimelineTrack.Channel channel : CHANNELS) {
+        final TimelineTrack track = layer.getTrack(channel);
+        final double[] value = track != null ? track.valueAt(nanos) : null;
+        if (value == null) {
+          continue;
+        }
+        for (final TimelineLayer.Target target : layer.getTargets().values()) {
+          final Output output = outputs.computeIfAbsent(target.getId(), id -> new Output(target));
+          output.values[channel.ordinal()] = layer.blend(channel, output.values[channel.ordinal()], value);
+          output.layers[channel.ordinal()] = index;
+        }
+      }
+    }
+    frameCount.incrementAndGet();
+    int sent = 0;
+    for (final Map.Entry<UUID, Output> entry : outputs.entrySet()) {
+      if (send(entry.getKey(), entry.getValue(), last)) {
+        sent++;
+        sentUpdateCount.incrementAndGet();
+      } else {
+        skippedUpdateCount.incrementAndGet();
+      }
+    }
+    return sent;
+  }
+
+  private boolean send(final UUID id, final Output output, final boolean last) {
+    final int[][] quantized = output.quantize();
+    int[][] previous = lastSent.get(id);
+    final boolean first = previous == null;
+    if (first) {
+      previous = new int[CHANNELS.length][];
+      lastSent.put(id, previous);
+    }
+    final UpdateState frame = new UpdateState();
+    boolean changed = false;
+    for (final TimelineTrack.Channel channel : CHANNELS) {
+      final int[] value = quantized[channel.ordinal()];
+      if (value == null || !last && Arrays.equals(value, previous[channel.ordinal()])) {
+        continue;
+      }
+      changed = true;
+      previous[channel.ordinal()] = value;
+      switch (channel) {
+        case BRIGHTNESS:
+          frame.brightness(value[0]);
+          break;
+        case XY:
+          frame.xy(value[0] / 10000f, value[1] / 10000f);
+          previous[TimelineTrack.Channel.COLOR_TEMPERATURE.ordinal()] = null;
+          break;
+        case COLOR_TEMPERATURE:
+          frame.colorTemperature(value[0]);
+          previous[TimelineTrack.Channel.XY.ordinal()] = null;
+          break;
+        default:
+          final List<Color> colors = new ArrayList<>();
+          for (int i = 0; i < value.length; i += 3) {
+            colors.add(Color.of(value[i], value[i + 1], value[i + 2]));
+          }
+          frame.gradient(colors);
+          break;
+      }
+    }
+    if (!changed) {
+      return false;
+    }
+    if (first) {
+      frame.on();
+    }
+    frame.transitionTime(frameInterval).priority(CommandPriority.BACKGROUND);
+    if (!last) {
+      frame.deadline(frameInterval);
+    }
+    final int[][] sent = previous;
+    output.target.send(engine, frame).whenComplete((result, failure) -> {
+      if (failure != null) {
+        forget(id, sent);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Forgets what was sent to a target whose request failed or was dropped, so that the next frame sends
+   * the target its whole state again instead of only what changed.
+   */
+  private synchronized void forget(final UUID id, final int[][] sent) {
+    lastSent.remove(id, sent);
+  }
+
+  private void handleCompletion() {
+    running.set(false);
+    // Off the timing thread, and with failures logged, so that user code cannot break the other effects
+    engine.complete(onComplete);
+  }
+
+  /**
+   * The blended values of one target in the frame being rendered.
+   */
+  private static final class Output {
+    private final TimelineLayer.Target target;
+    private final double[][] values = new double[CHANNELS.length][];
+    private final int[] layers = new int[CHANNELS.length];
+
+    private Output(final TimelineLayer.Target target) {
+      this.target = target;
+    }
+
+    /**
+     * @return The values at the precision the Bridge takes them, so that changes too small to see are not sent.
+     */
+    private int[][] quantize() {
+      final int xy = TimelineTrack.Channel.XY.ordinal();
+      final int colorTemperature = TimelineTrack.Channel.COLOR_TEMPERATURE.ordinal();
+      if (values[xy] != null && values[colorTemperature] != null) {
+        if (layers[xy] >= layers[colorTemperature]) {
+          values[colorTemperature] = null;
+        } else {
+          values[xy] = null;
+        }
+      }
+      final int[][] result = new int[CHANNELS.length][];
+      for (final TimelineTrack.Channel channel : CHANNELS) {
+        final double[] value = values[channel.ordinal()];
+        if (value == null) {
+          continue;
+        }
+        final int[] quantized = new int[value.length];
+        for (int i = 0; i < value.length; i++) {
+          switch (channel) {
+            case BRIGHTNESS:
+              quantized[i] = clip(Math.round(value[i]), 0, 100);
+              break;
+            case XY:
+              quantized[i] = clip(Math.round(value[i] * 10000), 0, 10000);
+              break;
+            case COLOR_TEMPERATURE:
+              quantized[i] = clip(Math.round(value[i]), 153, 500);
+              break;
+            default:
+              quantized[i] = clip(Math.round(value[i] * 255), 0, 255);
+              break;
+          }
+        }
+        result[channel.ordinal()] = quantized;
+      }
+      return result;
+    }
+
+    private static int clip(final long value, final int min, final int max) {
+      return (int) Math.min(Math.max(value, min), max);
+    }
+  }
+
+  /**
+   * @return A new builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder for Timeline.
+   */
+  public static class Builder {
+    private final List<TimelineLayer> layers = new ArrayList<>();
+    private Duration frameInterval = Duration.ofMillis(100);
+    private Duration duration;
+    private boolean loop;
+    private Runnable onComplete;
+    private EffectEngine engine;
+
+    /**
+     * Adds a layer on top of the layers added before.
+     *
+     * @param layer The layer.
+     * @return This builder
+     */
+    public Builder layer(final TimelineLayer layer) {
+      if (layer == null) {
+        throw new IllegalArgumentException("Layer must not be null");
+      }
+      layers.add(layer);
+      return this;
+    }
+
+    /**
+     * Sets the time between two frames (default: 100 ms). Each frame is also sent as the transition time
+     * of its requests, so that the lights fade smoothly from one frame to the next.
+     *
+     * @param frameInterval The time between frames, at least 10 ms.
+     * @return This builder
+     */
+    public Builder frameInterval(final Duration frameInterval) {
+      if (frameInterval == null || frameInterval.toMillis() < 10) {
+        throw new IllegalArgumentException("Frame interval must be at least 10 ms");
+      }
+      this.frameInterval = frameInterval;
+      return this;
+    }
+
+    /**
+     * Sets the length of the timeline, instead of ending it at its last keyframe.
+     *
+     * @param duration The length of the timeline.
+     * @return This builder
+     */
+    public Builder duration(final Duration duration) {
+      if (duration == null || duration.isNegative()) {
+        throw new IllegalArgumentException("Duration must not be null or negative");
+      }
+      this.duration = duration;
+      return this;
+    }
+
+    /**
+     * @param loop Whether to start over at the end of the timeline, until stopped (default: false).
+     * @return This builder
+     */
+    public Builder loop(final boolean loop) {
+      this.loop = loop;
+      return this;
+    }
+
+    /**
+     * Sets a callback to run when a timeline that does not loop reaches its end.
+     *
+     * @param onComplete Completion callback
+     * @return This builder
+     */
+    public Builder onComplete(final Runnable onComplete) {
+      this.onComplete = onComplete;
+      return this;
+    }
+
+    /**
+     * Sets the engine to run the timeline on (default: the {@link Light#getEffectEngine() engine of the first
+     * light} of the layers).
+     *
+     * @param engine The effect engine
+     * @return This builder
+     */
+    public Builder engine(final EffectEngine engine) {
+      this.engine = engine;
+      return this;
+    }
+
+    public Timeline build() {
+      if (layers.isEmpty()) {
+        throw new IllegalStateException("At least one layer must be specified");
+      }
+      return new Timeline(this);
+    }
+  }
+}
@@ -0,0 +1,246 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A layer of a {@link Timeline}: tracks bound to lights, rooms or zones. The layers of a timeline are blended
+ * in the order they were added, each one on top of the ones before it, according to its {@link BlendMode}
+ * and opacity.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * TimelineLayer.builder()
+ *     .target(kitchenLight)
+ *     .target(livingRoom)
+ *     .track(TimelineTrack.brightness().key(Duration.ZERO, 20).key(Duration.ofSeconds(5), 100))
+ *     .blendMode(TimelineLayer.BlendMode.MULTIPLY)
+ *     .build();
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public final class TimelineLayer {
+
+  /**
+   * How the brightness of a layer is combined with the brightness of the layers below it.
+   * Colors, color temperatures and gradients are always mixed by the opacity of the layer.
+   */
+  public enum BlendMode {
+    /**
+     * The brightness of this layer replaces the one below, mixed by the opacity of the layer.
+     */
+    NORMAL,
+    /**
+     * The brightness of this layer, scaled by the opacity, is added to the one below, up to 100.
+     */
+    ADD,
+    /**
+     * The brightness below is scaled by the brightness of this layer as a percentage, mixed by the opacity.
+     */
+    MULTIPLY
+  }
+
+  private final Map<UUID, Target> targets;
+  private final Map<TimelineTrack.Channel, TimelineTrack> tracks;
+  private final BlendMode blendMode;
+  private final double opacity;
+
+  private TimelineLayer(final Builder builder) {
+    this.targets = Collections.unmodifiableMap(new LinkedHashMap<>(builder.targets));
+    this.tracks = Collections.unmodifiableMap(new EnumMap<>(builder.tracks));
+    this.blendMode = builder.blendMode;
+    this.opacity = builder.opacity;
+  }
+
+  /**
+   * @return A new builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public BlendMode getBlendMode() {
+    return blendMode;
+  }
+
+  public double getOpacity() {
+    return opacity;
+  }
+
+  /**
+   * @return The tracks of the layer, at most one per channel.
+   */
+  public List<TimelineTrack> getTracks() {
+    return new ArrayList<>(tracks.values());
+  }
+
+  Map<UUID, Target> getTargets() {
+    return targets;
+  }
+
+  TimelineTrack getTrack(final TimelineTrack.Channel channel) {
+    return tracks.get(channel);
+  }
+
+  /**
+   * Combines the value of this layer for a channel with the value of the layers below it.
+   *
+   * @param channel The channel.
+   * @param below   The value of the layers below, or {@code null} if none of them has a track for the channel.
+   * @param value   The value of this layer.
+   * @return The combined value.
+   */
+  double[] blend(final TimelineTrack.Channel channel, final double[] below, final double[] value) {
+    if (below == null || below.length != value.length) {
+      return value;
+    }
+    final BlendMode mode = channel == TimelineTrack.Channel.BRIGHTNESS ? blendMode : BlendMode.NORMAL;
+    final double[] result = new double[value.length];
+    for (int i = 0; i < result.length; i++) {
+      switch (mode) {
+        case ADD:
+          result[i] = Math.min(100, below[i] + value[i] * opacity);
+          break;
+        case MULTIPLY:
+          result[i] = below[i] * (1 - opacity + opacity * value[i] / 100);
+          break;
+        default:
+          result[i] = below[i] + (value[i] - below[i]) * opacity;
+          break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A light, room or zone a layer is bound to.
+   */
+  abstract static class Target {
+    abstract UUID getId();
+
+    abstract CompletableFuture<?> send(EffectEngine engine, UpdateState frame);
+
+    EffectEngine getEffectEngine() {
+      return null;
+    }
+  }
+
+  /**
+   * Builder for TimelineLayer.
+   */
+  public static class Builder {
+    private final Map<UUID, Target> targets = new LinkedHashMap<>();
+    private final Map<TimelineTrack.Channel, TimelineTrack> tracks = new EnumMap<>(TimelineTrack.Channel.class);
+    private BlendMode blendMode = BlendMode.NORMAL;
+    private double opacity = 1;
+
+    /**
+     * Binds the tracks of the layer to a light.
+     *
+     * @param light The light.
+     * @return This builder
+     */
+    public Builder target(final Light light) {
+      if (light == null) {
+        throw new IllegalArgumentException("Light must not be null");
+      }
+      targets.put(light.getId(), new Target() {
+        @Override
+        UUID getId() {
+          return light.getId();
+        }
+
+        @Override
+        CompletableFuture<?> send(final EffectEngine engine, final UpdateState frame) {
+          return engine.send(light, frame);
+        }
+
+        @Override
+        EffectEngine getEffectEngine() {
+          return light.getEffectEngine();
+        }
+      });
+      return this;
+    }
+
+    /**
+     * Binds the tracks of the layer to a room or zone, which is sent one request for all its lights.
+     *
+     * @param group The room or zone.
+     * @return This builder
+     */
+    public Builder target(final Group group) {
+      if (group == null) {
+        throw new IllegalArgumentException("Group must not be null");
+      }
+      targets.put(group.getId(), new Target() {
+        @Override
+        UUID getId() {
+          return group.getId();
+        }
+
+        @Override
+        CompletableFuture<?> send(final EffectEngine engine, final UpdateState frame) {
+          return engine.send(group, frame);
+        }
+      });
+      return this;
+    }
+
+    /**
+     * Adds a track, replacing any track of the same channel added before.
+     * The track is copied, so changing it afterwards does not change this layer.
+     *
+     * @param track The track.
+     * @return This builder
+     */
+    public Builder track(final TimelineTrack track) {
+      if (track == null) {
+        throw new IllegalArgumentException("Track must not be null");
+      }
+      tracks.put(track.getChannel(), track.copy());
+      return this;
+    }
+
+    /**
+     * @param blendMode How the brightness of the layer is combined with the layers below (default: NORMAL).
+     * @return This builder
+     */
+    public Builder blendMode(final BlendMode blendMode) {
+      if (blendMode == null) {
+        throw new IllegalArgumentException("Blend mode must not be null");
+      }
+      this.blendMode = blendMode;
+      return this;
+    }
+
+    /**
+     * @param opacity From 0 for no effect on the layers below to 1 for the full effect (default: 1).
+     * @return This builder
+     */
+    public Builder opacity(final double opacity) {
+      if (!(opacity >= 0 && opacity <= 1)) {
+        throw new IllegalArgumentException("Opacity must be between 0 and 1");
+      }
+      this.opacity = opacity;
+      return this;
+    }
+
+    public TimelineLayer build() {
+      if (targets.isEmpty()) {
+        throw new IllegalStateException("At least one target must be specified");
+      }
+      if (tracks.isEmpty()) {
+        throw new IllegalStateException("At least one track must be specified");
+      }
+      return new TimelineLayer(this);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.XAndYAndBrightness;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The keyframes of one property of the lights in a {@link Timeline}, such as their brightness.
+ * Between two keyframes the value is interpolated linearly; before the first keyframe and after the last one,
+ * the value of that keyframe is held.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * TimelineTrack.brightness()
+ *     .key(Duration.ZERO, 10)
+ *     .key(Duration.ofSeconds(2), 100)
+ *     .key(Duration.ofSeconds(4), 10);
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public final class TimelineTrack {
+
+  /**
+   * The property of the lights a track animates.
+   */
+  public enum Channel {
+    /**
+     * Brightness, from 0 to 100.
+     */
+    BRIGHTNESS,
+    /**
+     * Color, as a CIE XY gamut position.
+     */
+    XY,
+    /**
+     * White of a color temperature, in mirek.
+     */
+    COLOR_TEMPERATURE,
+    /**
+     * Colors of the points of a gradient light.
+     */
+    GRADIENT
+  }
+
+  private final Channel channel;
+  private final List<Keyframe> keyframes = new ArrayList<>();
+
+  private TimelineTrack(final Channel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * @return A new track of the brightness, with keyframes from 0 to 100.
+   */
+  public static TimelineTrack brightness() {
+    return new TimelineTrack(Channel.BRIGHTNESS);
+  }
+
+  /**
+   * @return A new track of the color, with keyframes given as colors or as CIE XY positions.
+   */
+  public static TimelineTrack color() {
+    return new TimelineTrack(Channel.XY);
+  }
+
+  /**
+   * @return A new track of the color temperature, with keyframes in mirek.
+   */
+  public static TimelineTrack colorTemperature() {
+    return new TimelineTrack(Channel.COLOR_TEMPERATURE);
+  }
+
+  /**
+   * @return A new track of the gradient, with keyframes of the same number of colors.
+   */
+  public static TimelineTrack gradient() {
+    return new TimelineTrack(Channel.GRADIENT);
+  }
+
+  /**
+   * Adds a keyframe to a brightness or color temperature track.
+   *
+   * @param at    The time of the keyframe from the start of the timeline.
+   * @param value The brightness from 0 to 100, or the color temperature in mirek.
+   * @return This track, for easy chaining of different methods.
+   */
+  public TimelineTrack key(final Duration at, final double value) {
+    if (channel != Channel.BRIGHTNESS && channel != Channel.COLOR_TEMPERATURE) {
+      throw new IllegalArgumentException("A " + channel + " track takes no single value keyframes");
+    }
+    return add(at, new double[] {value});
+  }
+
+  /**
+   * Adds a keyframe to a color track.
+   *
+   * @param at The time of the keyframe from the start of the timeline.
+   * @param x  A value from 0 to 1.
+   * @param y  A value from 0 to 1.
+   * @return This track, for easy chaining of different methods.
+   */
+  public TimelineTrack key(final Duration at, final float x, final float y) {
+    if (channel != Channel.XY) {
+      throw new IllegalArgumentException("A " + channel + " track takes no XY keyframes");
+    }
+    return add(at, new double[] {x, y});
+  }
+
+  /**
+   * Adds a keyframe to a color track. Only the hue and saturation of the color are used,
+   * the brightness is up to the brightness track.
+   *
+   * @param at    The time of the keyframe from the start of the timeline.
+   * @param color The color.
+   * @return This track, for easy chaining of different methods.
+   */
+  public TimelineTrack key(final Duration at, final Color color) {
+    final XAndYAndBrightness xy = XAndYAndBrightness.rgbToXy(color);
+    return key(at, xy.getX(), xy.getY());
+  }
+
+  /**
+   * Adds a keyframe to a gradient track. The colors are interpolated one by one,
+   * so all the keyframes of a track must have the same number of colors.
+   *
+   * @param at     The time of the keyframe from the start of the timeline.
+   * @param colors From 2 to 5 colors.
+   * @return This track, for easy chaining of different methods.
+   */
+  public TimelineTrack key(final Duration at, final List<Color> colors) {
+    if (channel != Channel.GRADIENT) {
+      throw new IllegalArgumentException("A " + channel + " track takes no gradient keyframes");
+    }
+    if (colors == null || colors.size() < 2 || colors.size() > 5) {
+      throw new IllegalArgumentException("A gradient needs from 2 to 5 colors");
+    }
+    if (!keyframes.isEmpty() && keyframes.get(0).value.length != colors.size() * 3) {
+      throw new IllegalArgumentException("All the keyframes of a gradient track need the same number of colors");
+    }
+    final double[] value = new double[colors.size() * 3];
+    for (int i = 0; i < colors.size(); i++) {
+      value[i * 3] = colors.get(i).getRed();
+      value[i * 3 + 1] = colors.get(i).getGreen();
+      value[i * 3 + 2] = colors.get(i).getBlue();
+    }
+    return add(at, value);
+  }
+
+  public Channel getChannel() {
+    return channel;
+  }
+
+  /**
+   * @return The time of the last keyframe.
+   */
+  public Duration getLength() {
+    return keyframes.isEmpty() ? Duration.ZERO : Duration.ofNanos(keyframes.get(keyframes.size() - 1).at);
+  }
+
+  /**
+   * @param nanos The time from the start of the timeline.
+   * @return The interpolated value, or {@code null} if the track has no keyframes.
+   */
+  double[] valueAt(final long nanos) {
+    if (keyframes.isEmpty()) {
+      return null;
+    }
+    Keyframe previous = keyframes.get(0);
+    if (nanos <= previous.at) {
+      return previous.value;
+    }
+    for (int i = 1; i < keyframes.size(); i++) {
+      final Keyframe next = keyframes.get(i);
+      if (nanos < next.at) {
+        final double ratio = (double) (nanos - previous.at) / (next.at - previous.at);
+        final double[] result = new double[previous.value.length];
+        for (int j = 0; j < result.length; j++) {
+          result[j] = previous.value[j] + (next.value[j] - previous.value[j]) * ratio;
+        }
+        return result;
+      }
+      previous = next;
+    }
+    return previous.value;
+  }
+
+  TimelineTrack copy() {
+    final TimelineTrack result = new TimelineTrack(channel);
+    result.keyframes.addAll(keyframes);
+    return result;
+  }
+
+  private TimelineTrack add(final Duration at, final double[] value) {
+    if (at == null || at.isNegative()) {
+      throw new IllegalArgumentException("Keyframe time must not be null or negative");
+    }
+    final long nanos = at.toNanos();
+    keyframes.removeIf(keyframe -> keyframe.at == nanos);
+    keyframes.add(new Keyframe(nanos, value));
+    keyframes.sort(Comparator.comparingLong(Keyframe::at));
+    return this;
+  }
+
+  private record Keyframe(long at, double[] value) {
+  }
+}
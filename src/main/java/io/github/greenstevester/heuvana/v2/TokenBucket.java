@@ -0,0 +1,70 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket refilled at a constant rate. Not thread safe: the {@link CommandScheduler} only
+ * accesses it while holding the lock of the lane that owns it. All times are {@link System#nanoTime()} values.
+ */
+final class TokenBucket {
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final double permitsPerSecond;
+  private final int burst;
+  private double tokens;
+  private long lastRefillNanos;
+
+  TokenBucket(final double permitsPerSecond, final int burst, final long nowNanos) {
+    if (permitsPerSecond <= 0) {
+      throw new IllegalArgumentException("permitsPerSecond must be positive");
+    }
+    if (burst < 1) {
+      throw new IllegalArgumentException("burst must be at least 1");
+    }
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst;
+    this.tokens = burst;
+    this.lastRefillNanos = nowNanos;
+  }
+
+  double getPermitsPerSecond() {
+    return permitsPerSecond;
+  }
+
+  int getBurst() {
+    return burst;
+  }
+
+  boolean tryAcquire(final long nowNanos) {
+    refill(nowNanos);
+    if (tokens >= 1) {
+      tokens -= 1;
+      return true;
+    }
+    return false;
+  }
+
+  long nanosUntilAvailable(final long nowNanos) {
+    refill(nowNanos);
+    if (tokens >= 1) {
+      return 0L;
+    }
+    return (long) Math.ceil((1 - tokens) * NANOS_PER_SECOND / permitsPerSecond);
+  }
+
+  /**
+   * Empties the bucket, for example when the Bridge reports that it is overloaded.
+   */
+  void drain(final long nowNanos) {
+    refill(nowNanos);
+    tokens = Math.min(tokens, 0);
+  }
+
+  private void refill(final long nowNanos) {
+    final long elapsed = nowNanos - lastRefillNanos;
+    if (elapsed > 0) {
+      tokens = Math.min(burst, tokens + elapsed * permitsPerSecond / NANOS_PER_SECOND);
+      lastRefillNanos = nowNanos;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+/**
+ * A local file holding the resources of the Bridge as of the latest refresh, so that a {@link Hue} instance
+ * can start from it instead of waiting for the Bridge.
+ *
+ * <p>When a {@link Hue} instance is created with a cache whose file exists, its lights, groups, switches and
+ * sensors are built from the file right away, and the resources are revalidated against the Bridge in the
+ * background. The differences are applied like any other {@link Hue#refresh()}; use
+ * {@link Hue#whenRevalidated()} to act once that has happened. Without a usable file, the constructor reads
+ * the resources from the Bridge as usual. Either way, the file is rewritten whenever a refresh finds changes.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * Hue hue = new Hue(bridgeIp, apiKey, HttpTransportConfig.defaults(),
+ *     TopologyCache.inFile(Path.of("hue-topology.json")));
+ * hue.whenRevalidated().thenRun(() -> System.out.println("Up to date with the Bridge"));
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public final class TopologyCache {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  private final Path file;
+
+  private TopologyCache(final Path file) {
+    this.file = file;
+  }
+
+  /**
+   * @param file The file to read the resources from and write them to. Its directory must exist.
+   * @return A cache backed by the given file.
+   */
+  public static TopologyCache inFile(final Path file) {
+    if (file == null) {
+      throw new IllegalArgumentException("file must not be null");
+    }
+    return new TopologyCache(file);
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * @return The {@code data} array of the cached resources, or {@code null} if there is no usable cache file.
+   */
+  JsonNode read(final ObjectMapper objectMapper) {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (final InputStream inputStream = Files.newInputStream(file)) {
+      final JsonNode data = objectMapper.readTree(inputStream).path("data");
+      if (!data.isArray()) {
+        logger.warn("Ignoring topology cache {} without resources", file);
+        return null;
+      }
+      return data;
+    } catch (final IOException e) {
+      logger.warn("Could not read topology cache {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the cache file atomically, so that a crash while writing never leaves a truncated file behind.
+   *
+   * @param resources The raw resources, as read from the Bridge.
+   */
+  void write(final ObjectMapper objectMapper, final Collection<JsonNode> resources) {
+    final ObjectNode root = objectMapper.createObjectNode();
+    root.putArray("errors");
+    final ArrayNode data = root.putArray("data");
+    resources.forEach(data::add);
+    try {
+      final Path directory = file.toAbsolutePath().getParent();
+      final Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try {
+        try (final OutputStream outputStream = Files.newOutputStream(temp)) {
+          objectMapper.writeValue(outputStream, root);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (final IOException e) {
+      logger.warn("Could not write topology cache {}", file, e);
+    }
+  }
+}
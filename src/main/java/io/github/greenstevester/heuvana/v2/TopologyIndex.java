@@ -0,0 +1,156 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.DeviceResource;
+import io.github.greenstevester.heuvana.v2.domain.GroupResource;
+import io.github.greenstevester.heuvana.v2.domain.Resource;
+import io.github.greenstevester.heuvana.v2.domain.ResourceIdentifier;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Lookup tables over the lights and groups of a {@link Hue} instance. Built once per refresh, so that
+ * the lookups themselves neither scan nor allocate.
+ */
+final class TopologyIndex {
+  static final TopologyIndex EMPTY = build(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+  private final Map<UUID, Group> rooms;
+  private final Map<UUID, Group> zones;
+  private final Map<String, Group> roomsByName;
+  private final Map<String, Group> zonesByName;
+  private final Map<String, Light> lightsByIdV1;
+  private final Map<UUID, List<Light>> lightsByOwner;
+  private final Map<UUID, Set<Light>> lightsByGroup;
+  private final Map<UUID, List<Group>> groupsByLight;
+
+  private TopologyIndex(final Map<UUID, Group> rooms,
+                        final Map<UUID, Group> zones,
+                        final Map<String, Group> roomsByName,
+                        final Map<String, Group> zonesByName,
+                        final Map<String, Light> lightsByIdV1,
+                        final Map<UUID, List<Light>> lightsByOwner,
+                        final Map<UUID, Set<Light>> lightsByGroup,
+                        final Map<UUID, List<Group>> groupsByLight) {
+    this.rooms = rooms;
+    this.zones = zones;
+    this.roomsByName = roomsByName;
+    this.zonesByName = zonesByName;
+    this.lightsByIdV1 = lightsByIdV1;
+    this.lightsByOwner = lightsByOwner;
+    this.lightsByGroup = lightsByGroup;
+    this.groupsByLight = groupsByLight;
+  }
+
+  static TopologyIndex build(final Map<UUID, Resource> allResources,
+                             final Map<UUID, Light> lights,
+                             final Map<UUID, Group> groups) {
+    final Map<UUID, Group> rooms = new HashMap<>();
+    final Map<UUID, Group> zones = new HashMap<>();
+    final Map<String, Group> roomsByName = new HashMap<>();
+    final Map<String, Group> zonesByName = new HashMap<>();
+    for (final Group group : groups.values()) {
+      if (group.getType() == ResourceType.ROOM) {
+        rooms.put(group.getId(), group);
+        roomsByName.putIfAbsent(group.getName(), group);
+      } else if (group.getType() == ResourceType.ZONE) {
+        zones.put(group.getId(), group);
+        zonesByName.putIfAbsent(group.getName(), group);
+      }
+    }
+
+    final Map<String, Light> lightsByIdV1 = new HashMap<>();
+    final Map<UUID, List<Light>> lightsByOwner = new HashMap<>();
+    for (final Light light : lights.values()) {
+      if (light instanceof LightImpl && ((LightImpl) light).getIdV1() != null) {
+        lightsByIdV1.put(((LightImpl) light).getIdV1(), light);
+      }
+      if (light.getOwnerId() != null) {
+        lightsByOwner.computeIfAbsent(light.getOwnerId(), owner -> new ArrayList<>()).add(light);
+      }
+    }
+    lightsByOwner.replaceAll((owner, ownedLights) -> unmodifiableList(ownedLights));
+
+    final Map<UUID, Set<Light>> lightsByGroup = new HashMap<>();
+    final Map<UUID, List<Group>> groupsByLight = new HashMap<>();
+    for (final Group group : groups.values()) {
+      final Resource resource = allResources.get(group.getId());
+      if (!(resource instanceof GroupResource)) {
+        continue;
+      }
+      final Set<Light> groupLights = new LinkedHashSet<>();
+      for (final ResourceIdentifier child : nullSafe(((GroupResource) resource).getChildren())) {
+        if (child.getResourceType() == ResourceType.DEVICE) {
+          final Resource device = allResources.get(child.getResourceId());
+          if (device instanceof DeviceResource) {
+            nullSafe(((DeviceResource) device).getServices()).stream()
+                .filter(service -> service.getResourceType() == ResourceType.LIGHT)
+                .map(service -> lights.get(service.getResourceId()))
+                .filter(Objects::nonNull)
+                .forEach(groupLights::add);
+          }
+        } else if (child.getResourceType() == ResourceType.LIGHT) {
+          Optional.ofNullable(lights.get(child.getResourceId())).ifPresent(groupLights::add);
+        }
+      }
+      lightsByGroup.put(group.getId(), unmodifiableSet(groupLights));
+      groupLights.forEach(light -> groupsByLight.computeIfAbsent(light.getId(), id -> new ArrayList<>()).add(group));
+    }
+    groupsByLight.replaceAll((light, lightGroups) -> unmodifiableList(lightGroups));
+
+    return new TopologyIndex(unmodifiableMap(rooms), unmodifiableMap(zones),
+        roomsByName, zonesByName, lightsByIdV1, lightsByOwner, lightsByGroup, groupsByLight);
+  }
+
+  private static <T> Collection<T> nullSafe(final Collection<T> collection) {
+    return collection == null ? emptyList() : collection;
+  }
+
+  Map<UUID, Group> getRooms() {
+    return rooms;
+  }
+
+  Map<UUID, Group> getZones() {
+    return zones;
+  }
+
+  Group getRoomByName(final String name) {
+    return roomsByName.get(name);
+  }
+
+  Group getZoneByName(final String name) {
+    return zonesByName.get(name);
+  }
+
+  Light getLightByIdV1(final String idV1) {
+    return lightsByIdV1.get(idV1);
+  }
+
+  List<Light> getLightsByOwner(final UUID deviceId) {
+    return lightsByOwner.getOrDefault(deviceId, emptyList());
+  }
+
+  Set<Light> getLightsOfGroup(final UUID groupId) {
+    return lightsByGroup.getOrDefault(groupId, emptySet());
+  }
+
+  List<Group> getGroupsOfLight(final UUID lightId) {
+    return groupsByLight.getOrDefault(lightId, emptyList());
+  }
+}
@@ -0,0 +1,186 @@
+package io.github.greenstevester.heuvana.v2;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Turns the curve of an effect into as few keyframes as possible, leaving the interpolation between them to the
+ * Bridge. Each keyframe is sent with a {@link UpdateState#transitionTime(java.time.Duration) transition time}
+ * that reaches it when it is due, and the Bridge fades the light linearly in between. A keyframe is only kept
+ * where that linear fade would stray from the curve by more than the tolerance, so a fade that is already linear
+ * takes a single request, and a ten-second color fade takes a handful instead of one for every step.
+ *
+ * <p>The effects that fade, such as {@link ColorFadeEffect}, {@link SunriseEffect} and {@link PulsingEffect},
+ * are planned with {@link #defaults()} unless given another planner with the {@code planner(...)} method of their
+ * builders:</p>
+ * <pre>{@code
+ * ColorFadeEffect.builder()
+ *     .light(light)
+ *     .fromColor(Color.of(255, 0, 0))
+ *     .toColor(Color.of(0, 0, 255))
+ *     .planner(TransitionPlanner.builder().colorTolerance(0.005).build())
+ *     .build()
+ *     .start();
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public final class TransitionPlanner {
+  private static final TransitionPlanner DEFAULTS = builder().build();
+
+  private final double brightnessTolerance;
+  private final double colorTolerance;
+
+  private TransitionPlanner(final Builder builder) {
+    this.brightnessTolerance = builder.brightnessTolerance;
+    this.colorTolerance = builder.colorTolerance;
+  }
+
+  /**
+   * @return The planner with the default tolerances: 2 points of brightness and 0.01 of CIE XY.
+   */
+  public static TransitionPlanner defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * @return A new builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return The largest difference in brightness, from 0 to 100, allowed between the curve and the fades.
+   */
+  public double getBrightnessTolerance() {
+    return brightnessTolerance;
+  }
+
+  /**
+   * @return The largest difference in CIE X or Y allowed between the curve and the fades.
+   */
+  public double getColorTolerance() {
+    return colorTolerance;
+  }
+
+  /**
+   * @param brightness The brightness curve, sampled at even intervals.
+   * @return The indexes of the samples to send as keyframes, always including the first and the last one.
+   */
+  int[] planBrightness(final double[] brightness) {
+    final double[][] samples = new double[brightness.length][];
+    for (int i = 0; i < brightness.length; i++) {
+      samples[i] = new double[] {brightness[i]};
+    }
+    return plan(samples, new double[] {brightnessTolerance});
+  }
+
+  /**
+   * @param xyAndBrightness The color curve as CIE X, Y and brightness, sampled at even intervals.
+   * @return The indexes of the samples to send as keyframes, always including the first and the last one.
+   */
+  int[] planColor(final double[][] xyAndBrightness) {
+    return plan(xyAndBrightness, new double[] {colorTolerance, colorTolerance, brightnessTolerance});
+  }
+
+  /**
+   * Simplifies the curve with the Ramer-Douglas-Peucker algorithm, measuring the error of each dimension
+   * against its own tolerance.
+   */
+  static int[] plan(final double[][] samples, final double[] tolerances) {
+    if (samples.length <= 2) {
+      final int[] all = new int[samples.length];
+      Arrays.setAll(all, i -> i);
+      return all;
+    }
+    final boolean[] kept = new boolean[samples.length];
+    kept[0] = true;
+    kept[samples.length - 1] = true;
+    final Deque<int[]> segments = new ArrayDeque<>();
+    segments.push(new int[] {0, samples.length - 1});
+    while (!segments.isEmpty()) {
+      final int[] segment = segments.pop();
+      final int from = segment[0];
+      final int to = segment[1];
+      int worst = -1;
+      double worstError = 1;
+      for (int i = from + 1; i < to; i++) {
+        final double ratio = (double) (i - from) / (to - from);
+        for (int d = 0; d < tolerances.length; d++) {
+          final double fade = samples[from][d] + (samples[to][d] - samples[from][d]) * ratio;
+          final double error = Math.abs(samples[i][d] - fade) / tolerances[d];
+          if (error > worstError) {
+            worstError = error;
+            worst = i;
+          }
+        }
+      }
+      if (worst >= 0) {
+        kept[worst] = true;
+        segments.push(new int[] {from, worst});
+        segments.push(new int[] {worst, to});
+      }
+    }
+    int count = 0;
+    for (final boolean keep : kept) {
+      if (keep) {
+        count++;
+      }
+    }
+    final int[] result = new int[count];
+    for (int i = 0, j = 0; i < kept.length; i++) {
+      if (kept[i]) {
+        result[j++] = i;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "TransitionPlanner{" +
+        "brightnessTolerance=" + brightnessTolerance +
+        ", colorTolerance=" + colorTolerance +
+        '}';
+  }
+
+  /**
+   * Builder for TransitionPlanner.
+   */
+  public static class Builder {
+    private double brightnessTolerance = 2;
+    private double colorTolerance = 0.01;
+
+    /**
+     * @param brightnessTolerance The largest difference in brightness, from 0 to 100, allowed between the curve
+     *                            and the fades (default: 2).
+     * @return This builder
+     */
+    public Builder brightnessTolerance(final double brightnessTolerance) {
+      if (!(brightnessTolerance > 0)) {
+        throw new IllegalArgumentException("Brightness tolerance must be positive");
+      }
+      this.brightnessTolerance = brightnessTolerance;
+      return this;
+    }
+
+    /**
+     * @param colorTolerance The largest difference in CIE X or Y allowed between the curve and the fades
+     *                       (default: 0.01).
+     * @return This builder
+     */
+    public Builder colorTolerance(final double colorTolerance) {
+      if (!(colorTolerance > 0)) {
+        throw new IllegalArgumentException("Color tolerance must be positive");
+      }
+      this.colorTolerance = colorTolerance;
+      return this;
+    }
+
+    public TransitionPlanner build() {
+      return new TransitionPlanner(this);
+    }
+  }
+}
@@ -5,6 +5,7 @@ import io.github.greenstevester.heuvana.XAndYAndBrightness;
 import io.github.greenstevester.heuvana.v2.domain.Xy;
 import io.github.greenstevester.heuvana.v2.domain.update.Alert;
 import io.github.greenstevester.heuvana.v2.domain.update.AlertType;
+import io.github.greenstevester.heuvana.v2.domain.update.ColorTemperature;
 import io.github.greenstevester.heuvana.v2.domain.update.Dimming;
 import io.github.greenstevester.heuvana.v2.domain.update.EffectType;
 import io.github.greenstevester.heuvana.v2.domain.update.Effects;
@@ -27,9 +28,15 @@ public class UpdateState {
   public static final int MAX_BRIGHTNESS = 100;
 
   private final UpdateLight updateLight;
+  private CommandPriority priority = CommandPriority.NORMAL;
+  private Duration deadline;
 
   public UpdateState() {
-    this.updateLight = new UpdateLight();
+    this(new UpdateLight());
+  }
+
+  private UpdateState(final UpdateLight updateLight) {
+    this.updateLight = updateLight;
   }
 
   /**
@@ -107,6 +114,18 @@ public class UpdateState {
     return this;
   }
 
+  /**
+   * Sets a white of the given color temperature, for lights that support the color temperature spectrum.
+   *
+   * @param mirek Color temperature in mirek, clipped to 153-500.
+   * @return This state, for easy chaining of different methods.
+   * @since 5.3.0
+   */
+  public UpdateState colorTemperature(final int mirek) {
+    updateLight.setColorTemperature(new ColorTemperature().setMirek(Math.min(Math.max(mirek, 153), 500)));
+    return this;
+  }
+
   /**
    * Starts an effect, or stops it with the {@link EffectType#NO_EFFECT}.
    * Note that not all lights, not even all the color ones, support effects.
@@ -255,7 +274,63 @@ public class UpdateState {
     return this;
   }
 
+  /**
+   * Sets the priority with which this state change is sent when the rate limit of the Bridge is reached.
+   * Defaults to {@link CommandPriority#NORMAL}.
+   *
+   * @param priority The priority lane of the state change.
+   * @return This state, for easy chaining of different methods.
+   * @see CommandScheduler
+   * @since 5.3.0
+   */
+  public UpdateState priority(final CommandPriority priority) {
+    if (priority == null) {
+      throw new IllegalArgumentException("Priority must not be null");
+    }
+    this.priority = priority;
+    return this;
+  }
+
+  /**
+   * Sets how long this state change may wait for the rate limit of the Bridge. If it has not been sent
+   * by then, it is dropped instead of being sent late, which is what you want for frames of an animation.
+   * By default, state changes wait as long as it takes.
+   *
+   * @param maxDelay The maximum time to wait before the state change is sent.
+   * @return This state, for easy chaining of different methods.
+   * @see CommandScheduler
+   * @since 5.3.0
+   */
+  public UpdateState deadline(final Duration maxDelay) {
+    if (maxDelay == null || maxDelay.isNegative()) {
+      throw new IllegalArgumentException("Deadline must not be null or negative");
+    }
+    this.deadline = maxDelay;
+    return this;
+  }
+
+  /**
+   * Combines this state with a newer one into a new state, leaving both unchanged.
+   * The combined state has the higher of the two priorities and the deadline of the newer state.
+   *
+   * @see UpdateLight#merge(UpdateLight)
+   */
+  UpdateState mergedWith(final UpdateState newer) {
+    final UpdateState merged = new UpdateState(new UpdateLight().merge(updateLight).merge(newer.updateLight));
+    merged.priority = priority.compareTo(newer.priority) < 0 ? priority : newer.priority;
+    merged.deadline = newer.deadline;
+    return merged;
+  }
+
   UpdateLight getUpdateLight() {
     return updateLight;
   }
+
+  CommandPriority getPriority() {
+    return priority;
+  }
+
+  Duration getDeadline() {
+    return deadline;
+  }
 }
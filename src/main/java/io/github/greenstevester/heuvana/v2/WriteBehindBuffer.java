@@ -0,0 +1,215 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind buffer for the state changes of lights and groups, see {@link Hue#getWriteBehindBuffer()}.
+ *
+ * <p>When a slider or an effect produces many state changes for the same light within a few milliseconds,
+ * each of them would otherwise become a request of its own. With a flush window set, state changes for
+ * the same light or group are held back and merged field by field instead (see
+ * {@link io.github.greenstevester.heuvana.v2.domain.update.UpdateLight#merge}), and the merged state is sent
+ * once per window. All the futures of the merged state changes complete with the result of that single request.
+ * {@link CommandPriority#INTERACTIVE} state changes are merged as well, but flush the buffer of their light
+ * or group immediately.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * hue.getWriteBehindBuffer().setFlushWindow(Duration.ofMillis(100));
+ * }</pre>
+ *
+ * @since 5.3.0
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger("io.github.greenstevester.yahueapi");
+
+  private final Map<UUID, Pending> pending = new HashMap<>();
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong flushed = new AtomicLong();
+  private volatile Duration flushWindow = Duration.ZERO;
+  private ScheduledExecutorService timer;
+
+  /**
+   * Sets the flush window. {@link Duration#ZERO}, the default, disables buffering, so that every state
+   * change is sent right away. State changes already buffered are sent when their window ends.
+   *
+   * @param flushWindow How long state changes are held back to be merged with later ones.
+   */
+  public synchronized void setFlushWindow(final Duration flushWindow) {
+    if (flushWindow == null || flushWindow.isNegative()) {
+      throw new IllegalArgumentException("flushWindow must not be null or negative");
+    }
+    if (!flushWindow.isZero() && timer == null) {
+      final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        final Thread thread = new Thread(runnable, "hue-write-behind");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.setRemoveOnCancelPolicy(true);
+      timer = executor;
+    }
+    this.flushWindow = flushWindow;
+  }
+
+  public Duration getFlushWindow() {
+    return flushWindow;
+  }
+
+  /**
+   * @return The number of state changes submitted while buffering was enabled.
+   */
+  public long getSubmittedCount() {
+    return submitted.get();
+  }
+
+  /**
+   * @return The number of requests actually sent for the submitted state changes.
+   */
+  public long getFlushedCount() {
+    return flushed.get();
+  }
+
+  /**
+   * @return The number of state changes that were merged into another one instead of being sent on their own.
+   */
+  public long getCoalescedCount() {
+    return submitted.get() - flushed.get() - getPendingCount();
+  }
+
+  private synchronized int getPendingCount() {
+    return pending.values().stream().mapToInt(p -> p.futures.size()).sum();
+  }
+
+  /**
+   * Buffers a state change, or sends it right away if buffering is disabled.
+   *
+   * @param resourceId The id of the light or group.
+   * @param state      The state change.
+   * @param sender     Sends the (merged) state change.
+   * @return A future completed with the result of the request that included the state change.
+   */
+  CompletableFuture<UpdateResult> submit(final UUID resourceId,
+                                         final UpdateState state,
+                                         final Function<UpdateState, CompletableFuture<UpdateResult>> sender) {
+    if (flushWindow.isZero()) {
+      return sender.apply(state);
+    }
+    final CompletableFuture<UpdateResult> future = new CompletableFuture<>();
+    final Pending toFlush;
+    synchronized (this) {
+      if (timer == null) {
+        // Closed in the meantime
+        return sender.apply(state);
+      }
+      submitted.incrementAndGet();
+      Pending current = pending.get(resourceId);
+      if (current == null) {
+        final Pending created = new Pending(state, sender);
+        pending.put(resourceId, created);
+        created.window = timer.schedule(() -> flush(resourceId, created), flushWindow.toNanos(), TimeUnit.NANOSECONDS);
+        current = created;
+      } else {
+        current.state = current.state.mergedWith(state);
+      }
+      current.futures.add(future);
+      toFlush = state.getPriority() == CommandPriority.INTERACTIVE ? pending.remove(resourceId) : null;
+    }
+    if (toFlush != null) {
+      send(toFlush);
+    }
+    return future;
+  }
+
+  /**
+   * Sends the buffered state change whose window has ended, unless it has been sent early already, in which
+   * case a newer state change of the same resource is left to its own window.
+   */
+  private void flush(final UUID resourceId, final Pending expected) {
+    final boolean removed;
+    synchronized (this) {
+      removed = pending.remove(resourceId, expected);
+    }
+    if (removed) {
+      send(expected);
+    }
+  }
+
+  private void send(final Pending toFlush) {
+    if (toFlush.window != null) {
+      toFlush.window.cancel(false);
+    }
+    flushed.incrementAndGet();
+    if (toFlush.futures.size() > 1) {
+      logger.trace("Sending {} coalesced state changes as one: {}", toFlush.futures.size(), toFlush.state.getUpdateLight());
+    }
+    final CompletableFuture<UpdateResult> sent;
+    try {
+      sent = toFlush.sender.apply(toFlush.state);
+    } catch (final RuntimeException e) {
+      toFlush.futures.forEach(future -> future.completeExceptionally(e));
+      return;
+    }
+    sent.whenComplete((result, throwable) -> toFlush.futures.forEach(future -> {
+      if (throwable == null) {
+        future.complete(result);
+      } else {
+        future.completeExceptionally(throwable);
+      }
+    }));
+  }
+
+  /**
+   * Sends all the buffered state changes right away.
+   */
+  public void flushAll() {
+    final List<Pending> toFlush;
+    synchronized (this) {
+      toFlush = new ArrayList<>(pending.values());
+      pending.clear();
+    }
+    toFlush.forEach(this::send);
+  }
+
+  /**
+   * Sends all the buffered state changes and stops the timer thread.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      flushWindow = Duration.ZERO;
+      if (timer != null) {
+        timer.shutdownNow();
+        timer = null;
+      }
+    }
+    flushAll();
+  }
+
+  private static final class Pending {
+    private final Function<UpdateState, CompletableFuture<UpdateResult>> sender;
+    private final List<CompletableFuture<UpdateResult>> futures = new ArrayList<>();
+    private UpdateState state;
+    private ScheduledFuture<?> window;
+
+    private Pending(final UpdateState state, final Function<UpdateState, CompletableFuture<UpdateResult>> sender) {
+      this.state = state;
+      this.sender = sender;
+    }
+  }
+}
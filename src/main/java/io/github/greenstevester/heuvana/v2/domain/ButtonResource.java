@@ -18,6 +18,15 @@ public class ButtonResource extends Resource {
   @JsonProperty("button")
   private ButtonSpecifics button;
 
+  /**
+   * Gets the device that owns this button.
+   *
+   * @return the owner of the button
+   */
+  public ResourceIdentifier getOwner() {
+    return owner;
+  }
+
   /**
    * Gets the button metadata.
    *
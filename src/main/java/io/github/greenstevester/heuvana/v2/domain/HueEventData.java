@@ -36,6 +36,21 @@ public class HueEventData {
   @JsonProperty("temperature")
   private Temperature temperature;
 
+  @JsonProperty("color")
+  private Color color;
+
+  @JsonProperty("color_temperature")
+  private ColorTemperature colorTemperature;
+
+  @JsonProperty("dynamics")
+  private Dynamics dynamics;
+
+  @JsonProperty("effects")
+  private Effects effects;
+
+  @JsonProperty("gradient")
+  private Gradient gradient;
+
   public UUID getResourceId() {
     return resourceId;
   }
@@ -76,6 +91,41 @@ public class HueEventData {
     return Optional.ofNullable(temperature);
   }
 
+  /**
+   * @since 5.3.0
+   */
+  public Optional<Color> getColor() {
+    return Optional.ofNullable(color);
+  }
+
+  /**
+   * @since 5.3.0
+   */
+  public Optional<ColorTemperature> getColorTemperature() {
+    return Optional.ofNullable(colorTemperature);
+  }
+
+  /**
+   * @since 5.3.0
+   */
+  public Optional<Dynamics> getDynamics() {
+    return Optional.ofNullable(dynamics);
+  }
+
+  /**
+   * @since 5.3.0
+   */
+  public Optional<Effects> getEffects() {
+    return Optional.ofNullable(effects);
+  }
+
+  /**
+   * @since 5.3.0
+   */
+  public Optional<Gradient> getGradient() {
+    return Optional.ofNullable(gradient);
+  }
+
   @Override
   public String toString() {
     return "HueEventData{" +
@@ -89,6 +139,11 @@ public class HueEventData {
         ", dimming=" + dimming +
         ", motion=" + motion +
         ", temperature=" + temperature +
+        ", color=" + color +
+        ", colorTemperature=" + colorTemperature +
+        ", dynamics=" + dynamics +
+        ", effects=" + effects +
+        ", gradient=" + gradient +
         '}';
   }
 }
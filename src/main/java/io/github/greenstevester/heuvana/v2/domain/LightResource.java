@@ -39,6 +39,9 @@ public class LightResource extends Resource {
   @JsonProperty("effects")
   private Effects effects;
 
+  @JsonProperty("timed_effects")
+  private TimedEffects timedEffects;
+
   public ResourceIdentifier getOwner() {
     return owner;
   }
@@ -82,4 +85,8 @@ public class LightResource extends Resource {
   public Effects getEffects() {
     return effects;
   }
+
+  public TimedEffects getTimedEffects() {
+    return timedEffects;
+  }
 }
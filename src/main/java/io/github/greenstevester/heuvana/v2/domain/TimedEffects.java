@@ -0,0 +1,43 @@
+package io.github.greenstevester.heuvana.v2.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.greenstevester.heuvana.v2.domain.update.TimedEffectType;
+
+import java.util.List;
+
+public class TimedEffects {
+  @JsonProperty("effect")
+  private TimedEffectType effect;
+
+  @JsonProperty("status_values")
+  private List<TimedEffectType> statusValues;
+
+  @JsonProperty("status")
+  private TimedEffectType status;
+
+  @JsonProperty("effect_values")
+  private List<TimedEffectType> effectValues;
+
+  @JsonProperty("duration")
+  private Long duration;
+
+  public TimedEffectType getEffect() {
+    return effect;
+  }
+
+  public List<TimedEffectType> getStatusValues() {
+    return statusValues;
+  }
+
+  public TimedEffectType getStatus() {
+    return status;
+  }
+
+  public List<TimedEffectType> getEffectValues() {
+    return effectValues;
+  }
+
+  public Long getDuration() {
+    return duration;
+  }
+}
@@ -0,0 +1,43 @@
+package io.github.greenstevester.heuvana.v2.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The response of the Bridge to a PUT or POST request: the resources that were updated, and any errors.
+ *
+ * @since 5.3.0
+ */
+public class UpdateResult {
+
+  @JsonProperty("errors")
+  private List<Error> errors;
+
+  @JsonProperty("data")
+  private List<ResourceIdentifier> data;
+
+  public List<Error> getErrors() {
+    return errors == null ? Collections.emptyList() : errors;
+  }
+
+  /**
+   * @return Identifiers of the resources that were updated by the request.
+   */
+  public List<ResourceIdentifier> getData() {
+    return data == null ? Collections.emptyList() : data;
+  }
+
+  /**
+   * @return True if the Bridge did not report any errors.
+   */
+  public boolean isSuccess() {
+    return getErrors().isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return JsonStringUtil.toJsonString(this);
+  }
+}
@@ -0,0 +1,145 @@
+package io.github.greenstevester.heuvana.v2.domain.event;
+
+import io.github.greenstevester.heuvana.v2.domain.Color;
+import io.github.greenstevester.heuvana.v2.domain.ColorTemperature;
+import io.github.greenstevester.heuvana.v2.domain.Dimming;
+import io.github.greenstevester.heuvana.v2.domain.Dynamics;
+import io.github.greenstevester.heuvana.v2.domain.Effects;
+import io.github.greenstevester.heuvana.v2.domain.Gradient;
+import io.github.greenstevester.heuvana.v2.domain.HueEventData;
+import io.github.greenstevester.heuvana.v2.domain.On;
+import io.github.greenstevester.heuvana.v2.domain.ResourceIdentifier;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A change in the state of a light or of the lights of a room or zone (a {@code grouped_light}).
+ * Only the parts of the state that changed are present; the rest are {@code Optional.empty()}.
+ *
+ * @since 5.3.0
+ */
+public class LightStateChangedEvent {
+  private final String eventTime;
+  private final UUID eventGroupId;
+  private final UUID resourceId;
+  private final String resourceType;
+  private final ResourceIdentifier owner;
+  private final On on;
+  private final Dimming dimming;
+  private final Color color;
+  private final ColorTemperature colorTemperature;
+  private final Dynamics dynamics;
+  private final Effects effects;
+  private final Gradient gradient;
+
+  public LightStateChangedEvent(final String eventTime, final UUID eventGroupId, final HueEventData data) {
+    this.eventTime = eventTime;
+    this.eventGroupId = eventGroupId;
+    this.resourceId = data.getResourceId();
+    this.resourceType = data.getType();
+    this.owner = data.getOwner();
+    this.on = data.getOn().orElse(null);
+    this.dimming = data.getDimming().orElse(null);
+    this.color = data.getColor().orElse(null);
+    this.colorTemperature = data.getColorTemperature().orElse(null);
+    this.dynamics = data.getDynamics().orElse(null);
+    this.effects = data.getEffects().orElse(null);
+    this.gradient = data.getGradient().orElse(null);
+  }
+
+  /**
+   * @param data The data of an event.
+   * @return {@code true} if the data is of a light or grouped light, and has any of the state this event covers.
+   */
+  public static boolean isLightStateChange(final HueEventData data) {
+    return ("light".equals(data.getType()) || "grouped_light".equals(data.getType()))
+        && (data.getOn().isPresent()
+        || data.getDimming().isPresent()
+        || data.getColor().isPresent()
+        || data.getColorTemperature().isPresent()
+        || data.getDynamics().isPresent()
+        || data.getEffects().isPresent()
+        || data.getGradient().isPresent());
+  }
+
+  public String getEventTime() {
+    return eventTime;
+  }
+
+  /**
+   * The Bridge may emit several events simultaneously. In that case all of those events
+   * will have the same {@code eventGroupId}.
+   *
+   * @return An {@link UUID}.
+   */
+  public UUID getEventGroupId() {
+    return eventGroupId;
+  }
+
+  /**
+   * @return The id of the light or grouped light.
+   */
+  public UUID getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * @return {@code true} if this is a change of the lights of a room or zone, {@code false} for a single light.
+   */
+  public boolean isGroupedLight() {
+    return "grouped_light".equals(resourceType);
+  }
+
+  /**
+   * @return The device of a light, or the room or zone of a grouped light.
+   */
+  public ResourceIdentifier getOwner() {
+    return owner;
+  }
+
+  public Optional<On> getOn() {
+    return Optional.ofNullable(on);
+  }
+
+  public Optional<Dimming> getDimming() {
+    return Optional.ofNullable(dimming);
+  }
+
+  public Optional<Color> getColor() {
+    return Optional.ofNullable(color);
+  }
+
+  public Optional<ColorTemperature> getColorTemperature() {
+    return Optional.ofNullable(colorTemperature);
+  }
+
+  public Optional<Dynamics> getDynamics() {
+    return Optional.ofNullable(dynamics);
+  }
+
+  public Optional<Effects> getEffects() {
+    return Optional.ofNullable(effects);
+  }
+
+  public Optional<Gradient> getGradient() {
+    return Optional.ofNullable(gradient);
+  }
+
+  @Override
+  public String toString() {
+    return "LightStateChangedEvent{" +
+        "eventTime='" + eventTime + '\'' +
+        ", eventGroupId=" + eventGroupId +
+        ", resourceId=" + resourceId +
+        ", resourceType='" + resourceType + '\'' +
+        ", on=" + on +
+        ", dimming=" + dimming +
+        ", color=" + color +
+        ", colorTemperature=" + colorTemperature +
+        ", dynamics=" + dynamics +
+        ", effects=" + effects +
+        ", gradient=" + gradient +
+        '}';
+  }
+}
@@ -7,6 +7,9 @@ import io.github.greenstevester.heuvana.v2.domain.JsonStringUtil;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class UpdateLight {
 
+  private static final int MIN_MIREK = 153;
+  private static final int MAX_MIREK = 500;
+
   @JsonProperty("on")
   private On on;
 
@@ -138,6 +141,97 @@ public class UpdateLight {
     return this;
   }
 
+  /**
+   * Merges a newer update into this one, field by field, as if both had been sent in order.
+   * Fields set in the newer update replace the ones in this update, so that for example
+   * {@code on} from one update and {@code color} from another are combined. In addition:
+   * <ul>
+   *   <li>An absolute {@code dimming} replaces an earlier {@code dimming_delta}, and a {@code dimming_delta}
+   *   is applied to an earlier absolute {@code dimming} or added to an earlier delta.</li>
+   *   <li>{@code color} and {@code color_temperature} exclude each other, so the later one wins.</li>
+   *   <li>A {@code color_temperature_delta} is applied to an earlier absolute {@code color_temperature}.</li>
+   * </ul>
+   *
+   * @param newer The update made after this one.
+   * @return This update, so that one can also use this method like a fluent builder.
+   * @since 5.3.0
+   */
+  public UpdateLight merge(final UpdateLight newer) {
+    if (newer.on != null) {
+      on = newer.on;
+    }
+    if (newer.dimming != null) {
+      dimming = newer.dimming;
+      dimmingDelta = null;
+    }
+    if (newer.dimmingDelta != null) {
+      mergeDimmingDelta(newer.dimmingDelta);
+    }
+    if (newer.color != null) {
+      color = newer.color;
+      colorTemperature = null;
+      colorTemperatureDelta = null;
+    }
+    if (newer.colorTemperature != null) {
+      colorTemperature = newer.colorTemperature;
+      colorTemperatureDelta = null;
+      color = null;
+    }
+    if (newer.colorTemperatureDelta != null) {
+      mergeColorTemperatureDelta(newer.colorTemperatureDelta);
+    }
+    if (newer.dynamics != null) {
+      dynamics = newer.dynamics;
+    }
+    if (newer.alert != null) {
+      alert = newer.alert;
+    }
+    if (newer.gradient != null) {
+      gradient = newer.gradient;
+    }
+    if (newer.effects != null) {
+      effects = newer.effects;
+    }
+    if (newer.timedEffects != null) {
+      timedEffects = newer.timedEffects;
+    }
+    return this;
+  }
+
+  private void mergeDimmingDelta(final DimmingDelta newer) {
+    if (newer.getAction() == DeltaAction.STOP || newer.getAction() == DeltaAction.UNKNOWN) {
+      dimmingDelta = newer;
+    } else if (dimming != null) {
+      final int brightness = dimming.getBrightness() + signed(newer.getAction(), newer.getBrightnessDelta());
+      dimming = new Dimming().setBrightness(Math.min(Math.max(brightness, 0), 100));
+    } else if (dimmingDelta != null && isDirectional(dimmingDelta.getAction())) {
+      final int delta = signed(dimmingDelta.getAction(), dimmingDelta.getBrightnessDelta())
+          + signed(newer.getAction(), newer.getBrightnessDelta());
+      dimmingDelta = new DimmingDelta()
+          .setAction(delta < 0 ? DeltaAction.DOWN : DeltaAction.UP)
+          .setBrightnessDelta(Math.min(Math.abs(delta), 100));
+    } else {
+      dimmingDelta = newer;
+    }
+  }
+
+  private void mergeColorTemperatureDelta(final ColorTemperatureDelta newer) {
+    if (isDirectional(newer.getAction()) && colorTemperature != null && colorTemperature.getMirek() != null) {
+      final int mirek = colorTemperature.getMirek() + signed(newer.getAction(), newer.getMirekDelta());
+      colorTemperature = new ColorTemperature().setMirek(Math.min(Math.max(mirek, MIN_MIREK), MAX_MIREK));
+    } else {
+      colorTemperatureDelta = newer;
+    }
+  }
+
+  private static boolean isDirectional(final DeltaAction action) {
+    return action == DeltaAction.UP || action == DeltaAction.DOWN;
+  }
+
+  private static int signed(final DeltaAction action, final int delta) {
+    return action == DeltaAction.DOWN ? -delta : delta;
+  }
+
   @Override
   public String toString() {
     return JsonStringUtil.toJsonString(this);
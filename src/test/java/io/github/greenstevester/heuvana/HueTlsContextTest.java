@@ -0,0 +1,41 @@
+package io.github.greenstevester.heuvana;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HueTlsContextTest {
+
+  @Test
+  void testContextIsCachedPerHost() {
+    assertSame(HueTlsContext.forHost("192.168.1.99"), HueTlsContext.forHost("192.168.1.99"));
+    assertSame(HueTlsContext.forHost("192.168.1.99"), HueTlsContext.forHost("192.168.1.99:443"));
+    assertNotSame(HueTlsContext.forHost("192.168.1.99"), HueTlsContext.forHost("192.168.1.100"));
+  }
+
+  @Test
+  void testAllHostsShareTheSslContext() {
+    HueTlsContext first = HueTlsContext.forHost("192.168.1.99");
+    HueTlsContext second = HueTlsContext.forHost("192.168.1.100");
+
+    assertSame(first.getSocketFactory(), second.getSocketFactory());
+    assertSame(first.getTrustManager(), second.getTrustManager());
+    assertTrue(HueTlsContext.getSslContext().getClientSessionContext().getSessionCacheSize() > 0);
+  }
+
+  @Test
+  void testHostnameVerification() {
+    assertTrue(HueTlsContext.forHost("192.168.1.99").getHostnameVerifier().verify("192.168.1.99", null));
+    assertFalse(HueTlsContext.forHost("192.168.1.99").getHostnameVerifier().verify("192.168.1.100", null));
+    assertTrue(HueTlsContext.forHost(null).getHostnameVerifier().verify("192.168.1.100", null));
+  }
+
+  @Test
+  void testSecureJsonFactoriesShareTheContext() {
+    SecureJsonFactory first = new SecureJsonFactory("192.168.1.99");
+    SecureJsonFactory second = new SecureJsonFactory("192.168.1.99");
+
+    assertSame(first.getSocketFactory(), second.getSocketFactory());
+    assertSame(first.getHostnameVerifier(), second.getHostnameVerifier());
+  }
+}
@@ -0,0 +1,75 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandSchedulerTest {
+
+  private final CommandScheduler scheduler = new CommandScheduler();
+
+  @AfterEach
+  void tearDown() {
+    scheduler.close();
+  }
+
+  @Test
+  void testInteractiveCommandJumpsAheadOfBackgroundCommands() throws Exception {
+    scheduler.setRateLimit(ResourceType.LIGHT, 5.0, 1);
+    List<String> sent = new CopyOnWriteArrayList<>();
+    // Spend the only token, so that everything submitted next has to wait for the rate limit
+    submit(CommandPriority.NORMAL, "first", sent).get(5, TimeUnit.SECONDS);
+
+    List<CompletableFuture<String>> futures = List.of(
+        submit(CommandPriority.BACKGROUND, "frame 1", sent),
+        submit(CommandPriority.BACKGROUND, "frame 2", sent),
+        submit(CommandPriority.INTERACTIVE, "turn off", sent));
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    assertEquals(List.of("first", "turn off", "frame 1", "frame 2"), sent);
+  }
+
+  @Test
+  void testStaleCommandIsDropped() throws Exception {
+    scheduler.setRateLimit(ResourceType.LIGHT, 2.0, 1);
+    List<String> sent = new CopyOnWriteArrayList<>();
+
+    CompletableFuture<String> first = submit(CommandPriority.NORMAL, "first", sent);
+    CompletableFuture<String> stale = scheduler.submit(ResourceType.LIGHT, CommandPriority.BACKGROUND,
+        Duration.ofMillis(10), () -> record("stale", sent));
+
+    assertEquals("first", first.get(5, TimeUnit.SECONDS));
+    assertThrows(CommandDroppedException.class, () -> stale.get(5, TimeUnit.SECONDS));
+    assertTrue(stale.isCancelled());
+    assertEquals(List.of("first"), sent);
+    assertEquals(1, scheduler.getDroppedCount());
+  }
+
+  @Test
+  void testUnlimitedResourceClassIsSentImmediately() {
+    List<String> sent = new CopyOnWriteArrayList<>();
+
+    CompletableFuture<String> future = scheduler.submit(ResourceType.ROOM, CommandPriority.NORMAL, null,
+        () -> record("room", sent));
+
+    assertEquals("room", future.join());
+    assertEquals(0, scheduler.getQueuedCount(ResourceType.ROOM));
+  }
+
+  private CompletableFuture<String> submit(CommandPriority priority, String name, List<String> sent) {
+    return scheduler.submit(ResourceType.LIGHT, priority, null, () -> record(name, sent));
+  }
+
+  private static CompletableFuture<String> record(String name, List<String> sent) {
+    sent.add(name);
+    return CompletableFuture.completedFuture(name);
+  }
+}
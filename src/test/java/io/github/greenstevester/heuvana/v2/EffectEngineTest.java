@@ -0,0 +1,331 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
+import io.github.greenstevester.heuvana.v2.domain.update.EffectType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the engine on a clock of its own, which only moves when a test moves it, so that the frames are rendered
+ * at exactly the times they are due no matter how busy the machine running the tests is.
+ */
+class EffectEngineTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final EffectEngine engine = new EffectEngine(now::get);
+
+  @AfterEach
+  void tearDown() {
+    engine.close();
+  }
+
+  @Test
+  void testAllEffectsShareOneThread() throws Exception {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    List<CountingLight> lights = new CopyOnWriteArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      CountingLight light = new CountingLight(threads);
+      lights.add(light);
+      PulsingEffect.builder().light(light).pulseDuration(Duration.ofMillis(100)).continuous(true).engine(engine)
+          .build().start();
+    }
+    assertEquals(40, engine.getActiveEffectCount());
+
+    play(150);
+
+    assertEquals(1, threads.size());
+    assertEquals("hue-effect-engine", threads.iterator().next().getName());
+    for (CountingLight light : lights) {
+      assertTrue(light.frames.get() >= 3, "Only " + light.frames.get() + " frames");
+    }
+  }
+
+  @Test
+  void testFramesFollowTheDelaysOfEachEffect() throws Exception {
+    List<String> frames = new CopyOnWriteArrayList<>();
+    engine.start(countdown(frames, "slow", 3, 60), 0);
+    engine.start(countdown(frames, "fast", 3, 20), TimeUnit.MILLISECONDS.toNanos(10));
+
+    play(150);
+
+    assertEquals(List.of("slow", "fast", "fast", "fast", "slow", "slow"), frames);
+    assertEquals(0, engine.getActiveEffectCount());
+  }
+
+  @Test
+  void testPauseHoldsTheEffectUntilResumed() throws Exception {
+    List<String> frames = new CopyOnWriteArrayList<>();
+    EffectEngine.Handle handle = engine.start(countdown(frames, "frame", 100, 10), 0);
+    play(50);
+    assertEquals(6, frames.size());
+
+    handle.pause();
+    assertEquals(0, engine.getActiveEffectCount());
+    assertEquals(1, engine.getPausedEffectCount());
+    play(100);
+    assertEquals(6, frames.size());
+    assertTrue(handle.isRunning());
+
+    handle.resume();
+    play(20);
+    assertEquals(8, frames.size());
+    assertEquals(1, engine.getActiveEffectCount());
+  }
+
+  @Test
+  void testResumeWhileRenderingQueuesTheEffectOnce() throws Exception {
+    AtomicInteger frames = new AtomicInteger();
+    CountDownLatch rendering = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    EffectEngine.Handle handle = engine.start(elapsed -> {
+      if (frames.incrementAndGet() == 1) {
+        rendering.countDown();
+        await(release);
+      }
+      return TimeUnit.HOURS.toNanos(1);
+    }, 0);
+    assertTrue(rendering.await(2, TimeUnit.SECONDS));
+
+    handle.pause();
+    handle.resume();
+    release.countDown();
+    // A second frame queued by resume() would be due right away, before the frames that settle() waits for
+    settle();
+
+    assertEquals(1, frames.get());
+    assertEquals(1, engine.getActiveEffectCount());
+  }
+
+  @Test
+  void testStopEndsTheEffect() throws Exception {
+    List<String> frames = new CopyOnWriteArrayList<>();
+    EffectEngine.Handle handle = engine.start(countdown(frames, "frame", 100, 10), 0);
+    play(30);
+
+    handle.stop();
+    int stopped = frames.size();
+    play(40);
+
+    assertEquals(4, stopped);
+    assertEquals(stopped, frames.size());
+    assertFalse(handle.isRunning());
+    assertEquals(0, engine.getActiveEffectCount());
+  }
+
+  @Test
+  void testFailingFrameStopsOnlyThatEffect() throws Exception {
+    List<String> frames = new CopyOnWriteArrayList<>();
+    EffectEngine.Handle failing = engine.start(elapsed -> {
+      throw new IllegalStateException("Frame failure");
+    }, 0);
+    engine.start(countdown(frames, "frame", 3, 10), 0);
+
+    play(30);
+
+    assertFalse(failing.isRunning());
+    assertEquals(3, frames.size());
+    assertEquals(0, engine.getActiveEffectCount());
+  }
+
+  @Test
+  void testLateFrameSkipsAheadOnTheClock() throws Exception {
+    List<Long> elapsed = new CopyOnWriteArrayList<>();
+    EffectEngine.Handle handle = engine.start(time -> {
+      elapsed.add(time);
+      if (elapsed.size() == 1) {
+        // Hold up the engine for five frames
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(55));
+      }
+      return elapsed.size() < 3 ? TimeUnit.MILLISECONDS.toNanos(10) : EffectEngine.DONE;
+    }, 0);
+
+    play(30);
+
+    assertEquals(3, elapsed.size());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(55), elapsed.get(1), TimeUnit.MILLISECONDS.toNanos(1));
+    assertEquals(elapsed.get(1) + TimeUnit.MILLISECONDS.toNanos(10), elapsed.get(2), TimeUnit.MILLISECONDS.toNanos(1));
+    FrameStats stats = handle.getStats();
+    assertEquals(3, stats.getFrameCount());
+    assertEquals(4, stats.getDroppedFrameCount());
+    assertTrue(stats.getJitter().getMax().toMillis() >= 40, "Jitter " + stats.getJitter());
+  }
+
+  @Test
+  void testPausedTimeIsNotElapsed() throws Exception {
+    List<Long> elapsed = new CopyOnWriteArrayList<>();
+    EffectEngine.Handle handle = engine.start(time -> {
+      elapsed.add(time);
+      return elapsed.size() < 2 ? TimeUnit.MILLISECONDS.toNanos(20) : EffectEngine.DONE;
+    }, 0);
+    play(5);
+
+    handle.pause();
+    play(100);
+    handle.resume();
+    play(20);
+
+    assertEquals(2, elapsed.size());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(20), elapsed.get(1), TimeUnit.MILLISECONDS.toNanos(1));
+    assertEquals(0, engine.getActiveEffectCount());
+  }
+
+  @Test
+  void testRoundTripOfFramesIsMeasured() throws Exception {
+    CountingLight light = new CountingLight(ConcurrentHashMap.newKeySet());
+    light.response = new CompletableFuture<>();
+    EffectEngine.Handle handle = engine.start(time -> {
+      engine.send(light, new UpdateState().brightness(50));
+      return EffectEngine.DONE;
+    }, 0);
+    settle();
+
+    advance(TimeUnit.MILLISECONDS.toNanos(30));
+    light.response.complete(null);
+
+    assertEquals(30, handle.getStats().getRoundTrip().toMillis());
+  }
+
+  private static EffectEngine.Animation countdown(List<String> frames, String name, int count, long periodMillis) {
+    AtomicInteger left = new AtomicInteger(count);
+    return elapsed -> {
+      frames.add(name);
+      return left.decrementAndGet() > 0 ? TimeUnit.MILLISECONDS.toNanos(periodMillis) : EffectEngine.DONE;
+    };
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(2, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Moves the clock ahead in steps of 5 ms, and waits for the frames due at each step before taking the next.
+   */
+  private void play(long millis) throws InterruptedException {
+    settle();
+    for (long step = 0; step < millis; step += 5) {
+      advance(TimeUnit.MILLISECONDS.toNanos(5));
+      settle();
+    }
+  }
+
+  private void advance(long nanos) {
+    now.addAndGet(nanos);
+    synchronized (engine) {
+      engine.notifyAll();
+    }
+  }
+
+  /**
+   * Waits until the engine rendered every frame that is due. Frames are rendered in the order they are due, so
+   * all of them come before a frame that is due a nanosecond later.
+   */
+  private void settle() throws InterruptedException {
+    EffectEngine.Handle marker = engine.start(elapsed -> EffectEngine.DONE, 1);
+    advance(1);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (marker.isRunning()) {
+      assertTrue(System.nanoTime() < deadline, "Engine stalled");
+      Thread.sleep(1);
+    }
+  }
+
+  private static class CountingLight implements Light, AsyncLight {
+    private final UUID id = UUID.randomUUID();
+    private final Set<Thread> threads;
+    private final AtomicInteger frames = new AtomicInteger();
+    private CompletableFuture<UpdateResult> response = CompletableFuture.completedFuture(null);
+
+    private CountingLight(final Set<Thread> threads) {
+      this.threads = threads;
+    }
+
+    @Override
+    public UUID getId() {
+      return id;
+    }
+
+    @Override
+    public String getName() {
+      return "Light " + id;
+    }
+
+    @Override
+    public void turnOn() {
+    }
+
+    @Override
+    public void turnOff() {
+    }
+
+    @Override
+    public boolean isOn() {
+      return true;
+    }
+
+    @Override
+    public void setBrightness(final int brightness) {
+    }
+
+    @Override
+    public void setState(final UpdateState state) {
+      threads.add(Thread.currentThread());
+      frames.incrementAndGet();
+    }
+
+    @Override
+    public Collection<EffectType> getSupportedEffects() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public UUID getOwnerId() {
+      return id;
+    }
+
+    @Override
+    public CompletableFuture<UpdateResult> turnOnAsync() {
+      return response;
+    }
+
+    @Override
+    public CompletableFuture<UpdateResult> turnOffAsync() {
+      return response;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isOnAsync() {
+      return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public CompletableFuture<UpdateResult> setBrightnessAsync(final int brightness) {
+      return response;
+    }
+
+    @Override
+    public CompletableFuture<UpdateResult> setStateAsync(final UpdateState state) {
+      setState(state);
+      return response;
+    }
+  }
+}
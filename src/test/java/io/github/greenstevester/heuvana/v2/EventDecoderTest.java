@@ -0,0 +1,93 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDecoderTest {
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+  private final EventDecoder decoder = new EventDecoder(objectMapper.getFactory(), Set.of("button", "motion"));
+
+  @Test
+  void testDecodesButtonEvent() throws Exception {
+    List<DecodedEvent> events = decoder.decode(payload("button.json"));
+
+    assertEquals(1, events.size());
+    DecodedEvent event = events.get(0);
+    assertEquals("button", event.getResourceType());
+    assertEquals("initial_press", event.getButtonEvent());
+    assertEquals(UUID.fromString("2b3c4d5e-6f7a-4b8c-9d0e-1f2a3b4c5d6e"), event.getResourceId());
+    assertEquals(UUID.fromString("3c4d5e6f-7a8b-4c9d-0e1f-2a3b4c5d6e7f"), event.getOwnerId());
+    assertEquals(UUID.fromString("4d5e6f7a-8b9c-4d0e-1f2a-3b4c5d6e7f80"), event.getEventId());
+    assertEquals("2024-03-02T18:45:11Z", event.getCreationTime());
+    assertEquals("update", event.getEventType());
+    assertNull(event.getMotion());
+  }
+
+  @Test
+  void testDecodesMotionEvent() throws Exception {
+    List<DecodedEvent> events = decoder.decode(payload("motion.json"));
+
+    assertEquals(1, events.size());
+    assertEquals(Boolean.TRUE, events.get(0).getMotion());
+    assertTrue(events.get(0).isMotionValid());
+    assertNull(events.get(0).getButtonEvent());
+  }
+
+  @Test
+  void testSkipsResourcesOfOtherTypes() throws Exception {
+    assertTrue(decoder.decode(payload("light-update.json")).isEmpty());
+
+    List<DecodedEvent> events = decoder.decode(payload("scene-recall.json"));
+    assertEquals(1, events.size());
+    assertEquals("short_release", events.get(0).getButtonEvent());
+    assertEquals(UUID.fromString("ad0e1f2a-3b4c-4d5e-6f70-8192a3b4c5d6"), events.get(0).getEventId());
+  }
+
+  @Test
+  void testAgreesWithFullBinding() throws Exception {
+    EventDecoder lights = new EventDecoder(objectMapper.getFactory(), Set.of("light"));
+    String json = payload("scene-recall.json");
+
+    List<DecodedEvent> decoded = lights.decode(json);
+    List<UUID> bound = objectMapper.readValue(json, BasicHueEventHandler.EVENT_LIST_TYPE_REF).stream()
+        .flatMap(event -> event.getData().stream())
+        .filter(data -> "light".equals(data.getType()))
+        .map(data -> data.getResourceId())
+        .toList();
+
+    assertEquals(bound, decoded.stream().map(DecodedEvent::getResourceId).toList());
+  }
+
+  @Test
+  void testTypeBeforeOtherFields() throws Exception {
+    List<DecodedEvent> events = decoder.decode("[{\"type\":\"update\",\"data\":[" +
+        "{\"type\":\"light\",\"color\":{\"xy\":{\"x\":0.1,\"y\":0.2}},\"button\":{\"last_event\":\"x\"}}," +
+        "{\"type\":\"button\",\"button\":{\"last_event\":\"long_press\"}}]}]");
+
+    assertEquals(1, events.size());
+    assertEquals("long_press", events.get(0).getButtonEvent());
+  }
+
+  @Test
+  void testEmptyAndUnexpectedMessages() throws Exception {
+    assertTrue(decoder.decode("[]").isEmpty());
+    assertTrue(decoder.decode("{}").isEmpty());
+    assertTrue(decoder.decode("[{\"data\":{\"id\":[1,2]},\"id\":{\"x\":1}},3]").isEmpty());
+  }
+
+  static String payload(final String name) throws IOException {
+    try (InputStream input = EventDecoderTest.class.getClassLoader().getResourceAsStream("events/" + name)) {
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
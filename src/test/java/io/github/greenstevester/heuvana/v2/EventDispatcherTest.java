@@ -0,0 +1,207 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDispatcherTest {
+
+  private final List<String> received = new CopyOnWriteArrayList<>();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final CountDownLatch blocked = new CountDownLatch(1);
+  private EventDispatcher dispatcher;
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    dispatcher.close();
+  }
+
+  @Test
+  void testDeliversInOrderOnAnotherThread() throws Exception {
+    dispatcher = new EventDispatcher(EventDispatchConfig.defaults());
+    CompletableFuture<Thread> listenerThread = new CompletableFuture<>();
+
+    dispatcher.dispatch(null, true, () -> listenerThread.complete(Thread.currentThread()));
+    for (int i = 0; i < 100; i++) {
+      final String event = "event " + i;
+      dispatcher.dispatch("light", true, () -> received.add(event));
+    }
+
+    assertNotSame(Thread.currentThread(), listenerThread.get(1, TimeUnit.SECONDS));
+    awaitDelivered(101);
+    assertEquals(100, received.size());
+    assertEquals("event 0", received.get(0));
+    assertEquals("event 99", received.get(99));
+  }
+
+  @Test
+  void testDropOldest() throws Exception {
+    dispatcher = new EventDispatcher(config(2, EventOverflowPolicy.DROP_OLDEST));
+    blockListener();
+
+    dispatcher.dispatch(null, true, () -> received.add("1"));
+    dispatcher.dispatch(null, true, () -> received.add("2"));
+    dispatcher.dispatch(null, true, () -> received.add("3"));
+    assertEquals(2, dispatcher.getQueueDepth());
+    release.countDown();
+
+    awaitDelivered(3);
+    assertEquals(List.of("2", "3"), received);
+    assertEquals(1, dispatcher.getDroppedCount());
+  }
+
+  @Test
+  void testCoalescePerResourceWhenFull() throws Exception {
+    dispatcher = new EventDispatcher(config(2, EventOverflowPolicy.COALESCE));
+    blockListener();
+
+    dispatcher.dispatch("motion:a", true, () -> received.add("a1"));
+    dispatcher.dispatch("motion:b", true, () -> received.add("b1"));
+    dispatcher.dispatch("motion:a", true, () -> received.add("a2"));
+    dispatcher.dispatch("motion:a", true, () -> received.add("a3"));
+    release.countDown();
+
+    awaitDelivered(3);
+    assertEquals(List.of("a3", "b1"), received);
+    assertEquals(2, dispatcher.getCoalescedCount());
+    assertEquals(0, dispatcher.getDroppedCount());
+  }
+
+  @Test
+  void testCoalesceKeepsEveryEventUntilFull() throws Exception {
+    dispatcher = new EventDispatcher(config(10, EventOverflowPolicy.COALESCE));
+    blockListener();
+
+    dispatcher.dispatch("motion:a", true, () -> received.add("a1"));
+    dispatcher.dispatch("motion:a", true, () -> received.add("a2"));
+    dispatcher.dispatch("button:b", false, true, () -> received.add("b1"));
+    dispatcher.dispatch("button:b", false, true, () -> received.add("b2"));
+    release.countDown();
+
+    awaitDelivered(5);
+    assertEquals(List.of("a1", "a2", "b1", "b2"), received);
+    assertEquals(0, dispatcher.getCoalescedCount());
+  }
+
+  @Test
+  void testBlockWaitsForTheListener() throws Exception {
+    dispatcher = new EventDispatcher(config(1, EventOverflowPolicy.BLOCK));
+    blockListener();
+    dispatcher.dispatch(null, true, () -> received.add("1"));
+
+    CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> dispatcher.dispatch(null, true, () -> received.add("2")));
+    Thread.sleep(100);
+    assertFalse(producer.isDone());
+    release.countDown();
+
+    producer.get(1, TimeUnit.SECONDS);
+    awaitDelivered(3);
+    assertEquals(List.of("1", "2"), received);
+    assertEquals(0, dispatcher.getDroppedCount());
+  }
+
+  @Test
+  void testConnectionNotificationsAreNeverDropped() throws Exception {
+    dispatcher = new EventDispatcher(config(1, EventOverflowPolicy.DROP_OLDEST));
+    blockListener();
+
+    dispatcher.dispatch(null, false, () -> received.add("opened"));
+    dispatcher.dispatch(null, true, () -> received.add("event"));
+    release.countDown();
+
+    awaitDelivered(3);
+    assertEquals(List.of("opened", "event"), received);
+  }
+
+  @Test
+  void testFailingListenerDoesNotStopDelivery() throws Exception {
+    dispatcher = new EventDispatcher(EventDispatchConfig.defaults());
+
+    dispatcher.dispatch(null, true, () -> {
+      throw new IllegalStateException("Listener failure");
+    });
+    dispatcher.dispatch(null, true, () -> received.add("after"));
+
+    awaitDelivered(2);
+    assertEquals(List.of("after"), received);
+  }
+
+  @Test
+  void testParallelDeliveryKeepsEachResourceInOrder() throws Exception {
+    dispatcher = new EventDispatcher(EventDispatchConfig.builder().parallelism(4).build());
+    dispatcher.dispatch("light:a", false, true, () -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      received.add("a1");
+    });
+    assertTrue(blocked.await(1, TimeUnit.SECONDS));
+    dispatcher.dispatch("light:a", false, true, () -> received.add("a2"));
+    dispatcher.dispatch("light:b", false, true, () -> received.add("b1"));
+    dispatcher.dispatch("light:b", false, true, () -> received.add("b2"));
+
+    awaitDelivered(2);
+    assertEquals(List.of("b1", "b2"), received);
+    release.countDown();
+    awaitDelivered(4);
+    assertEquals(List.of("b1", "b2", "a1", "a2"), received);
+  }
+
+  @Test
+  void testParallelDeliveryWaitsForEventsNotOfAResource() throws Exception {
+    dispatcher = new EventDispatcher(EventDispatchConfig.builder().parallelism(4).build());
+    dispatcher.dispatch("light:a", false, true, () -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      received.add("a");
+    });
+    assertTrue(blocked.await(1, TimeUnit.SECONDS));
+    dispatcher.dispatch(null, false, () -> received.add("closed"));
+    dispatcher.dispatch("light:b", false, true, () -> received.add("b"));
+
+    Thread.sleep(100);
+    assertTrue(received.isEmpty());
+    release.countDown();
+    awaitDelivered(3);
+    assertEquals(List.of("a", "closed", "b"), received);
+  }
+
+  private void blockListener() throws InterruptedException {
+    dispatcher.dispatch(null, false, () -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    assertTrue(blocked.await(1, TimeUnit.SECONDS));
+  }
+
+  private void awaitDelivered(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (dispatcher.getDeliveredCount() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(count, dispatcher.getDeliveredCount());
+  }
+
+  private static EventDispatchConfig config(int capacity, EventOverflowPolicy policy) {
+    return EventDispatchConfig.builder().queueCapacity(capacity).overflowPolicy(policy).build();
+  }
+}
@@ -0,0 +1,192 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventPublisherTest {
+
+  private final AtomicInteger streamsOpened = new AtomicInteger();
+  private final AtomicInteger streamsClosed = new AtomicInteger();
+  private EventPublisher<String> publisher;
+
+  @AfterEach
+  void tearDown() {
+    publisher.close();
+  }
+
+  @Test
+  void testDeliversOnlyWhatWasRequested() throws Exception {
+    publisher = publisher(EventDispatchConfig.defaults());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    publisher.publish(null, "1");
+    publisher.publish(null, "2");
+    publisher.publish(null, "3");
+    Thread.sleep(50);
+    assertTrue(subscriber.received.isEmpty());
+
+    subscriber.subscription.request(2);
+    awaitReceived(subscriber, 2);
+    Thread.sleep(50);
+    assertEquals(List.of("1", "2"), subscriber.received);
+
+    subscriber.subscription.request(5);
+    awaitReceived(subscriber, 3);
+    assertEquals(List.of("1", "2", "3"), subscriber.received);
+  }
+
+  @Test
+  void testDropOldestWhenTheBufferIsFull() throws Exception {
+    publisher = publisher(config(2, EventOverflowPolicy.DROP_OLDEST));
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    publisher.publish(null, "1");
+    publisher.publish(null, "2");
+    publisher.publish(null, "3");
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    awaitReceived(subscriber, 2);
+    assertEquals(List.of("2", "3"), subscriber.received);
+  }
+
+  @Test
+  void testCoalescePerKeyWhenFull() throws Exception {
+    publisher = publisher(config(2, EventOverflowPolicy.COALESCE));
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    publisher.publish("motion:a", "a1");
+    publisher.publish("motion:b", "b1");
+    publisher.publish("motion:a", "a2");
+    subscriber.subscription.request(10);
+
+    awaitReceived(subscriber, 2);
+    assertEquals(List.of("a2", "b1"), subscriber.received);
+  }
+
+  @Test
+  void testBlockWaitsForDemand() throws Exception {
+    publisher = publisher(config(1, EventOverflowPolicy.BLOCK));
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    publisher.publish(null, "1");
+
+    CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> publisher.publish(null, "2"));
+    Thread.sleep(100);
+    assertFalse(producer.isDone());
+
+    subscriber.subscription.request(2);
+    producer.get(1, TimeUnit.SECONDS);
+    awaitReceived(subscriber, 2);
+    assertEquals(List.of("1", "2"), subscriber.received);
+  }
+
+  @Test
+  void testStreamFollowsTheSubscribers() {
+    publisher = publisher(EventDispatchConfig.defaults());
+    RecordingSubscriber first = new RecordingSubscriber();
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(first);
+    publisher.subscribe(second);
+    assertEquals(1, streamsOpened.get());
+    assertEquals(2, publisher.getSubscriberCount());
+
+    first.subscription.cancel();
+    assertEquals(0, streamsClosed.get());
+    second.subscription.cancel();
+    assertEquals(1, streamsClosed.get());
+  }
+
+  @Test
+  void testNonPositiveRequestFailsTheSubscription() throws Exception {
+    publisher = publisher(EventDispatchConfig.defaults());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    subscriber.subscription.request(0);
+
+    assertInstanceOf(IllegalArgumentException.class, subscriber.terminated.get(1, TimeUnit.SECONDS));
+    assertEquals(0, publisher.getSubscriberCount());
+  }
+
+  @Test
+  void testCloseCompletesAfterBufferedEvents() throws Exception {
+    publisher = publisher(EventDispatchConfig.defaults());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    publisher.publish(null, "1");
+
+    publisher.close();
+    assertFalse(subscriber.terminated.isDone());
+    subscriber.subscription.request(1);
+
+    assertNull(subscriber.terminated.get(1, TimeUnit.SECONDS));
+    assertEquals(List.of("1"), subscriber.received);
+  }
+
+  private EventPublisher<String> publisher(final EventDispatchConfig config) {
+    return new EventPublisher<>(config, listener -> {
+      streamsOpened.incrementAndGet();
+      return new HueEventSource() {
+        @Override
+        public void close() {
+          streamsClosed.incrementAndGet();
+        }
+
+        @Override
+        public HueEventStreamState getState() {
+          return HueEventStreamState.ACTIVE;
+        }
+      };
+    }, (message, target) -> target.publish(null, message.getData()));
+  }
+
+  private static EventDispatchConfig config(int capacity, EventOverflowPolicy policy) {
+    return EventDispatchConfig.builder().queueCapacity(capacity).overflowPolicy(policy).build();
+  }
+
+  private static void awaitReceived(RecordingSubscriber subscriber, int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (subscriber.received.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(count, subscriber.received.size());
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<String> {
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Throwable> terminated = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(final String item) {
+      received.add(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+      terminated.complete(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      terminated.complete(null);
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.domain.HueEvent;
+import io.github.greenstevester.heuvana.v2.domain.HueEventData;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRegistryTest {
+
+  private static final UUID LIGHT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final UUID MOTION = UUID.fromString("00000000-0000-0000-0000-000000000002");
+  private static final UUID SENSOR = UUID.fromString("00000000-0000-0000-0000-000000000003");
+  private static final UUID OTHER_LIGHT = UUID.fromString("00000000-0000-0000-0000-000000000004");
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+  private final AtomicInteger streamsOpened = new AtomicInteger();
+  private final AtomicInteger streamsClosed = new AtomicInteger();
+  private final AtomicReference<EventStreamListener> stream = new AtomicReference<>();
+  private final EventRegistry registry = new EventRegistry(handler -> {
+    streamsOpened.incrementAndGet();
+    stream.set(handler);
+    return new HueEventSource() {
+      @Override
+      public void close() {
+        streamsClosed.incrementAndGet();
+      }
+
+      @Override
+      public HueEventStreamState getState() {
+        return HueEventStreamState.ACTIVE;
+      }
+    };
+  });
+
+  @AfterEach
+  void tearDown() {
+    registry.close();
+  }
+
+  @Test
+  void testRoutesOnlyToInterestedHandlers() throws Exception {
+    List<String> received = new ArrayList<>();
+    registry.onLight(LIGHT, data -> received.add("light " + data.getResourceId()));
+    registry.onOwner(SENSOR, data -> received.add("sensor " + data.getResourceId()));
+    registry.onType(ResourceType.MOTION, data -> received.add("motion " + data.getResourceId()));
+
+    registry.route(events());
+
+    assertEquals(List.of("light " + LIGHT, "sensor " + MOTION, "motion " + MOTION), received);
+    assertEquals(1, streamsOpened.get());
+  }
+
+  @Test
+  void testClosedSubscriptionsReceiveNothing() throws Exception {
+    List<HueEventData> received = new ArrayList<>();
+    EventRegistry.Subscription byLight = registry.onLight(LIGHT, received::add);
+    EventRegistry.Subscription byType = registry.onType(ResourceType.LIGHT, received::add);
+    byLight.close();
+    byType.close();
+
+    registry.route(events());
+
+    assertTrue(received.isEmpty());
+  }
+
+  @Test
+  void testFailingHandlerDoesNotStopRouting() throws Exception {
+    List<UUID> received = new ArrayList<>();
+    registry.onLight(LIGHT, data -> {
+      throw new IllegalStateException("Handler failure");
+    });
+    registry.onLight(LIGHT, data -> received.add(data.getResourceId()));
+
+    registry.route(events());
+
+    assertEquals(List.of(LIGHT), received);
+  }
+
+  @Test
+  void testClosingTheLastSubscriptionClosesTheStream() {
+    EventRegistry.Subscription first = registry.onLight(LIGHT, data -> { });
+    EventRegistry.Subscription second = registry.onType(ResourceType.MOTION, data -> { });
+
+    first.close();
+    first.close();
+    assertEquals(0, streamsClosed.get());
+    second.close();
+    assertEquals(1, streamsClosed.get());
+    assertTrue(registry.getDispatcher().isEmpty());
+
+    registry.onOwner(SENSOR, data -> { });
+    assertEquals(2, streamsOpened.get());
+  }
+
+  @Test
+  void testSkipsBindingMessagesOfNoInterest() {
+    List<EventLatencyStage> stages = new ArrayList<>();
+    registry.onLight(UUID.randomUUID(), data -> { });
+    registry.onType(ResourceType.BUTTON, data -> { });
+
+    stream.get().onEvents(new EventMessage(objectMapper, json(), (type, stage, nanos) -> stages.add(stage)));
+    assertFalse(stages.contains(EventLatencyStage.PARSE));
+
+    registry.onOwner(SENSOR, data -> { });
+    stream.get().onEvents(new EventMessage(objectMapper, json(), (type, stage, nanos) -> stages.add(stage)));
+    assertTrue(stages.contains(EventLatencyStage.PARSE));
+  }
+
+  private List<HueEvent> events() throws Exception {
+    return objectMapper.readValue(json(), BasicHueEventHandler.EVENT_LIST_TYPE_REF);
+  }
+
+  private static String json() {
+    return "[{\"creationtime\":\"2024-01-01T00:00:00Z\",\"id\":\"" + UUID.randomUUID() + "\",\"type\":\"update\","
+        + "\"data\":["
+        + "{\"id\":\"" + LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":true}},"
+        + "{\"id\":\"" + OTHER_LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":false}},"
+        + "{\"id\":\"" + MOTION + "\",\"type\":\"motion\",\"owner\":{\"rid\":\"" + SENSOR + "\",\"rtype\":\"device\"},"
+        + "\"motion\":{\"motion\":true,\"motion_valid\":true}}"
+        + "]}]";
+  }
+}
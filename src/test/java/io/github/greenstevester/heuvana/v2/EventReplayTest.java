@@ -0,0 +1,162 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventReplayTest {
+
+  private static final String FIRST = "[{\"id\":\"a0000000-0000-0000-0000-000000000001\",\"type\":\"update\",\"data\":[]}]";
+  private static final String SECOND = "[{\"id\":\"a0000000-0000-0000-0000-000000000002\",\"type\":\"update\",\"data\":[]}]";
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void testRecordsEachMessageOnALine() throws Exception {
+    Path file = dir.resolve("events.log");
+    RecordingListener[] tap = new RecordingListener[1];
+    try (EventRecorder recorder = new EventRecorder(file, listener -> {
+      tap[0] = new RecordingListener(listener);
+      return tap[0];
+    })) {
+      tap[0].listener.onEvents(new EventMessage(objectMapper, "[\n{\"type\":\"update\"}]"));
+      tap[0].listener.onEvents(new EventMessage(objectMapper, FIRST));
+      assertEquals(2, recorder.getRecordedCount());
+    }
+
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).matches("\\d+ \\[ \\{\"type\":\"update\"}]"));
+    assertTrue(lines.get(1).endsWith(" " + FIRST));
+    assertTrue(tap[0].closed);
+  }
+
+  @Test
+  void testReplaysThroughTheSharedStreamAndReports() throws Exception {
+    Path file = dir.resolve("events.log");
+    Files.write(file, List.of("1000 " + FIRST, "", "61000 " + SECOND), StandardCharsets.UTF_8);
+    EventReplay replay = EventReplay.builder(file).asFastAsPossible().build();
+    SharedEventStream stream = new SharedEventStream(objectMapper, replay::start,
+        new EventResync(objectMapper, type -> objectMapper.createArrayNode()));
+    replay.setDispatchers(stream::getDispatchers);
+
+    List<String> received = new CopyOnWriteArrayList<>();
+    EventDispatcher dispatcher = new EventDispatcher(EventDispatchConfig.defaults());
+    HueEventSource source = stream.subscribe(new EventStreamListener() {
+      @Override
+      public void onOpen() {
+      }
+
+      @Override
+      public void onClosed() {
+      }
+
+      @Override
+      public void onEvents(final EventMessage message) {
+        dispatcher.dispatch(null, true, () -> received.add(message.getData()));
+      }
+
+      @Override
+      public String toString() {
+        return "automation";
+      }
+    }, dispatcher);
+
+    EventReplay.Report report = replay.whenFinished().get(5, TimeUnit.SECONDS);
+
+    assertEquals(List.of(FIRST, SECOND), received);
+    assertEquals(2, report.getMessageCount());
+    assertTrue(report.getElapsed().getSeconds() < 60);
+    assertTrue(report.getThroughput() > 0);
+    assertEquals(1, report.getListenerLatencies().size());
+    assertEquals("automation", report.getListenerLatencies().get(0).getListener());
+    assertEquals(2, report.getListenerLatencies().get(0).getEventCount());
+    awaitState(source, HueEventStreamState.CLOSED);
+    source.close();
+  }
+
+  @Test
+  void testScalesTheRecordedTiming() throws Exception {
+    Path file = dir.resolve("events.log");
+    Files.write(file, List.of("1000 " + FIRST, "1200 " + SECOND), StandardCharsets.UTF_8);
+    EventReplay replay = EventReplay.builder(file).speed(2).build();
+    SharedEventStream stream = new SharedEventStream(objectMapper, replay::start,
+        new EventResync(objectMapper, type -> objectMapper.createArrayNode()));
+    HueEventSource source = stream.subscribe(new RecordingListener(null), null);
+
+    EventReplay.Report report = replay.whenFinished().get(5, TimeUnit.SECONDS);
+
+    assertEquals(2, report.getMessageCount());
+    assertTrue(report.getElapsed().toMillis() >= 100, report.getElapsed().toString());
+    assertTrue(report.getListenerLatencies().isEmpty());
+    source.close();
+  }
+
+  @Test
+  void testMissingRecordingFailsTheReport() {
+    EventReplay replay = EventReplay.builder(dir.resolve("missing.log")).build();
+    SharedEventStream stream = new SharedEventStream(objectMapper, replay::start,
+        new EventResync(objectMapper, type -> objectMapper.createArrayNode()));
+    HueEventSource source = stream.subscribe(new RecordingListener(null), null);
+
+    assertThrows(Exception.class, () -> replay.whenFinished().get(5, TimeUnit.SECONDS));
+    source.close();
+  }
+
+  @Test
+  void testSpeedMustBePositive() {
+    assertThrows(IllegalArgumentException.class, () -> EventReplay.builder(dir).speed(0));
+    assertThrows(IllegalArgumentException.class, () -> EventReplay.builder(null));
+  }
+
+  private static void awaitState(HueEventSource source, HueEventStreamState state) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (source.getState() != state && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(state, source.getState());
+  }
+
+  private static class RecordingListener implements HueEventSource, EventStreamListener {
+    private final EventStreamListener listener;
+    private boolean closed;
+
+    private RecordingListener(final EventStreamListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void onOpen() {
+    }
+
+    @Override
+    public void onClosed() {
+    }
+
+    @Override
+    public void onEvents(final EventMessage message) {
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public HueEventStreamState getState() {
+      return closed ? HueEventStreamState.CLOSED : HueEventStreamState.ACTIVE;
+    }
+  }
+}
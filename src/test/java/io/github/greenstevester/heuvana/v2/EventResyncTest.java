@@ -0,0 +1,128 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventResyncTest {
+
+  private static final String LIGHT = "00000000-0000-0000-0000-000000000001";
+  private static final String MOTION = "00000000-0000-0000-0000-000000000002";
+  private static final String BUTTON = "00000000-0000-0000-0000-000000000003";
+  private static final String NEW_BUTTON = "00000000-0000-0000-0000-000000000004";
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+  private final Map<ResourceType, String> bridge = new EnumMap<>(ResourceType.class);
+  private final EventResync resync = new EventResync(objectMapper, this::fetch);
+
+  @Test
+  void testAnnouncesOnlyTheChangedFields() throws Exception {
+    bridge.put(ResourceType.LIGHT, "[{\"id\":\"" + LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":false}," +
+        "\"dimming\":{\"brightness\":50.0},\"metadata\":{\"name\":\"Desk\"}}]");
+    bridge.put(ResourceType.MOTION, "[{\"id\":\"" + MOTION + "\",\"type\":\"motion\",\"motion\":{\"motion\":false}}]");
+    resync.load();
+
+    bridge.put(ResourceType.LIGHT, "[{\"id\":\"" + LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":true}," +
+        "\"dimming\":{\"brightness\":50.0},\"metadata\":{\"name\":\"Desk\"}}]");
+    JsonNode events = objectMapper.readTree(resync.resync());
+
+    assertEquals(1, events.size());
+    assertEquals("update", events.get(0).path("type").asText());
+    JsonNode light = events.get(0).path("data").get(0);
+    assertEquals(LIGHT, light.path("id").asText());
+    assertEquals("light", light.path("type").asText());
+    assertTrue(light.path("on").path("on").asBoolean());
+    assertFalse(light.has("dimming"));
+    assertFalse(light.has("metadata"));
+  }
+
+  @Test
+  void testAnnouncesAddedAndDeletedResources() throws Exception {
+    bridge.put(ResourceType.MOTION, "[{\"id\":\"" + MOTION + "\",\"type\":\"motion\",\"motion\":{\"motion\":false}}]");
+    resync.load();
+
+    bridge.remove(ResourceType.MOTION);
+    bridge.put(ResourceType.BUTTON, "[{\"id\":\"" + BUTTON + "\",\"type\":\"button\"," +
+        "\"button\":{\"last_event\":\"short_release\"}}]");
+    JsonNode events = objectMapper.readTree(resync.resync());
+
+    assertEquals(2, events.size());
+    assertEquals("add", events.get(0).path("type").asText());
+    assertEquals(BUTTON, events.get(0).path("data").get(0).path("id").asText());
+    assertEquals("delete", events.get(1).path("type").asText());
+    assertEquals(MOTION, events.get(1).path("data").get(0).path("id").asText());
+    assertEquals("motion", events.get(1).path("data").get(0).path("type").asText());
+  }
+
+  @Test
+  void testChangesSeenOnTheStreamAreNotAnnouncedAgain() throws Exception {
+    bridge.put(ResourceType.LIGHT, "[{\"id\":\"" + LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":false}}]");
+    resync.load();
+
+    resync.track("[{\"type\":\"update\",\"data\":[{\"id\":\"" + LIGHT + "\"," +
+        "\"type\":\"light\",\"on\":{\"on\":true}}]}]");
+    bridge.put(ResourceType.LIGHT, "[{\"id\":\"" + LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":true}}]");
+
+    assertNull(resync.resync());
+  }
+
+  @Test
+  void testOnlyTheLatestMessagesAreKept() throws Exception {
+    bridge.put(ResourceType.LIGHT, "[{\"id\":\"" + LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":false}}]");
+    resync.load();
+
+    resync.track("[{\"type\":\"update\",\"data\":[{\"id\":\"" + LIGHT + "\"," +
+        "\"type\":\"light\",\"on\":{\"on\":true}}]}]");
+    for (int i = 0; i < EventResync.MAX_PENDING; i++) {
+      resync.track("[]");
+    }
+    bridge.put(ResourceType.LIGHT, "[{\"id\":\"" + LIGHT + "\",\"type\":\"light\",\"on\":{\"on\":true}}]");
+
+    // The update was forgotten, so it is announced again
+    JsonNode events = objectMapper.readTree(resync.resync());
+    assertEquals("update", events.get(0).path("type").asText());
+  }
+
+  @Test
+  void testLastButtonPressIsNotAnnouncedAgain() throws Exception {
+    bridge.put(ResourceType.BUTTON, "[{\"id\":\"" + BUTTON + "\",\"type\":\"button\"," +
+        "\"button\":{\"last_event\":\"short_release\"}}]");
+    resync.load();
+
+    bridge.put(ResourceType.BUTTON, "[{\"id\":\"" + BUTTON + "\",\"type\":\"button\"," +
+        "\"button\":{\"last_event\":\"long_release\"}}," +
+        "{\"id\":\"" + NEW_BUTTON + "\",\"type\":\"button\",\"button\":{\"last_event\":\"initial_press\"}}]");
+    JsonNode events = objectMapper.readTree(resync.resync());
+
+    assertEquals(1, events.size());
+    assertEquals("add", events.get(0).path("type").asText());
+    JsonNode added = events.get(0).path("data").get(0);
+    assertEquals(NEW_BUTTON, added.path("id").asText());
+    assertFalse(added.has("button"));
+  }
+
+  @Test
+  void testOnlyRuntimeTypesAreFetched() {
+    Map<ResourceType, Integer> fetched = new EnumMap<>(ResourceType.class);
+    new EventResync(objectMapper, type -> {
+      fetched.merge(type, 1, Integer::sum);
+      return objectMapper.createArrayNode();
+    }).load();
+
+    assertEquals(EventResync.RUNTIME_TYPES, fetched.keySet());
+  }
+
+  private JsonNode fetch(final ResourceType type) {
+    try {
+      return objectMapper.readTree(bridge.getOrDefault(type, "[]"));
+    } catch (final Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportConfigTest {
+
+  @Test
+  void testDefaults() {
+    HttpTransportConfig config = HttpTransportConfig.defaults();
+
+    assertEquals(4, config.getMaxConnectionsPerBridge());
+    assertEquals(4, config.getMaxConcurrentRequests());
+    assertEquals(Duration.ofSeconds(20), config.getIdleTimeout());
+    assertEquals(Duration.ofSeconds(5), config.getConnectTimeout());
+    assertEquals(Duration.ofSeconds(10), config.getReadTimeout());
+  }
+
+  @Test
+  void testBuilder() {
+    HttpTransportConfig config = HttpTransportConfig.builder()
+        .maxConnectionsPerBridge(8)
+        .maxConcurrentRequests(200)
+        .idleTimeout(Duration.ofMinutes(1))
+        .connectTimeout(Duration.ofMillis(1500))
+        .readTimeout(Duration.ofSeconds(3))
+        .build();
+
+    assertEquals(8, config.getMaxConnectionsPerBridge());
+    assertEquals(200, config.getMaxConcurrentRequests());
+    assertEquals(Duration.ofMinutes(1), config.getIdleTimeout());
+    assertEquals(Duration.ofMillis(1500), config.getConnectTimeout());
+    assertEquals(Duration.ofSeconds(3), config.getReadTimeout());
+  }
+
+  @Test
+  void testMaxConcurrentRequestsFollowsMaxConnections() {
+    HttpTransportConfig config = HttpTransportConfig.builder()
+        .maxConnectionsPerBridge(2)
+        .build();
+
+    assertEquals(2, config.getMaxConcurrentRequests());
+  }
+
+  @Test
+  void testBuilderRejectsInvalidValues() {
+    HttpTransportConfig.Builder builder = HttpTransportConfig.builder();
+
+    assertThrows(IllegalArgumentException.class, () -> builder.maxConnectionsPerBridge(0));
+    assertThrows(IllegalArgumentException.class, () -> builder.maxConcurrentRequests(0));
+    assertThrows(IllegalArgumentException.class, () -> builder.idleTimeout(Duration.ZERO));
+    assertThrows(IllegalArgumentException.class, () -> builder.connectTimeout(null));
+    assertThrows(IllegalArgumentException.class, () -> builder.readTimeout(Duration.ofSeconds(-1)));
+  }
+}
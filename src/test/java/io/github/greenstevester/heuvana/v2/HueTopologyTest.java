@@ -0,0 +1,60 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.domain.LightResource;
+import io.github.greenstevester.heuvana.v2.domain.Resource;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.util.Collections.emptyMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HueTopologyTest {
+
+  private static final UUID LIGHT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final UUID ROOM = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+
+  @Test
+  void testEmptyTopology() {
+    assertTrue(HueTopology.EMPTY.getLights().isEmpty());
+    assertTrue(HueTopology.EMPTY.getRooms().isEmpty());
+    assertFalse(HueTopology.EMPTY.getRoomByName("Office").isPresent());
+    assertNull(HueTopology.EMPTY.getBridgeId());
+  }
+
+  @Test
+  void testSnapshotIsNotAffectedByLaterChangesOfTheSourceMaps() throws Exception {
+    Map<UUID, Resource> resources = new HashMap<>();
+    LightResource lightResource = (LightResource) resource("{\"id\":\"" + LIGHT + "\",\"type\":\"light\","
+        + "\"owner\":{\"rid\":\"" + UUID.randomUUID() + "\",\"rtype\":\"device\"},\"metadata\":{\"name\":\"Desk\"}}");
+    resources.put(LIGHT, lightResource);
+    resources.put(ROOM, resource("{\"id\":\"" + ROOM + "\",\"type\":\"room\",\"metadata\":{\"name\":\"Office\"},"
+        + "\"children\":[{\"rid\":\"" + LIGHT + "\",\"rtype\":\"light\"}],\"services\":[]}"));
+    Map<UUID, Light> lights = new HashMap<>();
+    lights.put(LIGHT, new LightImpl(LIGHT, lightResource, null, null, null));
+    Map<UUID, Group> groups = new HashMap<>();
+    groups.put(ROOM, new GroupImpl(ROOM, ResourceType.ROOM, "Office", List.of(), null, null, null, null, null));
+
+    HueTopology topology = new HueTopology(emptyMap(), resources, lights, emptyMap(), groups,
+        emptyMap(), emptyMap(), "00173321ae25bae8");
+    lights.clear();
+    groups.clear();
+
+    assertEquals(1, topology.getLights().size());
+    assertEquals(ROOM, topology.getRoomByName("Office").orElseThrow().getId());
+    assertEquals(List.of(ROOM), topology.getGroupsOfLight(LIGHT).stream().map(Group::getId).toList());
+    assertEquals("00173321ae25bae8", topology.getBridgeId());
+    assertThrows(UnsupportedOperationException.class, () -> topology.getLights().clear());
+  }
+
+  private Resource resource(String json) throws Exception {
+    return objectMapper.readValue(json, Resource.class);
+  }
+}
@@ -0,0 +1,103 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedSerialExecutorTest {
+
+  private final KeyedSerialExecutor executor = new KeyedSerialExecutor(4);
+
+  @AfterEach
+  void tearDown() {
+    executor.close();
+  }
+
+  @Test
+  void testTasksOfAKeyRunInOrder() throws Exception {
+    Map<String, List<Integer>> runs = new ConcurrentHashMap<>();
+    CountDownLatch done = new CountDownLatch(300);
+    for (int i = 0; i < 100; i++) {
+      for (String key : List.of("a", "b", "c")) {
+        final int task = i;
+        executor.execute(key, () -> {
+          runs.computeIfAbsent(key, k -> new ArrayList<>()).add(task);
+          done.countDown();
+        });
+      }
+    }
+
+    assertTrue(done.await(2, TimeUnit.SECONDS));
+    for (List<Integer> run : runs.values()) {
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i, run.get(i));
+      }
+    }
+  }
+
+  @Test
+  void testBlockedKeyDoesNotHoldUpOthers() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch other = new CountDownLatch(1);
+    executor.execute("slow", () -> {
+      try {
+        release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    executor.execute("slow", other::countDown);
+    executor.execute("fast", other::countDown);
+
+    assertTrue(other.await(1, TimeUnit.SECONDS));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (executor.getActiveKeyCount() > 1 && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(1, executor.getActiveKeyCount());
+    release.countDown();
+  }
+
+  @Test
+  void testFailingTaskDoesNotStopTheKey() throws Exception {
+    CountDownLatch after = new CountDownLatch(1);
+    executor.execute("a", () -> {
+      throw new IllegalStateException("Task failure");
+    });
+    executor.execute("a", after::countDown);
+
+    assertTrue(after.await(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testErrorInTaskDoesNotStopTheKey() throws Exception {
+    CountDownLatch after = new CountDownLatch(1);
+    executor.execute("a", () -> {
+      throw new AssertionError("Task error");
+    });
+    executor.execute("a", after::countDown);
+
+    assertTrue(after.await(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testCloseRunsSubmittedTasksThenRejects() throws Exception {
+    CountDownLatch ran = new CountDownLatch(2);
+    executor.execute("a", ran::countDown);
+    executor.execute("a", ran::countDown);
+    executor.close();
+
+    assertTrue(ran.await(1, TimeUnit.SECONDS));
+    assertThrows(RejectedExecutionException.class, () -> executor.execute("a", () -> {
+    }));
+  }
+}
@@ -0,0 +1,86 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+  @Test
+  void testBucketsCoverEveryValueWithinAnEighth() {
+    for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1_000, 123_456_789, Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      long upperBound = LatencyHistogram.upperBoundOf(bucket);
+      assertTrue(upperBound >= value, value + " above bucket " + bucket);
+      assertTrue(upperBound - value <= value / 8, value + " in a bucket too wide: " + upperBound);
+      if (bucket > 0) {
+        assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < value);
+      }
+    }
+  }
+
+  @Test
+  void testPercentilesMeanAndMax() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(Duration.ofMillis(i).toNanos());
+    }
+
+    assertEquals(100, histogram.getCount());
+    assertEquals(Duration.ofMillis(100), histogram.getMax());
+    assertEquals(Duration.ofNanos(50_500_000), histogram.getMean());
+    assertWithinAnEighth(Duration.ofMillis(50), histogram.getPercentile(50));
+    assertWithinAnEighth(Duration.ofMillis(99), histogram.getPercentile(99));
+    assertEquals(Duration.ofMillis(100), histogram.getPercentile(100));
+  }
+
+  @Test
+  void testEmptyAndNegative() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(Duration.ZERO, histogram.getPercentile(99));
+    assertEquals(Duration.ZERO, histogram.getMean());
+
+    histogram.record(-5);
+    assertEquals(Duration.ZERO, histogram.getMax());
+    assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+  }
+
+  @Test
+  void testLatenciesPerTypeAndStage() {
+    EventLatencies latencies = new EventLatencies();
+    latencies.record("button", EventLatencyStage.QUEUE_WAIT, 1_000);
+    latencies.record("button", EventLatencyStage.LISTENER, 2_000);
+    latencies.record("motion", EventLatencyStage.LISTENER, 3_000);
+
+    assertEquals(1, latencies.getHistogram("button", EventLatencyStage.QUEUE_WAIT).get().getCount());
+    assertEquals(0, latencies.getHistogram("button", EventLatencyStage.PARSE).get().getCount());
+    assertFalse(latencies.getHistogram("light", EventLatencyStage.PARSE).isPresent());
+    assertTrue(latencies.toString().contains("LISTENER"));
+
+    latencies.reset();
+    assertTrue(latencies.getEventTypes().isEmpty());
+  }
+
+  @Test
+  void testOnDemandMetricsRecordOnlyOnceSwitchedOn() {
+    EventLatencies latencies = new EventLatencies();
+    EventLatencies.OnDemand metrics = new EventLatencies.OnDemand(latencies);
+
+    assertFalse(EventLatencies.isRecording(metrics));
+    metrics.record("button", EventLatencyStage.PARSE, 1_000);
+    assertTrue(latencies.getEventTypes().isEmpty());
+
+    metrics.switchOn();
+    assertTrue(EventLatencies.isRecording(metrics));
+    metrics.record("button", EventLatencyStage.PARSE, 1_000);
+    assertEquals(Set.of("button"), latencies.getEventTypes());
+    assertFalse(EventLatencies.isRecording(EventLatencies.NONE));
+  }
+
+  private static void assertWithinAnEighth(Duration expected, Duration actual) {
+    assertTrue(Math.abs(actual.toNanos() - expected.toNanos()) <= expected.toNanos() / 8, actual.toString());
+  }
+}
@@ -0,0 +1,117 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.update.AlertType;
+import io.github.greenstevester.heuvana.v2.domain.update.EffectType;
+import io.github.greenstevester.heuvana.v2.domain.update.TimedEffectType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativeEffectsTest {
+
+  private final EffectEngine engine = new EffectEngine();
+
+  @AfterEach
+  void tearDown() {
+    engine.close();
+  }
+
+  @Test
+  void testCapabilitiesAreReadOncePerLight() {
+    final RecordingLight light = new RecordingLight(Collections.singletonList(EffectType.CANDLE),
+        Collections.emptyList(), Collections.emptyList());
+    final NativeEffects nativeEffects = engine.getNativeEffects();
+
+    assertTrue(nativeEffects.supports(light, EffectType.CANDLE));
+    assertFalse(nativeEffects.supports(light, EffectType.FIRE));
+    assertFalse(nativeEffects.supportsSunrise(light));
+    assertFalse(nativeEffects.supportsBreathe(light));
+    assertEquals(1, light.capabilityReads.get());
+
+    nativeEffects.forget(light.getId());
+    assertTrue(nativeEffects.supports(light, EffectType.CANDLE));
+    assertEquals(2, light.capabilityReads.get());
+  }
+
+  @Test
+  void testUnsupportedEffectIsNotSent() {
+    final RecordingLight light = new RecordingLight(Collections.singletonList(EffectType.CANDLE),
+        Collections.emptyList(), Collections.emptyList());
+
+    assertFalse(engine.getNativeEffects().startEffect(light, EffectType.FIRE));
+    assertTrue(light.states.isEmpty());
+
+    assertTrue(engine.getNativeEffects().startEffect(light, EffectType.CANDLE));
+    assertEquals(EffectType.CANDLE, light.states.get(0).getEffects().getEffect());
+  }
+
+  @Test
+  void testSunriseRunsOnTheLightInOneRequest() throws Exception {
+    final RecordingLight light = new RecordingLight(Collections.emptyList(),
+        Collections.singletonList(TimedEffectType.SUNRISE), Collections.emptyList());
+    final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+    SunriseEffect.builder()
+        .light(light)
+        .duration(Duration.ofMillis(200))
+        .steps(10)
+        .onComplete(() -> completed.complete(null))
+        .engine(engine)
+        .build()
+        .start();
+    completed.get(2, TimeUnit.SECONDS);
+
+    assertEquals(1, light.states.size());
+    assertEquals(TimedEffectType.SUNRISE, light.states.get(0).getTimedEffects().getEffect());
+    assertEquals(200, light.states.get(0).getTimedEffects().getDuration());
+  }
+
+  @Test
+  void testSunriseIsSteppedWithoutSupport() throws Exception {
+    final RecordingLight light = new RecordingLight(Collections.emptyList(),
+        Collections.emptyList(), Collections.emptyList());
+    final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+    SunriseEffect.builder()
+        .light(light)
+        .duration(Duration.ofMillis(200))
+        .steps(10)
+        .onComplete(() -> completed.complete(null))
+        .engine(engine)
+        .build()
+        .start();
+    completed.get(2, TimeUnit.SECONDS);
+
+    assertTrue(light.states.size() > 1);
+    assertTrue(light.states.stream().allMatch(state -> state.getTimedEffects() == null));
+  }
+
+  @Test
+  void testPulsingBreathesOnTheLightWhenPreferred() throws Exception {
+    final RecordingLight light = new RecordingLight(Collections.emptyList(),
+        Collections.emptyList(), Collections.singletonList(AlertType.BREATHE));
+    final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+    final PulsingEffect effect = PulsingEffect.builder()
+        .light(light)
+        .pulseDuration(Duration.ofMillis(50))
+        .pulseCount(2)
+        .preserveState(false)
+        .preferNative(true)
+        .onComplete(() -> completed.complete(null))
+        .engine(engine)
+        .build();
+    effect.start();
+    completed.get(2, TimeUnit.SECONDS);
+
+    assertEquals(1, light.states.size());
+    assertEquals(AlertType.BREATHE, light.states.get(0).getAlert().getAction());
+    assertEquals(2, effect.getCompletedPulses());
+  }
+}
@@ -0,0 +1,92 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.update.AlertType;
+import io.github.greenstevester.heuvana.v2.domain.update.EffectType;
+import io.github.greenstevester.heuvana.v2.domain.update.TimedEffectType;
+import io.github.greenstevester.heuvana.v2.domain.update.UpdateLight;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A light that keeps the states it is set to, for the tests of effects and timelines.
+ */
+class RecordingLight implements Light {
+  final List<UpdateLight> states = new CopyOnWriteArrayList<>();
+  final AtomicInteger capabilityReads = new AtomicInteger();
+  private final UUID id = UUID.randomUUID();
+  private final Collection<EffectType> effects;
+  private final Collection<TimedEffectType> timedEffects;
+  private final Collection<AlertType> alerts;
+
+  /**
+   * Creates a light that supports no native effects.
+   */
+  RecordingLight() {
+    this(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+  }
+
+  RecordingLight(final Collection<EffectType> effects, final Collection<TimedEffectType> timedEffects,
+                 final Collection<AlertType> alerts) {
+    this.effects = effects;
+    this.timedEffects = timedEffects;
+    this.alerts = alerts;
+  }
+
+  @Override
+  public UUID getId() {
+    return id;
+  }
+
+  @Override
+  public String getName() {
+    return "Light " + id;
+  }
+
+  @Override
+  public void turnOn() {
+  }
+
+  @Override
+  public void turnOff() {
+  }
+
+  @Override
+  public boolean isOn() {
+    return true;
+  }
+
+  @Override
+  public void setBrightness(final int brightness) {
+  }
+
+  @Override
+  public void setState(final UpdateState state) {
+    states.add(state.getUpdateLight());
+  }
+
+  @Override
+  public Collection<EffectType> getSupportedEffects() {
+    capabilityReads.incrementAndGet();
+    return effects;
+  }
+
+  @Override
+  public Collection<TimedEffectType> getSupportedTimedEffects() {
+    return timedEffects;
+  }
+
+  @Override
+  public Collection<AlertType> getSupportedAlerts() {
+    return alerts;
+  }
+
+  @Override
+  public UUID getOwnerId() {
+    return id;
+  }
+}
@@ -0,0 +1,110 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceDiffTest {
+
+  private static final UUID LIGHT_1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final UUID LIGHT_2 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+  private static final UUID ROOM = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void testFirstRefreshAddsEverything() throws Exception {
+    ResourceDiff diff = ResourceDiff.compute(Map.of(), array(light(LIGHT_1, "Desk"), room(ROOM, "Office")), null);
+
+    assertEquals(2, diff.getChanged().size());
+    assertTrue(diff.getRemoved().isEmpty());
+    assertEquals(Set.of(LIGHT_1, ROOM), diff.getResources().keySet());
+  }
+
+  @Test
+  void testUnchangedResourcesAreNotReported() throws Exception {
+    Map<UUID, JsonNode> previous = previous(light(LIGHT_1, "Desk"), room(ROOM, "Office"));
+
+    ResourceDiff diff = ResourceDiff.compute(previous, array(light(LIGHT_1, "Desk"), room(ROOM, "Office")), null);
+
+    assertTrue(diff.isEmpty());
+  }
+
+  @Test
+  void testRuntimeStateIsNotAChange() throws Exception {
+    Map<UUID, JsonNode> previous = previous(light(LIGHT_1, "Desk", "{\"on\":false}", "{\"brightness\":40.0,"
+        + "\"min_dim_level\":0.2}"));
+
+    ResourceDiff diff = ResourceDiff.compute(previous, array(light(LIGHT_1, "Desk", "{\"on\":true}",
+        "{\"brightness\":80.0,\"min_dim_level\":0.2}")), null);
+
+    assertTrue(diff.isEmpty());
+    assertTrue(diff.getResources().get(LIGHT_1).path("on").path("on").asBoolean());
+  }
+
+  @Test
+  void testCapabilitiesNextToRuntimeStateAreCompared() throws Exception {
+    Map<UUID, JsonNode> previous = previous(light(LIGHT_1, "Desk", "{\"on\":false}", "{\"brightness\":40.0,"
+        + "\"min_dim_level\":0.2}"));
+
+    ResourceDiff diff = ResourceDiff.compute(previous, array(light(LIGHT_1, "Desk", "{\"on\":false}",
+        "{\"brightness\":40.0,\"min_dim_level\":0.5}")), null);
+
+    assertEquals(List.of(LIGHT_1), diff.getChanged().stream().map(ResourceDiff::idOf).toList());
+  }
+
+  @Test
+  void testReportsChangedAddedAndRemovedResources() throws Exception {
+    Map<UUID, JsonNode> previous = previous(light(LIGHT_1, "Desk"), room(ROOM, "Office"));
+
+    ResourceDiff diff = ResourceDiff.compute(previous, array(light(LIGHT_1, "Lamp"), light(LIGHT_2, "Shelf")), null);
+
+    assertEquals(List.of(LIGHT_1, LIGHT_2), diff.getChanged().stream().map(ResourceDiff::idOf).toList());
+    assertEquals(Set.of(ROOM), diff.getRemoved());
+    assertEquals(Set.of(LIGHT_1, LIGHT_2), diff.getResources().keySet());
+  }
+
+  @Test
+  void testKeepsResourcesOutsideOfScope() throws Exception {
+    Map<UUID, JsonNode> previous = previous(light(LIGHT_1, "Desk"), room(ROOM, "Office"));
+
+    ResourceDiff diff = ResourceDiff.compute(previous, array(light(LIGHT_2, "Shelf")), Set.of(ResourceType.LIGHT));
+
+    assertEquals(Set.of(LIGHT_1), diff.getRemoved());
+    assertEquals(Set.of(LIGHT_2, ROOM), diff.getResources().keySet());
+  }
+
+  private Map<UUID, JsonNode> previous(String... resources) throws Exception {
+    Map<UUID, JsonNode> result = new HashMap<>();
+    for (JsonNode node : array(resources)) {
+      result.put(ResourceDiff.idOf(node), node);
+    }
+    return result;
+  }
+
+  private JsonNode array(String... resources) throws Exception {
+    return objectMapper.readTree("[" + String.join(",", resources) + "]");
+  }
+
+  private static String light(UUID id, String name) {
+    return "{\"id\":\"" + id + "\",\"type\":\"light\",\"metadata\":{\"name\":\"" + name + "\"}}";
+  }
+
+  private static String light(UUID id, String name, String on, String dimming) {
+    return "{\"id\":\"" + id + "\",\"type\":\"light\",\"metadata\":{\"name\":\"" + name + "\"},"
+        + "\"on\":" + on + ",\"dimming\":" + dimming + "}";
+  }
+
+  private static String room(UUID id, String name) {
+    return "{\"id\":\"" + id + "\",\"type\":\"room\",\"metadata\":{\"name\":\"" + name + "\"}}";
+  }
+}
@@ -0,0 +1,241 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.launchdarkly.eventsource.MessageEvent;
+import com.launchdarkly.eventsource.background.BackgroundEventHandler;
+import io.github.greenstevester.heuvana.v2.domain.HueEvent;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedEventStreamTest {
+
+  private static final UUID LIGHT = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final String MESSAGE = "[{\"creationtime\":\"2023-01-01T00:00:00Z\"," +
+      "\"id\":\"a0000000-0000-0000-0000-000000000000\",\"type\":\"update\",\"data\":[{" +
+      "\"id\":\"00000000-0000-0000-0000-000000000001\",\"type\":\"light\",\"on\":{\"on\":true}}]}]";
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+  private final AtomicInteger opened = new AtomicInteger();
+  private final AtomicInteger closed = new AtomicInteger();
+  private final ArrayNode lights = objectMapper.createArrayNode();
+  private BackgroundEventHandler handler;
+  private final SharedEventStream stream = new SharedEventStream(objectMapper, eventHandler -> {
+    opened.incrementAndGet();
+    handler = eventHandler;
+    return new HueEventSource() {
+      @Override
+      public void close() {
+        closed.incrementAndGet();
+      }
+
+      @Override
+      public HueEventStreamState getState() {
+        return HueEventStreamState.ACTIVE;
+      }
+    };
+  }, new EventResync(objectMapper, type -> type == ResourceType.LIGHT ? lights.deepCopy() : objectMapper.createArrayNode()));
+
+  @Test
+  void testOneConnectionForAllSubscribers() {
+    HueEventSource first = stream.subscribe(new RecordingListener(), null);
+    HueEventSource second = stream.subscribe(new RecordingListener(), null);
+
+    assertEquals(1, opened.get());
+    assertEquals(2, stream.getSubscriberCount());
+    assertEquals(HueEventStreamState.ACTIVE, second.getState());
+
+    first.close();
+    assertEquals(0, closed.get());
+    second.close();
+    assertEquals(1, closed.get());
+    assertEquals(HueEventStreamState.CLOSED, first.getState());
+
+    stream.subscribe(new RecordingListener(), null).close();
+    assertEquals(2, opened.get());
+  }
+
+  @Test
+  void testMessageParsedOnceForAllSubscribers() throws Exception {
+    RecordingListener first = new RecordingListener();
+    RecordingListener second = new RecordingListener();
+    stream.subscribe(first, null);
+    stream.subscribe(second, null);
+
+    handler.onMessage("message", new MessageEvent(MESSAGE));
+
+    assertEquals(1, first.messages.size());
+    assertSame(first.messages.get(0), second.messages.get(0));
+    assertSame(first.messages.get(0).getEvents(), second.messages.get(0).getEvents());
+    assertEquals("update", first.messages.get(0).getEvents().get(0).getType());
+  }
+
+  @Test
+  void testMessageDecodedOncePerResourceTypes() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    stream.subscribe(listener, null);
+    handler.onMessage("message", new MessageEvent(MESSAGE));
+    EventMessage message = listener.messages.get(0);
+
+    List<DecodedEvent> first = message.decode(new EventDecoder(objectMapper.getFactory(), Set.of("light")));
+    List<DecodedEvent> second = message.decode(new EventDecoder(objectMapper.getFactory(), Set.of("light")));
+
+    assertSame(first, second);
+    assertEquals(LIGHT, first.get(0).getResourceId());
+    assertTrue(message.decode(new EventDecoder(objectMapper.getFactory(), Set.of("button"))).isEmpty());
+  }
+
+  @Test
+  void testTreeAndEventsShareOneParse() {
+    List<EventLatencyStage> stages = new ArrayList<>();
+    EventMessage message = new EventMessage(objectMapper, MESSAGE, (type, stage, nanos) -> stages.add(stage));
+
+    message.getEvents();
+    JsonNode tree = message.getTree();
+
+    assertEquals("update", tree.get(0).path("type").asText());
+    assertEquals(List.of(EventLatencyStage.PARSE), stages);
+  }
+
+  @Test
+  void testLateSubscriberIsToldTheStreamIsOpen() throws Exception {
+    RecordingListener early = new RecordingListener();
+    stream.subscribe(early, null);
+    handler.onOpen();
+
+    RecordingListener late = new RecordingListener();
+    stream.subscribe(late, null);
+
+    assertEquals(1, early.opens);
+    assertEquals(1, late.opens);
+  }
+
+  @Test
+  void testReconnectAnnouncesMissedChanges() throws Exception {
+    lights.add(light(true));
+    RecordingListener listener = new RecordingListener();
+    stream.subscribe(listener, null);
+    handler.onOpen();
+    assertTrue(listener.messages.isEmpty());
+
+    handler.onMessage("message", new MessageEvent(MESSAGE, "event-1", null));
+    handler.onClosed();
+    lights.removeAll();
+    lights.add(light(false));
+    handler.onOpen();
+
+    assertEquals("event-1", stream.getLastEventId());
+    assertNotNull(stream.getDisconnectedAt());
+    assertEquals(2, listener.opens);
+    assertEquals(2, listener.messages.size());
+    HueEvent missed = listener.messages.get(1).getEvents().get(0);
+    assertEquals("update", missed.getType());
+    assertEquals(LIGHT, missed.getData().get(0).getResourceId());
+    assertFalse(missed.getData().get(0).getOn().get().isOn());
+  }
+
+  @Test
+  void testReconnectWithoutChangesAnnouncesNothing() throws Exception {
+    lights.add(light(true));
+    RecordingListener listener = new RecordingListener();
+    stream.subscribe(listener, null);
+    handler.onOpen();
+    handler.onClosed();
+    handler.onOpen();
+
+    assertTrue(listener.messages.isEmpty());
+  }
+
+  private ObjectNode light(final boolean on) {
+    ObjectNode light = objectMapper.createObjectNode().put("id", LIGHT.toString()).put("type", "light");
+    light.putObject("on").put("on", on);
+    return light;
+  }
+
+  @Test
+  void testFailingSubscriberDoesNotStopOthers() throws Exception {
+    stream.subscribe(new RecordingListener() {
+      @Override
+      public void onEvents(final EventMessage message) {
+        throw new IllegalStateException("Subscriber failure");
+      }
+    }, null);
+    RecordingListener other = new RecordingListener();
+    stream.subscribe(other, null);
+
+    handler.onMessage("message", new MessageEvent(MESSAGE));
+
+    assertEquals(1, other.messages.size());
+  }
+
+  @Test
+  void testClosingAViewClosesItsDispatcher() {
+    EventDispatcher dispatcher = new EventDispatcher(EventDispatchConfig.defaults());
+    HueEventSource view = stream.subscribe(new RecordingListener(), dispatcher);
+    assertSame(dispatcher, view.getDispatcher().orElseThrow());
+
+    view.close();
+    dispatcher.dispatch(null, true, () -> fail("Dispatcher should be closed"));
+    assertEquals(0, dispatcher.getQueueDepth());
+  }
+
+  @Test
+  void testMeasuresBridgeLatencyAndParsing() throws Exception {
+    EventLatencies latencies = new EventLatencies();
+    SharedEventStream measured = new SharedEventStream(objectMapper, eventHandler -> {
+      handler = eventHandler;
+      return new HueEventSource() {
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public HueEventStreamState getState() {
+          return HueEventStreamState.ACTIVE;
+        }
+      };
+    }, null, latencies);
+    RecordingListener listener = new RecordingListener();
+    measured.subscribe(listener, null);
+
+    handler.onMessage("message", new MessageEvent(MESSAGE));
+    listener.messages.get(0).getEvents();
+
+    LatencyHistogram bridgeToReceive = latencies.getHistogram("light", EventLatencyStage.BRIDGE_TO_RECEIVE).get();
+    assertEquals(1, bridgeToReceive.getCount());
+    assertTrue(bridgeToReceive.getMax().toDays() > 365);
+    // Only the binding into events is a parse: the creation time is read without building a tree
+    assertEquals(1, latencies.getHistogram("light", EventLatencyStage.PARSE).get().getCount());
+    assertEquals(0, latencies.getHistogram("light", EventLatencyStage.LISTENER).get().getCount());
+    assertEquals(Set.of("light"), latencies.getEventTypes());
+  }
+
+  private static class RecordingListener implements EventStreamListener {
+    private final List<EventMessage> messages = new ArrayList<>();
+    private int opens;
+
+    @Override
+    public void onOpen() {
+      opens++;
+    }
+
+    @Override
+    public void onClosed() {
+    }
+
+    @Override
+    public void onEvents(final EventMessage message) {
+      messages.add(message);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.domain.LightResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateMirrorTest {
+
+  private static final UUID LIGHT_ID = UUID.fromString("3f5b1f2a-4c2e-4a8e-9a51-1c7c1f4d2b10");
+  private static final String RESOURCES = "[{" +
+      "\"id\":\"" + LIGHT_ID + "\",\"type\":\"light\"," +
+      "\"owner\":{\"rid\":\"b3f1b1d4-1a2b-4c3d-8e9f-0a1b2c3d4e5f\",\"rtype\":\"device\"}," +
+      "\"metadata\":{\"name\":\"Desk\"}," +
+      "\"on\":{\"on\":false}," +
+      "\"dimming\":{\"brightness\":40.0}" +
+      "}]";
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+  private final StateMirror mirror = new StateMirror(objectMapper);
+  private final AtomicInteger networkReads = new AtomicInteger();
+  private final Supplier<LightResource> networkRead = () -> {
+    networkReads.incrementAndGet();
+    return null;
+  };
+
+  @BeforeEach
+  void setUp() throws Exception {
+    mirror.setStalenessBound(Duration.ofMinutes(1));
+    mirror.load(objectMapper.readTree(RESOURCES));
+    mirror.setEnabled(true);
+  }
+
+  @Test
+  void testAnswersFromMemory() {
+    LightResource light = mirror.get(LIGHT_ID, LightResource.class, networkRead);
+
+    assertFalse(light.getOn().isOn());
+    assertEquals("Desk", light.getMetadata().getName());
+    assertSame(light, mirror.get(LIGHT_ID, LightResource.class, networkRead));
+    assertEquals(0, networkReads.get());
+  }
+
+  @Test
+  void testAppliesUpdateEvents() throws Exception {
+    mirror.get(LIGHT_ID, LightResource.class, networkRead);
+
+    mirror.apply(objectMapper.readTree("[{\"type\":\"update\",\"data\":[{" +
+        "\"id\":\"" + LIGHT_ID + "\",\"type\":\"light\",\"on\":{\"on\":true}}]}]"));
+
+    LightResource light = mirror.get(LIGHT_ID, LightResource.class, networkRead);
+    assertTrue(light.getOn().isOn());
+    assertEquals("Desk", light.getMetadata().getName());
+    assertEquals(0, networkReads.get());
+  }
+
+  @Test
+  void testFallsBackToNetworkForDeletedResource() throws Exception {
+    mirror.apply(objectMapper.readTree("[{\"type\":\"delete\",\"data\":[{" +
+        "\"id\":\"" + LIGHT_ID + "\",\"type\":\"light\"}]}]"));
+
+    mirror.get(LIGHT_ID, LightResource.class, networkRead);
+
+    assertEquals(1, networkReads.get());
+  }
+
+  @Test
+  void testFallsBackToNetworkWhenStale() {
+    mirror.setStalenessBound(Duration.ZERO);
+
+    assertFalse(mirror.isFresh());
+    mirror.get(LIGHT_ID, LightResource.class, networkRead);
+    assertEquals(1, networkReads.get());
+  }
+
+  @Test
+  void testReconnectKeepsContentsAndAppliesCatchUpEvents() {
+    EventStreamListener handler = mirror.eventHandler();
+    mirror.get(LIGHT_ID, LightResource.class, networkRead);
+
+    handler.onClosed();
+    handler.onOpen();
+    handler.onEvents(new EventMessage(objectMapper, "[{\"type\":\"update\",\"data\":[{" +
+        "\"id\":\"" + LIGHT_ID + "\",\"type\":\"light\",\"dimming\":{\"brightness\":80.0}}]}]"));
+
+    LightResource light = mirror.get(LIGHT_ID, LightResource.class, networkRead);
+    assertTrue(mirror.isConnected());
+    assertEquals(80, light.getDimming().getBrightness());
+    assertEquals("Desk", light.getMetadata().getName());
+    assertEquals(0, networkReads.get());
+  }
+
+  @Test
+  void testEventsDoNotChangeTheTopologySnapshot() throws Exception {
+    DocumentTransport transport = new DocumentTransport("{\"errors\":[],\"data\":" + RESOURCES + "}");
+    try (Hue hue = new Hue("127.0.0.1", "key", transport, null)) {
+      hue.getStateMirror().setStalenessBound(Duration.ofMinutes(1));
+      hue.getStateMirror().setEnabled(true);
+      transport.document = transport.document.replace("Desk", "Lamp");
+      hue.refresh();
+
+      hue.getStateMirror().apply(objectMapper.readTree("[{\"type\":\"update\",\"data\":[{" +
+          "\"id\":\"" + LIGHT_ID + "\",\"type\":\"light\",\"dimming\":{\"brightness\":80.0}}]}]"));
+
+      JsonNode raw = hue.snapshot().getRawResources().get(LIGHT_ID);
+      assertEquals("Lamp", raw.path("metadata").path("name").asText());
+      assertEquals(40.0, raw.path("dimming").path("brightness").asDouble());
+      assertEquals(80, hue.getStateMirror().get(LIGHT_ID, LightResource.class, networkRead).getDimming().getBrightness());
+    }
+  }
+
+  @Test
+  void testFallsBackToNetworkWhenDisabled() {
+    mirror.setEnabled(false);
+
+    mirror.get(LIGHT_ID, LightResource.class, networkRead);
+    assertEquals(1, networkReads.get());
+  }
+
+  /**
+   * Serves the same resource document for every GET request.
+   */
+  private static class DocumentTransport implements HttpTransport {
+    private volatile String document;
+
+    private DocumentTransport(final String document) {
+      this.document = document;
+    }
+
+    @Override
+    public InputStream get(final URL url) {
+      return new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String send(final String method, final URL url, final String body) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(final URL url) {
+      return CompletableFuture.completedFuture(document);
+    }
+
+    @Override
+    public CompletableFuture<String> sendAsync(final String method, final URL url, final String body) {
+      return CompletableFuture.failedFuture(new UnsupportedOperationException());
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
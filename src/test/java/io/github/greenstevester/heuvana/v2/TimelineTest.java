@@ -0,0 +1,191 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.v2.domain.update.UpdateLight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineTest {
+
+  private final EffectEngine engine = new EffectEngine();
+
+  @AfterEach
+  void tearDown() {
+    engine.close();
+  }
+
+  @Test
+  void testOnlyChangedLightsAreSent() {
+    final RecordingLight still = new RecordingLight();
+    final RecordingLight moving = new RecordingLight();
+    final Timeline timeline = Timeline.builder()
+        .layer(TimelineLayer.builder()
+            .target(still)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 50))
+            .build())
+        .layer(TimelineLayer.builder()
+            .target(moving)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 0).key(Duration.ofSeconds(1), 100))
+            .build())
+        .engine(engine)
+        .build();
+
+    for (int frame = 0; frame <= 10; frame++) {
+      timeline.renderFrame(TimeUnit.MILLISECONDS.toNanos(frame * 100));
+    }
+
+    assertEquals(1, still.states.size());
+    assertEquals(11, moving.states.size());
+    assertEquals(12, timeline.getSentUpdateCount());
+    assertEquals(10, timeline.getSkippedUpdateCount());
+    assertEquals(11, timeline.getFrameCount());
+    assertEquals(50, still.states.get(0).getDimming().getBrightness());
+    assertNotNull(still.states.get(0).getOn());
+    assertEquals(100, moving.states.get(10).getDimming().getBrightness());
+  }
+
+  @Test
+  void testOnlyChangedPropertiesAreSent() {
+    final RecordingLight light = new RecordingLight();
+    final Timeline timeline = Timeline.builder()
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 70))
+            .track(TimelineTrack.color()
+                .key(Duration.ZERO, 0.2f, 0.3f)
+                .key(Duration.ofSeconds(1), 0.4f, 0.5f))
+            .build())
+        .engine(engine)
+        .build();
+
+    timeline.renderFrame(0);
+    timeline.renderFrame(TimeUnit.MILLISECONDS.toNanos(500));
+
+    assertEquals(2, light.states.size());
+    assertNotNull(light.states.get(0).getDimming());
+    assertNull(light.states.get(1).getDimming());
+    assertNull(light.states.get(1).getOn());
+    assertEquals(0.3f, light.states.get(1).getColor().getXy().getX(), 0.0001f);
+    assertEquals(0.4f, light.states.get(1).getColor().getXy().getY(), 0.0001f);
+  }
+
+  @Test
+  void testDroppedFrameIsSentAgainInFull() {
+    final RecordingLight light = new RecordingLight() {
+      @Override
+      public void setState(final UpdateState state) {
+        super.setState(state);
+        if (states.size() == 1) {
+          throw new CommandDroppedException("Deadline passed");
+        }
+      }
+    };
+    final Timeline timeline = Timeline.builder()
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 70))
+            .track(TimelineTrack.color()
+                .key(Duration.ZERO, 0.2f, 0.3f)
+                .key(Duration.ofSeconds(1), 0.4f, 0.5f))
+            .build())
+        .engine(engine)
+        .build();
+
+    timeline.renderFrame(0);
+    timeline.renderFrame(TimeUnit.MILLISECONDS.toNanos(500));
+    timeline.renderFrame(TimeUnit.MILLISECONDS.toNanos(500));
+
+    assertEquals(2, light.states.size());
+    assertEquals(70, light.states.get(1).getDimming().getBrightness());
+    assertNotNull(light.states.get(1).getOn());
+    assertEquals(0.3f, light.states.get(1).getColor().getXy().getX(), 0.0001f);
+  }
+
+  @Test
+  void testLayersAreBlended() {
+    final RecordingLight light = new RecordingLight();
+    final Timeline timeline = Timeline.builder()
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 80))
+            .build())
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 50))
+            .blendMode(TimelineLayer.BlendMode.MULTIPLY)
+            .build())
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 20))
+            .blendMode(TimelineLayer.BlendMode.ADD)
+            .opacity(0.5)
+            .build())
+        .engine(engine)
+        .build();
+
+    timeline.renderFrame(0);
+
+    assertEquals(50, light.states.get(0).getDimming().getBrightness());
+  }
+
+  @Test
+  void testTopmostColorModeWins() {
+    final RecordingLight light = new RecordingLight();
+    final Timeline timeline = Timeline.builder()
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.color().key(Duration.ZERO, Color.of(255, 0, 0)))
+            .build())
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.colorTemperature().key(Duration.ZERO, 300))
+            .build())
+        .engine(engine)
+        .build();
+
+    timeline.renderFrame(0);
+
+    final UpdateLight state = light.states.get(0);
+    assertNull(state.getColor());
+    assertEquals(300, state.getColorTemperature().getMirek());
+  }
+
+  @Test
+  void testGradientKeyframesNeedTheSameNumberOfColors() {
+    final TimelineTrack track = TimelineTrack.gradient()
+        .key(Duration.ZERO, List.of(Color.of(255, 0, 0), Color.of(0, 0, 255)));
+
+    assertThrows(IllegalArgumentException.class, () -> track.key(Duration.ofSeconds(1),
+        List.of(Color.of(255, 0, 0), Color.of(0, 255, 0), Color.of(0, 0, 255))));
+    assertThrows(IllegalArgumentException.class, () -> track.key(Duration.ofSeconds(1), 50));
+  }
+
+  @Test
+  void testPlaysOnTheEngineUntilTheEnd() throws Exception {
+    final RecordingLight light = new RecordingLight();
+    final CompletableFuture<Void> completed = new CompletableFuture<>();
+    final Timeline timeline = Timeline.builder()
+        .layer(TimelineLayer.builder()
+            .target(light)
+            .track(TimelineTrack.brightness().key(Duration.ZERO, 0).key(Duration.ofMillis(200), 100))
+            .build())
+        .frameInterval(Duration.ofMillis(20))
+        .onComplete(() -> completed.complete(null))
+        .engine(engine)
+        .build();
+
+    timeline.start();
+    completed.get(2, TimeUnit.SECONDS);
+
+    assertFalse(timeline.isRunning());
+    assertTrue(light.states.size() >= 5, "Only " + light.states.size() + " updates");
+    assertEquals(100, light.states.get(light.states.size() - 1).getDimming().getBrightness());
+  }
+}
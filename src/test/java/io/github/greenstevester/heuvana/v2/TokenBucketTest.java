@@ -0,0 +1,57 @@
+package io.github.greenstevester.heuvana.v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  void testBurstIsAvailableImmediately() {
+    TokenBucket bucket = new TokenBucket(10.0, 3, 0L);
+
+    assertTrue(bucket.tryAcquire(0L));
+    assertTrue(bucket.tryAcquire(0L));
+    assertTrue(bucket.tryAcquire(0L));
+    assertFalse(bucket.tryAcquire(0L));
+  }
+
+  @Test
+  void testRefillsAtConfiguredRate() {
+    TokenBucket bucket = new TokenBucket(10.0, 1, 0L);
+    assertTrue(bucket.tryAcquire(0L));
+
+    assertEquals(SECOND / 10, bucket.nanosUntilAvailable(0L));
+    assertFalse(bucket.tryAcquire(SECOND / 20));
+    assertTrue(bucket.tryAcquire(SECOND / 10));
+  }
+
+  @Test
+  void testDoesNotAccumulateBeyondBurst() {
+    TokenBucket bucket = new TokenBucket(1.0, 2, 0L);
+
+    assertTrue(bucket.tryAcquire(10 * SECOND));
+    assertTrue(bucket.tryAcquire(10 * SECOND));
+    assertFalse(bucket.tryAcquire(10 * SECOND));
+  }
+
+  @Test
+  void testDrainWaitsForNextToken() {
+    TokenBucket bucket = new TokenBucket(1.0, 5, 0L);
+
+    bucket.drain(0L);
+
+    assertFalse(bucket.tryAcquire(0L));
+    assertEquals(SECOND, bucket.nanosUntilAvailable(0L));
+  }
+
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0L));
+    assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1.0, 0, 0L));
+  }
+}
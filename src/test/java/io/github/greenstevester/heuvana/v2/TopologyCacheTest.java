@@ -0,0 +1,57 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyCacheTest {
+
+  private static final String LIGHT = "{\"id\":\"00000000-0000-0000-0000-000000000001\",\"type\":\"light\","
+      + "\"metadata\":{\"name\":\"Desk\"}}";
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testRoundTrip() throws Exception {
+    TopologyCache cache = TopologyCache.inFile(directory.resolve("topology.json"));
+    JsonNode light = objectMapper.readTree(LIGHT);
+
+    cache.write(objectMapper, List.of(light));
+    JsonNode data = cache.read(objectMapper);
+
+    assertEquals(1, data.size());
+    assertEquals(light, data.get(0));
+    try (var files = Files.list(directory)) {
+      assertEquals(List.of(cache.getFile()), files.toList());
+    }
+  }
+
+  @Test
+  void testMissingFileIsNotUsable() {
+    assertNull(TopologyCache.inFile(directory.resolve("missing.json")).read(objectMapper));
+  }
+
+  @Test
+  void testCorruptFileIsNotUsable() throws Exception {
+    Path file = Files.writeString(directory.resolve("topology.json"), "{\"data\":[{\"id\":");
+
+    assertNull(TopologyCache.inFile(file).read(objectMapper));
+  }
+
+  @Test
+  void testFileWithoutResourcesIsNotUsable() throws Exception {
+    Path file = Files.writeString(directory.resolve("topology.json"), "{\"errors\":[]}");
+
+    assertNull(TopologyCache.inFile(file).read(objectMapper));
+  }
+}
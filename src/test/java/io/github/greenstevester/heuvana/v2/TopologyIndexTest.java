@@ -0,0 +1,109 @@
+package io.github.greenstevester.heuvana.v2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.domain.LightResource;
+import io.github.greenstevester.heuvana.v2.domain.Resource;
+import io.github.greenstevester.heuvana.v2.domain.ResourceType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyIndexTest {
+
+  private static final UUID DEVICE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final UUID LIGHT_1 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+  private static final UUID LIGHT_2 = UUID.fromString("00000000-0000-0000-0000-000000000003");
+  private static final UUID LIGHT_3 = UUID.fromString("00000000-0000-0000-0000-000000000004");
+  private static final UUID ROOM = UUID.fromString("00000000-0000-0000-0000-000000000005");
+  private static final UUID ZONE = UUID.fromString("00000000-0000-0000-0000-000000000006");
+
+  private final ObjectMapper objectMapper = HttpUtil.buildObjectMapper(null);
+  private final Map<UUID, Resource> allResources = new HashMap<>();
+  private final Map<UUID, Light> lights = new HashMap<>();
+  private final Map<UUID, Group> groups = new HashMap<>();
+  private TopologyIndex index;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    add("{\"id\":\"" + DEVICE + "\",\"type\":\"device\",\"metadata\":{\"name\":\"Strip\"},\"services\":["
+        + ref(LIGHT_1, "light") + "," + ref(LIGHT_2, "light") + "]}");
+    addLight(LIGHT_1, DEVICE, "/lights/1");
+    addLight(LIGHT_2, DEVICE, "/lights/2");
+    addLight(LIGHT_3, UUID.randomUUID(), "/lights/3");
+    addGroup(ROOM, "room", "Office", ref(DEVICE, "device"));
+    addGroup(ZONE, "zone", "Desk area", ref(LIGHT_1, "light") + "," + ref(LIGHT_3, "light"));
+
+    index = TopologyIndex.build(allResources, lights, groups);
+  }
+
+  @Test
+  void testRoomsAndZones() {
+    assertEquals(Set.of(ROOM), index.getRooms().keySet());
+    assertEquals(Set.of(ZONE), index.getZones().keySet());
+    assertEquals(ROOM, index.getRoomByName("Office").getId());
+    assertEquals(ZONE, index.getZoneByName("Desk area").getId());
+    assertNull(index.getRoomByName("Desk area"));
+  }
+
+  @Test
+  void testLightsByIdV1AndOwner() {
+    assertEquals(LIGHT_2, index.getLightByIdV1("/lights/2").getId());
+    assertNull(index.getLightByIdV1("/lights/9"));
+    assertEquals(Set.of(LIGHT_1, LIGHT_2), ids(index.getLightsByOwner(DEVICE)));
+    assertTrue(index.getLightsByOwner(ROOM).isEmpty());
+  }
+
+  @Test
+  void testMembershipThroughDevicesAndLights() {
+    assertEquals(Set.of(LIGHT_1, LIGHT_2), ids(index.getLightsOfGroup(ROOM)));
+    assertEquals(Set.of(LIGHT_1, LIGHT_3), ids(index.getLightsOfGroup(ZONE)));
+    assertEquals(Set.of(ROOM, ZONE), index.getGroupsOfLight(LIGHT_1).stream().map(Group::getId).collect(Collectors.toSet()));
+    assertEquals(List.of(ROOM), index.getGroupsOfLight(LIGHT_2).stream().map(Group::getId).toList());
+    assertTrue(index.getGroupsOfLight(DEVICE).isEmpty());
+  }
+
+  @Test
+  void testEmptyIndex() {
+    assertTrue(TopologyIndex.EMPTY.getRooms().isEmpty());
+    assertTrue(TopologyIndex.EMPTY.getLightsOfGroup(ROOM).isEmpty());
+    assertNull(TopologyIndex.EMPTY.getRoomByName("Office"));
+  }
+
+  private void addLight(UUID id, UUID owner, String idV1) throws Exception {
+    LightResource resource = (LightResource) add("{\"id\":\"" + id + "\",\"id_v1\":\"" + idV1 + "\",\"type\":\"light\","
+        + "\"owner\":" + ref(owner, "device") + ",\"metadata\":{\"name\":\"" + idV1 + "\"}}");
+    lights.put(id, new LightImpl(id, resource, null, null, null));
+  }
+
+  private void addGroup(UUID id, String type, String name, String children) throws Exception {
+    add("{\"id\":\"" + id + "\",\"type\":\"" + type + "\",\"metadata\":{\"name\":\"" + name + "\"},"
+        + "\"children\":[" + children + "],\"services\":[]}");
+    groups.put(id, new GroupImpl(id, ResourceType.valueOf(type.toUpperCase()), name, List.of(),
+        null, null, null, null, null));
+  }
+
+  private Resource add(String json) throws Exception {
+    JsonNode node = objectMapper.readTree(json);
+    Resource resource = objectMapper.treeToValue(node, Resource.class);
+    allResources.put(ResourceDiff.idOf(node), resource);
+    return resource;
+  }
+
+  private static String ref(UUID id, String type) {
+    return "{\"rid\":\"" + id + "\",\"rtype\":\"" + type + "\"}";
+  }
+
+  private static Set<UUID> ids(Collection<Light> lights) {
+    return lights.stream().map(Light::getId).collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,111 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.XAndYAndBrightness;
+import io.github.greenstevester.heuvana.v2.domain.update.UpdateLight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransitionPlannerTest {
+
+  private final EffectEngine engine = new EffectEngine();
+
+  @AfterEach
+  void tearDown() {
+    engine.close();
+  }
+
+  @Test
+  void testLinearCurveNeedsOnlyItsEnds() {
+    final double[] curve = new double[51];
+    for (int i = 0; i < curve.length; i++) {
+      curve[i] = 10 + i * 1.5;
+    }
+
+    assertArrayEquals(new int[] {0, 50}, TransitionPlanner.defaults().planBrightness(curve));
+  }
+
+  @Test
+  void testPulseNeedsItsPeak() {
+    final double[] pulse = {10, 28, 46, 64, 82, 100, 82, 64, 46, 28, 10};
+
+    assertArrayEquals(new int[] {0, 5, 10}, TransitionPlanner.defaults().planBrightness(pulse));
+  }
+
+  @Test
+  void testColorFadeStaysWithinTolerance() {
+    final double[][] samples = colorFade(Color.of(255, 0, 0), Color.of(0, 0, 255), 50);
+    final TransitionPlanner planner = TransitionPlanner.defaults();
+
+    final int[] keyframes = planner.planColor(samples);
+
+    assertTrue(keyframes.length <= 10, keyframes.length + " keyframes");
+    assertEquals(0, keyframes[0]);
+    assertEquals(50, keyframes[keyframes.length - 1]);
+    for (int k = 1; k < keyframes.length; k++) {
+      final int from = keyframes[k - 1];
+      final int to = keyframes[k];
+      for (int i = from; i <= to; i++) {
+        final double ratio = (double) (i - from) / (to - from);
+        for (int d = 0; d < 3; d++) {
+          final double fade = samples[from][d] + (samples[to][d] - samples[from][d]) * ratio;
+          final double tolerance = d < 2 ? planner.getColorTolerance() : planner.getBrightnessTolerance();
+          assertTrue(Math.abs(samples[i][d] - fade) <= tolerance, "Step " + i + " strays from the fade");
+        }
+      }
+    }
+  }
+
+  @Test
+  void testTighterToleranceKeepsMoreKeyframes() {
+    final double[][] samples = colorFade(Color.of(255, 0, 0), Color.of(0, 0, 255), 50);
+
+    final int loose = TransitionPlanner.defaults().planColor(samples).length;
+    final int tight = TransitionPlanner.builder().colorTolerance(0.001).build().planColor(samples).length;
+
+    assertTrue(tight > loose, tight + " keyframes is not more than " + loose);
+  }
+
+  @Test
+  void testColorFadeEffectSendsOnlyKeyframes() throws Exception {
+    final RecordingLight light = new RecordingLight();
+    final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+    ColorFadeEffect.builder()
+        .light(light)
+        .fromColor(Color.of(255, 0, 0))
+        .toColor(Color.of(0, 0, 255))
+        .duration(Duration.ofMillis(500))
+        .steps(50)
+        .onComplete(() -> completed.complete(null))
+        .engine(engine)
+        .build()
+        .start();
+    completed.get(2, TimeUnit.SECONDS);
+
+    assertTrue(light.states.size() <= 10, light.states.size() + " requests");
+    final UpdateLight last = light.states.get(light.states.size() - 1);
+    final XAndYAndBrightness blue = XAndYAndBrightness.rgbToXy(Color.of(0, 0, 255));
+    assertEquals(blue.getX(), last.getColor().getXy().getX(), 0.0001);
+    assertNotNull(last.getDynamics());
+  }
+
+  private static double[][] colorFade(final Color from, final Color to, final int steps) {
+    final double[][] samples = new double[steps + 1][];
+    for (int i = 0; i <= steps; i++) {
+      final float ratio = (float) i / steps;
+      final Color color = Color.of(from.getRed() + (to.getRed() - from.getRed()) * ratio,
+          from.getGreen() + (to.getGreen() - from.getGreen()) * ratio,
+          from.getBlue() + (to.getBlue() - from.getBlue()) * ratio);
+      final XAndYAndBrightness xy = XAndYAndBrightness.rgbToXy(color);
+      samples[i] = new double[] {xy.getX(), xy.getY(), xy.getBrightnessMax100()};
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.greenstevester.heuvana.v2;
+
+import io.github.greenstevester.heuvana.v2.domain.UpdateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindBufferTest {
+
+  private final WriteBehindBuffer buffer = new WriteBehindBuffer();
+  private final List<UpdateState> sent = new CopyOnWriteArrayList<>();
+  private final Function<UpdateState, CompletableFuture<UpdateResult>> sender = state -> {
+    sent.add(state);
+    return CompletableFuture.completedFuture(new UpdateResult());
+  };
+
+  @AfterEach
+  void tearDown() {
+    buffer.close();
+  }
+
+  @Test
+  void testSendsImmediatelyWhenDisabled() {
+    UUID id = UUID.randomUUID();
+
+    buffer.submit(id, new UpdateState().brightness(10), sender).join();
+    buffer.submit(id, new UpdateState().brightness(20), sender).join();
+
+    assertEquals(2, sent.size());
+    assertEquals(0, buffer.getCoalescedCount());
+  }
+
+  @Test
+  void testCoalescesStateChangesWithinWindow() throws Exception {
+    buffer.setFlushWindow(Duration.ofMillis(100));
+    UUID id = UUID.randomUUID();
+
+    List<CompletableFuture<UpdateResult>> futures = List.of(
+        buffer.submit(id, new UpdateState().on(), sender),
+        buffer.submit(id, new UpdateState().brightness(10), sender),
+        buffer.submit(id, new UpdateState().brightness(30), sender));
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    assertEquals(1, sent.size());
+    assertTrue(sent.get(0).getUpdateLight().getOn().isOn());
+    assertEquals(30, sent.get(0).getUpdateLight().getDimming().getBrightness());
+    assertEquals(3, buffer.getSubmittedCount());
+    assertEquals(1, buffer.getFlushedCount());
+    assertEquals(2, buffer.getCoalescedCount());
+  }
+
+  @Test
+  void testKeepsResourcesApart() throws Exception {
+    buffer.setFlushWindow(Duration.ofMillis(50));
+
+    CompletableFuture.allOf(
+        buffer.submit(UUID.randomUUID(), new UpdateState().brightness(10), sender),
+        buffer.submit(UUID.randomUUID(), new UpdateState().brightness(20), sender)
+    ).get(5, TimeUnit.SECONDS);
+
+    assertEquals(2, sent.size());
+  }
+
+  @Test
+  void testInteractiveStateChangeFlushesImmediately() {
+    buffer.setFlushWindow(Duration.ofMinutes(1));
+    UUID id = UUID.randomUUID();
+
+    CompletableFuture<UpdateResult> brightness = buffer.submit(id, new UpdateState().brightness(10), sender);
+    CompletableFuture<UpdateResult> off = buffer.submit(id, new UpdateState().off().priority(CommandPriority.INTERACTIVE), sender);
+
+    assertTrue(brightness.isDone());
+    assertTrue(off.isDone());
+    assertEquals(1, sent.size());
+    assertFalse(sent.get(0).getUpdateLight().getOn().isOn());
+    assertEquals(CommandPriority.INTERACTIVE, sent.get(0).getPriority());
+  }
+
+  @Test
+  void testEarlyFlushDoesNotCutShortTheNextWindow() throws Exception {
+    buffer.setFlushWindow(Duration.ofMillis(500));
+    UUID id = UUID.randomUUID();
+
+    buffer.submit(id, new UpdateState().brightness(10), sender);
+    TimeUnit.MILLISECONDS.sleep(250);
+    buffer.submit(id, new UpdateState().off().priority(CommandPriority.INTERACTIVE), sender);
+    CompletableFuture<UpdateResult> next = buffer.submit(id, new UpdateState().brightness(20), sender);
+
+    // Past the end of the window of the first state change, but not of the window of the next one
+    TimeUnit.MILLISECONDS.sleep(375);
+    assertFalse(next.isDone());
+    next.get(5, TimeUnit.SECONDS);
+    assertEquals(2, sent.size());
+  }
+}
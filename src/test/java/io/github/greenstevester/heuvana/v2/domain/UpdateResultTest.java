@@ -0,0 +1,45 @@
+package io.github.greenstevester.heuvana.v2.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateResultTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void testSuccessfulResult() throws Exception {
+    String json = "{\"data\":[{\"rid\":\"4f0e9c0c-6f0a-4d5e-9a2b-2c8e2b9c1a01\",\"rtype\":\"light\"}],\"errors\":[]}";
+
+    UpdateResult result = mapper.readValue(json, UpdateResult.class);
+
+    assertTrue(result.isSuccess());
+    assertEquals(1, result.getData().size());
+    assertEquals(UUID.fromString("4f0e9c0c-6f0a-4d5e-9a2b-2c8e2b9c1a01"), result.getData().get(0).getResourceId());
+    assertEquals(ResourceType.LIGHT, result.getData().get(0).getResourceType());
+  }
+
+  @Test
+  void testResultWithErrors() throws Exception {
+    String json = "{\"data\":[],\"errors\":[{\"description\":\"device (light) is \\\"soft off\\\"\"}]}";
+
+    UpdateResult result = mapper.readValue(json, UpdateResult.class);
+
+    assertFalse(result.isSuccess());
+    assertTrue(result.getData().isEmpty());
+    assertEquals("device (light) is \"soft off\"", result.getErrors().get(0).getDescription());
+  }
+
+  @Test
+  void testMissingFieldsAreEmpty() throws Exception {
+    UpdateResult result = mapper.readValue("{}", UpdateResult.class);
+
+    assertTrue(result.isSuccess());
+    assertNotNull(result.getData());
+    assertNotNull(result.getErrors());
+  }
+}
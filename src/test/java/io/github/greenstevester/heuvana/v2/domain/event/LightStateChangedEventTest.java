@@ -0,0 +1,73 @@
+package io.github.greenstevester.heuvana.v2.domain.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.heuvana.v2.HttpUtil;
+import io.github.greenstevester.heuvana.v2.domain.HueEventData;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LightStateChangedEventTest {
+
+  private final ObjectMapper mapper = HttpUtil.buildObjectMapper(null);
+
+  @Test
+  void testColorChangeCarriesOnlyTheChangedFields() throws Exception {
+    HueEventData data = mapper.readValue("{\"color\":{\"xy\":{\"x\":0.4573,\"y\":0.41}}," +
+        "\"dimming\":{\"brightness\":67.98}," +
+        "\"id\":\"f3f0b1c4-2d6e-4d3c-8e1a-6a7b2c9d0e11\"," +
+        "\"owner\":{\"rid\":\"9a3b2c1d-5e6f-4a7b-8c9d-0e1f2a3b4c5d\",\"rtype\":\"device\"},\"type\":\"light\"}",
+        HueEventData.class);
+    UUID eventGroupId = UUID.randomUUID();
+
+    assertTrue(LightStateChangedEvent.isLightStateChange(data));
+    LightStateChangedEvent event = new LightStateChangedEvent("2024-03-02T18:44:03Z", eventGroupId, data);
+
+    assertEquals("2024-03-02T18:44:03Z", event.getEventTime());
+    assertEquals(eventGroupId, event.getEventGroupId());
+    assertEquals(UUID.fromString("f3f0b1c4-2d6e-4d3c-8e1a-6a7b2c9d0e11"), event.getResourceId());
+    assertFalse(event.isGroupedLight());
+    assertEquals(0.4573f, event.getColor().get().getXy().getX(), 0.0001f);
+    assertTrue(event.getDimming().isPresent());
+    assertFalse(event.getOn().isPresent());
+    assertFalse(event.getColorTemperature().isPresent());
+    assertFalse(event.getGradient().isPresent());
+  }
+
+  @Test
+  void testGroupedLightWithColorTemperatureDynamicsAndEffects() throws Exception {
+    HueEventData data = mapper.readValue("{\"color_temperature\":{\"mirek\":366,\"mirek_valid\":true}," +
+        "\"dynamics\":{\"speed\":0.5,\"speed_valid\":true,\"status\":\"dynamic_palette\"}," +
+        "\"effects\":{\"status\":\"candle\"}," +
+        "\"id\":\"c1d2e3f4-a5b6-4c7d-8e9f-0a1b2c3d4e5f\",\"type\":\"grouped_light\"}", HueEventData.class);
+
+    LightStateChangedEvent event = new LightStateChangedEvent(null, null, data);
+
+    assertTrue(event.isGroupedLight());
+    assertEquals(366, event.getColorTemperature().get().getMirek());
+    assertEquals("dynamic_palette", event.getDynamics().get().getStatus());
+    assertTrue(event.getEffects().isPresent());
+  }
+
+  @Test
+  void testGradientChange() throws Exception {
+    HueEventData data = mapper.readValue("{\"gradient\":{\"points\":[{\"color\":{\"xy\":{\"x\":0.6,\"y\":0.3}}}]," +
+        "\"points_capable\":5},\"id\":\"1c2d3e4f-5a6b-4c7d-8e9f-0a1b2c3d4e5f\",\"type\":\"light\"}",
+        HueEventData.class);
+
+    assertTrue(LightStateChangedEvent.isLightStateChange(data));
+    assertEquals(1, new LightStateChangedEvent(null, null, data).getGradient().get().getPoints().size());
+  }
+
+  @Test
+  void testOtherChangesAreNotLightStateChanges() throws Exception {
+    HueEventData motion = mapper.readValue("{\"motion\":{\"motion\":true},\"type\":\"motion\"}", HueEventData.class);
+    HueEventData renamed = mapper.readValue("{\"metadata\":{\"name\":\"Desk\"},\"type\":\"light\"}",
+        HueEventData.class);
+
+    assertFalse(LightStateChangedEvent.isLightStateChange(motion));
+    assertFalse(LightStateChangedEvent.isLightStateChange(renamed));
+  }
+}
@@ -128,4 +128,67 @@ class UpdateLightTest {
     assertTrue(json.contains("\"on\""));
     assertTrue(json.contains("\"brightness\":80"));
   }
+
+  @Test
+  void testMergeCombinesSeparateFields() {
+    UpdateLight merged = new UpdateLight().setOn(new On(true))
+        .merge(new UpdateLight().setColor(new Color().setXy(new io.github.greenstevester.heuvana.v2.domain.Xy().setX(0.3f).setY(0.4f))));
+
+    assertTrue(merged.getOn().isOn());
+    assertNotNull(merged.getColor());
+  }
+
+  @Test
+  void testMergeLaterDimmingReplacesEarlier() {
+    UpdateLight merged = new UpdateLight()
+        .setDimming(new Dimming().setBrightness(20))
+        .setDimmingDelta(new DimmingDelta().setAction(DeltaAction.UP).setBrightnessDelta(5))
+        .merge(new UpdateLight().setDimming(new Dimming().setBrightness(60)));
+
+    assertEquals(60, merged.getDimming().getBrightness());
+    assertNull(merged.getDimmingDelta());
+  }
+
+  @Test
+  void testMergeAppliesDimmingDeltaToAbsoluteBrightness() {
+    UpdateLight merged = new UpdateLight().setDimming(new Dimming().setBrightness(50))
+        .merge(new UpdateLight().setDimmingDelta(new DimmingDelta().setAction(DeltaAction.DOWN).setBrightnessDelta(20)));
+
+    assertEquals(30, merged.getDimming().getBrightness());
+    assertNull(merged.getDimmingDelta());
+  }
+
+  @Test
+  void testMergeAddsDimmingDeltas() {
+    UpdateLight merged = new UpdateLight()
+        .setDimmingDelta(new DimmingDelta().setAction(DeltaAction.UP).setBrightnessDelta(10))
+        .merge(new UpdateLight().setDimmingDelta(new DimmingDelta().setAction(DeltaAction.DOWN).setBrightnessDelta(25)));
+
+    assertEquals(DeltaAction.DOWN, merged.getDimmingDelta().getAction());
+    assertEquals(15, merged.getDimmingDelta().getBrightnessDelta());
+  }
+
+  @Test
+  void testMergeColorAndColorTemperatureExcludeEachOther() {
+    UpdateLight withColor = new UpdateLight().setColorTemperature(new ColorTemperature().setMirek(300))
+        .merge(new UpdateLight().setColor(new Color().setXy(new io.github.greenstevester.heuvana.v2.domain.Xy().setX(0.3f).setY(0.4f))));
+    assertNotNull(withColor.getColor());
+    assertNull(withColor.getColorTemperature());
+
+    UpdateLight withTemperature = withColor.merge(new UpdateLight().setColorTemperature(new ColorTemperature().setMirek(250)));
+    assertNull(withTemperature.getColor());
+    assertEquals(250, withTemperature.getColorTemperature().getMirek());
+  }
+
+  @Test
+  void testMergeAppliesColorTemperatureDeltaWithinBounds() {
+    ColorTemperatureDelta delta = new ColorTemperatureDelta().setAction(DeltaAction.UP).setMirekDelta(100);
+    UpdateLight newer = new UpdateLight();
+    newer.setColorTemperatureDelta(delta);
+
+    UpdateLight merged = new UpdateLight().setColorTemperature(new ColorTemperature().setMirek(450)).merge(newer);
+
+    assertEquals(500, merged.getColorTemperature().getMirek());
+    assertNull(merged.getColorTemperatureDelta());
+  }
 }